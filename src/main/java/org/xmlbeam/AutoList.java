@@ -17,13 +17,21 @@ package org.xmlbeam;
 
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Set;
 
+import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
 
 import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -33,6 +41,7 @@ import org.xmlbeam.evaluation.InvocationContext;
 import org.xmlbeam.intern.DOMChangeListener;
 import org.xmlbeam.types.XBAutoList;
 import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.duplex.NativeLocationPath;
 
 /**
  *
@@ -73,7 +82,24 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
                 content.add(nodes.item(i));
             }
         }
+
+        @Override
+        boolean isAffectedBy(final Node element) {
+            if (!isChangeScopeCompiled) {
+                final XPath xPath = invocationContext.getxPath();
+                changeScope = NativeLocationPath.compile(invocationContext.getDuplexExpression(), xPath == null ? null : xPath.getNamespaceContext());
+                isChangeScopeCompiled = true;
+            }
+            return (changeScope == null) || changeScope.isAffectedBy(baseNode, element);
+        }
     };
+    /**
+     * The path of the list, if it can tell which changes affect the list. Changes of the list
+     * itself are applied to the content directly, all other changes of the document are checked
+     * against this path to avoid evaluating the list again.
+     */
+    private NativeLocationPath changeScope;
+    private boolean isChangeScopeCompiled;
 
     /**
      * @param baseNode
@@ -82,7 +108,7 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
     public AutoList(final Node baseNode, final InvocationContext invocationContext) {
         this.invocationContext = invocationContext;
         this.baseNode = baseNode;
-        this.invocationContext.getProjector().addDOMChangeListener(this);
+        this.domChangeTracker.track(baseNode);
     }
 
     @Override
@@ -114,21 +140,14 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
         }
         Node oldNode = content.get(index);
         E result = DefaultXPathEvaluator.convertToComponentType(invocationContext, oldNode, invocationContext.getTargetComponentType());
-        if (element instanceof Node) {
-            Node newNode = ((Node) element).cloneNode(true);
-            oldNode.getParentNode().replaceChild(oldNode, newNode);
+        if ((element instanceof Node) || (element instanceof DOMAccess)) {
+            final Node newNode = cloneNode(element);
+            oldNode.getParentNode().replaceChild(newNode, oldNode);
             content.set(index, newNode);
-            return result;
+        } else {
+            oldNode.setTextContent(render(element));
         }
-        if (element instanceof DOMAccess) {
-            Node newNode = ((DOMAccess) element).getDOMBaseElement().cloneNode(true);
-            oldNode.getParentNode().replaceChild(oldNode, newNode);
-            content.set(index, newNode);
-            return result;
-        }
-
-        final String asString = invocationContext.getProjector().config().getStringRenderer().render(element.getClass(), element, invocationContext.getDuplexExpression().getExpressionFormatPattern());
-        oldNode.setTextContent(asString);
+        domChangeTracker.acceptOwnChanges();
         return result;
     }
 
@@ -137,26 +156,7 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
         if (e == null) {
             return false;
         }
-        if (parent == null) {
-            domChangeTracker.domChanged();
-        }
-        domChangeTracker.refreshForWriteIfNeeded();
-
-        if (e instanceof Node) {
-            content.add(DOMHelper.appendClone(parent, (Node) e));
-            return true;
-        }
-        if (e instanceof DOMAccess) {
-            content.add(DOMHelper.appendClone(parent, ((DOMAccess) e).getDOMBaseElement()));
-            return true;
-        }
-
-        Node newElement = invocationContext.getDuplexExpression().createChildWithPredicate(parent);
-        final String asString = invocationContext.getProjector().config().getStringRenderer().render(e.getClass(), e, invocationContext.getDuplexExpression().getExpressionFormatPattern());
-        newElement.setTextContent(asString);
-        parent.appendChild(newElement);
-        content.add(newElement);
-        return true;
+        return addAll(Collections.singletonList(e));
     }
 
     @Override
@@ -164,38 +164,74 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
         if (o == null) {
             throw new IllegalArgumentException("Can not add null to a ProjectedList. I don't know how to render that.");
         }
+        addAll(index, Collections.singletonList(o));
+    }
 
+    /**
+     * Add all elements with one DOM insertion. Null elements are skipped.
+     */
+    @Override
+    public boolean addAll(final Collection<? extends E> c) {
+        if (parent == null) {
+            domChangeTracker.domChanged();
+        }
         domChangeTracker.refreshForWriteIfNeeded();
+        return insertAll(content.size(), c);
+    }
 
+    /**
+     * Insert all elements with one DOM insertion. Null elements are skipped.
+     */
+    @Override
+    public boolean addAll(final int index, final Collection<? extends E> c) {
+        if (parent == null) {
+            domChangeTracker.domChanged();
+        }
+        domChangeTracker.refreshForWriteIfNeeded();
         if ((index < 0) || (index > content.size())) {
             throw new IndexOutOfBoundsException();
         }
+        return insertAll(index, c);
+    }
 
-        if (index == content.size()) {
-            add(o);
-            return;
+    private boolean insertAll(final int index, final Collection<? extends E> c) {
+        final DocumentFragment fragment = DOMHelper.getOwnerDocumentFor(parent).createDocumentFragment();
+        final List<Node> newNodes = new ArrayList<Node>(c.size());
+        for (E e : c) {
+            if (e == null) {
+                continue;
+            }
+            final Node newNode = ((e instanceof Node) || (e instanceof DOMAccess)) ? cloneNode(e) : invocationContext.getDuplexExpression().createChildWithPredicate(fragment);
+            if (newNode.getParentNode() != fragment) {
+                fragment.appendChild(newNode);
+            }
+            if (!((e instanceof Node) || (e instanceof DOMAccess))) {
+                newNode.setTextContent(render(e));
+            }
+            newNodes.add(newNode);
         }
-
-        Node previousNode = content.get(index);
-
-        if (o instanceof Node) {
-            Node newValue = ((Node) o).cloneNode(true);
-            previousNode.getParentNode().insertBefore(newValue, previousNode);
-            content.add(index, newValue);
-            return;
+        if (newNodes.isEmpty()) {
+            return false;
         }
-        if (o instanceof DOMAccess) {
-            Node newValue = ((DOMAccess) o).getDOMBaseElement().cloneNode(true);
-            previousNode.getParentNode().insertBefore(newValue, previousNode);
-            content.add(index, newValue);
-            return;
+        if (index == content.size()) {
+            parent.appendChild(fragment);
+        } else {
+            final Node next = content.get(index);
+            next.getParentNode().insertBefore(fragment, next);
         }
+        content.addAll(index, newNodes);
+        domChangeTracker.acceptOwnChanges();
+        return true;
+    }
+
+    private Node cloneNode(final Object value) {
+        final Node clone = (value instanceof DOMAccess ? ((DOMAccess) value).getDOMBaseElement() : (Node) value).cloneNode(true);
+        DOMHelper.ensureOwnership(DOMHelper.getOwnerDocumentFor(baseNode), clone);
+        return clone;
+    }
 
-        Node newElement = invocationContext.getDuplexExpression().createChildWithPredicate(parent);
-        final String asString = invocationContext.getProjector().config().getStringRenderer().render(o.getClass(), o, invocationContext.getDuplexExpression().getExpressionFormatPattern());
-        newElement.setTextContent(asString);
-        parent.insertBefore(newElement, previousNode);
-        content.add(index, newElement);
+    private String render(final Object value) {
+        return invocationContext.getProjector().config().getStringRenderer().render(value.getClass(), value, invocationContext.getDuplexExpression().getExpressionFormatPattern());
     }
 
     @Override
@@ -207,6 +243,7 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
             p.removeChild(remove);
             DOMHelper.trim(p);
         }
+        domChangeTracker.acceptOwnChanges();
         return result;
 
     };
@@ -241,12 +278,13 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
                     p.removeChild((Node) o);
                 }
                 DOMHelper.trim(p);
+                domChangeTracker.acceptOwnChanges();
             }
 
             return changed;
         }
 
-        final String asString = invocationContext.getProjector().config().getStringRenderer().render(o.getClass(), o, invocationContext.getDuplexExpression().getExpressionFormatPattern());
+        final String asString = render(o);
         if (asString == null) {
             return false;
         }
@@ -261,11 +299,128 @@ class AutoList<E> extends AbstractList<E> implements XBAutoList<E>, DOMChangeLis
             parentNode.removeChild(item);
             DOMHelper.trim(parentNode);
             i.remove();
+            domChangeTracker.acceptOwnChanges();
             return true;
         }
         return false;
     }
 
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        return removeIf(c, true);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        return removeIf(c, false);
+    }
+
+    @Override
+    public void clear() {
+        removeIf(null, false);
+    }
+
+    /**
+     * Remove the nodes of the elements contained or not contained in the given collection. The
+     * parents are trimmed once after all removals.
+     *
+     * @param c
+     *            null for all elements
+     */
+    private boolean removeIf(final Collection<?> c, final boolean isContained) {
+        domChangeTracker.refreshForReadIfNeeded();
+        final List<Node> retained = new ArrayList<Node>(content.size());
+        final Set<Node> parents = new LinkedHashSet<Node>();
+        for (Node node : content) {
+            final boolean isRemoved = (c == null) || (c.contains(DefaultXPathEvaluator.convertToComponentType(invocationContext, node, invocationContext.getTargetComponentType())) == isContained);
+            final Node parentNode = node.getParentNode();
+            if (!isRemoved) {
+                retained.add(node);
+            } else if (parentNode != null) {
+                parentNode.removeChild(node);
+                parents.add(parentNode);
+            }
+        }
+        if (retained.size() == content.size()) {
+            return false;
+        }
+        for (Node parentNode : parents) {
+            DOMHelper.trim(parentNode);
+        }
+        content.clear();
+        content.addAll(retained);
+        domChangeTracker.acceptOwnChanges();
+        return true;
+    }
+
+    /**
+     * Sort the list by moving the nodes, so each node keeps its attributes and children. The
+     * sorted nodes take the places of the original nodes. Adjacent nodes of one parent are moved
+     * with one DOM insertion.
+     *
+     * @param c
+     *            comparator, null for the natural order
+     */
+    @SuppressWarnings("unchecked")
+    public void sort(final Comparator<? super E> c) {
+        domChangeTracker.refreshForReadIfNeeded();
+        final int size = content.size();
+        if (size < 2) {
+            return;
+        }
+        final List<E> values = new ArrayList<E>(size);
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; ++i) {
+            values.add(DefaultXPathEvaluator.<E> convertToComponentType(invocationContext, content.get(i), invocationContext.getTargetComponentType()));
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                final E valueA = values.get(a);
+                final E valueB = values.get(b);
+                return c == null ? ((Comparable<Object>) valueA).compareTo(valueB) : c.compare(valueA, valueB);
+            }
+        });
+        final List<Node> sorted = new ArrayList<Node>(size);
+        for (Integer i : order) {
+            sorted.add(content.get(i));
+        }
+        if (isAdjacent(content)) {
+            final Node first = content.get(0);
+            final Node next = content.get(size - 1).getNextSibling();
+            final Node parentNode = first.getParentNode();
+            final DocumentFragment fragment = first.getOwnerDocument().createDocumentFragment();
+            for (Node node : sorted) {
+                fragment.appendChild(node);
+            }
+            parentNode.insertBefore(fragment, next);
+        } else {
+            // Keep the places with placeholders while the nodes are moved.
+            final Document document = DOMHelper.getOwnerDocumentFor(baseNode);
+            final Node[] places = new Node[size];
+            for (int i = 0; i < size; ++i) {
+                places[i] = document.createTextNode("");
+                content.get(i).getParentNode().replaceChild(places[i], content.get(i));
+            }
+            for (int i = 0; i < size; ++i) {
+                places[i].getParentNode().replaceChild(sorted.get(i), places[i]);
+            }
+        }
+        content.clear();
+        content.addAll(sorted);
+        domChangeTracker.acceptOwnChanges();
+    }
+
+    private static boolean isAdjacent(final List<Node> nodes) {
+        for (int i = 1; i < nodes.size(); ++i) {
+            if (nodes.get(i - 1).getNextSibling() != nodes.get(i)) {
+                return false;
+            }
+        }
+        return nodes.get(0).getParentNode() != null;
+    }
+
     @Override
     public int indexOf(final Object o) {
         if (!(o instanceof Node)) {
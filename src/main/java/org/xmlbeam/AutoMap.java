@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
+import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
@@ -40,8 +41,8 @@ import org.xmlbeam.types.TypeConverter;
 import org.xmlbeam.types.XBAutoList;
 import org.xmlbeam.types.XBAutoMap;
 import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
 import org.xmlbeam.util.intern.duplex.DuplexExpression;
-import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
 import org.xmlbeam.util.intern.duplex.ExpressionType;
 
 /**
@@ -77,6 +78,12 @@ public class AutoMap<T> extends AbstractMap<String, T> implements XBAutoMap<T>,
     };
 
     private final Class<?> valueType;
+    /**
+     * XPath instance used for compiling the relative paths, recreated when the namespace mapping
+     * of the document changes.
+     */
+    private XPath xPath;
+    private Map<String, String> xPathNamespaceMapping;
 
     /**
      * @param baseNode
@@ -87,11 +94,33 @@ public class AutoMap<T> extends AbstractMap<String, T> implements XBAutoMap<T>,
     public AutoMap(final Node baseNode, final InvocationContext invocationContext, final Class<?> valueType) {
         this.invocationContext = invocationContext;
         this.baseNode = baseNode;
-        this.invocationContext.getProjector().addDOMChangeListener(domChangeTracker);
+        this.domChangeTracker.track(baseNode);
         this.typeConverter = invocationContext.getProjector().config().getTypeConverter();
         this.valueType = valueType;
     }
 
+    /**
+     * Relative paths are compiled once per projector, so repeated keys cost a cache lookup.
+     *
+     * @param document
+     * @param duplexExpression
+     * @param targetType
+     * @return compiled expression
+     * @throws XPathExpressionException
+     */
+    private XPathExpression compile(final Document document, final DuplexExpression duplexExpression, final Class<?> targetType) throws XPathExpressionException {
+        final Map<String, String> namespaceMapping = DocumentIndex.getNamespaceMapping(document);
+        if ((xPath == null) || (namespaceMapping != xPathNamespaceMapping)) {
+            xPath = invocationContext.getProjector().config().createXPath(document);
+            xPathNamespaceMapping = namespaceMapping;
+        }
+        final XPathCache xPathCache = invocationContext.getProjector().getXPathCache();
+        if (duplexExpression.isUsingVariables()) {
+            return xPathCache.compile(xPath, duplexExpression, false);
+        }
+        return xPathCache.getXPathExpression(xPath, duplexExpression, targetType, false);
+    }
+
     /**
      * @see java.util.AbstractMap#clear()
      */
@@ -144,9 +173,9 @@ public class AutoMap<T> extends AbstractMap<String, T> implements XBAutoMap<T>,
         }
 
         final Document document = DOMHelper.getOwnerDocumentFor(baseNode);
-        final DuplexExpression duplexExpression = new DuplexXPathParser(invocationContext.getProjector().config().getUserDefinedNamespaceMapping()).compile(path);
+        final DuplexExpression duplexExpression = invocationContext.getProjector().getXPathCache().getDuplexExpression(path.toString());
         try {
-            final XPathExpression expression = invocationContext.getProjector().config().createXPath(document).compile(duplexExpression.getExpressionAsStringWithoutFormatPatterns());
+            final XPathExpression expression = compile(document, duplexExpression, asType);
             Node prevNode = (Node) expression.evaluate(boundNode, XPathConstants.NODE);
             InvocationContext tempContext = new InvocationContext(invocationContext.getResolvedXPath(), invocationContext.getxPath(), expression, duplexExpression, null, asType, invocationContext.getProjector());
             final E value = DefaultXPathEvaluator.convertToComponentType(tempContext, prevNode, asType);
@@ -182,9 +211,9 @@ public class AutoMap<T> extends AbstractMap<String, T> implements XBAutoMap<T>,
             return AutoList.emptyList();
         }
         final Document document = DOMHelper.getOwnerDocumentFor(baseNode);
-        final DuplexExpression duplexExpression = new DuplexXPathParser(invocationContext.getProjector().config().getUserDefinedNamespaceMapping()).compile(path);
+        final DuplexExpression duplexExpression = invocationContext.getProjector().getXPathCache().getDuplexExpression(path.toString());
         try {
-            final XPathExpression expression = invocationContext.getProjector().config().createXPath(document).compile(duplexExpression.getExpressionAsStringWithoutFormatPatterns());
+            final XPathExpression expression = compile(document, duplexExpression, oType);
             final InvocationContext tempContext = new InvocationContext(invocationContext.getResolvedXPath(), invocationContext.getxPath(), expression, duplexExpression, null, oType, invocationContext.getProjector());
             return new AutoList<E>(boundNode, tempContext);
         } catch (XPathExpressionException e) {
@@ -250,12 +279,12 @@ public class AutoMap<T> extends AbstractMap<String, T> implements XBAutoMap<T>,
         domChangeTracker.refreshForWriteIfNeeded();
         assert boundNode != null : "Bound node does not exist. No evaluation possible";
         final Document document = DOMHelper.getOwnerDocumentFor(baseNode);
-        final DuplexExpression duplexExpression = new DuplexXPathParser(invocationContext.getProjector().config().getUserDefinedNamespaceMapping()).compile(path);
+        final DuplexExpression duplexExpression = invocationContext.getProjector().getXPathCache().getDuplexExpression(path.toString());
         if ((ExpressionType.ATTRIBUTE == duplexExpression.getExpressionType()) && ProjectionInvocationHandler.isStructureChangingType(valueType)) {
             throw new IllegalArgumentException("Value of type " + valueType + "can not be written to XML attributes. Choose a different xpath expression or use a different map component type");
         }
         try {
-            final XPathExpression expression = invocationContext.getProjector().config().createXPath(document).compile(duplexExpression.getExpressionAsStringWithoutFormatPatterns());
+            final XPathExpression expression = compile(document, duplexExpression, invocationContext.getTargetComponentType());
             Node prevNode = (Node) expression.evaluate(boundNode, XPathConstants.NODE);
             final T previousValue = DefaultXPathEvaluator.convertToComponentType(invocationContext, prevNode, invocationContext.getTargetComponentType());
             if (ProjectionInvocationHandler.isStructureChangingValue(value)) {
@@ -315,9 +344,9 @@ public class AutoMap<T> extends AbstractMap<String, T> implements XBAutoMap<T>,
         domChangeTracker.refreshForReadIfNeeded();
 
         final Document document = DOMHelper.getOwnerDocumentFor(baseNode);
-        final DuplexExpression duplexExpression = new DuplexXPathParser(invocationContext.getProjector().config().getUserDefinedNamespaceMapping()).compile(xpath);
+        final DuplexExpression duplexExpression = invocationContext.getProjector().getXPathCache().getDuplexExpression(xpath.toString());
         try {
-            final XPathExpression expression = invocationContext.getProjector().config().createXPath(document).compile(duplexExpression.getExpressionAsStringWithoutFormatPatterns());
+            final XPathExpression expression = compile(document, duplexExpression, invocationContext.getTargetComponentType());
             Node prevNode = (Node) expression.evaluate(boundNode, XPathConstants.NODE);
             if (prevNode == null) {
                 return null;
@@ -61,7 +61,7 @@ class AutoValue<E> implements XBAutoValue<E> {
     public AutoValue(final Node baseNode, final InvocationContext invocationContext) {
         this.baseNode = baseNode;
         this.invocationContext = invocationContext;
-        invocationContext.getProjector().addDOMChangeListener(domChangeTracker);
+        domChangeTracker.track(baseNode);
 
     }
 
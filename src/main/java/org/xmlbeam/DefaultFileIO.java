@@ -15,6 +15,8 @@
  */
 package org.xmlbeam;
 
+import java.util.concurrent.ExecutorService;
+
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
@@ -23,8 +25,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
@@ -38,7 +38,9 @@ import org.xmlbeam.exceptions.XBDocumentParsingException;
 import org.xmlbeam.exceptions.XBException;
 import org.xmlbeam.io.FileIO;
 import org.xmlbeam.io.StreamOutput;
+import org.xmlbeam.types.CloseableIterator;
 import org.xmlbeam.types.CloseableMap;
+import org.xmlbeam.types.RecordFunction;
 import org.xmlbeam.types.XBAutoMap;
 import org.xmlbeam.util.IOHelper;
 import org.xmlbeam.util.intern.DOMHelper;
@@ -93,13 +95,35 @@ class DefaultFileIO implements CanEvaluate, FileIO {
     @Override
     public <T> T read(final Class<T> projectionInterface) throws IOException {
         try {
-            Document document = projector.config().createDocumentBuilder().parse(file);
+            Document document = DOMHelper.getDocumentBuilder(projector).parse(file);
             return projector.projectDOMNode(document, projectionInterface);
         } catch (SAXException e) {
             throw new XBDocumentParsingException(e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> CloseableIterator<T> stream(final String recordPath, final Class<T> projectionInterface) throws IOException {
+        return new RecordIterator<T>(projector, new FileInputStream(file), file.toURI().toString(), recordPath, projectionInterface);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T, R> CloseableIterator<R> stream(final String recordPath, final Class<T> projectionInterface, final ExecutorService executor, final int capacity, final boolean ordered, final RecordFunction<? super T, ? extends R> function) throws IOException {
+        final RecordIterator<T> records = new RecordIterator<T>(projector, new FileInputStream(file), file.toURI().toString(), recordPath, projectionInterface);
+        try {
+            return new ParallelRecordIterator<T, R>(projector, records, projectionInterface, executor, capacity, ordered, function);
+        } catch (RuntimeException e) {
+            records.close();
+            throw e;
+        }
+    }
+
     /**
      * @param projection
      * @throws IOException
@@ -179,7 +203,7 @@ class DefaultFileIO implements CanEvaluate, FileIO {
                     if (failIfNotExists) {
                         throw new FileNotFoundException(file.getAbsolutePath());
                     }
-                    doc[0] = projector.config().createDocumentBuilder().newDocument();
+                    doc[0] = DOMHelper.getDocumentBuilder(projector).newDocument();
                 }
 
                 return doc[0];
@@ -192,7 +216,7 @@ class DefaultFileIO implements CanEvaluate, FileIO {
                 try {
                     FileOutputStream fileOutPutStream = new FileOutputStream(file);
                     DOMHelper.trim(doc[0]);
-                    projector.config().createTransformer().transform(new DOMSource(doc[0]), new StreamResult(fileOutPutStream));
+                    DOMHelper.writeXML(projector, doc[0], fileOutPutStream);
                     fileOutPutStream.flush();
                     fileOutPutStream.close();
                 } catch (TransformerException e) {
@@ -218,9 +242,9 @@ class DefaultFileIO implements CanEvaluate, FileIO {
         final Document[] document = new Document[1];
         try {
             if (file.exists()) {
-                document[0] = projector.config().createDocumentBuilder().parse(file);
+                document[0] = DOMHelper.getDocumentBuilder(projector).parse(file);
             } else {
-                document[0] = projector.config().createDocumentBuilder().newDocument();
+                document[0] = DOMHelper.getDocumentBuilder(projector).newDocument();
             }
             InvocationContext invocationContext = new InvocationContext(null, null, null, null, null, valueType, projector);
             return new DefaultFileMap<T>(document[0], invocationContext, new Closeable() {
@@ -231,7 +255,7 @@ class DefaultFileIO implements CanEvaluate, FileIO {
                     try {
                         FileOutputStream fileOutPutStream = new FileOutputStream(file);
                         DOMHelper.trim(doc);
-                        projector.config().createTransformer().transform(new DOMSource(doc), new StreamResult(fileOutPutStream));
+                        DOMHelper.writeXML(projector, doc, fileOutPutStream);
                         fileOutPutStream.flush();
                         fileOutPutStream.close();
                     } catch (TransformerException e) {
@@ -254,7 +278,7 @@ class DefaultFileIO implements CanEvaluate, FileIO {
     public <T> XBAutoMap<T> readAsMapOf(final Class<T> valueType) throws IOException {
         DefaultXPathBinder.validateEvaluationType(valueType);
         try {
-            Document document = projector.config().createDocumentBuilder().parse(file);
+            Document document = DOMHelper.getDocumentBuilder(projector).parse(file);
             InvocationContext invocationContext = new InvocationContext(null, null, null, null, null, valueType, projector);
             return new AutoMap<T>(document, invocationContext, valueType);
         } catch (SAXException e) {
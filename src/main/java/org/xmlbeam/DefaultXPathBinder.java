@@ -21,6 +21,7 @@ import java.util.Date;
 import java.io.Closeable;
 import java.io.IOException;
 
+import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 
@@ -35,7 +36,6 @@ import org.xmlbeam.types.CloseableMap;
 import org.xmlbeam.types.CloseableValue;
 import org.xmlbeam.util.intern.ReflectionHelper;
 import org.xmlbeam.util.intern.duplex.DuplexExpression;
-import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
 
 /**
  * This class is used to provide an fluid interface for direct evaluation of XPath expressions.
@@ -61,7 +61,7 @@ public final class DefaultXPathBinder implements XPathBinder {
     public DefaultXPathBinder(final XBProjector projector, final DocumentResolver documentProvider, final String xpath, final Closeable documentWriter) {
         this.projector = projector;
         this.documentProvider = documentProvider;
-        this.duplexExpression = new DuplexXPathParser(projector.config().getUserDefinedNamespaceMapping()).compile(xpath);
+        this.duplexExpression = projector.getXPathCache().getDuplexExpression(xpath);
         this.documentWriter = documentWriter;
     }
 
@@ -126,12 +126,20 @@ public final class DefaultXPathBinder implements XPathBinder {
         return bindSingeValue(returnType, callerClass);
     }
 
+    private XPathExpression compile(final Document document, final Class<?> targetType) throws XPathExpressionException {
+        final XPath xPath = projector.config().createXPath(document);
+        if (duplexExpression.isUsingVariables()) {
+            return xPath.compile(duplexExpression.getExpressionAsStringWithoutFormatPatterns());
+        }
+        return projector.getXPathCache().getXPathExpression(xPath, duplexExpression, targetType, false);
+    }
+
     private <T> CloseableValue<T> bindSingeValue(final Class<T> returnType, final Class<?> callerClass) {
         validateEvaluationType(returnType);
         try {
             Document document = documentProvider.resolve(returnType, callerClass);
 
-            XPathExpression expression = projector.config().createXPath(document).compile(duplexExpression.getExpressionAsStringWithoutFormatPatterns());
+            XPathExpression expression = compile(document, returnType);
 
             InvocationContext invocationContext = new InvocationContext(duplexExpression.getExpressionAsStringWithoutFormatPatterns(), //
                     null, expression, duplexExpression, null, returnType, projector);
@@ -179,7 +187,7 @@ public final class DefaultXPathBinder implements XPathBinder {
         try {
             Document document = documentProvider.resolve(componentType, callerClass);
 
-            XPathExpression expression = projector.config().createXPath(document).compile(duplexExpression.getExpressionAsStringWithoutFormatPatterns());
+            XPathExpression expression = compile(document, componentType);
 
             InvocationContext invocationContext = new InvocationContext(duplexExpression.getExpressionAsStringWithoutFormatPatterns(), //
                     null, expression, duplexExpression, null, componentType, projector);
@@ -15,25 +15,93 @@
  */
 package org.xmlbeam;
 
+import java.util.List;
+
 import javax.xml.xpath.XPathExpressionException;
 
+import org.w3c.dom.Node;
 import org.xmlbeam.exceptions.XBException;
 import org.xmlbeam.intern.DOMChangeListener;
+import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
 
 /**
- *
+ * Decides when the nodes bound by an AutoList, AutoMap or AutoValue must be evaluated again. This
+ * is the case after {@link #domChanged()} or after a change of the tracked document that affects
+ * the bound nodes, see {@link #isAffectedBy(Node)}. Changes are detected by the mutation log of
+ * the document. Documents without mutation events are evaluated again after each write of a
+ * projection, detected by comparing the modification count of the document.
  */
 abstract class DomChangeTracker implements DOMChangeListener {
 
     private boolean needRefresh = true;
+    private DocumentIndex documentIndex;
+    private long modificationCount;
+    private long mutationCount;
+
+    /**
+     * Track writes to the document of the given node.
+     *
+     * @param node
+     */
+    void track(final Node node) {
+        this.documentIndex = DocumentIndex.forDocument(DOMHelper.getOwnerDocumentFor(node));
+        documentIndex.observe();
+    }
 
     @Override
     public void domChanged() {
         needRefresh = true;
     }
 
-    void refreshForReadIfNeeded() {
+    private boolean isRefreshNeeded() {
         if (needRefresh) {
+            return true;
+        }
+        if (documentIndex == null) {
+            return false;
+        }
+        final long mutations = documentIndex.getMutationCount();
+        if (mutations < 0) {
+            return documentIndex.getModificationCount() != modificationCount;
+        }
+        if (mutations == mutationCount) {
+            return false;
+        }
+        final List<Node> changed = documentIndex.getChangedElements(mutationCount);
+        if (changed == null) {
+            return true;
+        }
+        for (Node element : changed) {
+            if (isAffectedBy(element)) {
+                return true;
+            }
+        }
+        mutationCount = mutations;
+        return false;
+    }
+
+    /**
+     * @param element
+     *            element or document whose children, attributes or text changed
+     * @return true if the change may affect the bound nodes. Always true unless overridden.
+     */
+    boolean isAffectedBy(final Node element) {
+        return true;
+    }
+
+    /**
+     * Called after the owner changed the document itself and updated its state already, so these
+     * changes do not cause a refresh.
+     */
+    void acceptOwnChanges() {
+        if (!needRefresh && (documentIndex != null)) {
+            mutationCount = documentIndex.getMutationCount();
+        }
+    }
+
+    void refreshForReadIfNeeded() {
+        if (isRefreshNeeded()) {
             invokeRefresh(false);
         }
     }
@@ -41,7 +109,7 @@ abstract class DomChangeTracker implements DOMChangeListener {
     abstract void refresh(boolean b) throws XPathExpressionException;
 
     void refreshForWriteIfNeeded() {
-        if (needRefresh) {
+        if (isRefreshNeeded()) {
             invokeRefresh(true);
         }
     }
@@ -49,6 +117,11 @@ abstract class DomChangeTracker implements DOMChangeListener {
     private void invokeRefresh(boolean b) {
         try {
             refresh(b);
+            if (documentIndex != null) {
+                // Counted after the refresh, which may have created missing nodes.
+                modificationCount = documentIndex.getModificationCount();
+                mutationCount = documentIndex.getMutationCount();
+            }
             needRefresh = false;
         } catch (XPathExpressionException e) {
             needRefresh = true;
@@ -0,0 +1,154 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathVariableResolver;
+
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.util.intern.duplex.NativeExpression;
+
+/**
+ * Evaluates an expression natively if the context is a DOM node. Node and node set results are
+ * delegated to the JAXP expression if the expression does not select nodes, so JAXP reports the
+ * error. Expressions evaluated with variable values not supported natively are delegated, too.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+final class NativeXPathExpression implements XPathExpression {
+
+    private static final class NodeListView implements NodeList {
+        private final List<Node> nodes;
+
+        NodeListView(final List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public Node item(final int index) {
+            return (index < 0) || (index >= nodes.size()) ? null : nodes.get(index);
+        }
+
+        @Override
+        public int getLength() {
+            return nodes.size();
+        }
+    }
+
+    private final String expression;
+    private final NativeExpression nativeExpression;
+    private final XPathExpression jaxpExpression;
+    private final XPathVariableResolver variableResolver;
+    private final boolean verify;
+
+    /**
+     * @param expression
+     *            expression string for error messages
+     * @param nativeExpression
+     *            native evaluator
+     * @param jaxpExpression
+     *            the same expression compiled by JAXP
+     * @param variableResolver
+     *            may be null
+     * @param verify
+     *            evaluate with JAXP, too, and fail if the results differ
+     */
+    NativeXPathExpression(final String expression, final NativeExpression nativeExpression, final XPathExpression jaxpExpression, final XPathVariableResolver variableResolver, final boolean verify) {
+        this.expression = expression;
+        this.nativeExpression = nativeExpression;
+        this.jaxpExpression = jaxpExpression;
+        this.variableResolver = variableResolver;
+        this.verify = verify;
+    }
+
+    @Override
+    public Object evaluate(final Object item, final QName returnType) throws XPathExpressionException {
+        if (!(item instanceof Node)) {
+            return jaxpExpression.evaluate(item, returnType);
+        }
+        final Object value = nativeExpression.evaluate((Node) item, variableResolver);
+        if (value == null) {
+            return jaxpExpression.evaluate(item, returnType);
+        }
+        final Object result;
+        if (XPathConstants.NODE.equals(returnType) || XPathConstants.NODESET.equals(returnType)) {
+            if (!NativeExpression.isNodeList(value)) {
+                return jaxpExpression.evaluate(item, returnType);
+            }
+            @SuppressWarnings("unchecked")
+            final List<Node> nodes = (List<Node>) value;
+            if (XPathConstants.NODE.equals(returnType)) {
+                result = nodes.isEmpty() ? null : nodes.get(0);
+            } else {
+                result = new NodeListView(nodes);
+            }
+        } else if (XPathConstants.STRING.equals(returnType)) {
+            result = NativeExpression.toString(value);
+        } else if (XPathConstants.NUMBER.equals(returnType)) {
+            result = NativeExpression.toNumber(value);
+        } else if (XPathConstants.BOOLEAN.equals(returnType)) {
+            result = NativeExpression.toBoolean(value);
+        } else {
+            return jaxpExpression.evaluate(item, returnType);
+        }
+        if (verify) {
+            verify(item, returnType, result);
+        }
+        return result;
+    }
+
+    private void verify(final Object item, final QName returnType, final Object result) throws XPathExpressionException {
+        final Object expected = jaxpExpression.evaluate(item, returnType);
+        if (XPathConstants.NODESET.equals(returnType)) {
+            final NodeList expectedNodes = (NodeList) expected;
+            final NodeList nodes = (NodeList) result;
+            boolean isEqual = expectedNodes.getLength() == nodes.getLength();
+            for (int i = 0; isEqual && (i < nodes.getLength()); ++i) {
+                isEqual = expectedNodes.item(i) == nodes.item(i);
+            }
+            if (!isEqual) {
+                throw new XBException("Native evaluation of XPath '" + expression + "' selected " + nodes.getLength() + " nodes, JAXP selected " + expectedNodes.getLength() + " nodes.");
+            }
+            return;
+        }
+        if (XPathConstants.NODE.equals(returnType) ? expected != result : !expected.equals(result)) {
+            throw new XBException("Native evaluation of XPath '" + expression + "' returned '" + result + "', JAXP returned '" + expected + "'.");
+        }
+    }
+
+    @Override
+    public String evaluate(final Object item) throws XPathExpressionException {
+        return (String) evaluate(item, XPathConstants.STRING);
+    }
+
+    @Override
+    public Object evaluate(final InputSource source, final QName returnType) throws XPathExpressionException {
+        return jaxpExpression.evaluate(source, returnType);
+    }
+
+    @Override
+    public String evaluate(final InputSource source) throws XPathExpressionException {
+        return jaxpExpression.evaluate(source);
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.io.IOException;
+
+import org.w3c.dom.Element;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.types.CloseableIterator;
+import org.xmlbeam.types.RecordFunction;
+
+/**
+ * Processes the records of a stream in parallel. A reader thread cuts the stream into records and
+ * submits the projection and processing of each record to an executor. At most "capacity"
+ * records are in flight, so the reader waits if the consumer of the results is slow. Results are
+ * returned in document order or in order of completion.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ * @param <T>
+ *            projection interface of the records
+ * @param <R>
+ *            result type
+ */
+final class ParallelRecordIterator<T, R> implements CloseableIterator<R> {
+
+    /**
+     * Marks the end of the results.
+     */
+    private static final Future<Object> END = new FutureTask<Object>(new Callable<Object>() {
+        @Override
+        public Object call() {
+            return null;
+        }
+    });
+
+    private final RecordIterator<T> records;
+    /**
+     * Results not consumed yet, bounded by the permits.
+     */
+    private final BlockingQueue<Future<?>> results = new LinkedBlockingQueue<Future<?>>();
+    private final Semaphore permits;
+    /**
+     * Tasks of the unordered mode not done yet, plus one while the reader is running.
+     */
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final Thread reader;
+    private Future<?> next;
+    private volatile boolean closed;
+
+    /**
+     * @param projector
+     * @param records
+     *            source of the records, read by the reader thread
+     * @param projectionInterface
+     * @param executor
+     *            runs the projection and the function for each record. Not shut down by this
+     *            iterator.
+     * @param capacity
+     *            maximum number of records read but not consumed yet
+     * @param ordered
+     *            true if the results should be returned in document order
+     * @param function
+     */
+    ParallelRecordIterator(final XBProjector projector, final RecordIterator<T> records, final Class<T> projectionInterface, final ExecutorService executor, final int capacity, final boolean ordered, final RecordFunction<? super T, ? extends R> function) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, but is " + capacity);
+        }
+        this.records = records;
+        this.permits = new Semaphore(capacity);
+        this.reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read(projector, projectionInterface, executor, ordered, function);
+            }
+        }, "XMLBeam record reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void read(final XBProjector projector, final Class<T> projectionInterface, final ExecutorService executor, final boolean ordered, final RecordFunction<? super T, ? extends R> function) {
+        try {
+            for (Element record = records.nextRecord(); (record != null) && !closed; record = records.nextRecord()) {
+                permits.acquire();
+                final Element element = record;
+                final Callable<R> task = new Callable<R>() {
+                    @Override
+                    public R call() throws Exception {
+                        return function.apply(projector.projectDOMNode(element, projectionInterface));
+                    }
+                };
+                if (ordered) {
+                    results.add(executor.submit(task));
+                    continue;
+                }
+                pending.incrementAndGet();
+                try {
+                    executor.execute(new FutureTask<R>(task) {
+                        @Override
+                        protected void done() {
+                            results.add(this);
+                            finishTask();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    pending.decrementAndGet();
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Closed by the consumer.
+        } catch (RuntimeException e) {
+            results.add(failed(e));
+        } finally {
+            // The reader holds one pending count by itself, so the end is signaled after the last result.
+            finishTask();
+        }
+    }
+
+    private void finishTask() {
+        if (pending.decrementAndGet() == 0) {
+            results.add(END);
+        }
+    }
+
+    private static Future<Object> failed(final RuntimeException e) {
+        final FutureTask<Object> future = new FutureTask<Object>(new Callable<Object>() {
+            @Override
+            public Object call() {
+                throw e;
+            }
+        });
+        future.run();
+        return future;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return next != END;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            next = results.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XBException("Interrupted while waiting for the next record.", e);
+        }
+        return next != END;
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Future<?> result = next;
+        next = null;
+        permits.release();
+        try {
+            @SuppressWarnings("unchecked")
+            final R value = (R) result.get();
+            return value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XBException("Interrupted while waiting for the next record.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new XBException("Processing of a record failed.", e.getCause());
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stop reading and discard the results not consumed yet. The executor is not shut down.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = END;
+        reader.interrupt();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Future<?> future : results) {
+            future.cancel(true);
+        }
+        results.clear();
+        records.close();
+    }
+}
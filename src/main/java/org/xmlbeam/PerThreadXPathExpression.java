@@ -0,0 +1,112 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.lang.ref.WeakReference;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFunctionResolver;
+import javax.xml.xpath.XPathVariableResolver;
+
+import org.xml.sax.InputSource;
+import org.xmlbeam.config.XMLFactoriesConfig;
+
+/**
+ * XPathExpression instances are not guaranteed to be thread safe. Instead of evaluating a shared
+ * expression by one thread at a time, each thread evaluates its own compiled copy. The thread that
+ * created this expression uses the copy compiled in the constructor without a thread local lookup.
+ * That thread is referenced weakly, so a cached expression does not keep it from being collected.
+ * Other threads compile their copy on first use with a new XPath instance configured like the
+ * original one. Namespace context and resolvers are shared, so they need to be thread safe.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+final class PerThreadXPathExpression implements XPathExpression {
+
+    private final XMLFactoriesConfig factoriesConfig;
+    private final String expression;
+    private final NamespaceContext namespaceContext;
+    private final XPathVariableResolver variableResolver;
+    private final XPathFunctionResolver functionResolver;
+    private final WeakReference<Thread> owner;
+    private final XPathExpression ownerExpression;
+    private final ThreadLocal<XPathExpression> expressions = new ThreadLocal<XPathExpression>();
+
+    /**
+     * @param factoriesConfig
+     *            provides XPath factories for other threads
+     * @param xPath
+     *            XPath instance used to compile the expression for the current thread
+     * @param expression
+     * @throws XPathExpressionException
+     *             if the expression is not valid
+     */
+    PerThreadXPathExpression(final XMLFactoriesConfig factoriesConfig, final XPath xPath, final String expression) throws XPathExpressionException {
+        this.factoriesConfig = factoriesConfig;
+        this.expression = expression;
+        this.namespaceContext = xPath.getNamespaceContext();
+        this.variableResolver = xPath.getXPathVariableResolver();
+        this.functionResolver = xPath.getXPathFunctionResolver();
+        this.owner = new WeakReference<Thread>(Thread.currentThread());
+        this.ownerExpression = xPath.compile(expression);
+    }
+
+    private XPathExpression get() throws XPathExpressionException {
+        if (Thread.currentThread() == owner.get()) {
+            return ownerExpression;
+        }
+        XPathExpression compiled = expressions.get();
+        if (compiled == null) {
+            final XPath xPath = factoriesConfig.createXPathFactory().newXPath();
+            if (namespaceContext != null) {
+                xPath.setNamespaceContext(namespaceContext);
+            }
+            if (variableResolver != null) {
+                xPath.setXPathVariableResolver(variableResolver);
+            }
+            if (functionResolver != null) {
+                xPath.setXPathFunctionResolver(functionResolver);
+            }
+            compiled = xPath.compile(expression);
+            expressions.set(compiled);
+        }
+        return compiled;
+    }
+
+    @Override
+    public Object evaluate(final Object item, final QName returnType) throws XPathExpressionException {
+        return get().evaluate(item, returnType);
+    }
+
+    @Override
+    public String evaluate(final Object item) throws XPathExpressionException {
+        return get().evaluate(item);
+    }
+
+    @Override
+    public Object evaluate(final InputSource source, final QName returnType) throws XPathExpressionException {
+        return get().evaluate(source, returnType);
+    }
+
+    @Override
+    public String evaluate(final InputSource source) throws XPathExpressionException {
+        return get().evaluate(source);
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+
+import org.xmlbeam.ProjectionClassGenerator.GeneratedProjectionClass;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.intern.MethodDispatcher;
+import org.xmlbeam.processor.ProjectionProcessor;
+import org.xmlbeam.util.intern.ReflectionHelper;
+
+/**
+ * Lookup of projection classes generated at compile time by {@link ProjectionProcessor}. The
+ * processor lists all interfaces it implemented in the resource
+ * {@value ProjectionProcessor#INDEX_RESOURCE}. These interfaces were validated by the compiler, so
+ * the projector does not need to check them again.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+final class PrecompiledProjections {
+
+    private static final Map<ClassLoader, Set<String>> INDEX_BY_CLASSLOADER = new WeakHashMap<ClassLoader, Set<String>>();
+
+    private PrecompiledProjections() {
+    }
+
+    /**
+     * @param projectionInterface
+     * @return true if the annotation processor generated an implementation for this interface.
+     */
+    static boolean isPrecompiled(final Class<?> projectionInterface) {
+        final ClassLoader classLoader = projectionInterface.getClassLoader();
+        if (classLoader == null) {
+            return false;
+        }
+        return getIndex(classLoader).contains(projectionInterface.getName());
+    }
+
+    /**
+     * @param projection
+     * @return true if the given object is an instance of a precompiled projection class.
+     */
+    static boolean isPrecompiledProjection(final Object projection) {
+        if (!(projection instanceof DOMAccess)) {
+            return false;
+        }
+        final Class<?> type = projection.getClass();
+        if (!type.getName().endsWith(ProjectionProcessor.IMPLEMENTATION_SUFFIX) || !Modifier.isFinal(type.getModifiers())) {
+            return false;
+        }
+        final Class<?> projectionInterface = ((DOMAccess) projection).getProjectionInterface();
+        return type.getName().equals(projectionInterface.getName() + ProjectionProcessor.IMPLEMENTATION_SUFFIX) && isPrecompiled(projectionInterface);
+    }
+
+    /**
+     * Load the precompiled class for the projection interface of the given metadata.
+     *
+     * @param metadata
+     * @return the precompiled class or null if there is none or it can not be used with this mixin
+     *         configuration.
+     */
+    static GeneratedProjectionClass find(final ProjectionMetadata metadata) {
+        final Class<?> projectionInterface = metadata.getProjectionInterface();
+        if (!isPrecompiled(projectionInterface)) {
+            return null;
+        }
+        // Precompiled classes leave default methods to the JVM.
+        for (Method method : projectionInterface.getMethods()) {
+            if (ReflectionHelper.isDefaultMethod(method) && !ProjectionInvocationHandler.isPlainDefaultMethodInvoker(metadata.findInvoker(method))) {
+                return null;
+            }
+        }
+        try {
+            final Class<?> type = Class.forName(projectionInterface.getName() + ProjectionProcessor.IMPLEMENTATION_SUFFIX, true, projectionInterface.getClassLoader());
+            final Constructor<?> constructor = type.getDeclaredConstructor(MethodDispatcher.class);
+            constructor.setAccessible(true);
+            final Field field = type.getDeclaredField(ProjectionProcessor.METHODS_FIELD);
+            field.setAccessible(true);
+            return new GeneratedProjectionClass(constructor, (Method[]) field.get(null));
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (NoSuchFieldException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        } catch (LinkageError e) {
+            // e.g. the interface changed after the class was generated.
+            return null;
+        }
+    }
+
+    private static Set<String> getIndex(final ClassLoader classLoader) {
+        synchronized (INDEX_BY_CLASSLOADER) {
+            Set<String> index = INDEX_BY_CLASSLOADER.get(classLoader);
+            if (index == null) {
+                index = readIndex(classLoader);
+                INDEX_BY_CLASSLOADER.put(classLoader, index);
+            }
+            return index;
+        }
+    }
+
+    private static Set<String> readIndex(final ClassLoader classLoader) {
+        final Set<String> index = new HashSet<String>();
+        try {
+            final Enumeration<URL> resources = classLoader.getResources(ProjectionProcessor.INDEX_RESOURCE);
+            while (resources.hasMoreElements()) {
+                final BufferedReader reader = new BufferedReader(new InputStreamReader(resources.nextElement().openStream(), "UTF-8"));
+                try {
+                    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                        if (!line.trim().isEmpty()) {
+                            index.add(line.trim());
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (IOException e) {
+            // Without index there are no precompiled projections.
+        }
+        return index.isEmpty() ? Collections.<String> emptySet() : index;
+    }
+}
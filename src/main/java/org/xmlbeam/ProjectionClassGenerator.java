@@ -0,0 +1,538 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.xmlbeam.ProjectionInvocationHandler.MethodInvoker;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.intern.MethodDispatcher;
+import org.xmlbeam.util.intern.ReflectionHelper;
+
+/**
+ * Generates a concrete class for a projection interface as an alternative to
+ * java.lang.reflect.Proxy. Each generated method calls the {@link MethodDispatcher} of the
+ * projection with a constant method index, so there is no method lookup and no interface dispatch
+ * via InvocationHandler. The class file is written by hand to avoid a dependency on a bytecode
+ * library. Only straight line code is generated, so there is no need for stack map frames.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+final class ProjectionClassGenerator {
+
+    private static final String DISPATCHER = MethodDispatcher.class.getName().replace('.', '/');
+    private static final String DISPATCH_DESCRIPTOR = "(Ljava/lang/Object;I[Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String HANDLER_FIELD = "h";
+    private static final String WRITE_REPLACE = "writeReplace";
+
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<Class<?>, Class<?>>();
+    static {
+        WRAPPERS.put(Boolean.TYPE, Boolean.class);
+        WRAPPERS.put(Byte.TYPE, Byte.class);
+        WRAPPERS.put(Character.TYPE, Character.class);
+        WRAPPERS.put(Short.TYPE, Short.class);
+        WRAPPERS.put(Integer.TYPE, Integer.class);
+        WRAPPERS.put(Long.TYPE, Long.class);
+        WRAPPERS.put(Float.TYPE, Float.class);
+        WRAPPERS.put(Double.TYPE, Double.class);
+    }
+
+    /**
+     * Class loader for generated classes. Classes of this library are resolved via the loader of
+     * the library, everything else via the loader of the projection interface.
+     */
+    static final class ProjectionClassLoader extends ClassLoader {
+
+        ProjectionClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(final String name, final byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException {
+            return Class.forName(name, false, ProjectionClassGenerator.class.getClassLoader());
+        }
+    }
+
+    /**
+     * Result of a class generation: The constructor taking the dispatcher and the methods in the
+     * order of their dispatch index.
+     */
+    static final class GeneratedProjectionClass {
+        private final Constructor<?> constructor;
+        private final Method[] methods;
+
+        GeneratedProjectionClass(final Constructor<?> constructor, final Method[] methods) {
+            this.constructor = constructor;
+            this.methods = methods;
+        }
+
+        Constructor<?> getConstructor() {
+            return constructor;
+        }
+
+        Method getMethod(final int index) {
+            return methods[index];
+        }
+    }
+
+    private ProjectionClassGenerator() {
+    }
+
+    /**
+     * @param projection
+     * @return true if the given object is an instance of a generated projection class.
+     */
+    static boolean isGeneratedProjection(final Object projection) {
+        return (projection != null) && (projection.getClass().getClassLoader() instanceof ProjectionClassLoader);
+    }
+
+    /**
+     * Generate a projection class for the given metadata.
+     *
+     * @param metadata
+     * @return the generated class or null if this interface can not be implemented by a generated
+     *         class. Projections have to be created with java.lang.reflect.Proxy then.
+     */
+    static GeneratedProjectionClass generate(final ProjectionMetadata metadata) {
+        final Class<?> projectionInterface = metadata.getProjectionInterface();
+        if (!isAccessible(projectionInterface)) {
+            return null;
+        }
+        final List<Method> methods = findMethodsToImplement(metadata);
+        if (methods == null) {
+            return null;
+        }
+        final String className = projectionInterface.getName() + "$XBProjection";
+        try {
+            final byte[] classFile = writeClassFile(className.replace('.', '/'), projectionInterface, methods);
+            final ProjectionClassLoader classLoader = new ProjectionClassLoader(projectionInterface.getClassLoader());
+            final Class<?> generatedClass = classLoader.define(className, classFile);
+            final Constructor<?> constructor = generatedClass.getConstructor(MethodDispatcher.class);
+            return new GeneratedProjectionClass(constructor, methods.toArray(new Method[methods.size()]));
+        } catch (IOException e) {
+            return null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (RuntimeException e) {
+            // e.g. SecurityException for prohibited package names
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collect all methods the generated class has to implement. Default methods are left to the
+     * JVM unless they are replaced by a mixin or an override. Because there is no portable way to
+     * invoke a default method on a non proxy object, such interfaces are not generated.
+     *
+     * @param metadata
+     * @return methods or null if a class can not be generated.
+     */
+    private static List<Method> findMethodsToImplement(final ProjectionMetadata metadata) {
+        final Map<String, Method> methods = new LinkedHashMap<String, Method>();
+        final List<Method> candidates = new ArrayList<Method>();
+        candidates.addAll(Arrays.asList(metadata.getProjectionInterface().getMethods()));
+        candidates.addAll(Arrays.asList(DOMAccess.class.getMethods()));
+        try {
+            candidates.add(Object.class.getMethod("toString"));
+            candidates.add(Object.class.getMethod("hashCode"));
+            candidates.add(Object.class.getMethod("equals", Object.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        for (Method method : candidates) {
+            if (Modifier.isStatic(method.getModifiers()) || method.isSynthetic()) {
+                continue;
+            }
+            final MethodInvoker invoker = metadata.findInvoker(method);
+            if (ReflectionHelper.isDefaultMethod(method)) {
+                if (ProjectionInvocationHandler.isPlainDefaultMethodInvoker(invoker)) {
+                    continue;
+                }
+                return null;
+            }
+            if (ProjectionInvocationHandler.isDefaultMethodInvoker(invoker)) {
+                return null;
+            }
+            if (!isAccessible(method.getReturnType())) {
+                return null;
+            }
+            final String key = method.getName() + getMethodDescriptor(method.getParameterTypes(), Void.TYPE);
+            final Method existing = methods.get(key);
+            if (existing == null) {
+                methods.put(key, method);
+                continue;
+            }
+            if (!existing.getReturnType().equals(method.getReturnType())) {
+                // Covariant return types would need bridge methods.
+                return null;
+            }
+        }
+        return new ArrayList<Method>(methods.values());
+    }
+
+    private static boolean isAccessible(final Class<?> type) {
+        Class<?> c = type;
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        for (; c != null; c = c.getEnclosingClass()) {
+            if ((!c.isPrimitive()) && (!Modifier.isPublic(c.getModifiers()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] writeClassFile(final String className, final Class<?> projectionInterface, final List<Method> methods) throws IOException {
+        final ConstantPool cp = new ConstantPool();
+        final int thisClass = cp.classRef(className);
+        final int superClass = cp.classRef("java/lang/Object");
+        final List<Integer> interfaces = new ArrayList<Integer>();
+        interfaces.add(cp.classRef(internalName(projectionInterface)));
+        if (!DOMAccess.class.isAssignableFrom(projectionInterface)) {
+            interfaces.add(cp.classRef(internalName(DOMAccess.class)));
+        }
+        if (!Serializable.class.isAssignableFrom(projectionInterface)) {
+            interfaces.add(cp.classRef(internalName(Serializable.class)));
+        }
+        final String handlerDescriptor = "L" + DISPATCHER + ";";
+        final int handlerField = cp.fieldRef(className, HANDLER_FIELD, handlerDescriptor);
+        final int dispatch = cp.interfaceMethodRef(DISPATCHER, "dispatch", DISPATCH_DESCRIPTOR);
+        final int codeAttribute = cp.utf8("Code");
+
+        final ByteArrayOutputStream methodsBytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(methodsBytes);
+        int methodCount = 0;
+
+        // Constructor
+        {
+            final Code code = new Code();
+            code.op(0x2a); // aload_0
+            code.op(0xb7).u2(cp.methodRef("java/lang/Object", "<init>", "()V")); // invokespecial
+            code.op(0x2a); // aload_0
+            code.op(0x2b); // aload_1
+            code.op(0xb5).u2(handlerField); // putfield
+            code.op(0xb1); // return
+            writeMethod(out, cp, 0x0001, "<init>", "(" + handlerDescriptor + ")V", codeAttribute, code, 2, 2);
+            ++methodCount;
+        }
+
+        boolean hasWriteReplace = false;
+        for (int index = 0; index < methods.size(); ++index) {
+            final Method method = methods.get(index);
+            final Class<?>[] parameterTypes = method.getParameterTypes();
+            final Class<?> returnType = method.getReturnType();
+            hasWriteReplace |= WRITE_REPLACE.equals(method.getName()) && (parameterTypes.length == 0);
+            final Code code = new Code();
+            code.op(0x2a); // aload_0
+            code.op(0xb4).u2(handlerField); // getfield
+            code.op(0x2a); // aload_0
+            code.op(0x11).u2(index); // sipush
+            int slot = 1;
+            if (parameterTypes.length == 0) {
+                code.op(0x01); // aconst_null
+            } else {
+                code.op(0x11).u2(parameterTypes.length); // sipush
+                code.op(0xbd).u2(cp.classRef("java/lang/Object")); // anewarray
+                for (int i = 0; i < parameterTypes.length; ++i) {
+                    final Class<?> type = parameterTypes[i];
+                    code.op(0x59); // dup
+                    code.op(0x11).u2(i); // sipush
+                    code.op(loadOpcode(type)).u1(slot);
+                    slot += ((type == Long.TYPE) || (type == Double.TYPE)) ? 2 : 1;
+                    if (type.isPrimitive()) {
+                        final Class<?> wrapper = WRAPPERS.get(type);
+                        code.op(0xb8).u2(cp.methodRef(internalName(wrapper), "valueOf", "(" + descriptor(type) + ")" + descriptor(wrapper))); // invokestatic
+                    }
+                    code.op(0x53); // aastore
+                }
+            }
+            code.op(0xb9).u2(dispatch).u1(4).u1(0); // invokeinterface
+            if (returnType == Void.TYPE) {
+                code.op(0x57); // pop
+                code.op(0xb1); // return
+            } else if (returnType.isPrimitive()) {
+                final Class<?> wrapper = WRAPPERS.get(returnType);
+                code.op(0xc0).u2(cp.classRef(internalName(wrapper))); // checkcast
+                code.op(0xb6).u2(cp.methodRef(internalName(wrapper), returnType.getName() + "Value", "()" + descriptor(returnType))); // invokevirtual
+                code.op(returnOpcode(returnType));
+            } else {
+                if (!Object.class.equals(returnType)) {
+                    code.op(0xc0).u2(cp.classRef(internalName(returnType))); // checkcast
+                }
+                code.op(0xb0); // areturn
+            }
+            writeMethod(out, cp, 0x0001, method.getName(), getMethodDescriptor(parameterTypes, returnType), codeAttribute, code, 8, slot);
+            ++methodCount;
+        }
+
+        if (!hasWriteReplace) {
+            // Serialization replaces the generated projection by a proxy based one.
+            final Code code = new Code();
+            code.op(0x2a); // aload_0
+            code.op(0xb4).u2(handlerField); // getfield
+            code.op(0x2a); // aload_0
+            code.op(0x11).u2(MethodDispatcher.WRITE_REPLACE & 0xffff); // sipush
+            code.op(0x01); // aconst_null
+            code.op(0xb9).u2(dispatch).u1(4).u1(0); // invokeinterface
+            code.op(0xb0); // areturn
+            writeMethod(out, cp, 0x0002, WRITE_REPLACE, "()Ljava/lang/Object;", codeAttribute, code, 4, 1);
+            ++methodCount;
+        }
+
+        final int fieldName = cp.utf8(HANDLER_FIELD);
+        final int fieldDescriptor = cp.utf8(handlerDescriptor);
+
+        final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        final DataOutputStream classOut = new DataOutputStream(classBytes);
+        classOut.writeInt(0xCAFEBABE);
+        classOut.writeShort(0); // minor version
+        classOut.writeShort(49); // Java 5 class file, no stack map frames required
+        cp.writeTo(classOut);
+        classOut.writeShort(0x0001 | 0x0010 | 0x0020); // public final super
+        classOut.writeShort(thisClass);
+        classOut.writeShort(superClass);
+        classOut.writeShort(interfaces.size());
+        for (Integer i : interfaces) {
+            classOut.writeShort(i);
+        }
+        classOut.writeShort(1); // fields
+        classOut.writeShort(0x0002 | 0x0010); // private final
+        classOut.writeShort(fieldName);
+        classOut.writeShort(fieldDescriptor);
+        classOut.writeShort(0);
+        classOut.writeShort(methodCount);
+        methodsBytes.writeTo(classOut);
+        classOut.writeShort(0); // class attributes
+        classOut.flush();
+        return classBytes.toByteArray();
+    }
+
+    private static void writeMethod(final DataOutputStream out, final ConstantPool cp, final int access, final String name, final String descriptor, final int codeAttribute, final Code code, final int maxStack, final int maxLocals) throws IOException {
+        final byte[] bytes = code.toByteArray();
+        out.writeShort(access);
+        out.writeShort(cp.utf8(name));
+        out.writeShort(cp.utf8(descriptor));
+        out.writeShort(1); // attributes
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + bytes.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeShort(0); // exception table
+        out.writeShort(0); // code attributes
+    }
+
+    private static int loadOpcode(final Class<?> type) {
+        if ((type == Long.TYPE)) {
+            return 0x16; // lload
+        }
+        if ((type == Float.TYPE)) {
+            return 0x17; // fload
+        }
+        if ((type == Double.TYPE)) {
+            return 0x18; // dload
+        }
+        if (type.isPrimitive()) {
+            return 0x15; // iload
+        }
+        return 0x19; // aload
+    }
+
+    private static int returnOpcode(final Class<?> type) {
+        if ((type == Long.TYPE)) {
+            return 0xad; // lreturn
+        }
+        if ((type == Float.TYPE)) {
+            return 0xae; // freturn
+        }
+        if ((type == Double.TYPE)) {
+            return 0xaf; // dreturn
+        }
+        return 0xac; // ireturn
+    }
+
+    private static String internalName(final Class<?> type) {
+        if (type.isArray()) {
+            return descriptor(type);
+        }
+        return type.getName().replace('.', '/');
+    }
+
+    private static String getMethodDescriptor(final Class<?>[] parameterTypes, final Class<?> returnType) {
+        final StringBuilder builder = new StringBuilder("(");
+        for (Class<?> type : parameterTypes) {
+            builder.append(descriptor(type));
+        }
+        return builder.append(')').append(descriptor(returnType)).toString();
+    }
+
+    private static String descriptor(final Class<?> type) {
+        if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        }
+        if (type == Void.TYPE) {
+            return "V";
+        }
+        if (type == Boolean.TYPE) {
+            return "Z";
+        }
+        if (type == Byte.TYPE) {
+            return "B";
+        }
+        if (type == Character.TYPE) {
+            return "C";
+        }
+        if (type == Short.TYPE) {
+            return "S";
+        }
+        if (type == Integer.TYPE) {
+            return "I";
+        }
+        if (type == Long.TYPE) {
+            return "J";
+        }
+        if (type == Float.TYPE) {
+            return "F";
+        }
+        if (type == Double.TYPE) {
+            return "D";
+        }
+        return "L" + type.getName().replace('.', '/') + ";";
+    }
+
+    /**
+     * Byte code of a single method.
+     */
+    private static final class Code {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        Code op(final int opcode) {
+            bytes.write(opcode);
+            return this;
+        }
+
+        Code u1(final int value) {
+            bytes.write(value);
+            return this;
+        }
+
+        Code u2(final int value) {
+            bytes.write((value >> 8) & 0xff);
+            bytes.write(value & 0xff);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Constant pool with deduplication of entries.
+     */
+    private static final class ConstantPool {
+        private final Map<String, Integer> entries = new HashMap<String, Integer>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private int nextIndex = 1;
+
+        int utf8(final String value) {
+            final String key = "U" + value;
+            Integer index = entries.get(key);
+            if (index == null) {
+                try {
+                    out.writeByte(1);
+                    out.writeUTF(value);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                index = add(key);
+            }
+            return index;
+        }
+
+        int classRef(final String internalName) {
+            return ref("C", 7, utf8(internalName), -1);
+        }
+
+        int fieldRef(final String owner, final String name, final String descriptor) {
+            return ref("F", 9, classRef(owner), nameAndType(name, descriptor));
+        }
+
+        int methodRef(final String owner, final String name, final String descriptor) {
+            return ref("M", 10, classRef(owner), nameAndType(name, descriptor));
+        }
+
+        int interfaceMethodRef(final String owner, final String name, final String descriptor) {
+            return ref("I", 11, classRef(owner), nameAndType(name, descriptor));
+        }
+
+        private int nameAndType(final String name, final String descriptor) {
+            return ref("N", 12, utf8(name), utf8(descriptor));
+        }
+
+        private int ref(final String kind, final int tag, final int first, final int second) {
+            final String key = kind + first + ":" + second;
+            Integer index = entries.get(key);
+            if (index == null) {
+                try {
+                    out.writeByte(tag);
+                    out.writeShort(first);
+                    if (second >= 0) {
+                        out.writeShort(second);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                index = add(key);
+            }
+            return index;
+        }
+
+        private Integer add(final String key) {
+            final Integer index = Integer.valueOf(nextIndex++);
+            entries.put(key, index);
+            return index;
+        }
+
+        void writeTo(final DataOutputStream classOut) throws IOException {
+            out.flush();
+            classOut.writeShort(nextIndex);
+            bytes.writeTo(classOut);
+        }
+    }
+}
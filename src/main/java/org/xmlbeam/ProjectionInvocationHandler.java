@@ -20,6 +20,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 
 import java.io.IOException;
 import java.io.Serializable;
@@ -31,6 +33,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPath;
@@ -49,6 +52,7 @@ import org.xmlbeam.XBProjector.IOBuilder;
 import org.xmlbeam.annotation.XBAuto;
 import org.xmlbeam.annotation.XBDelete;
 import org.xmlbeam.annotation.XBDocURL;
+import org.xmlbeam.annotation.XBIndexed;
 import org.xmlbeam.annotation.XBOverride;
 import org.xmlbeam.annotation.XBRead;
 import org.xmlbeam.annotation.XBUpdate;
@@ -59,16 +63,18 @@ import org.xmlbeam.evaluation.DefaultXPathEvaluator;
 import org.xmlbeam.evaluation.InvocationContext;
 import org.xmlbeam.exceptions.XBDataNotFoundException;
 import org.xmlbeam.exceptions.XBPathException;
+import org.xmlbeam.intern.MethodDispatcher;
+import org.xmlbeam.io.DocumentCache;
 import org.xmlbeam.types.XBAutoList;
 import org.xmlbeam.types.XBAutoMap;
 import org.xmlbeam.types.XBAutoValue;
 import org.xmlbeam.util.IOHelper;
 import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
 import org.xmlbeam.util.intern.MethodParamVariableResolver;
 import org.xmlbeam.util.intern.Preprocessor;
 import org.xmlbeam.util.intern.ReflectionHelper;
 import org.xmlbeam.util.intern.duplex.DuplexExpression;
-import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
 import org.xmlbeam.util.intern.duplex.ExpressionType;
 import org.xmlbeam.util.intern.duplex.XBPathParsingException;
 
@@ -81,84 +87,97 @@ import org.xmlbeam.util.intern.duplex.XBPathParsingException;
  * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
  */
 @SuppressWarnings("serial")
-final class ProjectionInvocationHandler implements InvocationHandler, Serializable {
+final class ProjectionInvocationHandler implements InvocationHandler, MethodDispatcher, Serializable {
 
-    private Map<MethodSignature, InvocationHandler> getDefaultInvokers(final Object defaultInvokerObject) {
-        final ReflectionInvoker reflectionInvoker = new ReflectionInvoker(defaultInvokerObject);
-        final Map<MethodSignature, InvocationHandler> invokers = new HashMap<MethodSignature, InvocationHandler>();
+    /**
+     * A method invoker is shared between all projections of the same projection interface. The
+     * projection specific state is taken from the given projection invocation handler.
+     */
+    interface MethodInvoker extends Serializable {
+        Object invoke(ProjectionInvocationHandler projection, Object proxy, Method method, Object[] args) throws Throwable;
+    }
+
+    private static Map<MethodSignature, MethodInvoker> getDefaultInvokers() {
+        final Map<MethodSignature, MethodInvoker> invokers = new HashMap<MethodSignature, MethodInvoker>();
         for (Method m : DOMAccess.class.getMethods()) {
             if (m.getAnnotation(XBWrite.class) == null) {
-                invokers.put(MethodSignature.forMethod(m), reflectionInvoker);
+                invokers.put(MethodSignature.forMethod(m), DEFAULT_OBJECT_INVOKER);
             }
         }
 
-        invokers.put(MethodSignature.forVoidMethod("toString"), reflectionInvoker);
-        invokers.put(MethodSignature.forSingleParam("equals", Object.class), reflectionInvoker);
-        invokers.put(MethodSignature.forVoidMethod("hashCode"), reflectionInvoker);
-        return invokers;//Collections.unmodifiableMap(invokers);
+        invokers.put(MethodSignature.forVoidMethod("toString"), DEFAULT_OBJECT_INVOKER);
+        invokers.put(MethodSignature.forSingleParam("equals", Object.class), DEFAULT_OBJECT_INVOKER);
+        invokers.put(MethodSignature.forVoidMethod("hashCode"), DEFAULT_OBJECT_INVOKER);
+        return invokers;
     }
 
-    private static class ReflectionInvoker implements InvocationHandler, Serializable {
-        protected final Object obj;
-
-        ReflectionInvoker(final Object obj) {
-            this.obj = obj;
+    private static Object invokeReflective(final Object obj, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(obj, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause() == null ? e : e.getCause();
         }
+    }
 
+    private static final MethodInvoker DEFAULT_OBJECT_INVOKER = new MethodInvoker() {
         @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-            try {
-                return method.invoke(obj, args);
-            } catch (InvocationTargetException e) {
-                throw e.getCause() == null ? e : e.getCause();
-            }
+        public Object invoke(final ProjectionInvocationHandler projection, final Object proxy, final Method method, final Object[] args) throws Throwable {
+            return invokeReflective(projection.defaultInvokerObject, method, args);
         }
-    }
+    };
 
-    private static class MixinInvoker extends ReflectionInvoker {
+    private static class MixinInvoker implements MethodInvoker {
+        private final Object obj;
         private final Class<?> projectionInterface;
 
         MixinInvoker(final Object obj, final Class<?> projectionInterface) {
-            super(obj);
+            this.obj = obj;
             this.projectionInterface = projectionInterface;
         }
 
         @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        public Object invoke(final ProjectionInvocationHandler projection, final Object proxy, final Method method, final Object[] args) throws Throwable {
             injectMeAttribute((DOMAccess) proxy, obj, projectionInterface);
-            try {
-                return super.invoke(proxy, method, args);
-            } catch (InvocationTargetException e) {
-                throw e.getCause() == null ? e : e.getCause();
-            }
+            return invokeReflective(obj, method, args);
         }
     }
 
-    private static abstract class ProjectionMethodInvocationHandler implements InvocationHandler, Serializable {
-
-        private static final InvocationContext EMPTY_INVOCATION_CONTEXT = new InvocationContext(null, null, null, null, null, Object.class, null);
+    private static abstract class ProjectionMethodInvocationHandler implements MethodInvoker {
 
         protected final Method method;
         protected final String annotationValue;
         protected final XBProjector projector;
-        protected final Node node;
         private final String docAnnotationValue;
         private final boolean isVoidMethod;
-        protected InvocationContext lastInvocationContext = EMPTY_INVOCATION_CONTEXT;
+        /**
+         * Index of the slot holding the last invocation context of this method in each projection.
+         */
+        protected final int contextSlot;
         protected final Map<String, Integer> methodParameterIndexes;
+        /**
+         * Auto types keep their invocation context after the method returned, so their parameters
+         * must not be bound as variables that change with the next invocation.
+         */
+        private final boolean isBindingValueParams;
+        /**
+         * Last XPath template and its version with value placeholders bound as variables.
+         */
+        private transient volatile String[] lastBinding;
 
-        ProjectionMethodInvocationHandler(final Node node, final Method method, final String annotationValue, final XBProjector projector) {
+        ProjectionMethodInvocationHandler(final Method method, final String annotationValue, final XBProjector projector, final int contextSlot) {
             this.method = method;
             this.annotationValue = annotationValue;
             this.projector = projector;
-            this.node = node;
+            this.contextSlot = contextSlot;
             final XBDocURL annotation = method.getAnnotation(XBDocURL.class);
             this.docAnnotationValue = annotation == null ? null : annotation.value();
             this.isVoidMethod = !ReflectionHelper.hasReturnType(method);
             methodParameterIndexes = ReflectionHelper.getMethodParameterIndexes(method);
+            final Class<?> returnType = method.getReturnType();
+            this.isBindingValueParams = (method.getAnnotation(XBAuto.class) == null) && (!XBAutoList.class.equals(returnType)) && (!XBAutoMap.class.equals(returnType)) && (!XBAutoValue.class.equals(returnType));
         }
 
-        protected Node getNodeForMethod(final Method method, final Object[] args) throws SAXException, IOException, ParserConfigurationException {
+        protected Node getNodeForMethod(final ProjectionInvocationHandler projection, final Method method, final Object[] args) throws SAXException, IOException, ParserConfigurationException {
             if (docAnnotationValue != null) {
                 String uri = projector.config().getExternalizer().resolveURL(docAnnotationValue, method, args);
                 final Map<String, String> requestParams = ((IOBuilder) projector.io()).filterRequestParamsFromParams(uri, args);
@@ -167,13 +186,32 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
                 if (IOHelper.isResourceProtocol(uri)) {
                     callerClass = ReflectionHelper.getCallerClass(8);
                 }
-                return IOHelper.getDocumentFromURL(projector.config().createDocumentBuilder(), uri, requestParams, method.getDeclaringClass(), callerClass);
+                final DocumentCache documentCache = projector.config().getDocumentCache();
+                if (documentCache != null) {
+                    return documentCache.getDocument(projector, uri, requestParams, method.getDeclaringClass(), callerClass);
+                }
+                return IOHelper.getDocumentFromURL(projector.config().getHttpTransport(), DOMHelper.getDocumentBuilder(projector), uri, requestParams, method.getDeclaringClass(), callerClass);
             }
-            return node;
+            return projection.node;
         }
 
         protected String resolveXPath(final Object[] args) {
-            return Preprocessor.applyParams(projector.config().getExternalizer().resolveXPath(annotationValue, method, args), methodParameterIndexes, args);
+            final String xpath = projector.config().getExternalizer().resolveXPath(annotationValue, method, args);
+            return Preprocessor.applyParams(isBindingValueParams ? bindValueParams(xpath) : xpath, methodParameterIndexes, args);
+        }
+
+        /**
+         * Placeholders bound as variables keep the resolved XPath constant for all parameter values,
+         * so the invocation context stays valid.
+         */
+        private String bindValueParams(final String xpath) {
+            final String[] binding = lastBinding;
+            if ((binding != null) && binding[0].equals(xpath)) {
+                return binding[1];
+            }
+            final String bound = Preprocessor.bindValueParams(xpath, methodParameterIndexes, method.getParameterTypes());
+            lastBinding = new String[] { xpath, bound };
+            return bound;
         }
 
         /**
@@ -196,17 +234,16 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
             throw new IllegalArgumentException("Method " + method + " has illegal return type \"" + method.getReturnType() + "\". I don't know what to return. I expected void or " + method.getDeclaringClass().getSimpleName());
         }
 
-        abstract protected Object invokeProjection(final String resolvedXpath, final Object proxy, final Object[] args) throws Throwable;
+        abstract protected Object invokeProjection(final ProjectionInvocationHandler projection, final String resolvedXpath, final Object proxy, final Object[] args) throws Throwable;
 
         @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-            final String xPath = resolveXPath(args);
-            final String resolvedXpath = Preprocessor.applyParams(xPath, methodParameterIndexes, args);
+        public Object invoke(final ProjectionInvocationHandler projection, final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String resolvedXpath = resolveXPath(args);
             try {
-                return invokeProjection(resolvedXpath, proxy, args);
+                return invokeProjection(projection, resolvedXpath, proxy, args);
             } finally {
                 if (!(this instanceof ReadInvocationHandler)) {
-                    projector.notifyDOMChangeListeners();
+                    DocumentIndex.forDocument(DOMHelper.getOwnerDocumentFor(projection.node)).markModified();
                 }
             }
         }
@@ -217,38 +254,47 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
 
         protected final Class<?> exceptionType;
         protected final boolean isThrowIfAbsent;
+        private final boolean isKeyIndexed;
 
-        private XPathInvocationHandler(final Node node, final Method method, final String annotationValue, final XBProjector projector) {
-            super(node, method, annotationValue, projector);
+        private XPathInvocationHandler(final Method method, final String annotationValue, final XBProjector projector, final int contextSlot) {
+            super(method, annotationValue, projector, contextSlot);
             Class<?>[] exceptionTypes = method.getExceptionTypes();
             exceptionType = exceptionTypes.length > 0 ? exceptionTypes[0] : null;
             this.isThrowIfAbsent = exceptionType != null;
+            this.isKeyIndexed = method.getAnnotation(XBIndexed.class) != null;
         }
 
         @Override
-        final protected Object invokeProjection(final String resolvedXpath, final Object proxy, final Object[] args) throws Throwable {
-            final XPath xPath = projector.config().createXPath(DOMHelper.getOwnerDocumentFor(node));
-
+        final protected Object invokeProjection(final ProjectionInvocationHandler projection, final String resolvedXpath, final Object proxy, final Object[] args) throws Throwable {
+            InvocationContext lastInvocationContext = projection.getInvocationContext(contextSlot);
             if (!lastInvocationContext.isStillValid(resolvedXpath)) {
-                final DuplexExpression duplexExpression = new DuplexXPathParser(projector.config().getUserDefinedNamespaceMapping()).compile(resolvedXpath);
-                String strippedXPath = duplexExpression.getExpressionAsStringWithoutFormatPatterns();
+                final XPath xPath = projector.config().createXPath(DOMHelper.getOwnerDocumentFor(projection.node));
+                final XPathCache xPathCache = projector.getXPathCache();
+                final DuplexExpression duplexExpression = xPathCache.getDuplexExpression(resolvedXpath);
+                final Class<?> targetComponentType = findTargetComponentType(method);
                 MethodParamVariableResolver resolver = null;
+                final XPathExpression xPathExpression;
                 if (duplexExpression.isUsingVariables()) {
                     XPathVariableResolver peviousResolver = xPath.getXPathVariableResolver();
                     resolver = new MethodParamVariableResolver(method, args, duplexExpression, projector.config().getStringRenderer(), peviousResolver);
                     xPath.setXPathVariableResolver(resolver);
-
+                    xPathExpression = xPathCache.compile(xPath, duplexExpression, isKeyIndexed);
+                } else {
+                    xPathExpression = xPathCache.getXPathExpression(xPath, duplexExpression, targetComponentType, isKeyIndexed);
                 }
-                final XPathExpression xPathExpression = xPath.compile(strippedXPath);
-                final Class<?> targetComponentType = findTargetComponentType(method);
 
                 lastInvocationContext = new InvocationContext(resolvedXpath, xPath, xPathExpression, duplexExpression, resolver, targetComponentType, projector);
+                projection.setInvocationContext(contextSlot, lastInvocationContext);
+            }
+            final Object[] previousArgs = lastInvocationContext.bindMethodArgs(args);
+            try {
+                return invokeXpathProjection(projection, lastInvocationContext, proxy, args);
+            } finally {
+                lastInvocationContext.restoreMethodArgs(previousArgs);
             }
-            lastInvocationContext.updateMethodArgs(args);
-            return invokeXpathProjection(lastInvocationContext, proxy, args);
         }
 
-        abstract protected Object invokeXpathProjection(final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable;
+        abstract protected Object invokeXpathProjection(final ProjectionInvocationHandler projection, final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable;
     }
 
     static class ReadInvocationHandler extends XPathInvocationHandler {
@@ -256,7 +302,7 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         private final boolean wrappedInOptional;
         private final boolean isEvaluateAsProjected;
         private final Class<?> returnType;
-        private final boolean isConvertable;
+        private final boolean isConvertableCandidate;
         private final boolean isReturnAsNode;
         private final boolean isEvaluateAsList;
         private final boolean isEvaluateAsArray;
@@ -264,8 +310,8 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         private final boolean isEvaluateAsMap;
         private final boolean isReturnAsStream;
 
-        ReadInvocationHandler(final Node node, final Method method, final String annotationValue, final XBProjector projector, final boolean absentIsEmpty) {
-            super(node, method, annotationValue, projector);
+        ReadInvocationHandler(final Method method, final String annotationValue, final XBProjector projector, final int contextSlot, final boolean absentIsEmpty) {
+            super(method, annotationValue, projector, contextSlot);
             final Class<?> methodReturnType = method.getReturnType();
             this.isEvaluateAsList = List.class.equals(methodReturnType) || ReflectionHelper.isStreamClass(methodReturnType) || XBAutoList.class.equals(methodReturnType);
             this.isEvaluateAsMap = XBAutoMap.class.equals(methodReturnType) || Map.class.equals(methodReturnType);
@@ -274,7 +320,8 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
             this.wrappedInOptional = ReflectionHelper.isOptional(method.getGenericReturnType());
             this.isEvaluateAsProjected = Map.class.equals(methodReturnType) || XBAutoMap.class.equals(methodReturnType) || XBAutoValue.class.equals(methodReturnType) || (method.getAnnotation(XBAuto.class) != null);
             this.returnType = (wrappedInOptional || isEvaluateAsProjected) ? ReflectionHelper.getParameterType(method.getGenericReturnType()) : methodReturnType;
-            this.isConvertable = (!isEvaluateAsList) && (!isEvaluateAsMap) && (!isEvaluateAsArray) && (!isReturnAsStream) && projector.config().getTypeConverter().isConvertable(returnType);
+            // The type converter may be replaced later on, so convertibility is checked on invocation.
+            this.isConvertableCandidate = (!isEvaluateAsList) && (!isEvaluateAsMap) && (!isEvaluateAsArray) && (!isReturnAsStream);
             this.isReturnAsNode = Node.class.isAssignableFrom(returnType);
             if (wrappedInOptional && (isEvaluateAsArray || isEvaluateAsList || isEvaluateAsProjected)) {
                 throw new IllegalArgumentException("Method " + method + " must not declare an optional return type of AutoValue, List or Array. Lists, and arrays may be empty but will never be null.");
@@ -286,8 +333,8 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         }
 
         @Override
-        public Object invokeXpathProjection(final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
-            final Object result = invokeReadProjection(invocationContext, proxy, args);
+        public Object invokeXpathProjection(final ProjectionInvocationHandler projection, final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
+            final Object result = invokeReadProjection(projection, invocationContext, proxy, args);
             if ((result == null) && (isThrowIfAbsent)) {
                 throwDeclaredException(invocationContext, args, exceptionType);
             }
@@ -295,8 +342,8 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         }
 
         @SuppressWarnings("rawtypes")
-        private Object invokeReadProjection(final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
-            final Node node = getNodeForMethod(method, args);
+        private Object invokeReadProjection(final ProjectionInvocationHandler projection, final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
+            final Node node = getNodeForMethod(projection, method, args);
             final ExpressionType expressionType = invocationContext.getDuplexExpression().getExpressionType();
             final XPathExpression expression = invocationContext.getxPathExpression();
 
@@ -304,7 +351,7 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
                 return new AutoValue(node, invocationContext);
             }
 
-            if (isConvertable) {
+            if (isConvertableCandidate && projector.config().getTypeConverter().isConvertable(returnType)) {
                 String data;
                 Node dataNode = null;
                 if (expressionType.isMustEvalAsString()) {
@@ -373,8 +420,8 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
          * @param value
          * @param projector
          */
-        public UpdateInvocationHandler(final Node node, final Method m, final String value, final XBProjector projector) {
-            super(node, m, value, projector);
+        public UpdateInvocationHandler(final Method m, final String value, final XBProjector projector, final int contextSlot) {
+            super(m, value, projector, contextSlot);
             findIndexOfValue = findIndexOfValue(m);
             if (isMultiValue(m.getParameterTypes()[findIndexOfValue])) {
                 throw new IllegalArgumentException("Method " + m + " was declated as updater but with multiple values. Update is possible for single values only. Consider using @XBWrite.");
@@ -382,9 +429,9 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         }
 
         @Override
-        public Object invokeXpathProjection(final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
+        public Object invokeXpathProjection(final ProjectionInvocationHandler projection, final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
             assert ReflectionHelper.hasParameters(method);
-            final Node node = getNodeForMethod(method, args);
+            final Node node = getNodeForMethod(projection, method, args);
 //            final Document document = DOMHelper.getOwnerDocumentFor(node);
 //            final XPath xPath = projector.config().createXPath(document);
             final XPathExpression expression = invocationContext.getxPathExpression();
@@ -432,12 +479,13 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
          * @param value
          * @param projector
          */
-        public DeleteInvocationHandler(final Node node, final Method m, final String value, final XBProjector projector) {
-            super(node, m, value, projector);
+        public DeleteInvocationHandler(final Method m, final String value, final XBProjector projector, final int contextSlot) {
+            super(m, value, projector, contextSlot);
         }
 
         @Override
-        public Object invokeXpathProjection(final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
+        public Object invokeXpathProjection(final ProjectionInvocationHandler projection, final InvocationContext invocationContext, final Object proxy, final Object[] args) throws Throwable {
+            final Node node = projection.node;
 
 //            try {
 //                if (ReflectionHelper.mayProvideParameterNames()) {
@@ -482,8 +530,8 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
          * @param value
          * @param projector
          */
-        public WriteInvocationHandler(final Node node, final Method m, final String value, final XBProjector projector) {
-            super(node, m, value, projector);
+        public WriteInvocationHandler(final Method m, final String value, final XBProjector projector, final int contextSlot) {
+            super(m, value, projector, contextSlot);
             findIndexOfValue = findIndexOfValue(m);
         }
 
@@ -561,8 +609,10 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         }
 
         @Override
-        public Object invokeProjection(final String resolvedXpath, final Object proxy, final Object[] args) throws Throwable {
+        public Object invokeProjection(final ProjectionInvocationHandler projection, final String resolvedXpath, final Object proxy, final Object[] args) throws Throwable {
             //   final String pathToElement = resolvedXpath.replaceAll("\\[@", "[attribute::").replaceAll("/?@.*", "").replaceAll("\\[attribute::", "[@");
+            final Node node = projection.node;
+            InvocationContext lastInvocationContext = projection.getInvocationContext(contextSlot);
             lastInvocationContext.updateMethodArgs(args);
             final Document document = DOMHelper.getOwnerDocumentFor(node);
             assert document != null;
@@ -578,15 +628,15 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
             final boolean wildCardTarget = resolvedXpath.endsWith("/*");
             try {
                 if (!lastInvocationContext.isStillValid(resolvedXpath)) {
-                    final DuplexExpression duplexExpression = wildCardTarget ? new DuplexXPathParser(projector.config().getUserDefinedNamespaceMapping()).compile(resolvedXpath.substring(0, resolvedXpath.length() - 2))
-                            : new DuplexXPathParser(projector.config().getUserDefinedNamespaceMapping()).compile(resolvedXpath);
+                    DuplexExpression duplexExpression = projector.getXPathCache().getDuplexExpression(wildCardTarget ? resolvedXpath.substring(0, resolvedXpath.length() - 2) : resolvedXpath);
                     MethodParamVariableResolver resolver = null;
                     if (duplexExpression.isUsingVariables()) {
                         resolver = new MethodParamVariableResolver(method, args, duplexExpression, projector.config().getStringRenderer(), null);
-                        duplexExpression.setXPathVariableResolver(resolver);
+                        duplexExpression = duplexExpression.withXPathVariableResolver(resolver);
                     }
                     Class<?> targetComponentType = findTargetComponentType(method);
                     lastInvocationContext = new InvocationContext(resolvedXpath, null, null, duplexExpression, resolver, targetComponentType, projector);
+                    projection.setInvocationContext(contextSlot, lastInvocationContext);
                 }
                 final DuplexExpression duplexExpression = lastInvocationContext.getDuplexExpression();
                 if (duplexExpression.getExpressionType().isMustEvalAsString()) {
@@ -685,15 +735,15 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         }
     }
 
-    private static final InvocationHandler DEFAULT_METHOD_INVOCATION_HANDLER = new InvocationHandler() {
+    private static final MethodInvoker DEFAULT_METHOD_INVOCATION_HANDLER = new MethodInvoker() {
 
         @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        public Object invoke(final ProjectionInvocationHandler projection, final Object proxy, final Method method, final Object[] args) throws Throwable {
             return ReflectionHelper.invokeDefaultMethod(method, args, proxy);
         }
     };
 
-    private static final class OverrideByDefaultMethodInvocationHandler implements InvocationHandler {
+    private static final class OverrideByDefaultMethodInvocationHandler implements MethodInvoker {
         private final Method defaultMethod;
 
         OverrideByDefaultMethodInvocationHandler(final Method defaultMethod) {
@@ -701,17 +751,67 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
         }
 
         @Override
-        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-            return DEFAULT_METHOD_INVOCATION_HANDLER.invoke(proxy, defaultMethod, args);
+        public Object invoke(final ProjectionInvocationHandler projection, final Object proxy, final Method method, final Object[] args) throws Throwable {
+            return DEFAULT_METHOD_INVOCATION_HANDLER.invoke(projection, proxy, defaultMethod, args);
         }
     }
 
-    private final Map<MethodSignature, InvocationHandler> handlers = new HashMap<MethodSignature, InvocationHandler>();
-    private final Map<MethodSignature, InvocationHandler> mixinHandlers = new HashMap<MethodSignature, InvocationHandler>();
+    /**
+     * @param invoker
+     * @return true if the invoker just calls the default method of the interface.
+     */
+    static boolean isPlainDefaultMethodInvoker(final MethodInvoker invoker) {
+        return invoker == DEFAULT_METHOD_INVOCATION_HANDLER;
+    }
 
-    ProjectionInvocationHandler(final XBProjector projector, final Node node, final Class<?> projectionInterface, final Map<Class<?>, Object> mixins, final boolean toStringRendersXML, final boolean absentIsEmpty) {
-        final Object defaultInvokerObject = DefaultDOMAccessInvoker.create(projectionInterface, node, projector, toStringRendersXML);
-        final Map<MethodSignature, InvocationHandler> defaultInvocationHandlers = getDefaultInvokers(defaultInvokerObject);
+    /**
+     * @param invoker
+     * @return true if the invoker calls some default method of the interface.
+     */
+    static boolean isDefaultMethodInvoker(final MethodInvoker invoker) {
+        return (invoker == DEFAULT_METHOD_INVOCATION_HANDLER) || (invoker instanceof OverrideByDefaultMethodInvocationHandler);
+    }
+
+    private static final InvocationContext EMPTY_INVOCATION_CONTEXT = new InvocationContext(null, null, null, null, null, Object.class, null);
+
+    private final XBProjector projector;
+    private final Node node;
+    private final Class<?> projectionInterface;
+    private final Map<Class<?>, Object> mixins;
+    private final DefaultDOMAccessInvoker defaultInvokerObject;
+    private final boolean synchronizeOnDocument;
+    private final boolean lockDocument;
+    private transient volatile ReadWriteLock documentLock;
+    private transient ProjectionMetadata metadata;
+    // Contexts are replaced but never modified, so concurrent invocations may race on a slot.
+    private transient volatile InvocationContext[] invocationContexts;
+
+    ProjectionInvocationHandler(final XBProjector projector, final Node node, final ProjectionMetadata metadata, final Map<Class<?>, Object> mixins, final boolean toStringRendersXML, final boolean synchronizeOnDocument, final boolean lockDocument) {
+        this.projector = projector;
+        this.node = node;
+        this.metadata = metadata;
+        this.projectionInterface = metadata.getProjectionInterface();
+        this.mixins = mixins;
+        this.synchronizeOnDocument = synchronizeOnDocument;
+        this.lockDocument = lockDocument;
+        this.defaultInvokerObject = DefaultDOMAccessInvoker.create(projectionInterface, node, projector, toStringRendersXML);
+    }
+
+    /**
+     * Analyze the projection interface and create the method invokers for it. This is done once per
+     * projection interface and mixin configuration, the result is shared by all projections.
+     *
+     * @param projector
+     * @param projectionInterface
+     * @param mixins
+     * @param absentIsEmpty
+     * @return metadata shared by all projections of this interface.
+     */
+    static ProjectionMetadata createMetadata(final XBProjector projector, final Class<?> projectionInterface, final Map<Class<?>, Object> mixins, final boolean absentIsEmpty) {
+        final Map<MethodSignature, MethodInvoker> handlers = new HashMap<MethodSignature, MethodInvoker>();
+        final Map<MethodSignature, MethodInvoker> mixinHandlers = new HashMap<MethodSignature, MethodInvoker>();
+        final Map<MethodSignature, MethodInvoker> defaultInvocationHandlers = getDefaultInvokers();
+        int contextSlots = 0;
 
         for (Entry<Class<?>, Object> e : mixins.entrySet()) {
             for (Method m : e.getKey().getMethods()) {
@@ -743,35 +843,35 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
                 {
                     final XBRead readAnnotation = m.getAnnotation(XBRead.class);
                     if (readAnnotation != null) {
-                        handlers.put(methodSignature, new ReadInvocationHandler(node, m, readAnnotation.value(), projector, absentIsEmpty));
+                        handlers.put(methodSignature, new ReadInvocationHandler(m, readAnnotation.value(), projector, contextSlots++, absentIsEmpty));
                         continue;
                     }
                 }
                 {
                     final XBAuto bindAnnotation = m.getAnnotation(XBAuto.class);
                     if (bindAnnotation != null) {
-                        handlers.put(methodSignature, new ReadInvocationHandler(node, m, bindAnnotation.value(), projector, absentIsEmpty));
+                        handlers.put(methodSignature, new ReadInvocationHandler(m, bindAnnotation.value(), projector, contextSlots++, absentIsEmpty));
                         continue;
                     }
                 }
                 {
                     final XBUpdate updateAnnotation = m.getAnnotation(XBUpdate.class);
                     if (updateAnnotation != null) {
-                        handlers.put(methodSignature, new UpdateInvocationHandler(node, m, updateAnnotation.value(), projector));
+                        handlers.put(methodSignature, new UpdateInvocationHandler(m, updateAnnotation.value(), projector, contextSlots++));
                         continue;
                     }
                 }
                 {
                     final XBWrite writeAnnotation = m.getAnnotation(XBWrite.class);
                     if (writeAnnotation != null) {
-                        handlers.put(methodSignature, new WriteInvocationHandler(node, m, writeAnnotation.value(), projector));
+                        handlers.put(methodSignature, new WriteInvocationHandler(m, writeAnnotation.value(), projector, contextSlots++));
                         continue;
                     }
                 }
                 {
                     final XBDelete delAnnotation = m.getAnnotation(XBDelete.class);
                     if (delAnnotation != null) {
-                        handlers.put(methodSignature, new DeleteInvocationHandler(node, m, delAnnotation.value(), projector));
+                        handlers.put(methodSignature, new DeleteInvocationHandler(m, delAnnotation.value(), projector, contextSlots++));
                         continue;
                     }
                 }
@@ -783,7 +883,40 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
                 throw new IllegalArgumentException("I don't known how to handle method " + m + ". Did you forget to add a XB*-annotation or to register a mixin?");
             }
         }
+        return new ProjectionMetadata(projectionInterface, handlers, mixinHandlers, contextSlots);
+    }
+
+    /**
+     * @return metadata of the projection interface, restored from the projector after
+     *         deserialization.
+     */
+    ProjectionMetadata getMetadata() {
+        if (metadata == null) {
+            metadata = projector.getProjectionMetadata(projectionInterface, mixins);
+        }
+        return metadata;
+    }
+
+    Node getNode() {
+        return node;
+    }
+
+    private InvocationContext getInvocationContext(final int slot) {
+        final InvocationContext[] contexts = invocationContexts;
+        if (contexts == null) {
+            return EMPTY_INVOCATION_CONTEXT;
+        }
+        final InvocationContext invocationContext = contexts[slot];
+        return invocationContext == null ? EMPTY_INVOCATION_CONTEXT : invocationContext;
+    }
 
+    private void setInvocationContext(final int slot, final InvocationContext invocationContext) {
+        InvocationContext[] contexts = invocationContexts;
+        if (contexts == null) {
+            contexts = new InvocationContext[getMetadata().getNumberOfContextSlots()];
+            invocationContexts = contexts;
+        }
+        contexts[slot] = invocationContext;
     }
 
     /**
@@ -864,18 +997,64 @@ final class ProjectionInvocationHandler implements InvocationHandler, Serializab
      */
     @Override
     public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-        unwrapArgs(method.getParameterTypes(), args);
-        if (!mixinHandlers.isEmpty()) {
-            MethodSignature methodSignature = MethodSignature.forMethod(method);
-            if (mixinHandlers.containsKey(methodSignature)) {
-                return mixinHandlers.get(methodSignature).invoke(proxy, method, args);
+        if (lockDocument) {
+            final Lock lock = (getMetadata().findInvoker(method) instanceof ReadInvocationHandler) ? getDocumentLock().readLock() : getDocumentLock().writeLock();
+            lock.lock();
+            try {
+                return invokeUnsynchronized(proxy, method, args);
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (synchronizeOnDocument) {
+            synchronized (DOMHelper.getOwnerDocumentFor(node)) {
+                return invokeUnsynchronized(proxy, method, args);
+            }
+        }
+        return invokeUnsynchronized(proxy, method, args);
+    }
+
+    private ReadWriteLock getDocumentLock() {
+        ReadWriteLock lock = documentLock;
+        if (lock == null) {
+            lock = DocumentIndex.forDocument(DOMHelper.getOwnerDocumentFor(node)).getReadWriteLock();
+            documentLock = lock;
+        }
+        return lock;
+    }
+
+    /**
+     * Entry point for generated projection classes. Checked exceptions not declared by the method
+     * are wrapped like java.lang.reflect.Proxy does.
+     */
+    @Override
+    public Object dispatch(final Object projection, final int methodIndex, final Object[] args) throws Throwable {
+        if (methodIndex == WRITE_REPLACE) {
+            return getMetadata().newProxyInstance(this);
+        }
+        final Method method = getMetadata().getGeneratedMethod(methodIndex);
+        try {
+            return invoke(projection, method, args);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            for (Class<?> exceptionType : method.getExceptionTypes()) {
+                if (exceptionType.isInstance(t)) {
+                    throw t;
+                }
             }
+            throw new UndeclaredThrowableException(t);
         }
+    }
 
-        final InvocationHandler invocationHandler = handlers.get(MethodSignature.forMethod(method));
+    private Object invokeUnsynchronized(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        unwrapArgs(method.getParameterTypes(), args);
+        final MethodInvoker invocationHandler = getMetadata().findInvoker(method);
         if (invocationHandler != null) {
             try {
-                return invocationHandler.invoke(proxy, method, args);
+                return invocationHandler.invoke(this, proxy, method, args);
             } catch (XPathExpressionException e) {
                 throw new XBPathException(e, method, "??");
             }
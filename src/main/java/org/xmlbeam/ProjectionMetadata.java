@@ -0,0 +1,250 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.xmlbeam.ProjectionClassGenerator.GeneratedProjectionClass;
+import org.xmlbeam.ProjectionInvocationHandler.MethodInvoker;
+import org.xmlbeam.dom.DOMAccess;
+
+/**
+ * Everything the projector knows about a projection interface that does not depend on the
+ * projected DOM node: The method invokers, the mapping from methods to invokers and the proxy
+ * class. Instances are created once per projection interface and mixin configuration and shared by
+ * all projections of this interface.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+final class ProjectionMetadata {
+
+    /**
+     * Maximum number of metadata instances a projector keeps. Projectors are usually used with a
+     * fixed set of projection interfaces, so this is only reached by applications creating
+     * projection interfaces or mixins dynamically. Evicted metadata is created again on next use.
+     */
+    static final int CACHE_CAPACITY = 256;
+
+    /**
+     * Cache key for metadata. Mixin instances are part of the key, because the invokers are bound
+     * to them. The mixin map is not copied, it must not be changed after the key was created.
+     */
+    static final class Key {
+        private final Class<?> projectionInterface;
+        private final Set<XBProjector.Flags> flags;
+        private final Map<Class<?>, Object> mixins;
+        private final int hashCode;
+
+        Key(final Class<?> projectionInterface, final Set<XBProjector.Flags> flags, final Map<Class<?>, Object> mixins) {
+            this.projectionInterface = projectionInterface;
+            this.flags = flags;
+            this.mixins = mixins;
+            this.hashCode = (31 * ((31 * projectionInterface.hashCode()) + flags.hashCode())) + mixins.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return (hashCode == other.hashCode) && projectionInterface.equals(other.projectionInterface) && flags.equals(other.flags) && ((mixins == other.mixins) || mixins.equals(other.mixins));
+        }
+    }
+
+    /**
+     * Handler of the proxy instance created in {@link #getProxyConstructor()} to get the proxy
+     * class. That instance is dropped right away without calling any method on it, so this handler
+     * is never invoked. Projections get their own handler via the proxy constructor.
+     */
+    private static final InvocationHandler UNUSED_HANDLER = new InvocationHandler() {
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private final Class<?> projectionInterface;
+    private final Map<MethodSignature, MethodInvoker> invokers;
+    private final Map<MethodSignature, MethodInvoker> mixinInvokers;
+    private final int numberOfContextSlots;
+    private final ConcurrentMap<Method, MethodInvoker> invokersByMethod = new ConcurrentHashMap<Method, MethodInvoker>();
+    private volatile Constructor<?> proxyConstructor;
+    private volatile Object generatedProjectionClass;
+    private volatile Object precompiledProjectionClass;
+
+    ProjectionMetadata(final Class<?> projectionInterface, final Map<MethodSignature, MethodInvoker> invokers, final Map<MethodSignature, MethodInvoker> mixinInvokers, final int numberOfContextSlots) {
+        this.projectionInterface = projectionInterface;
+        this.invokers = invokers;
+        this.mixinInvokers = mixinInvokers;
+        this.numberOfContextSlots = numberOfContextSlots;
+    }
+
+    /**
+     * @return the projection interface
+     */
+    Class<?> getProjectionInterface() {
+        return projectionInterface;
+    }
+
+    /**
+     * @return number of methods that need to keep an invocation context per projection.
+     */
+    int getNumberOfContextSlots() {
+        return numberOfContextSlots;
+    }
+
+    /**
+     * Find the invoker for a method. Mixins take precedence over projection methods.
+     *
+     * @param method
+     * @return invoker or null if there is none
+     */
+    MethodInvoker findInvoker(final Method method) {
+        MethodInvoker invoker = invokersByMethod.get(method);
+        if (invoker != null) {
+            return invoker;
+        }
+        final MethodSignature methodSignature = MethodSignature.forMethod(method);
+        invoker = mixinInvokers.get(methodSignature);
+        if (invoker == null) {
+            invoker = invokers.get(methodSignature);
+        }
+        if (invoker != null) {
+            invokersByMethod.putIfAbsent(method, invoker);
+        }
+        return invoker;
+    }
+
+    /**
+     * Create a new proxy instance for the projection interface. The proxy class constructor is
+     * looked up only once.
+     *
+     * @param invocationHandler
+     * @return a new proxy
+     */
+    Object newProxyInstance(final InvocationHandler invocationHandler) {
+        try {
+            return getProxyConstructor().newInstance(invocationHandler);
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Create a new projection. A class generated by the annotation processor is preferred, then a
+     * class generated at runtime if enabled. Falls back to a proxy if no class can be used for the
+     * projection interface.
+     *
+     * @param invocationHandler
+     * @param generateClasses
+     *            true if a class may be generated at runtime
+     * @return a new projection
+     */
+    Object newInstance(final ProjectionInvocationHandler invocationHandler, final boolean generateClasses) {
+        Object generated = getPrecompiledProjectionClass();
+        if ((!(generated instanceof GeneratedProjectionClass)) && generateClasses) {
+            generated = getGeneratedProjectionClass();
+        }
+        if (!(generated instanceof GeneratedProjectionClass)) {
+            return newProxyInstance(invocationHandler);
+        }
+        try {
+            return ((GeneratedProjectionClass) generated).getConstructor().newInstance(invocationHandler);
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @param index
+     * @return the method implemented by a generated class with the given dispatch index.
+     */
+    Method getGeneratedMethod(final int index) {
+        final Object precompiled = precompiledProjectionClass;
+        if (precompiled instanceof GeneratedProjectionClass) {
+            return ((GeneratedProjectionClass) precompiled).getMethod(index);
+        }
+        return ((GeneratedProjectionClass) generatedProjectionClass).getMethod(index);
+    }
+
+    private Object getPrecompiledProjectionClass() {
+        if (precompiledProjectionClass == null) {
+            final GeneratedProjectionClass precompiled = PrecompiledProjections.find(this);
+            precompiledProjectionClass = precompiled == null ? Boolean.FALSE : precompiled;
+        }
+        return precompiledProjectionClass;
+    }
+
+    private Object getGeneratedProjectionClass() {
+        if (generatedProjectionClass == null) {
+            synchronized (this) {
+                if (generatedProjectionClass == null) {
+                    final GeneratedProjectionClass generated = ProjectionClassGenerator.generate(this);
+                    generatedProjectionClass = generated == null ? Boolean.FALSE : generated;
+                }
+            }
+        }
+        return generatedProjectionClass;
+    }
+
+    private Constructor<?> getProxyConstructor() {
+        if (proxyConstructor == null) {
+            final Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+            interfaces.add(projectionInterface);
+            interfaces.add(DOMAccess.class);
+            interfaces.add(Serializable.class);
+            // Proxy.getProxyClass() is deprecated, the class of a proxy instance is the same.
+            final Class<?> proxyClass = Proxy.newProxyInstance(projectionInterface.getClassLoader(), interfaces.toArray(new Class<?>[interfaces.size()]), UNUSED_HANDLER).getClass();
+            try {
+                final Constructor<?> constructor = proxyClass.getConstructor(InvocationHandler.class);
+                // Proxy classes of non public interfaces are not public.
+                constructor.setAccessible(true);
+                proxyConstructor = constructor;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return proxyConstructor;
+    }
+}
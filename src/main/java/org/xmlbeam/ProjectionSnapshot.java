@@ -0,0 +1,163 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xmlbeam.annotation.XBAuto;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.types.XBAutoList;
+import org.xmlbeam.types.XBAutoMap;
+import org.xmlbeam.types.XBAutoValue;
+import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
+import org.xmlbeam.util.intern.ImmutableProjection;
+import org.xmlbeam.util.intern.ReflectionHelper;
+
+/**
+ * Immutable copy of all values a projection provides by reading methods without parameters. The
+ * values are read in one pass while the document lock (if any) is held once. Sub projections are
+ * copied recursively, lists are unmodifiable. The copy is an {@link ImmutableProjection}. A
+ * projection containing itself, e.g. by a parent and a children getter, can not be copied.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+final class ProjectionSnapshot {
+
+    private ProjectionSnapshot() {
+    }
+
+    /**
+     * @param projector
+     * @param projection
+     * @return a snapshot implementing the projection interface
+     */
+    static Object create(final XBProjector projector, final DOMAccess projection) {
+        final Set<XBProjector.Flags> flags = projector.getFlags();
+        final Document document = DOMHelper.getOwnerDocumentFor(projection.getDOMNode());
+        if (flags.contains(XBProjector.Flags.READ_WRITE_LOCK_ON_DOCUMENTS)) {
+            final Lock lock = DocumentIndex.forDocument(document).getReadWriteLock().readLock();
+            lock.lock();
+            try {
+                return createUnsynchronized(projection, new IdentityHashMap<Node, Set<Class<?>>>());
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (flags.contains(XBProjector.Flags.SYNCHRONIZE_ON_DOCUMENTS)) {
+            synchronized (document) {
+                return createUnsynchronized(projection, new IdentityHashMap<Node, Set<Class<?>>>());
+            }
+        }
+        return createUnsynchronized(projection, new IdentityHashMap<Node, Set<Class<?>>>());
+    }
+
+    /**
+     * @param inProgress
+     *            projection interfaces of the DOM nodes being copied, to detect projections
+     *            containing themselves.
+     */
+    private static Object createUnsynchronized(final DOMAccess projection, final Map<Node, Set<Class<?>>> inProgress) {
+        final Class<?> projectionInterface = projection.getProjectionInterface();
+        final Node node = projection.getDOMNode();
+        Set<Class<?>> interfaces = inProgress.get(node);
+        if (interfaces == null) {
+            interfaces = new HashSet<Class<?>>();
+            inProgress.put(node, interfaces);
+        }
+        if (!interfaces.add(projectionInterface)) {
+            throw new IllegalArgumentException("Can not create a snapshot of projection " + projectionInterface.getName() + ", because it contains itself at node '" + node.getNodeName() + "'.");
+        }
+        final Map<String, Object> values = new HashMap<String, Object>();
+        for (Method method : projectionInterface.getMethods()) {
+            if (!isSnapshotMethod(method)) {
+                continue;
+            }
+            try {
+                method.setAccessible(true);
+                final Object value = method.invoke(projection);
+                values.put(method.getName(), ReflectionHelper.isStreamClass(method.getReturnType()) ? freezeStream(value, inProgress) : freeze(value, inProgress));
+            } catch (InvocationTargetException e) {
+                values.put(method.getName(), ImmutableProjection.failure(e.getCause() == null ? e : e.getCause()));
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        interfaces.remove(projectionInterface);
+        return ImmutableProjection.newInstance(projectionInterface, values);
+    }
+
+    private static boolean isSnapshotMethod(final Method method) {
+        if ((method.getAnnotation(XBRead.class) == null) || (method.getAnnotation(XBAuto.class) != null) || ReflectionHelper.hasParameters(method)) {
+            return false;
+        }
+        final Class<?> returnType = ReflectionHelper.isOptional(method.getGenericReturnType()) ? ReflectionHelper.getParameterType(method.getGenericReturnType()) : method.getReturnType();
+        return !(Node.class.isAssignableFrom(returnType) || Map.class.equals(returnType) || XBAutoMap.class.equals(returnType) || XBAutoList.class.equals(returnType) || XBAutoValue.class.equals(returnType));
+    }
+
+    private static Object freeze(final Object value, final Map<Node, Set<Class<?>>> inProgress) throws Exception {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof DOMAccess) {
+            return createUnsynchronized((DOMAccess) value, inProgress);
+        }
+        if (value instanceof List) {
+            final List<Object> list = new ArrayList<Object>(((List<?>) value).size());
+            for (Object o : (List<?>) value) {
+                list.add(freeze(o, inProgress));
+            }
+            return Collections.unmodifiableList(list);
+        }
+        if (value instanceof Object[]) {
+            final Object[] array = ((Object[]) value).clone();
+            for (int i = 0; i < array.length; ++i) {
+                array[i] = freeze(array[i], inProgress);
+            }
+            return array;
+        }
+        if (ReflectionHelper.isOptional(value.getClass())) {
+            return ReflectionHelper.createOptional(freeze(value.getClass().getMethod("orElse", Object.class).invoke(value, (Object) null), inProgress));
+        }
+        return value;
+    }
+
+    private static Object freezeStream(final Object stream, final Map<Node, Set<Class<?>>> inProgress) throws Exception {
+        final List<Object> list = new ArrayList<Object>();
+        final Method iterator = Class.forName("java.util.stream.BaseStream").getMethod("iterator");
+        for (Iterator<?> i = (Iterator<?>) iterator.invoke(stream); i.hasNext();) {
+            list.add(freeze(i.next(), inProgress));
+        }
+        return Collections.unmodifiableList(list);
+    }
+}
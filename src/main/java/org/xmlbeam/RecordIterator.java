@@ -0,0 +1,145 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.NoSuchElementException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.w3c.dom.Element;
+import org.xmlbeam.exceptions.XBDocumentParsingException;
+import org.xmlbeam.types.CloseableIterator;
+import org.xmlbeam.util.intern.StreamingProjectionReader;
+import org.xmlbeam.util.intern.StreamingRecordReader;
+
+/**
+ * Projects the records of a stream one by one. Each record is projected on its own small
+ * document, so it can be garbage collected as soon as the caller drops the projection. The stream
+ * is closed when the last record was read.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ * @param <T>
+ *            projection interface
+ */
+final class RecordIterator<T> implements CloseableIterator<T> {
+
+    private final XBProjector projector;
+    private final InputStream is;
+    private final StreamingRecordReader recordReader;
+    private final Class<T> projectionInterface;
+    private Element next;
+    private boolean closed;
+
+    /**
+     * @param projector
+     * @param is
+     *            stream to read, closed by this iterator
+     * @param systemID
+     *            may be null
+     * @param recordPath
+     *            location path of the record elements
+     * @param projectionInterface
+     * @throws IOException
+     */
+    RecordIterator(final XBProjector projector, final InputStream is, final String systemID, final String recordPath, final Class<T> projectionInterface) throws IOException {
+        this.projector = projector;
+        this.is = is;
+        this.projectionInterface = projectionInterface;
+        try {
+            this.recordReader = new StreamingRecordReader(projector, StreamingProjectionReader.createXMLStreamReader(is, systemID), recordPath);
+        } catch (XMLStreamException e) {
+            is.close();
+            throw new XBDocumentParsingException(e);
+        } catch (RuntimeException e) {
+            is.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the next record element or null if there is none.
+     */
+    Element nextRecord() {
+        if (!hasNext()) {
+            return null;
+        }
+        final Element record = next;
+        next = null;
+        return record;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            next = recordReader.next();
+        } catch (XMLStreamException e) {
+            closeQuietly();
+            throw new XBDocumentParsingException(e);
+        }
+        if (next == null) {
+            closeQuietly();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        final Element record = nextRecord();
+        if (record == null) {
+            throw new NoSuchElementException();
+        }
+        return projector.projectDOMNode(record, projectionInterface);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = null;
+        try {
+            recordReader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            is.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // Nothing left to read anyway.
+        }
+    }
+}
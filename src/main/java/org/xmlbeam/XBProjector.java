@@ -18,10 +18,6 @@ package org.xmlbeam;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -34,10 +30,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
-import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.net.URISyntaxException;
 import java.text.Format;
 import java.text.MessageFormat;
@@ -71,8 +65,11 @@ import org.xmlbeam.exceptions.XBException;
 import org.xmlbeam.exceptions.XBIOException;
 import org.xmlbeam.externalizer.Externalizer;
 import org.xmlbeam.externalizer.ExternalizerAdapter;
-import org.xmlbeam.intern.DOMChangeListener;
+import org.xmlbeam.io.DefaultDocumentCache;
+import org.xmlbeam.io.DefaultHttpTransport;
+import org.xmlbeam.io.DocumentCache;
 import org.xmlbeam.io.FileIO;
+import org.xmlbeam.io.HttpTransport;
 import org.xmlbeam.io.ProjectionIO;
 import org.xmlbeam.io.StreamInput;
 import org.xmlbeam.io.StreamOutput;
@@ -81,7 +78,9 @@ import org.xmlbeam.types.DefaultTypeConverter;
 import org.xmlbeam.types.StringRenderer;
 import org.xmlbeam.types.TypeConverter;
 import org.xmlbeam.types.XBAutoMap;
+import org.xmlbeam.util.CacheStatistics;
 import org.xmlbeam.util.IOHelper;
+import org.xmlbeam.util.intern.BoundedCache;
 import org.xmlbeam.util.intern.DOMHelper;
 import org.xmlbeam.util.intern.DocScope;
 import org.xmlbeam.util.intern.ReflectionHelper;
@@ -305,6 +304,67 @@ public class XBProjector implements Serializable, ProjectionFactory {
         public Map<String, String> getUserDefinedNamespaceMapping() {
             return xMLFactoriesConfig.getUserDefinedNamespaceMapping();
         }
+
+        /**
+         * Set the maximum number of parsed and compiled XPath expressions the projector keeps.
+         * Projections of the same interface share the cached expressions.
+         *
+         * @param capacity
+         *            maximum number of cached expressions. 0 disables the cache.
+         * @return this for convenience
+         */
+        public ConfigBuilder setXPathCacheCapacity(final int capacity) {
+            getXPathCache().setCapacity(capacity);
+            XBProjector.this.xPathCacheCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * @return hit, miss and eviction counters of the XPath cache.
+         */
+        public CacheStatistics getXPathCacheStatistics() {
+            return getXPathCache().getStatistics();
+        }
+
+        /**
+         * Set the cache for documents referenced by {@link XBDocURL} annotations on projection
+         * methods. By default a {@link DefaultDocumentCache} is used.
+         *
+         * @param documentCache
+         *            null to load the document on each invocation.
+         * @return this for convenience
+         */
+        public ConfigBuilder setDocumentCache(final DocumentCache documentCache) {
+            XBProjector.this.documentCache = documentCache;
+            return this;
+        }
+
+        /**
+         * @return the cache for external documents, may be null.
+         */
+        public DocumentCache getDocumentCache() {
+            return XBProjector.this.documentCache;
+        }
+
+        /**
+         * Set the transport for HTTP requests of {@link UrlIO} and external documents. By default
+         * a {@link DefaultHttpTransport} is used.
+         *
+         * @param httpTransport
+         *            null restores the default.
+         * @return this for convenience
+         */
+        public ConfigBuilder setHttpTransport(final HttpTransport httpTransport) {
+            XBProjector.this.httpTransport = httpTransport == null ? new DefaultHttpTransport() : httpTransport;
+            return this;
+        }
+
+        /**
+         * @return the transport for HTTP requests.
+         */
+        public HttpTransport getHttpTransport() {
+            return XBProjector.this.httpTransport;
+        }
     }
 
     /**
@@ -318,11 +378,11 @@ public class XBProjector implements Serializable, ProjectionFactory {
         @Override
         public <S, M extends S, P extends S> XBProjector addProjectionMixin(final Class<P> projectionInterface, final M mixinImplementation) {
             ensureIsValidProjectionInterface(projectionInterface);
-            Map<Class<?>, Object> map = mixins.containsKey(projectionInterface) ? mixins.get(projectionInterface) : new HashMap<Class<?>, Object>();
+            Map<Class<?>, Object> map = mixins.containsKey(projectionInterface) ? new HashMap<Class<?>, Object>(mixins.get(projectionInterface)) : new HashMap<Class<?>, Object>();
             for (Class<?> type : ReflectionHelper.findAllCommonSuperInterfaces(projectionInterface, mixinImplementation.getClass())) {
                 map.put(type, mixinImplementation);
             }
-            mixins.put(projectionInterface, map);
+            mixins.put(projectionInterface, Collections.unmodifiableMap(map));
             return XBProjector.this;
 
         }
@@ -348,7 +408,10 @@ public class XBProjector implements Serializable, ProjectionFactory {
             if (!mixins.containsKey(projectionInterface)) {
                 return null;
             }
-            return (M) mixins.get(projectionInterface).remove(mixinInterface);
+            final Map<Class<?>, Object> map = new HashMap<Class<?>, Object>(mixins.get(projectionInterface));
+            final M mixin = (M) map.remove(mixinInterface);
+            mixins.put(projectionInterface, Collections.unmodifiableMap(map));
+            return mixin;
         }
     }
 
@@ -419,6 +482,10 @@ public class XBProjector implements Serializable, ProjectionFactory {
         @SuppressWarnings("unchecked")
         Map<String, String> filterRequestParamsFromParams(final String url, final Object... optionalParams) {
             Map<String, String> requestParams = new HashMap<String, String>();
+            if (optionalParams == null) {
+                // Invocation of a method without parameters
+                return requestParams;
+            }
             Format[] formats = new MessageFormat(url).getFormatsByArgumentIndex();
             for (int i = 0; i < optionalParams.length; ++i) {
                 if (i >= formats.length) {
@@ -458,7 +525,7 @@ public class XBProjector implements Serializable, ProjectionFactory {
     @Override
     @Scope(DocScope.IO)
     public <T> T projectEmptyDocument(final Class<T> projectionInterface) {
-        Document document = xMLFactoriesConfig.createDocumentBuilder().newDocument();
+        Document document = DOMHelper.getDocumentBuilder(this).newDocument();
         return projectDOMNode(document, projectionInterface);
     }
 
@@ -468,7 +535,7 @@ public class XBProjector implements Serializable, ProjectionFactory {
     @Override
     @Scope(DocScope.IO)
     public <T> T projectEmptyElement(final String name, final Class<T> projectionInterface) {
-        Document document = xMLFactoriesConfig.createDocumentBuilder().newDocument();
+        Document document = DOMHelper.getDocumentBuilder(this).newDocument();
         Element element = document.createElement(name);
         return projectDOMNode(element, projectionInterface);
     }
@@ -477,34 +544,71 @@ public class XBProjector implements Serializable, ProjectionFactory {
      * {@inheritDoc}
      */
     @Override
-    @SuppressWarnings("unchecked")
     @Scope(DocScope.IO)
     public <T> T projectDOMNode(final Node documentOrElement, final Class<T> projectionInterface) {
-        ensureIsValidProjectionInterface(projectionInterface);
+        if (projectionInterface == null) {
+            throw new IllegalArgumentException("Parameter projectionInterface must not be null, but is.", new NullPointerException());
+        }
+        final Map<Class<?>, Object> mixinsForProjection = mixins.containsKey(projectionInterface) ? mixins.get(projectionInterface) : Collections.<Class<?>, Object> emptyMap();
+        final ProjectionMetadata metadata = getProjectionMetadata(projectionInterface, mixinsForProjection);
 
         if (documentOrElement == null) {
             throw new IllegalArgumentException("Parameter node must not be null");
         }
 
-        final Map<Class<?>, Object> mixinsForProjection = mixins.containsKey(projectionInterface) ? Collections.unmodifiableMap(mixins.get(projectionInterface)) : Collections.<Class<?>, Object> emptyMap();
-        final ProjectionInvocationHandler projectionInvocationHandler = new ProjectionInvocationHandler(XBProjector.this, documentOrElement, projectionInterface, mixinsForProjection, flags.contains(Flags.TO_STRING_RENDERS_XML), flags.contains(Flags.ABSENT_IS_EMPTY));
-        final Set<Class<?>> interfaces = new HashSet<Class<?>>();
-        interfaces.add(projectionInterface);
-        interfaces.add(DOMAccess.class);
-        interfaces.add(Serializable.class);
-        if (flags.contains(Flags.SYNCHRONIZE_ON_DOCUMENTS)) {
-            final Document document = DOMHelper.getOwnerDocumentFor(documentOrElement);
-            InvocationHandler synchronizedInvocationHandler = new InvocationHandler() {
-                @Override
-                public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-                    synchronized (document) {
-                        return projectionInvocationHandler.invoke(proxy, method, args);
-                    }
+        final ProjectionInvocationHandler projectionInvocationHandler = new ProjectionInvocationHandler(XBProjector.this, documentOrElement, metadata, mixinsForProjection, flags.contains(Flags.TO_STRING_RENDERS_XML), flags.contains(Flags.SYNCHRONIZE_ON_DOCUMENTS), flags.contains(Flags.READ_WRITE_LOCK_ON_DOCUMENTS));
+        return projectionInterface.cast(metadata.newInstance(projectionInvocationHandler, flags.contains(Flags.GENERATE_PROJECTION_CLASSES)));
+    }
+
+    /**
+     * Lookup the shared metadata for a projection interface. The interface is validated and
+     * analyzed only the first time it is projected with the given mixins. Interfaces processed by
+     * the annotation processor were validated by the compiler already.
+     *
+     * @param projectionInterface
+     * @param mixinsForProjection
+     * @return metadata shared by all projections of this interface
+     */
+    ProjectionMetadata getProjectionMetadata(final Class<?> projectionInterface, final Map<Class<?>, Object> mixinsForProjection) {
+        BoundedCache<ProjectionMetadata.Key, ProjectionMetadata> cache = projectionMetadataCache;
+        if (cache == null) {
+            synchronized (this) {
+                if (projectionMetadataCache == null) {
+                    projectionMetadataCache = new BoundedCache<ProjectionMetadata.Key, ProjectionMetadata>(ProjectionMetadata.CACHE_CAPACITY);
                 }
-            };
-            return ((T) Proxy.newProxyInstance(projectionInterface.getClassLoader(), interfaces.toArray(new Class<?>[interfaces.size()]), synchronizedInvocationHandler));
+                cache = projectionMetadataCache;
+            }
+        }
+        final ProjectionMetadata.Key key = new ProjectionMetadata.Key(projectionInterface, getMetadataRelevantFlags(), mixinsForProjection);
+        final ProjectionMetadata metadata = cache.get(key);
+        if (metadata != null) {
+            return metadata;
         }
-        return ((T) Proxy.newProxyInstance(projectionInterface.getClassLoader(), interfaces.toArray(new Class<?>[interfaces.size()]), projectionInvocationHandler));
+        if (!PrecompiledProjections.isPrecompiled(projectionInterface)) {
+            ensureIsValidProjectionInterface(projectionInterface);
+        }
+        final ProjectionMetadata newMetadata = ProjectionInvocationHandler.createMetadata(this, projectionInterface, mixinsForProjection, flags.contains(Flags.ABSENT_IS_EMPTY));
+        return cache.putIfAbsent(key, newMetadata);
+    }
+
+    /**
+     * @return cache for XPath expressions shared by all projections of this projector.
+     */
+    XPathCache getXPathCache() {
+        XPathCache cache = xPathCache;
+        if (cache == null) {
+            synchronized (this) {
+                if (xPathCache == null) {
+                    xPathCache = new XPathCache(xPathCacheCapacity, xMLFactoriesConfig, flags);
+                }
+                cache = xPathCache;
+            }
+        }
+        return cache;
+    }
+
+    private Set<Flags> getMetadataRelevantFlags() {
+        return flags.contains(Flags.ABSENT_IS_EMPTY) ? EnumSet.of(Flags.ABSENT_IS_EMPTY) : EnumSet.noneOf(Flags.class);
     }
 
     /**
@@ -558,12 +662,30 @@ public class XBProjector implements Serializable, ProjectionFactory {
 
     private final XMLFactoriesConfig xMLFactoriesConfig;
 
+    /**
+     * Mixins per projection interface. The inner maps are replaced instead of modified, so
+     * projections and metadata cache keys can keep them without copying.
+     */
     private final Map<Class<?>, Map<Class<?>, Object>> mixins = new HashMap<Class<?>, Map<Class<?>, Object>>();
 
     private TypeConverter typeConverter = new DefaultTypeConverter(Locale.getDefault(), TimeZone.getTimeZone("GMT"));
     private StringRenderer stringRenderer = (StringRenderer) typeConverter;
 
-    private final List<WeakReference<DOMChangeListener>> domChangeListeners = new LinkedList<WeakReference<DOMChangeListener>>();
+    private transient volatile BoundedCache<ProjectionMetadata.Key, ProjectionMetadata> projectionMetadataCache;
+
+    private int xPathCacheCapacity = XPathCache.DEFAULT_CAPACITY;
+
+    private transient volatile XPathCache xPathCache;
+
+    /**
+     * Serialized with the projector to keep its settings. It does not serialize cached documents.
+     */
+    private DocumentCache documentCache = new DefaultDocumentCache();
+
+    /**
+     * Serialized with the projector to keep its settings, e.g. the timeouts.
+     */
+    private HttpTransport httpTransport = new DefaultHttpTransport();
 
     /**
      * Global projector configuration options.
@@ -572,9 +694,20 @@ public class XBProjector implements Serializable, ProjectionFactory {
 
         /**
          * Enables thread safety by removing concurrent DOM access. Useful if the underlying DOM
-         * implementation is not thread safe.
+         * implementation is not thread safe. Without this flag, projections may be read
+         * concurrently as long as nobody modifies the document and the DOM implementation supports
+         * concurrent reads. (Xerces expands deferred nodes on first access, so touch the whole
+         * document once before sharing it.)
          */
         SYNCHRONIZE_ON_DOCUMENTS,
+        /**
+         * Like {@link #SYNCHRONIZE_ON_DOCUMENTS}, but with a read/write lock per document. Methods
+         * annotated with {@link org.xmlbeam.annotation.XBRead} take the read lock, so they run
+         * concurrently. All other methods take the write lock. Takes precedence over
+         * SYNCHRONIZE_ON_DOCUMENTS if both are set. Objects returned by projection methods (e.g.
+         * XBAutoList) are not guarded.
+         */
+        READ_WRITE_LOCK_ON_DOCUMENTS,
         /**
          * Let the projections toString() method render the projection target as XML. Be careful if
          * your documents get large. toString() might be used frequently by the IDE your debugging
@@ -588,7 +721,35 @@ public class XBProjector implements Serializable, ProjectionFactory {
         /**
          * If a node is not present, handle it like it is empty.
          */
-        ABSENT_IS_EMPTY
+        ABSENT_IS_EMPTY,
+        /**
+         * Implement projections by classes generated at runtime instead of java.lang.reflect.Proxy.
+         * Projection methods are called without method lookup then. Projection interfaces that can
+         * not be implemented this way (e.g. non public interfaces) are still projected with a
+         * Proxy. Classes generated at compile time by the
+         * {@link org.xmlbeam.processor.ProjectionProcessor} are used regardless of this flag.
+         */
+        GENERATE_PROJECTION_CLASSES,
+        /**
+         * Evaluate simple location paths like /order/customer/@id or /a/b[2]/c by walking the DOM
+         * directly instead of calling JAXP. Expressions that can not be evaluated this way are
+         * still evaluated by JAXP. Without this flag, all XPath expressions are evaluated by JAXP.
+         */
+        NATIVE_XPATH,
+        /**
+         * Like {@link #NATIVE_XPATH}, but evaluate simple location paths natively and by JAXP and
+         * throw an exception if the results differ. Meant for testing, because each evaluation is
+         * done twice.
+         */
+        VERIFY_NATIVE_XPATH,
+        /**
+         * Keep an index from element names to elements per document and use it for natively
+         * evaluated descendant steps like //item[@sku='a'] or count(//item), so it takes effect
+         * together with {@link #NATIVE_XPATH} only. The index is built on first use and rebuilt
+         * after elements were inserted or removed, so it pays off for documents read more often
+         * than changed. Needs a DOM implementation supporting mutation events.
+         */
+        INDEX_ELEMENT_NAMES
     }
 
     /**
@@ -645,6 +806,9 @@ public class XBProjector implements Serializable, ProjectionFactory {
      * @return
      */
     private DOMAccess checkProjectionInstance(final Object projection) {
+        if ((ProjectionClassGenerator.isGeneratedProjection(projection) || PrecompiledProjections.isPrecompiledProjection(projection)) && (projection instanceof DOMAccess)) {
+            return (DOMAccess) projection;
+        }
         if (java.lang.reflect.Proxy.isProxyClass(projection.getClass())) {
             InvocationHandler invocationHandler = java.lang.reflect.Proxy.getInvocationHandler(projection);
             if (invocationHandler instanceof ProjectionInvocationHandler) {
@@ -789,30 +953,34 @@ public class XBProjector implements Serializable, ProjectionFactory {
     }
 
     /**
-     * read only access to flags. Use constructor to set.
+     * Read all methods of a projection annotated with {@link XBRead} that take no parameters and
+     * return the values as an immutable object implementing the projection interface. The document
+     * is read in one pass, so the snapshot is consistent even if the document is modified
+     * afterwards. Snapshots are thread safe, serializable and implement equals() and hashCode() by
+     * value. Sub projections are snapshots, too. Reading methods returning DOM nodes, maps or
+     * XBAuto types are not part of the snapshot. Calling them or any method with parameters
+     * results in an UnsupportedOperationException.
      *
-     * @return flags.
+     * @param projection
+     * @return a snapshot of the projection
      */
-    public Set<Flags> getFlags() {
-        return Collections.unmodifiableSet(flags);
-    }
-
-    void addDOMChangeListener(final DOMChangeListener listener) {
-        domChangeListeners.add(new WeakReference<DOMChangeListener>(listener));
+    public <T> T snapshot(final T projection) {
+        if (projection == null) {
+            throw new IllegalArgumentException("Parameter projection must not be null, but is.", new NullPointerException());
+        }
+        final DOMAccess domAccess = checkProjectionInstance(projection);
+        @SuppressWarnings("unchecked")
+        final T snapshot = (T) ProjectionSnapshot.create(this, domAccess);
+        return snapshot;
     }
 
     /**
+     * read only access to flags. Use constructor to set.
      *
+     * @return flags.
      */
-    void notifyDOMChangeListeners() {
-        for (ListIterator<WeakReference<DOMChangeListener>> i = domChangeListeners.listIterator(); i.hasNext();) {
-            DOMChangeListener listener = i.next().get();
-            if (listener == null) {
-                i.remove();
-                continue;
-            }
-            listener.domChanged();
-        }
+    public Set<Flags> getFlags() {
+        return Collections.unmodifiableSet(flags);
     }
 
     /**
@@ -823,7 +991,7 @@ public class XBProjector implements Serializable, ProjectionFactory {
      * @return an empty Map view to the document
      */
     public <T> XBAutoMap<T> autoMapEmptyDocument(final Class<T> valueType) {
-        Document document = xMLFactoriesConfig.createDocumentBuilder().newDocument();
+        Document document = DOMHelper.getDocumentBuilder(this).newDocument();
         return createAutoMapForDocument(valueType, document);
     }
 
@@ -0,0 +1,196 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.xmlbeam.config.XMLFactoriesConfig;
+import org.xmlbeam.util.CacheStatistics;
+import org.xmlbeam.util.intern.BoundedCache;
+import org.xmlbeam.util.intern.duplex.DuplexExpression;
+import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
+import org.xmlbeam.util.intern.duplex.NativeExpression;
+
+/**
+ * Projector wide cache for parsed and compiled XPath expressions. Parsed expressions are cached by
+ * the expression string and the user defined namespace mapping used for parsing. Compiled
+ * expressions are cached by the expression string, the namespace context of the XPath instance
+ * used for compiling, the evaluation target type and the use of the key index. Namespace contexts
+ * not implementing equals() are compared by identity. Expressions using variables are not
+ * compiled here, because the variable resolver is bound to the compiled expression. Compiled
+ * expressions may be evaluated concurrently, see {@link PerThreadXPathExpression}.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+final class XPathCache {
+
+    /**
+     * Default maximum number of cached expressions.
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Key of a compiled expression, or of a parsed expression with the user defined namespace
+     * mapping as namespace context.
+     */
+    private static final class Key {
+        private final String xpath;
+        private final Object namespaceContext;
+        private final Class<?> targetType;
+        private final boolean isKeyIndexed;
+        private final int hashCode;
+
+        Key(final String xpath, final Object namespaceContext, final Class<?> targetType, final boolean isKeyIndexed) {
+            this.xpath = xpath;
+            this.namespaceContext = namespaceContext;
+            this.targetType = targetType;
+            this.isKeyIndexed = isKeyIndexed;
+            this.hashCode = (2 * ((31 * ((31 * xpath.hashCode()) + (namespaceContext == null ? 0 : namespaceContext.hashCode()))) + (targetType == null ? 0 : targetType.hashCode()))) + (isKeyIndexed ? 1 : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return (targetType == other.targetType) && (isKeyIndexed == other.isKeyIndexed) && xpath.equals(other.xpath) && (namespaceContext == null ? other.namespaceContext == null : namespaceContext.equals(other.namespaceContext));
+        }
+    }
+
+    private final BoundedCache<Object, Object> cache;
+    private final XMLFactoriesConfig factoriesConfig;
+    private final Map<String, String> userDefinedNamespaceMapping;
+    private final boolean isNativeEvaluation;
+    private final boolean isVerifyingNativeEvaluation;
+    private final boolean isUsingElementIndex;
+
+    /**
+     * @param capacity
+     * @param factoriesConfig
+     *            provides the namespace mapping used when parsing expressions and the XPath
+     *            factories for compiling per thread copies of shared expressions
+     * @param flags
+     *            projector flags controlling the native evaluation of simple paths
+     */
+    XPathCache(final int capacity, final XMLFactoriesConfig factoriesConfig, final Set<XBProjector.Flags> flags) {
+        this.cache = new BoundedCache<Object, Object>(capacity);
+        this.factoriesConfig = factoriesConfig;
+        this.userDefinedNamespaceMapping = factoriesConfig.getUserDefinedNamespaceMapping();
+        this.isNativeEvaluation = flags.contains(XBProjector.Flags.NATIVE_XPATH) || flags.contains(XBProjector.Flags.VERIFY_NATIVE_XPATH);
+        this.isVerifyingNativeEvaluation = flags.contains(XBProjector.Flags.VERIFY_NATIVE_XPATH);
+        this.isUsingElementIndex = flags.contains(XBProjector.Flags.INDEX_ELEMENT_NAMES);
+    }
+
+    /**
+     * The returned expression is shared. Use
+     * {@link DuplexExpression#withXPathVariableResolver(javax.xml.xpath.XPathVariableResolver)}
+     * to bind variables.
+     *
+     * @param xpath
+     * @return parsed expression
+     */
+    DuplexExpression getDuplexExpression(final String xpath) {
+        // The mapping may change, so the cached key gets a copy.
+        final DuplexExpression cached = (DuplexExpression) cache.get(new Key(xpath, userDefinedNamespaceMapping, null, false));
+        if (cached != null) {
+            return cached;
+        }
+        final Map<String, String> namespaceMapping = new HashMap<String, String>(userDefinedNamespaceMapping);
+        return (DuplexExpression) cache.putIfAbsent(new Key(xpath, namespaceMapping, null, false), new DuplexXPathParser(namespaceMapping).compile(xpath));
+    }
+
+    /**
+     * @param xPath
+     *            XPath instance providing the namespace context
+     * @param duplexExpression
+     *            parsed expression not using variables
+     * @param targetType
+     * @param isKeyIndexed
+     *            see {@link #compile(XPath, DuplexExpression, boolean)}
+     * @return compiled expression, possibly shared with other projections and threads.
+     * @throws XPathExpressionException
+     */
+    XPathExpression getXPathExpression(final XPath xPath, final DuplexExpression duplexExpression, final Class<?> targetType, final boolean isKeyIndexed) throws XPathExpressionException {
+        assert !duplexExpression.isUsingVariables();
+        final String strippedXPath = duplexExpression.getExpressionAsStringWithoutFormatPatterns();
+        final Key key = new Key(strippedXPath, xPath.getNamespaceContext(), targetType, isKeyIndexed);
+        final XPathExpression cached = (XPathExpression) cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return (XPathExpression) cache.putIfAbsent(key, compile(xPath, duplexExpression, isKeyIndexed));
+    }
+
+    /**
+     * Compile an expression without caching it. Expressions supported by {@link NativeExpression}
+     * are evaluated natively, everything else by JAXP.
+     *
+     * @param xPath
+     *            XPath instance providing namespace context and variable resolver
+     * @param duplexExpression
+     * @param isKeyIndexed
+     *            true if equality predicates on keys should be looked up in a key index, see
+     *            {@link org.xmlbeam.annotation.XBIndexed}
+     * @return compiled expression, safe for concurrent evaluation.
+     * @throws XPathExpressionException
+     */
+    XPathExpression compile(final XPath xPath, final DuplexExpression duplexExpression, final boolean isKeyIndexed) throws XPathExpressionException {
+        final String strippedXPath = duplexExpression.getExpressionAsStringWithoutFormatPatterns();
+        final XPathExpression jaxpExpression = new PerThreadXPathExpression(factoriesConfig, xPath, strippedXPath);
+        if (!isNativeEvaluation) {
+            return jaxpExpression;
+        }
+        final int options = (isUsingElementIndex ? NativeExpression.ELEMENT_INDEX : 0) | (isKeyIndexed ? NativeExpression.KEY_INDEX : 0);
+        final NativeExpression nativeExpression = NativeExpression.compile(duplexExpression, xPath.getNamespaceContext(), options);
+        if (nativeExpression == null) {
+            return jaxpExpression;
+        }
+        return new NativeXPathExpression(strippedXPath, nativeExpression, jaxpExpression, xPath.getXPathVariableResolver(), isVerifyingNativeEvaluation);
+    }
+
+    /**
+     * @param capacity
+     */
+    void setCapacity(final int capacity) {
+        cache.setCapacity(capacity);
+    }
+
+    /**
+     * Remove all cached expressions.
+     */
+    void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return counters of this cache
+     */
+    CacheStatistics getStatistics() {
+        return cache.getStatistics();
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Look up the elements selected by a key predicate in a per document index instead of testing
+ * each element. A key predicate is the first predicate of a step comparing an attribute or child
+ * element with "=" to a literal or a parameter, like in
+ * <code>@XBRead("/catalog/item[@id=$PARAM0]")</code> or <code>//item[name=$PARAM0]</code>. The
+ * path must be absolute and the steps before must not have predicates. Other paths are evaluated
+ * as usual.
+ * <p>
+ * The index maps the key values to the elements. It is built on the first lookup and dropped by
+ * any change of the document, whether made through projections, {@link org.xmlbeam.types.XBAutoList},
+ * {@link org.xmlbeam.types.XBAutoMap} or the DOM API. So it pays off for documents read more
+ * often than changed. The index needs a DOM implementation supporting mutation events and is only
+ * used with {@link org.xmlbeam.XBProjector.Flags#NATIVE_XPATH}.
+ * </p>
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface XBIndexed {
+
+}
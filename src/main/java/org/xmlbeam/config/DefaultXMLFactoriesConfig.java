@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Properties;
 import java.util.TreeMap;
 
 import javax.xml.XMLConstants;
@@ -31,6 +32,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
@@ -46,6 +48,8 @@ import org.xmlbeam.XBProjector;
 import org.xmlbeam.exceptions.XBException;
 import org.xmlbeam.util.UnionIterator;
 import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DOMSerializer;
+import org.xmlbeam.util.intern.DocumentIndex;
 import org.xmlbeam.util.intern.ReflectionHelper;
 
 /**
@@ -115,7 +119,10 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
 
     private static final String NON_EXISTING_URL = "http://xmlbeam.org/nonexisting_namespace";
 
+    private static final String JDK_TRANSFORMER_FACTORY = "com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl";
+
     private boolean isExpandEntityReferences = false;
+    private boolean isNativeSerialization = true;
     private boolean isNoEntityResolving = true;
     private boolean isOmitXMLDeclaration = true;
     private boolean isPrettyPrinting = true;
@@ -136,7 +143,41 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
     private final Map<String, String> USER_DEFINED_MAPPING = new TreeMap<String, String>();
 
     /**
-     * Empty default constructor, a Configuration has no state.
+     * Factories created with the current settings. Factories are not thread safe, so each thread
+     * gets its own XPath factory and, for the projectors internal use, its own document builder and
+     * transformer.
+     */
+    private static final class Factories {
+        private final DocumentBuilderFactory documentBuilderFactory;
+        private final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>();
+        private final ThreadLocal<XPathFactory> xPathFactories = new ThreadLocal<XPathFactory>();
+        private final ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>();
+        private final Properties outputProperties;
+        private final boolean isDocumentBuilderOverridden;
+        private final boolean isTransformerOverridden;
+        // Created on first serialization, guarded by this.
+        private TransformerFactory transformerFactory;
+        private Templates prettyPrintTemplates;
+        private volatile DOMSerializer serializer;
+        private volatile boolean isSerializerChecked;
+
+        Factories(final DocumentBuilderFactory documentBuilderFactory, final Properties outputProperties, final boolean isDocumentBuilderOverridden, final boolean isTransformerOverridden) {
+            this.documentBuilderFactory = documentBuilderFactory;
+            this.outputProperties = outputProperties;
+            this.isDocumentBuilderOverridden = isDocumentBuilderOverridden;
+            this.isTransformerOverridden = isTransformerOverridden;
+        }
+    }
+
+    private transient volatile Factories factories;
+
+    /**
+     * Create a configuration with default settings. Besides its settings and the user defined
+     * namespace mapping, the configuration caches what it creates on first use: a document builder
+     * factory, per thread document builders, XPath factories and transformers, and the templates
+     * and serializer used for rendering documents. The setters of this class discard these caches
+     * via {@link #discardFactories()}, so they are created again with the new settings. The caches
+     * are transient and are not serialized.
      */
     public DefaultXMLFactoriesConfig() {
     }
@@ -146,15 +187,62 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
      */
     @Override
     public DocumentBuilder createDocumentBuilder() {
+        final Factories factories = getFactories();
+        final DocumentBuilder documentBuilder;
         try {
-            DocumentBuilder documentBuilder = createDocumentBuilderFactory().newDocumentBuilder();
-            if (isNoEntityResolving) {
-                documentBuilder.setEntityResolver(NONRESOLVING_RESOLVER);
+            synchronized (factories.documentBuilderFactory) {
+                documentBuilder = factories.documentBuilderFactory.newDocumentBuilder();
             }
-            return documentBuilder;
         } catch (ParserConfigurationException e) {
             throw new XBException("Error on creating document builder", e);
         }
+        if (isNoEntityResolving) {
+            documentBuilder.setEntityResolver(NONRESOLVING_RESOLVER);
+        }
+        return documentBuilder;
+    }
+
+    /**
+     * Document builder used by the projector to read documents. The builder is created once per
+     * thread and reset on each call, so it must neither be kept nor passed to other threads. If a
+     * subclass overrides {@link #createDocumentBuilder()}, a builder created by that method is
+     * returned.
+     *
+     * @return document builder of the calling thread.
+     */
+    public DocumentBuilder getThreadDocumentBuilder() {
+        final Factories factories = getFactories();
+        if (factories.isDocumentBuilderOverridden) {
+            return createDocumentBuilder();
+        }
+        DocumentBuilder documentBuilder = factories.documentBuilders.get();
+        if (documentBuilder == null) {
+            documentBuilder = createDocumentBuilder();
+            factories.documentBuilders.set(documentBuilder);
+            return documentBuilder;
+        }
+        documentBuilder.reset();
+        if (isNoEntityResolving) {
+            documentBuilder.setEntityResolver(NONRESOLVING_RESOLVER);
+        }
+        return documentBuilder;
+    }
+
+    private Factories getFactories() {
+        Factories f = factories;
+        if (f == null) {
+            f = new Factories(createDocumentBuilderFactory(), createOutputProperties(), isOverridden("createDocumentBuilder"), isOverridden("createTransformer", Document[].class));
+            factories = f;
+        }
+        return f;
+    }
+
+    /**
+     * Discard the factories created so far. Setters of this class call this method, subclasses
+     * should call it when the result of a factory method changes.
+     */
+    protected void discardFactories() {
+        factories = null;
     }
 
     /**
@@ -213,34 +301,135 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
     }
 
     /**
-     * {@inheritDoc}
+     * The pretty printing stylesheet is compiled only once, but each call returns a new
+     * transformer.
+     *
+     * @return a new instance.
      */
-    @SuppressWarnings("resource")
     @Override
     public Transformer createTransformer(final Document... document) {
+        final Factories factories = getFactories();
+        final Transformer transformer = newTransformer(factories);
+        transformer.setOutputProperties(factories.outputProperties);
+        return transformer;
+    }
+
+    /**
+     * Transformer used by the projector to write documents. The transformer is created once per
+     * thread and reset on each call, so it must neither be kept nor passed to other threads. If a
+     * subclass overrides {@link #createTransformer(Document...)}, a transformer created by that
+     * method is returned.
+     *
+     * @return transformer of the calling thread.
+     */
+    public Transformer getThreadTransformer() {
+        final Factories factories = getFactories();
+        if (factories.isTransformerOverridden) {
+            return createTransformer();
+        }
+        Transformer transformer = factories.transformers.get();
+        if (transformer == null) {
+            transformer = newTransformer(factories);
+            factories.transformers.set(transformer);
+        } else if (factories.prettyPrintTemplates == null) {
+            transformer.reset();
+        } else {
+            // Transformer.reset() would drop the indent number of the factory.
+            transformer.clearParameters();
+            transformer.setOutputProperties(null);
+        }
+        transformer.setOutputProperties(factories.outputProperties);
+        return transformer;
+    }
+
+    @SuppressWarnings("resource")
+    private Transformer newTransformer(final Factories factories) {
         try {
-            TransformerFactory transformerFactory = createTransformerFactory();
+            synchronized (factories) {
+                final TransformerFactory transformerFactory = getTransformerFactory(factories);
+                if ((factories.prettyPrintTemplates == null) && isPrettyPrinting && (ReflectionHelper.JAVA_VERSION > 8)) {
+                    factories.prettyPrintTemplates = transformerFactory.newTemplates(new StreamSource(getClass().getResourceAsStream("prettyprint.xslt")));
+                }
+                return factories.prettyPrintTemplates == null ? transformerFactory.newTransformer() : factories.prettyPrintTemplates.newTransformer();
+            }
+        } catch (TransformerConfigurationException e) {
+            throw new XBException("Error on creating transformer", e);
+        }
+    }
+
+    /**
+     * Must be called with the lock of the factories held.
+     */
+    private TransformerFactory getTransformerFactory(final Factories factories) {
+        if (factories.transformerFactory == null) {
+            factories.transformerFactory = createTransformerFactory();
             if (isPrettyPrinting && (ReflectionHelper.JAVA_VERSION > 8)) {
-                transformerFactory.setAttribute("indent-number", new Integer(2));
+                factories.transformerFactory.setAttribute("indent-number", new Integer(2));
             }
-            Transformer transformer = isPrettyPrinting && (ReflectionHelper.JAVA_VERSION > 8) ? transformerFactory.newTransformer(new StreamSource(getClass().getResourceAsStream("prettyprint.xslt"))) : transformerFactory.newTransformer();
+        }
+        return factories.transformerFactory;
+    }
 
-            if (isPrettyPrinting()) {
-                // Enable some pretty printing of the resulting xml.
-                if (ReflectionHelper.JAVA_VERSION > 8) {
-                    transformer.setOutputProperty(OutputKeys.STANDALONE, "no");
+    /**
+     * A serializer writing the same output as the transformers of this configuration, without
+     * the overhead of a transformation. There is none if native serialization is switched off,
+     * if the transformers are not the ones of the JDK (Java 9 or later) or if a subclass changes
+     * how they are created. Trees rejected by {@link DOMSerializer#canWrite(org.w3c.dom.Node)}
+     * must be written by a transformer.
+     *
+     * @return serializer for the current settings, or null.
+     */
+    public DOMSerializer getSerializer() {
+        final Factories factories = getFactories();
+        if (!factories.isSerializerChecked) {
+            synchronized (factories) {
+                if (!factories.isSerializerChecked) {
+                    factories.serializer = createSerializer(factories);
+                    factories.isSerializerChecked = true;
                 }
-                transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
-                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-
             }
-            if (isOmitXMLDeclaration()) {
-                transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        }
+        return factories.serializer;
+    }
+
+    private DOMSerializer createSerializer(final Factories factories) {
+        if (!isNativeSerialization || (ReflectionHelper.JAVA_VERSION <= 8)) {
+            return null;
+        }
+        if (factories.isTransformerOverridden || isOverridden("createTransformerFactory")) {
+            return null;
+        }
+        if (!JDK_TRANSFORMER_FACTORY.equals(getTransformerFactory(factories).getClass().getName())) {
+            return null;
+        }
+        return new DOMSerializer(isPrettyPrinting, isOmitXMLDeclaration);
+    }
+
+    private boolean isOverridden(final String methodName, final Class<?>... parameterTypes) {
+        try {
+            return getClass().getMethod(methodName, parameterTypes).getDeclaringClass() != DefaultXMLFactoriesConfig.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @return output properties for the current settings
+     */
+    private Properties createOutputProperties() {
+        final Properties properties = new Properties();
+        if (isPrettyPrinting()) {
+            // Enable some pretty printing of the resulting xml.
+            if (ReflectionHelper.JAVA_VERSION > 8) {
+                properties.setProperty(OutputKeys.STANDALONE, "no");
             }
-            return transformer;
-        } catch (TransformerConfigurationException e) {
-            throw new XBException("Error on creating transformer", e);
+            properties.setProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+            properties.setProperty(OutputKeys.INDENT, "yes");
+        }
+        if (isOmitXMLDeclaration()) {
+            properties.setProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
         }
+        return properties;
     }
 
     /**
@@ -252,53 +441,90 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
     }
 
     /**
-     * {@inheritDoc}
+     * Namespace context mapping the prefixes of a document. Contexts with equal mappings are equal,
+     * so compiled expressions can be shared between documents using the same prefixes.
      */
-    @Override
-    public XPath createXPath(final Document... document) {
-        final XPath xPath = createXPathFactory().newXPath();
-        if ((document == null) || (document.length == 0) || (!NamespacePhilosophy.HEDONISTIC.equals(namespacePhilosophy))) {
-            return xPath;
+    private static final class HedonisticNamespaceContext implements NamespaceContext {
+        private final Map<String, String> nameSpaceMapping;
+        private final Map<String, String> userDefinedMapping;
+
+        HedonisticNamespaceContext(final Map<String, String> nameSpaceMapping, final Map<String, String> userDefinedMapping) {
+            this.nameSpaceMapping = nameSpaceMapping;
+            this.userDefinedMapping = userDefinedMapping;
         }
-        // For hedonistic name space philosophy we aspire a reasonable name space mapping.
-        final Map<String, String> nameSpaceMapping = DOMHelper.getNamespaceMapping(document[0]);
-        final NamespaceContext ctx = new NamespaceContext() {
-            @Override
-            public String getNamespaceURI(final String prefix) {
-                if (prefix == null) {
-                    throw new IllegalArgumentException("null not allowed as prefix");
-                }
-                if (nameSpaceMapping.containsKey(prefix)) {
-                    return nameSpaceMapping.get(prefix);
-                }
-                if (USER_DEFINED_MAPPING.containsKey(prefix)) {
-                    return USER_DEFINED_MAPPING.get(prefix);
-                }
-                // Default is a global unique string uri to prevent xpath expression exeptions on
-                // nonexisting ns.
-                return NON_EXISTING_URL;
+
+        @Override
+        public String getNamespaceURI(final String prefix) {
+            if (prefix == null) {
+                throw new IllegalArgumentException("null not allowed as prefix");
+            }
+            if (nameSpaceMapping.containsKey(prefix)) {
+                return nameSpaceMapping.get(prefix);
             }
+            if (userDefinedMapping.containsKey(prefix)) {
+                return userDefinedMapping.get(prefix);
+            }
+            // Default is a global unique string uri to prevent xpath expression exeptions on
+            // nonexisting ns.
+            return NON_EXISTING_URL;
+        }
 
-            @Override
-            public String getPrefix(final String uri) {
-                for (Entry<String, String> e : nameSpaceMapping.entrySet()) {
-                    if (e.getValue().equals(uri)) {
-                        return e.getKey();
-                    }
+        @Override
+        public String getPrefix(final String uri) {
+            for (Entry<String, String> e : nameSpaceMapping.entrySet()) {
+                if (e.getValue().equals(uri)) {
+                    return e.getKey();
                 }
-                for (Entry<String, String> e : USER_DEFINED_MAPPING.entrySet()) {
-                    if (e.getValue().equals(uri)) {
-                        return e.getKey();
-                    }
+            }
+            for (Entry<String, String> e : userDefinedMapping.entrySet()) {
+                if (e.getValue().equals(uri)) {
+                    return e.getKey();
                 }
-                return null;
             }
+            return null;
+        }
 
-            @Override
-            public Iterator<String> getPrefixes(final String val) {
-                return new UnionIterator<String>(nameSpaceMapping.keySet().iterator(), USER_DEFINED_MAPPING.keySet().iterator());
+        @Override
+        public Iterator<String> getPrefixes(final String val) {
+            return new UnionIterator<String>(nameSpaceMapping.keySet().iterator(), userDefinedMapping.keySet().iterator());
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * nameSpaceMapping.hashCode()) + userDefinedMapping.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
             }
-        };
+            if (!(obj instanceof HedonisticNamespaceContext)) {
+                return false;
+            }
+            final HedonisticNamespaceContext other = (HedonisticNamespaceContext) obj;
+            return nameSpaceMapping.equals(other.nameSpaceMapping) && userDefinedMapping.equals(other.userDefinedMapping);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public XPath createXPath(final Document... document) {
+        final Factories factories = getFactories();
+        XPathFactory xPathFactory = factories.xPathFactories.get();
+        if (xPathFactory == null) {
+            xPathFactory = createXPathFactory();
+            factories.xPathFactories.set(xPathFactory);
+        }
+        final XPath xPath = xPathFactory.newXPath();
+        if ((document == null) || (document.length == 0) || (!NamespacePhilosophy.HEDONISTIC.equals(namespacePhilosophy))) {
+            return xPath;
+        }
+        // For hedonistic name space philosophy we aspire a reasonable name space mapping.
+        final Map<String, String> nameSpaceMapping = DocumentIndex.getNamespaceMapping(document[0]);
+        final NamespaceContext ctx = new HedonisticNamespaceContext(nameSpaceMapping, new TreeMap<String, String>(USER_DEFINED_MAPPING));
         xPath.setNamespaceContext(ctx);
         return xPath;
     }
@@ -337,6 +563,13 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
         return isNoEntityResolving;
     }
 
+    /**
+     * @return true if documents are written without a transformer when possible.
+     */
+    public boolean isNativeSerialization() {
+        return isNativeSerialization;
+    }
+
     /**
      * @return the isOmitXMLDeclaration
      */
@@ -366,6 +599,7 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
      */
     public void setExpandEntityReferences(boolean isExpandEntityReferences) {
         this.isExpandEntityReferences = isExpandEntityReferences;
+        discardFactories();
     }
 
     /**
@@ -374,6 +608,20 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
      */
     public XMLFactoriesConfig setNamespacePhilosophy(final NamespacePhilosophy namespacePhilosophy) {
         this.namespacePhilosophy = namespacePhilosophy;
+        discardFactories();
+        return this;
+    }
+
+    /**
+     * Switch writing documents without a transformer on or off. The output is the same, so this
+     * is on by default.
+     *
+     * @param isNativeSerialization
+     * @return this for convenience
+     */
+    public DefaultXMLFactoriesConfig setNativeSerialization(final boolean isNativeSerialization) {
+        this.isNativeSerialization = isNativeSerialization;
+        discardFactories();
         return this;
     }
 
@@ -383,6 +631,7 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
      */
     public void setNoEntityResolving(boolean isNoEntityResolving) {
         this.isNoEntityResolving = isNoEntityResolving;
+        discardFactories();
     }
 
     /**
@@ -392,6 +641,7 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
      */
     public DefaultXMLFactoriesConfig setOmitXMLDeclaration(final boolean isOmitXMLDeclaration) {
         this.isOmitXMLDeclaration = isOmitXMLDeclaration;
+        discardFactories();
         return this;
     }
 
@@ -404,6 +654,7 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
      */
     public DefaultXMLFactoriesConfig setPrettyPrinting(final boolean on) {
         this.isPrettyPrinting = on;
+        discardFactories();
         return this;
     }
 
@@ -413,6 +664,7 @@ public class DefaultXMLFactoriesConfig implements XMLFactoriesConfig {
      */
     public void setXIncludeAware(boolean isXIncludeAware) {
         this.isXIncludeAware = isXIncludeAware;
+        discardFactories();
     }
 
 }
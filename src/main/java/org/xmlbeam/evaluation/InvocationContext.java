@@ -24,6 +24,8 @@ import org.xmlbeam.util.intern.duplex.DuplexExpression;
 
 /**
  * Context of an projection method invocation. May be cached if the the same method is called again.
+ * A context is immutable except for the method parameters, so it may be shared by concurrent
+ * invocations.
  */
 public class InvocationContext {
     /**
@@ -113,6 +115,30 @@ public class InvocationContext {
         }
     }
 
+    /**
+     * Bind method parameters to XPath variables for the current thread only, so concurrent
+     * invocations sharing this context do not see each others parameters.
+     *
+     * @param args
+     * @return previous binding to be passed to {@link #restoreMethodArgs(Object[])}
+     */
+    public Object[] bindMethodArgs(final Object[] args) {
+        if (resolver == null) {
+            return null;
+        }
+        return resolver.bindArgs(args);
+    }
+
+    /**
+     * @param previous
+     *            value returned by {@link #bindMethodArgs(Object[])}
+     */
+    public void restoreMethodArgs(final Object[] previous) {
+        if (resolver != null) {
+            resolver.restoreArgs(previous);
+        }
+    }
+
     /**
      * @return target type of evaluation
      */
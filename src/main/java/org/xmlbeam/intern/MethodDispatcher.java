@@ -0,0 +1,42 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.intern;
+
+/**
+ * Entry point for generated projection classes. Each generated method calls the dispatcher with
+ * the index of the method in the generated class. This interface is not part of the public API.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public interface MethodDispatcher {
+
+    /**
+     * Index used by generated classes to request a serializable replacement of the projection.
+     */
+    int WRITE_REPLACE = -1;
+
+    /**
+     * @param projection
+     *            the generated projection instance
+     * @param methodIndex
+     *            index of the invoked method
+     * @param args
+     *            method arguments, null if the method has no parameters
+     * @return method result, boxed for primitive return types
+     * @throws Throwable
+     */
+    Object dispatch(Object projection, int methodIndex, Object[] args) throws Throwable;
+}
@@ -0,0 +1,331 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilder;
+
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.exceptions.XBDocumentParsingException;
+import org.xmlbeam.util.CacheStatistics;
+import org.xmlbeam.util.IOHelper;
+import org.xmlbeam.util.intern.BoundedCache;
+import org.xmlbeam.util.intern.DOMHelper;
+
+/**
+ * Keeps parsed external documents by URL and request properties. Documents of resource URLs never
+ * change and are kept until evicted by size. Documents of other URLs are fresh for the time to
+ * live, afterwards they are revalidated: HTTP documents by a conditional request using the ETag
+ * and Last-Modified headers of the last response, local files by their modification time and
+ * length. A max-age given by the Cache-Control header of a HTTP response replaces the time to live,
+ * responses marked "no-store" are not cached. Each caller gets a copy of the cached document.
+ * <p>
+ * The modification time and length of a file do not show every change: a rewrite with the same
+ * length within the resolution of the file system clock goes unnoticed. Therefore local files are
+ * cached only if a time to live is set, which accepts documents that are outdated for a while.
+ * <p>
+ * A serialized cache keeps its capacity and time to live, but no documents.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public class DefaultDocumentCache implements DocumentCache {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default maximum number of cached documents.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final class Key {
+        private final String url;
+        private final Map<String, String> requestProperties;
+        private final List<Class<?>> resourceAwareClasses;
+        private final int hashCode;
+
+        Key(final String url, final Map<String, String> requestProperties, final Class<?>[] resourceAwareClasses) {
+            this.url = url;
+            this.requestProperties = requestProperties == null ? Collections.<String, String> emptyMap() : new HashMap<String, String>(requestProperties);
+            this.resourceAwareClasses = resourceAwareClasses == null ? Collections.<Class<?>> emptyList() : Arrays.asList(resourceAwareClasses.clone());
+            this.hashCode = (31 * ((31 * url.hashCode()) + this.requestProperties.hashCode())) + this.resourceAwareClasses.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return url.equals(other.url) && requestProperties.equals(other.requestProperties) && resourceAwareClasses.equals(other.resourceAwareClasses);
+        }
+    }
+
+    /**
+     * Cached document and the data to revalidate it. Guarded by the entry itself.
+     */
+    private static final class CachedDocument {
+        private Document document;
+        private boolean isImmutable;
+        private long loadedAt;
+        private long timeToLive;
+        private String eTag;
+        private String lastModified;
+        private long fileLastModified;
+        private long fileLength;
+
+        private boolean isFresh(final long now) {
+            return (document != null) && (isImmutable || ((now - loadedAt) < timeToLive));
+        }
+    }
+
+    private int capacity = DEFAULT_CAPACITY;
+    private long timeToLive;
+    private transient volatile BoundedCache<Key, CachedDocument> entries;
+
+    /**
+     * Creates a cache with {@link #DEFAULT_CAPACITY} and a time to live of 0, so each access
+     * revalidates documents not loaded from resources and local files are not cached.
+     */
+    public DefaultDocumentCache() {
+    }
+
+    /**
+     * @param capacity
+     *            maximum number of cached documents. 0 disables the cache.
+     * @return this for convenience
+     */
+    public DefaultDocumentCache setCapacity(final int capacity) {
+        getEntries().setCapacity(capacity);
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Set the time a document is used without revalidation. Does not apply to documents of
+     * resource URLs. Documents of local files are cached only with a time to live greater than 0.
+     *
+     * @param duration
+     * @param unit
+     * @return this for convenience
+     */
+    public DefaultDocumentCache setTimeToLive(final long duration, final TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Time to live must not be negative, but is " + duration);
+        }
+        this.timeToLive = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * @return hit, miss and eviction counters. A hit may still need a revalidation.
+     */
+    public CacheStatistics getStatistics() {
+        return getEntries().getStatistics();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        getEntries().clear();
+    }
+
+    private BoundedCache<Key, CachedDocument> getEntries() {
+        BoundedCache<Key, CachedDocument> cache = entries;
+        if (cache == null) {
+            synchronized (this) {
+                if (entries == null) {
+                    entries = new BoundedCache<Key, CachedDocument>(capacity);
+                }
+                cache = entries;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Document getDocument(final XBProjector projector, final String url, final Map<String, String> requestProperties, final Class<?>... resourceAwareClasses) throws IOException {
+        final BoundedCache<Key, CachedDocument> cache = getEntries();
+        final Key key = new Key(url, requestProperties, IOHelper.isResourceProtocol(url) ? resourceAwareClasses : null);
+        CachedDocument entry = cache.get(key);
+        if (entry == null) {
+            entry = cache.putIfAbsent(key, new CachedDocument());
+        }
+        // Concurrent callers of the same URL wait for a single load.
+        synchronized (entry) {
+            if (!entry.isFresh(System.nanoTime())) {
+                final Document document = load(entry, projector, url, requestProperties, resourceAwareClasses);
+                if (document != entry.document) {
+                    // Not cacheable, so there is no need to copy it.
+                    return document;
+                }
+            }
+            return copy(entry.document);
+        }
+    }
+
+    private static Document copy(final Document document) {
+        final Document copy = (Document) document.cloneNode(true);
+        // Not copied by cloneNode()
+        copy.setDocumentURI(document.getDocumentURI());
+        copy.setXmlVersion(document.getXmlVersion());
+        copy.setXmlStandalone(document.getXmlStandalone());
+        return copy;
+    }
+
+    private Document load(final CachedDocument entry, final XBProjector projector, final String url, final Map<String, String> requestProperties, final Class<?>... resourceAwareClasses) throws IOException {
+        final DocumentBuilder documentBuilder = DOMHelper.getDocumentBuilder(projector);
+        if (IOHelper.isResourceProtocol(url)) {
+            entry.document = IOHelper.getDocumentFromURL(documentBuilder, url, requestProperties, resourceAwareClasses);
+            entry.isImmutable = true;
+            return entry.document;
+        }
+        if (url.startsWith("http:") || url.startsWith("https:")) {
+            return loadHTTP(entry, projector.config().getHttpTransport(), documentBuilder, url, requestProperties);
+        }
+        final File file = toFile(url);
+        if (file != null) {
+            if (timeToLive == 0) {
+                // Revalidating by modification time and length would miss some changes.
+                entry.document = null;
+                return IOHelper.getDocumentFromURL(documentBuilder, url, null);
+            }
+            return loadFile(entry, documentBuilder, url, file);
+        }
+        final long now = System.nanoTime();
+        entry.document = IOHelper.getDocumentFromURL(documentBuilder, url, requestProperties, resourceAwareClasses);
+        entry.loadedAt = now;
+        entry.timeToLive = timeToLive;
+        return entry.document;
+    }
+
+    private Document loadHTTP(final CachedDocument entry, final HttpTransport transport, final DocumentBuilder documentBuilder, final String url, final Map<String, String> requestProperties) throws IOException {
+        final Map<String, String> properties = new LinkedHashMap<String, String>();
+        if (requestProperties != null) {
+            properties.putAll(requestProperties);
+        }
+        if (entry.document != null) {
+            if (entry.eTag != null) {
+                properties.put("If-None-Match", entry.eTag);
+            }
+            if (entry.lastModified != null) {
+                properties.put("If-Modified-Since", entry.lastModified);
+            }
+        }
+        final long now = System.nanoTime();
+        final HttpTransport.Response response = transport.send("GET", url, properties, null);
+        try {
+            final String cacheControl = response.getHeader("Cache-Control");
+            if ((entry.document != null) && (response.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED)) {
+                entry.loadedAt = now;
+                entry.timeToLive = getTimeToLive(cacheControl);
+                return entry.document;
+            }
+            final Document document;
+            try {
+                document = documentBuilder.parse(response.getBody(), url);
+            } catch (SAXException e) {
+                throw new XBDocumentParsingException(e);
+            }
+            if ((cacheControl != null) && cacheControl.toLowerCase().contains("no-store")) {
+                entry.document = null;
+                return document;
+            }
+            entry.eTag = response.getHeader("ETag");
+            entry.lastModified = response.getHeader("Last-Modified");
+            entry.document = document;
+            entry.loadedAt = now;
+            entry.timeToLive = getTimeToLive(cacheControl);
+            return document;
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * @return max-age of the Cache-Control header or the configured time to live.
+     */
+    private long getTimeToLive(final String cacheControl) {
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                final String[] nameAndValue = directive.trim().split("=", 2);
+                if ((nameAndValue.length == 2) && "max-age".equalsIgnoreCase(nameAndValue[0])) {
+                    try {
+                        return TimeUnit.SECONDS.toNanos(Long.parseLong(nameAndValue[1].trim()));
+                    } catch (NumberFormatException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return timeToLive;
+    }
+
+    private Document loadFile(final CachedDocument entry, final DocumentBuilder documentBuilder, final String url, final File file) throws IOException {
+        // Read the file attributes before parsing, so a change while parsing is seen next time.
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        final long now = System.nanoTime();
+        if ((entry.document == null) || (lastModified == 0L) || (lastModified != entry.fileLastModified) || (length != entry.fileLength)) {
+            entry.document = IOHelper.getDocumentFromURL(documentBuilder, url, null);
+            entry.fileLastModified = lastModified;
+            entry.fileLength = length;
+        }
+        entry.loadedAt = now;
+        entry.timeToLive = timeToLive;
+        return entry.document;
+    }
+
+    /**
+     * @return the local file of a file URL or null
+     */
+    private static File toFile(final String url) {
+        if (!url.startsWith("file:")) {
+            return null;
+        }
+        try {
+            return new File(new URI(url));
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            // Not a hierarchical URI, so the file can not be revalidated.
+            return null;
+        }
+    }
+}
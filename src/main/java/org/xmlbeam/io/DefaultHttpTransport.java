@@ -0,0 +1,156 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Transport based on {@link HttpURLConnection}. Connections are not disconnected, so the JDK keeps
+ * them alive and reuses them for further requests to the same server once the response is closed.
+ * A serialized transport keeps its timeouts.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public class DefaultHttpTransport implements HttpTransport {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default timeout in milliseconds for establishing a connection.
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 10000;
+
+    /**
+     * Default timeout in milliseconds for waiting on data from an established connection.
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 60000;
+
+    private volatile int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private volatile int readTimeout = DEFAULT_READ_TIMEOUT;
+
+    private static final class ConnectionResponse implements Response {
+        private final HttpURLConnection connection;
+        private InputStream body;
+
+        ConnectionResponse(final HttpURLConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public int getStatusCode() throws IOException {
+            return connection.getResponseCode();
+        }
+
+        @Override
+        public String getHeader(final String name) throws IOException {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                // Throws for error status codes
+                body = connection.getInputStream();
+            }
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Closing the body, not the connection, returns a keep alive connection to the pool.
+            InputStream stream = body;
+            if (stream == null) {
+                stream = connection.getResponseCode() >= HttpURLConnection.HTTP_BAD_REQUEST ? connection.getErrorStream() : connection.getInputStream();
+            }
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * @param millis
+     *            timeout for establishing a connection, 0 for none
+     * @return this for convenience
+     */
+    public DefaultHttpTransport setConnectTimeout(final int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative, but is " + millis);
+        }
+        this.connectTimeout = millis;
+        return this;
+    }
+
+    /**
+     * @param millis
+     *            timeout for waiting on data, 0 for none
+     * @return this for convenience
+     */
+    public DefaultHttpTransport setReadTimeout(final int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Timeout must not be negative, but is " + millis);
+        }
+        this.readTimeout = millis;
+        return this;
+    }
+
+    /**
+     * @return timeout for establishing a connection in milliseconds
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @return timeout for waiting on data in milliseconds
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response send(final String method, final String url, final Map<String, String> requestProperties, final byte[] body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestMethod(method);
+        if (requestProperties != null) {
+            for (Entry<String, String> entry : requestProperties.entrySet()) {
+                connection.addRequestProperty(entry.getKey(), entry.getValue());
+            }
+        }
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            final OutputStream outputStream = connection.getOutputStream();
+            try {
+                outputStream.write(body);
+            } finally {
+                outputStream.close();
+            }
+        }
+        return new ConnectionResponse(connection);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.io;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBDocURL;
+
+/**
+ * Source of the external documents referenced by {@link XBDocURL} annotations on projection
+ * methods. Set a cache via {@link XBProjector.ConfigBuilder#setDocumentCache(DocumentCache)}. The
+ * cache is serialized with the projector, so it should keep its settings only and hold the cached
+ * documents in transient fields.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public interface DocumentCache extends Serializable {
+
+    /**
+     * Get the document of an URL, either from the cache or by loading it.
+     *
+     * @param projector
+     *            provides the document builders
+     * @param url
+     *            resolved URL with all placeholders filled
+     * @param requestProperties
+     *            optional HTTP header fields (key-&gt;value), may be null
+     * @param resourceAwareClasses
+     *            the class loaders of these classes are tried first for resource URLs
+     * @return a document owned by the caller. Changes to it must not affect the cache.
+     * @throws IOException
+     */
+    Document getDocument(XBProjector projector, String url, Map<String, String> requestProperties, Class<?>... resourceAwareClasses) throws IOException;
+
+    /**
+     * Remove all cached documents.
+     */
+    void clear();
+}
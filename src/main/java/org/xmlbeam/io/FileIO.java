@@ -15,11 +15,15 @@
  */
 package org.xmlbeam.io;
 
+import java.util.concurrent.ExecutorService;
+
 import java.io.IOException;
 
 import org.xmlbeam.evaluation.XPathBinder;
 import org.xmlbeam.evaluation.XPathEvaluator;
+import org.xmlbeam.types.CloseableIterator;
 import org.xmlbeam.types.CloseableMap;
+import org.xmlbeam.types.RecordFunction;
 import org.xmlbeam.types.XBAutoMap;
 import org.xmlbeam.util.intern.DocScope;
 import org.xmlbeam.util.intern.Scope;
@@ -40,6 +44,50 @@ public interface FileIO {
     @Scope(DocScope.INPUT)
     <T> T read(Class<T> projectionInterface) throws IOException;
 
+    /**
+     * Read a large document record by record. Each element selected by the record path is copied
+     * to a small document of its own and projected there, the rest of the document is skipped. So
+     * memory usage depends on the size of a record, not on the size of the document. XPath
+     * expressions of the projection interface are evaluated relative to the record element.
+     *
+     * @param recordPath
+     *            location path with child steps only, e.g. "/export/record". Position predicates
+     *            are allowed.
+     * @param projectionInterface
+     * @return an iterator over projections of the records. The file is closed when the iteration
+     *         is complete.
+     * @throws IOException
+     */
+    @Scope(DocScope.INPUT)
+    <T> CloseableIterator<T> stream(String recordPath, Class<T> projectionInterface) throws IOException;
+
+    /**
+     * Process the records of a large document in parallel. A reader thread cuts the document into
+     * records like {@link #stream(String, Class)} does and hands each record to the executor,
+     * which projects it and applies the function. At most 'capacity' records are read ahead of
+     * the consumer of the results, so a slow consumer slows down the reader instead of filling
+     * the memory.
+     *
+     * @param recordPath
+     *            location path with child steps only, e.g. "/export/record".
+     * @param projectionInterface
+     * @param executor
+     *            runs the function for the records. It is not shut down when the iteration is
+     *            complete.
+     * @param capacity
+     *            maximum number of records read but not consumed yet
+     * @param ordered
+     *            true to return the results in document order, false to return them as soon as
+     *            they are available.
+     * @param function
+     *            invoked concurrently for different records
+     * @return an iterator over the results. Exceptions thrown by the function are rethrown when
+     *         the result is requested. Close it to stop reading early.
+     * @throws IOException
+     */
+    @Scope(DocScope.INPUT)
+    <T, R> CloseableIterator<R> stream(String recordPath, Class<T> projectionInterface, ExecutorService executor, int capacity, boolean ordered, RecordFunction<? super T, ? extends R> function) throws IOException;
+
     /**
      * @param projection
      * @throws IOException
@@ -0,0 +1,73 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.Map;
+
+import org.xmlbeam.XBProjector;
+
+/**
+ * Sends the HTTP requests of {@link UrlIO} and of external documents. Set a transport via
+ * {@link XBProjector.ConfigBuilder#setHttpTransport(HttpTransport)}. Implementations must be
+ * usable by multiple threads. The transport is serialized with the projector.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public interface HttpTransport extends Serializable {
+
+    /**
+     * Response of a request. Close it to release the connection.
+     */
+    interface Response extends Closeable {
+
+        /**
+         * @return HTTP status code
+         * @throws IOException
+         */
+        int getStatusCode() throws IOException;
+
+        /**
+         * @param name
+         * @return value of the response header field or null
+         * @throws IOException
+         */
+        String getHeader(String name) throws IOException;
+
+        /**
+         * @return stream of the response body, closed by {@link #close()}.
+         * @throws IOException
+         *             if the server responded with an error status code
+         */
+        InputStream getBody() throws IOException;
+    }
+
+    /**
+     * @param method
+     *            request method, e.g. "GET" or "POST"
+     * @param url
+     * @param requestProperties
+     *            optional http header fields (key-&gt;value), may be null
+     * @param body
+     *            content to send, null for none
+     * @return the response, to be closed by the caller
+     * @throws IOException
+     */
+    Response send(String method, String url, Map<String, String> requestProperties, byte[] body) throws IOException;
+}
@@ -15,10 +15,15 @@
  */
 package org.xmlbeam.io;
 
+import java.util.Map;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Method;
 
 import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
@@ -30,8 +35,10 @@ import org.xmlbeam.evaluation.XPathEvaluator;
 import org.xmlbeam.exceptions.XBDocumentParsingException;
 import org.xmlbeam.exceptions.XBException;
 import org.xmlbeam.exceptions.XBIOException;
+import org.xmlbeam.util.intern.DOMHelper;
 import org.xmlbeam.util.intern.DocScope;
 import org.xmlbeam.util.intern.Scope;
+import org.xmlbeam.util.intern.StreamingProjectionReader;
 
 /**
  * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
@@ -65,9 +72,55 @@ public class StreamInput implements CanEvaluate {
         return projector.projectDOMNode(document, projectionInterface);
     }
 
+    /**
+     * Create an immutable projection by reading the stream once with StAX, without building a DOM.
+     * All reading methods without parameters are evaluated in this pass, reading stops as soon as
+     * all values are found. The result behaves like a {@link XBProjector#snapshot(Object)}. If the
+     * projection interface has reading methods that can not be streamed (see
+     * {@link #getNonStreamableMethods(Class)}), the stream is parsed to a DOM and a snapshot of the
+     * projection is returned instead.
+     *
+     * @param projectionInterface
+     *            A Java interface to project the data on.
+     * @return a new immutable projection instance holding the stream content.
+     * @throws IOException
+     */
+    @Scope(DocScope.IO)
+    public <T> T readStreaming(final Class<T> projectionInterface) throws IOException {
+        final StreamingProjectionReader streamingReader = StreamingProjectionReader.compile(projector, projectionInterface, false);
+        if (!streamingReader.getIneligibleMethods().isEmpty()) {
+            return projector.snapshot(read(projectionInterface));
+        }
+        try {
+            final XMLStreamReader reader = StreamingProjectionReader.createXMLStreamReader(is, systemID);
+            try {
+                return projectionInterface.cast(streamingReader.read(reader));
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new XBDocumentParsingException(e);
+        }
+    }
+
+    /**
+     * Check which reading methods of a projection interface prevent
+     * {@link #readStreaming(Class)} from reading without DOM. Eligible are methods without
+     * parameters whose XPath is a location path with child steps (position predicates allowed)
+     * and an optional final attribute step, returning a value convertible by the type converter,
+     * or a List, array or Optional of it.
+     *
+     * @param projectionInterface
+     * @return reading methods that need a DOM, mapped to the reason. Empty if the whole
+     *         interface can be streamed.
+     */
+    public Map<Method, String> getNonStreamableMethods(final Class<?> projectionInterface) {
+        return StreamingProjectionReader.compile(projector, projectionInterface, false).getIneligibleMethods();
+    }
+
     private Document readDocument() throws IOException {
         try {
-            DocumentBuilder documentBuilder = projector.config().createDocumentBuilder();
+            DocumentBuilder documentBuilder = DOMHelper.getDocumentBuilder(projector);
             Document document = systemID == null ? documentBuilder.parse(is) : documentBuilder.parse(is, systemID);
             return document;
         } catch (SAXException e) {
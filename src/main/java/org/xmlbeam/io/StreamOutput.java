@@ -15,17 +15,25 @@
  */
 package org.xmlbeam.io;
 
+import java.util.Map;
+
+import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.reflect.Method;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
 
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 
 import org.xmlbeam.XBProjector;
 import org.xmlbeam.dom.DOMAccess;
 import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.types.RecordWriter;
+import org.xmlbeam.util.intern.DOMHelper;
 import org.xmlbeam.util.intern.DocScope;
 import org.xmlbeam.util.intern.Scope;
+import org.xmlbeam.util.intern.StreamingProjectionWriter;
 
 /**
  * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
@@ -50,10 +58,55 @@ public class StreamOutput {
     @Scope(DocScope.IO)
     public void write(final Object projection) {
         try {
-            projector.config().createTransformer().transform(new DOMSource(((DOMAccess) projection).getDOMNode()), new StreamResult(os));
+            DOMHelper.writeXML(projector, ((DOMAccess) projection).getDOMNode(), os);
+        } catch (IOException e) {
+            throw new XBException("Error during writing document",e);
         } catch (TransformerException e) {
             throw new XBException("Error during writing document",e);
         }
     }
 
+    /**
+     * Write a large document record by record, without building a DOM for the whole document.
+     * The elements of the record path are the ancestors of the records, they are opened before
+     * the first record and closed by {@link RecordWriter#close()}. Records created by the returned
+     * writer buffer the values of their setters and are written straight through a StAX writer,
+     * so memory usage depends on the size of a record. If the projection interface has writing
+     * methods that can not be streamed (see {@link #getNonStreamableMethods(Class)}), each record
+     * is a projection of a small DOM of its own instead. Reading methods are available on such
+     * DOM records only.
+     *
+     * @param recordPath
+     *            absolute location path with child steps only, e.g. "/export/record".
+     * @param projectionInterface
+     *            A Java interface to project the records on. XPath expressions are relative to
+     *            the record element.
+     * @return a writer for the records. Close it to complete the document, the output stream is
+     *         not closed.
+     */
+    @Scope(DocScope.IO)
+    public <T> RecordWriter<T> writeStreaming(final String recordPath, final Class<T> projectionInterface) {
+        final QName[] names = StreamingProjectionWriter.compileRecordPath(projector, recordPath);
+        final StreamingProjectionWriter streamingWriter = StreamingProjectionWriter.compile(projector, projectionInterface);
+        try {
+            return new StreamRecordWriter<T>(projector, StreamingProjectionWriter.createXMLStreamWriter(os), names, projectionInterface, streamingWriter.getIneligibleMethods().isEmpty() ? streamingWriter : null);
+        } catch (XMLStreamException e) {
+            throw new XBException("Error during writing document", e);
+        }
+    }
+
+    /**
+     * Check which writing methods of a projection interface prevent
+     * {@link #writeStreaming(String, Class)} from writing without DOM. Eligible are methods with
+     * one parameter whose XPath is a relative location path with child steps and an optional
+     * final attribute step, setting a value or a collection or array of values.
+     *
+     * @param projectionInterface
+     * @return writing methods that need a DOM, mapped to the reason. Empty if the whole interface
+     *         can be streamed.
+     */
+    public Map<Method, String> getNonStreamableMethods(final Class<?> projectionInterface) {
+        return StreamingProjectionWriter.compile(projector, projectionInterface).getIneligibleMethods();
+    }
+
 }
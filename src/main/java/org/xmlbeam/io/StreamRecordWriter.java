@@ -0,0 +1,132 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.io;
+
+import java.io.IOException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.types.RecordWriter;
+import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.StreamingProjectionWriter;
+
+/**
+ * Writes records to a StAX stream. Records of interfaces with streamable writing methods only are
+ * buffered without DOM, other records are projections of a small DOM of their own.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ * @param <T>
+ *            projection interface of the records
+ */
+class StreamRecordWriter<T> implements RecordWriter<T> {
+
+    private final XBProjector projector;
+    private final XMLStreamWriter writer;
+    private final QName[] recordPath;
+    private final Class<T> projectionInterface;
+    private final StreamingProjectionWriter streamingWriter;
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * @param projector
+     * @param writer
+     * @param recordPath
+     *            names of the record element and its ancestors
+     * @param projectionInterface
+     * @param streamingWriter
+     *            null if the records need a DOM
+     */
+    StreamRecordWriter(final XBProjector projector, final XMLStreamWriter writer, final QName[] recordPath, final Class<T> projectionInterface, final StreamingProjectionWriter streamingWriter) {
+        this.projector = projector;
+        this.writer = writer;
+        this.recordPath = recordPath;
+        this.projectionInterface = projectionInterface;
+        this.streamingWriter = streamingWriter;
+    }
+
+    @Override
+    public T create() {
+        final QName recordName = recordPath[recordPath.length - 1];
+        if (streamingWriter != null) {
+            return projectionInterface.cast(streamingWriter.createRecord(recordName));
+        }
+        final Document document = DOMHelper.getDocumentBuilder(projector).newDocument();
+        final boolean hasNamespace = !XMLConstants.NULL_NS_URI.equals(recordName.getNamespaceURI());
+        final String qualifiedName = XMLConstants.DEFAULT_NS_PREFIX.equals(recordName.getPrefix()) ? recordName.getLocalPart() : recordName.getPrefix() + ":" + recordName.getLocalPart();
+        final Element record = document.createElementNS(hasNamespace ? recordName.getNamespaceURI() : null, qualifiedName);
+        document.appendChild(record);
+        return projector.projectDOMNode(record, projectionInterface);
+    }
+
+    @Override
+    public void write(final T record) {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed.");
+        }
+        try {
+            start();
+            if (StreamingProjectionWriter.isStreamedRecord(record)) {
+                StreamingProjectionWriter.writeRecord(record, writer);
+                return;
+            }
+            if (!(record instanceof DOMAccess)) {
+                throw new IllegalArgumentException("Can not write " + record + ", because it is not a projection.");
+            }
+            StreamingProjectionWriter.writeElement(((DOMAccess) record).getDOMBaseElement(), writer);
+        } catch (XMLStreamException e) {
+            throw new XBException("Error during writing document", e);
+        }
+    }
+
+    private void start() throws XMLStreamException {
+        if (started) {
+            return;
+        }
+        started = true;
+        writer.writeStartDocument("UTF-8", "1.0");
+        for (int i = 0; i < (recordPath.length - 1); ++i) {
+            StreamingProjectionWriter.writeStartElement(writer, recordPath[i]);
+        }
+    }
+
+    /**
+     * Complete the document. The underlying stream is flushed, but not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            start();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -17,6 +17,9 @@ package org.xmlbeam.io;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import java.io.IOException;
 
@@ -31,6 +34,7 @@ import org.xmlbeam.evaluation.InvocationContext;
 import org.xmlbeam.evaluation.XPathEvaluator;
 import org.xmlbeam.types.XBAutoMap;
 import org.xmlbeam.util.IOHelper;
+import org.xmlbeam.util.intern.DOMHelper;
 import org.xmlbeam.util.intern.DocScope;
 import org.xmlbeam.util.intern.ReflectionHelper;
 import org.xmlbeam.util.intern.Scope;
@@ -72,10 +76,35 @@ public class UrlIO implements CanEvaluate {
         if (IOHelper.isResourceProtocol(url)) {
             callerClass = ReflectionHelper.getDirectCallerClass();
         }
-        Document document = IOHelper.getDocumentFromURL(projector.config().createDocumentBuilder(), url, requestProperties, projectionInterface, callerClass);
+        return read(projectionInterface, callerClass);
+    }
+
+    private <T> T read(final Class<T> projectionInterface, final Class<?> callerClass) throws IOException {
+        Document document = IOHelper.getDocumentFromURL(projector.config().getHttpTransport(), DOMHelper.getDocumentBuilder(projector), url, requestProperties, projectionInterface, callerClass);
         return projector.projectDOMNode(document, projectionInterface);
     }
 
+    /**
+     * Like {@link #read(Class)}, but the document is read by the executor.
+     *
+     * @param projectionInterface
+     *            A Java interface to project the data on.
+     * @param executor
+     *            runs the request
+     * @return future of the new projection instance.
+     */
+    @Scope(DocScope.IO)
+    public <T> Future<T> readAsync(final Class<T> projectionInterface, final ExecutorService executor) {
+        // The caller is not on the stack of the executor thread.
+        final Class<?> callerClass = IOHelper.isResourceProtocol(url) ? ReflectionHelper.getDirectCallerClass() : null;
+        return executor.submit(new Callable<T>() {
+            @Override
+            public T call() throws IOException {
+                return read(projectionInterface, callerClass);
+            }
+        });
+    }
+
     /**
      * Post the projected document to a HTTP URL. The response is provided as a raw string.
      *
@@ -83,10 +112,52 @@ public class UrlIO implements CanEvaluate {
      * @return response as String
      * @throws IOException
      */
-    @SuppressWarnings("unchecked")
     @Scope(DocScope.IO)
     public String write(final Object projection) throws IOException {
-        return IOHelper.inputStreamToString(IOHelper.httpPost(url, projection.toString(), requestProperties));
+        final HttpTransport.Response response = IOHelper.httpPost(projector.config().getHttpTransport(), url, projection.toString(), requestProperties);
+        try {
+            return IOHelper.inputStreamToString(response.getBody(), getCharset(response.getHeader("Content-Type")));
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * Like {@link #write(Object)}, but the document is posted by the executor.
+     *
+     * @param projection
+     * @param executor
+     *            runs the request
+     * @return future of the response as String
+     */
+    @Scope(DocScope.IO)
+    public Future<String> writeAsync(final Object projection, final ExecutorService executor) {
+        // The projection is rendered now, so later changes are not posted.
+        final String content = projection.toString();
+        return executor.submit(new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                return write(content);
+            }
+        });
+    }
+
+    /**
+     * @param contentType
+     *            value of the Content-Type header, may be null
+     * @return charset parameter of the content type or null
+     */
+    private static String getCharset(final String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String parameter : contentType.split(";")) {
+            final String[] nameAndValue = parameter.trim().split("=", 2);
+            if ((nameAndValue.length == 2) && "charset".equalsIgnoreCase(nameAndValue[0].trim())) {
+                return nameAndValue[1].trim().replace("\"", "");
+            }
+        }
+        return null;
     }
 
     /**
@@ -127,7 +198,7 @@ public class UrlIO implements CanEvaluate {
         return new DefaultXPathEvaluator(projector, new DocumentResolver() {
             @Override
             public Document resolve(final Class<?>... resourceAwareClasses) throws IOException {
-                return IOHelper.getDocumentFromURL(projector.config().createDocumentBuilder(), url, requestProperties, resourceAwareClasses);
+                return IOHelper.getDocumentFromURL(projector.config().getHttpTransport(), DOMHelper.getDocumentBuilder(projector), url, requestProperties, resourceAwareClasses);
             }
         }, xpath);
     }
@@ -143,7 +214,7 @@ public class UrlIO implements CanEvaluate {
     public <T> XBAutoMap<T> readAsMapOf(final Class<T> valueType) throws IOException {
         DefaultXPathBinder.validateEvaluationType(valueType);
         final Class<?> resourceAwareClass = ReflectionHelper.getDirectCallerClass();
-        Document document = IOHelper.getDocumentFromURL(projector.config().createDocumentBuilder(), url, requestProperties, resourceAwareClass);
+        Document document = IOHelper.getDocumentFromURL(projector.config().getHttpTransport(), DOMHelper.getDocumentBuilder(projector), url, requestProperties, resourceAwareClass);
         InvocationContext invocationContext = new InvocationContext(null, null, null, null, null, valueType, projector);
         return new AutoMap<T>(document, invocationContext, valueType);
     }
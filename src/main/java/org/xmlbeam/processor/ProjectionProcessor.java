@@ -0,0 +1,519 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+import org.xmlbeam.annotation.XBAuto;
+import org.xmlbeam.annotation.XBDelete;
+import org.xmlbeam.annotation.XBDocURL;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBUpdate;
+import org.xmlbeam.annotation.XBValue;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
+
+/**
+ * Optional annotation processor for projection interfaces. It performs the checks the projector
+ * would do at runtime during compilation, parses all XPath expressions and generates an
+ * implementation class for each projection interface. The projector finds the generated classes
+ * via the index resource {@value #INDEX_RESOURCE} and uses them instead of a
+ * java.lang.reflect.Proxy, without validating the interface again.
+ * <p>
+ * The processor is not registered as a service, so it has to be enabled explicitly, e.g. with
+ * <code>javac -processor org.xmlbeam.processor.ProjectionProcessor</code>. Set the option
+ * <code>-Axmlbeam.xpath=warn</code> to report unparsable XPath expressions as warnings (e.g. if an
+ * Externalizer provides the real expressions) or <code>-Axmlbeam.xpath=off</code> to skip parsing.
+ * </p>
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+@SupportedAnnotationTypes({ "org.xmlbeam.annotation.XBRead", "org.xmlbeam.annotation.XBWrite", "org.xmlbeam.annotation.XBUpdate", "org.xmlbeam.annotation.XBDelete", "org.xmlbeam.annotation.XBAuto" })
+@SupportedOptions(ProjectionProcessor.XPATH_OPTION)
+public class ProjectionProcessor extends AbstractProcessor {
+
+    /**
+     * Resource listing the projection interfaces with generated implementations, one binary class
+     * name per line.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/xmlbeam/projections";
+
+    /**
+     * Suffix appended to the binary name of the projection interface to get the name of the
+     * generated class.
+     */
+    public static final String IMPLEMENTATION_SUFFIX = "$XBImpl";
+
+    /**
+     * Name of the static field in the generated class holding the implemented methods in order of
+     * their dispatch index.
+     */
+    public static final String METHODS_FIELD = "XB_METHODS";
+
+    static final String XPATH_OPTION = "xmlbeam.xpath";
+
+    private static final String OPTIONAL = "java.util.Optional";
+
+    private final Set<String> processedInterfaces = new TreeSet<String>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+        final Set<TypeElement> interfaces = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                final Element enclosing = element.getEnclosingElement();
+                if ((enclosing == null) || (enclosing.getKind() != ElementKind.INTERFACE)) {
+                    processingEnv.getMessager().printMessage(Kind.WARNING, "Projection annotations are only evaluated on interface methods.", element);
+                    continue;
+                }
+                interfaces.add((TypeElement) enclosing);
+            }
+        }
+        for (TypeElement projectionInterface : interfaces) {
+            processInterface(projectionInterface);
+        }
+        return false;
+    }
+
+    private void processInterface(final TypeElement projectionInterface) {
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(projectionInterface).toString();
+        if (processedInterfaces.contains(binaryName)) {
+            return;
+        }
+        boolean valid = true;
+        final List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(projectionInterface));
+        for (ExecutableElement method : methods) {
+            if (isObjectMethod(method) || method.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            valid &= validate(projectionInterface, method);
+        }
+        if (!valid) {
+            return;
+        }
+        try {
+            writeImplementation(projectionInterface, binaryName, methods);
+            processedInterfaces.add(binaryName);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Could not write projection implementation: " + e.getMessage(), projectionInterface);
+        }
+    }
+
+    private boolean isObjectMethod(final ExecutableElement method) {
+        return ((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object");
+    }
+
+    /**
+     * Same checks as XBProjector.ensureIsValidProjectionInterface() does at runtime.
+     */
+    private boolean validate(final TypeElement projectionInterface, final ExecutableElement method) {
+        final Messager messager = processingEnv.getMessager();
+        final Element errorElement = method.getEnclosingElement().equals(projectionInterface) ? method : projectionInterface;
+        final String methodName = method.getEnclosingElement().getSimpleName() + "." + method.getSimpleName() + "()";
+        final boolean isRead = method.getAnnotation(XBRead.class) != null;
+        final boolean isWrite = method.getAnnotation(XBWrite.class) != null;
+        final boolean isDelete = method.getAnnotation(XBDelete.class) != null;
+        final boolean isUpdate = method.getAnnotation(XBUpdate.class) != null;
+        final boolean isBind = method.getAnnotation(XBAuto.class) != null;
+        final boolean isExternal = method.getAnnotation(XBDocURL.class) != null;
+        final boolean isThrowsException = !method.getThrownTypes().isEmpty();
+        final boolean hasReturnType = method.getReturnType().getKind() != TypeKind.VOID;
+        final boolean hasParameters = !method.getParameters().isEmpty();
+        boolean valid = true;
+        int count = 0;
+        for (boolean b : new boolean[] { isRead, isWrite, isDelete, isUpdate, isBind }) {
+            count += b ? 1 : 0;
+        }
+        if (count > 1) {
+            messager.printMessage(Kind.ERROR, "Method " + methodName + " has to many annotations. Decide for one of @XBRead, @XBWrite, @XBUpdate, or @XBDelete, or @XBAuto", errorElement);
+            valid = false;
+        }
+        if (isExternal && (isWrite || isUpdate || isDelete)) {
+            messager.printMessage(Kind.ERROR, "Method " + methodName + " was declared as writing projection but has a @XBDocURL annotation. Defining external projections is only possible when reading because there is no DOM attached.", errorElement);
+            valid = false;
+        }
+        if (isRead) {
+            if (!hasReturnType) {
+                messager.printMessage(Kind.ERROR, "Method " + methodName + " has @XBRead annotation, but has no return type.", errorElement);
+                valid = false;
+            }
+            if (isRawType(method.getReturnType())) {
+                messager.printMessage(Kind.ERROR, "Method " + methodName + " has @XBRead annotation, but has a raw return type.", errorElement);
+                valid = false;
+            }
+            if (method.getThrownTypes().size() > 1) {
+                messager.printMessage(Kind.ERROR, "Method " + methodName + " has @XBRead annotation, but declares to throw multiple exceptions. Which one should I throw?", errorElement);
+                valid = false;
+            }
+            if (isOptional(method.getReturnType()) && isThrowsException) {
+                messager.printMessage(Kind.ERROR, "Method " + methodName + " has an Optional<> return type, but declares to throw an exception. Exception will never be thrown because return value must not be null.", errorElement);
+                valid = false;
+            }
+        }
+        if (isWrite && isThrowsException) {
+            messager.printMessage(Kind.ERROR, "Method " + methodName + " declares to throw exception " + method.getThrownTypes().get(0) + " but is not a reading projection method. When should this exception be thrown?", errorElement);
+            valid = false;
+        }
+        if ((isWrite || isUpdate) && !hasParameters) {
+            messager.printMessage(Kind.ERROR, "Method " + methodName + " has @" + (isWrite ? "XBWrite" : "XBUpdate") + " annotaion, but has no paramerter", errorElement);
+            valid = false;
+        }
+        int valueCount = 0;
+        for (VariableElement parameter : method.getParameters()) {
+            if (isOptional(parameter.asType())) {
+                messager.printMessage(Kind.ERROR, "Method " + methodName + " has java.util.Optional as a parameter type. You simply never should not do this.", errorElement);
+                valid = false;
+            }
+            if (parameter.getAnnotation(XBValue.class) == null) {
+                continue;
+            }
+            if (!(isWrite || isUpdate)) {
+                messager.printMessage(Kind.ERROR, "Method " + methodName + " is not a writing projection method, but has an @XBValue annotaion.", errorElement);
+                valid = false;
+            }
+            if (++valueCount > 1) {
+                messager.printMessage(Kind.ERROR, "Method " + methodName + " has multiple @XBValue annotaions.", errorElement);
+                valid = false;
+            }
+        }
+        valid &= validateXPath(method, errorElement, methodName, XBRead.class, isRead ? method.getAnnotation(XBRead.class).value() : null);
+        valid &= validateXPath(method, errorElement, methodName, XBAuto.class, isBind ? method.getAnnotation(XBAuto.class).value() : null);
+        valid &= validateXPath(method, errorElement, methodName, XBWrite.class, isWrite ? method.getAnnotation(XBWrite.class).value() : null);
+        valid &= validateXPath(method, errorElement, methodName, XBUpdate.class, isUpdate ? method.getAnnotation(XBUpdate.class).value() : null);
+        valid &= validateXPath(method, errorElement, methodName, XBDelete.class, isDelete ? method.getAnnotation(XBDelete.class).value() : null);
+        return valid;
+    }
+
+    /**
+     * Parse the XPath expression like the projector would do. Expressions containing placeholders
+     * are completed at runtime and can not be parsed now.
+     */
+    private boolean validateXPath(final ExecutableElement method, final Element errorElement, final String methodName, final Class<? extends Annotation> annotation, final String xpath) {
+        final String option = processingEnv.getOptions().get(XPATH_OPTION);
+        if ((xpath == null) || xpath.isEmpty() || (xpath.indexOf('{') >= 0) || "off".equals(option)) {
+            return true;
+        }
+        final String path = xpath.endsWith("/*") && (annotation == XBWrite.class) ? xpath.substring(0, xpath.length() - 2) : xpath;
+        try {
+            new DuplexXPathParser(Collections.<String, String> emptyMap()).compile(path);
+            return true;
+        } catch (RuntimeException e) {
+            return reportXPathError(errorElement, methodName, annotation, xpath, e, option);
+        } catch (Error e) {
+            return reportXPathError(errorElement, methodName, annotation, xpath, e, option);
+        }
+    }
+
+    private boolean reportXPathError(final Element errorElement, final String methodName, final Class<? extends Annotation> annotation, final String xpath, final Throwable e, final String option) {
+        final boolean warnOnly = "warn".equals(option);
+        final String cause = e.getCause() == null ? e.getMessage() : e.getCause().getMessage();
+        processingEnv.getMessager().printMessage(warnOnly ? Kind.WARNING : Kind.ERROR, "Method " + methodName + " has an unparsable XPath in @" + annotation.getSimpleName() + ": '" + xpath + "' " + cause, errorElement);
+        return warnOnly;
+    }
+
+    private boolean isRawType(final TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        final DeclaredType declaredType = (DeclaredType) type;
+        return declaredType.getTypeArguments().isEmpty() && !((TypeElement) declaredType.asElement()).getTypeParameters().isEmpty();
+    }
+
+    private boolean isOptional(final TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(OPTIONAL);
+    }
+
+    /**
+     * Generate the implementation class. Each method calls the MethodDispatcher with the index of
+     * the method in {@link #METHODS_FIELD}. Default methods are not overridden.
+     */
+    private void writeImplementation(final TypeElement projectionInterface, final String binaryName, final List<ExecutableElement> members) throws IOException {
+        final DeclaredType interfaceType = (DeclaredType) projectionInterface.asType();
+        final Map<String, ExecutableElement> methods = new LinkedHashMap<String, ExecutableElement>();
+        for (ExecutableElement method : members) {
+            final Set<Modifier> modifiers = method.getModifiers();
+            if (isObjectMethod(method) || (!modifiers.contains(Modifier.ABSTRACT)) || modifiers.contains(Modifier.STATIC)) {
+                continue;
+            }
+            methods.put(erasedSignature(interfaceType, method), method);
+        }
+        final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(projectionInterface);
+        final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        final String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + IMPLEMENTATION_SUFFIX;
+        final String interfaceName = projectionInterface.getQualifiedName().toString();
+        final boolean isDOMAccess = isSubtype(projectionInterface, "org.xmlbeam.dom.DOMAccess");
+        final boolean isSerializable = isSubtype(projectionInterface, "java.io.Serializable");
+        final List<String> methodTable = new ArrayList<String>();
+        final StringBuilder body = new StringBuilder();
+        final Set<String> implemented = new HashSet<String>();
+        for (Map.Entry<String, ExecutableElement> e : methods.entrySet()) {
+            implemented.add(e.getKey());
+            final ExecutableElement method = e.getValue();
+            final ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(interfaceType, method);
+            methodTable.add(interfaceName + ".class.getMethod(\"" + method.getSimpleName() + "\"" + erasedParameterClasses(methodType) + ")");
+            writeMethod(body, methodTable.size() - 1, method.getSimpleName().toString(), methodType, method.getThrownTypes());
+        }
+        if (!isDOMAccess) {
+            final TypeElement domAccess = processingEnv.getElementUtils().getTypeElement("org.xmlbeam.dom.DOMAccess");
+            for (ExecutableElement method : ElementFilter.methodsIn(domAccess.getEnclosedElements())) {
+                final ExecutableType methodType = (ExecutableType) method.asType();
+                if (!implemented.add(erasedSignature((DeclaredType) domAccess.asType(), method))) {
+                    continue;
+                }
+                methodTable.add("org.xmlbeam.dom.DOMAccess.class.getMethod(\"" + method.getSimpleName() + "\"" + erasedParameterClasses(methodType) + ")");
+                writeMethod(body, methodTable.size() - 1, method.getSimpleName().toString(), methodType, method.getThrownTypes());
+            }
+        }
+        if (implemented.add("toString()")) {
+            methodTable.add("java.lang.Object.class.getMethod(\"toString\")");
+            body.append("    @Override\n    public java.lang.String toString() {\n        try {\n            return (java.lang.String) h.dispatch(this, " + (methodTable.size() - 1) + ", null);\n");
+            writeCatchBlocks(body, Collections.<TypeMirror> emptyList());
+        }
+        if (implemented.add("hashCode()")) {
+            methodTable.add("java.lang.Object.class.getMethod(\"hashCode\")");
+            body.append("    @Override\n    public int hashCode() {\n        try {\n            return ((java.lang.Integer) h.dispatch(this, " + (methodTable.size() - 1) + ", null)).intValue();\n");
+            writeCatchBlocks(body, Collections.<TypeMirror> emptyList());
+        }
+        if (implemented.add("equals(java.lang.Object)")) {
+            methodTable.add("java.lang.Object.class.getMethod(\"equals\", java.lang.Object.class)");
+            body.append("    @Override\n    public boolean equals(final java.lang.Object p0) {\n        try {\n            return ((java.lang.Boolean) h.dispatch(this, " + (methodTable.size() - 1) + ", new java.lang.Object[] { p0 })).booleanValue();\n");
+            writeCatchBlocks(body, Collections.<TypeMirror> emptyList());
+        }
+        if (!implemented.contains("writeReplace()")) {
+            body.append("    private java.lang.Object writeReplace() throws java.io.ObjectStreamException {\n        try {\n            return h.dispatch(this, org.xmlbeam.intern.MethodDispatcher.WRITE_REPLACE, null);\n");
+            writeCatchBlocks(body, Collections.<TypeMirror> emptyList());
+        }
+
+        final JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? simpleName : packageName + "." + simpleName, projectionInterface);
+        final Writer writer = sourceFile.openWriter();
+        try {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("/**\n * Implementation of {@link " + interfaceName + "} generated by " + ProjectionProcessor.class.getName() + ". Do not edit.\n */\n");
+            writer.write("@SuppressWarnings(\"all\")\n");
+            writer.write("final class " + simpleName + " implements " + interfaceName + (isDOMAccess ? "" : ", org.xmlbeam.dom.DOMAccess") + (isSerializable ? "" : ", java.io.Serializable") + " {\n\n");
+            writer.write("    static final java.lang.reflect.Method[] " + METHODS_FIELD + ";\n");
+            writer.write("    static {\n        try {\n            " + METHODS_FIELD + " = new java.lang.reflect.Method[] {");
+            for (int i = 0; i < methodTable.size(); ++i) {
+                writer.write((i == 0 ? "\n" : ",\n") + "                    " + methodTable.get(i));
+            }
+            writer.write(" };\n        } catch (java.lang.NoSuchMethodException e) {\n            throw new java.lang.ExceptionInInitializerError(e);\n        }\n    }\n\n");
+            writer.write("    private final org.xmlbeam.intern.MethodDispatcher h;\n\n");
+            writer.write("    public " + simpleName + "(final org.xmlbeam.intern.MethodDispatcher h) {\n        this.h = h;\n    }\n\n");
+            writer.write(body.toString());
+            writer.write("}\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    private boolean isSubtype(final TypeElement type, final String superTypeName) {
+        final TypeElement superType = processingEnv.getElementUtils().getTypeElement(superTypeName);
+        return processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()), processingEnv.getTypeUtils().erasure(superType.asType()));
+    }
+
+    private String erasedSignature(final DeclaredType containing, final ExecutableElement method) {
+        final ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(containing, method);
+        final StringBuilder builder = new StringBuilder(method.getSimpleName()).append('(');
+        boolean first = true;
+        for (TypeMirror parameterType : methodType.getParameterTypes()) {
+            builder.append(first ? "" : ",").append(processingEnv.getTypeUtils().erasure(parameterType));
+            first = false;
+        }
+        return builder.append(')').toString();
+    }
+
+    private String erasedParameterClasses(final ExecutableType methodType) {
+        final StringBuilder builder = new StringBuilder();
+        for (TypeMirror parameterType : methodType.getParameterTypes()) {
+            builder.append(", ").append(processingEnv.getTypeUtils().erasure(parameterType)).append(".class");
+        }
+        return builder.toString();
+    }
+
+    private void writeMethod(final StringBuilder body, final int index, final String name, final ExecutableType methodType, final List<? extends TypeMirror> thrownTypes) {
+        body.append("    @Override\n    public ");
+        if (!methodType.getTypeVariables().isEmpty()) {
+            body.append('<');
+            boolean first = true;
+            for (TypeVariable typeVariable : methodType.getTypeVariables()) {
+                body.append(first ? "" : ", ").append(typeVariable);
+                final TypeMirror upperBound = typeVariable.getUpperBound();
+                if (!upperBound.toString().equals("java.lang.Object")) {
+                    body.append(" extends ").append(upperBound);
+                }
+                first = false;
+            }
+            body.append("> ");
+        }
+        final TypeMirror returnType = methodType.getReturnType();
+        body.append(returnType).append(' ').append(name).append('(');
+        final List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+        for (int i = 0; i < parameterTypes.size(); ++i) {
+            body.append(i == 0 ? "" : ", ").append("final ").append(parameterTypes.get(i)).append(" p").append(i);
+        }
+        body.append(')');
+        if (!thrownTypes.isEmpty()) {
+            body.append(" throws ");
+            for (int i = 0; i < thrownTypes.size(); ++i) {
+                body.append(i == 0 ? "" : ", ").append(thrownTypes.get(i));
+            }
+        }
+        body.append(" {\n        try {\n            ");
+        final StringBuilder call = new StringBuilder("h.dispatch(this, ").append(index).append(", ");
+        if (parameterTypes.isEmpty()) {
+            call.append("null)");
+        } else {
+            call.append("new java.lang.Object[] { ");
+            for (int i = 0; i < parameterTypes.size(); ++i) {
+                call.append(i == 0 ? "" : ", ").append('p').append(i);
+            }
+            call.append(" })");
+        }
+        switch (returnType.getKind()) {
+        case VOID:
+            body.append(call).append(";\n");
+            break;
+        case BOOLEAN:
+        case BYTE:
+        case CHAR:
+        case SHORT:
+        case INT:
+        case LONG:
+        case FLOAT:
+        case DOUBLE:
+            final TypeElement boxed = processingEnv.getTypeUtils().boxedClass(processingEnv.getTypeUtils().getPrimitiveType(returnType.getKind()));
+            body.append("return ((").append(boxed.getQualifiedName()).append(") ").append(call).append(").").append(returnType).append("Value();\n");
+            break;
+        default:
+            body.append("return (").append(returnType).append(") ").append(call).append(";\n");
+        }
+        writeCatchBlocks(body, thrownTypes);
+    }
+
+    /**
+     * The dispatcher already wraps undeclared checked exceptions, but the compiler needs to know.
+     */
+    private void writeCatchBlocks(final StringBuilder body, final List<? extends TypeMirror> thrownTypes) {
+        final TypeMirror throwable = processingEnv.getElementUtils().getTypeElement("java.lang.Throwable").asType();
+        final TypeMirror runtimeException = processingEnv.getElementUtils().getTypeElement("java.lang.RuntimeException").asType();
+        final TypeMirror error = processingEnv.getElementUtils().getTypeElement("java.lang.Error").asType();
+        final List<TypeMirror> catchTypes = new ArrayList<TypeMirror>();
+        catchTypes.add(runtimeException);
+        catchTypes.add(error);
+        boolean throwableDeclared = false;
+        for (TypeMirror thrownType : thrownTypes) {
+            if (processingEnv.getTypeUtils().isSameType(thrownType, throwable)) {
+                throwableDeclared = true;
+                continue;
+            }
+            boolean covered = false;
+            for (TypeMirror other : thrownTypes) {
+                if ((other != thrownType) && !processingEnv.getTypeUtils().isSameType(other, thrownType) && processingEnv.getTypeUtils().isSubtype(thrownType, other)) {
+                    covered = true;
+                }
+            }
+            if (covered || processingEnv.getTypeUtils().isSubtype(thrownType, runtimeException) || processingEnv.getTypeUtils().isSubtype(thrownType, error)) {
+                continue;
+            }
+            catchTypes.add(thrownType);
+        }
+        for (TypeMirror catchType : catchTypes) {
+            body.append("        } catch (final ").append(catchType).append(" e) {\n            throw e;\n");
+        }
+        body.append("        } catch (final java.lang.Throwable t) {\n");
+        if (throwableDeclared) {
+            body.append("            throw t;\n");
+        } else {
+            body.append("            throw new java.lang.reflect.UndeclaredThrowableException(t);\n");
+        }
+        body.append("        }\n    }\n\n");
+    }
+
+    private void writeIndex() {
+        if (processedInterfaces.isEmpty()) {
+            return;
+        }
+        try {
+            final FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            final Writer writer = resource.openWriter();
+            try {
+                for (String name : processedInterfaces) {
+                    writer.write(name + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, "Could not write projection index: " + e.getMessage());
+        }
+    }
+}
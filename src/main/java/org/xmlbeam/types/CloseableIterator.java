@@ -0,0 +1,30 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.types;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterator over a resource, e.g. a file read while iterating. The resource is closed when the
+ * iteration is complete. Call close() if you stop iterating before.
+ *
+ * @param <E>
+ *            component type
+ */
+public interface CloseableIterator<E> extends Iterator<E>, Closeable {
+
+}
@@ -0,0 +1,36 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.types;
+
+/**
+ * Work done for each record of a streamed document. Invoked concurrently for different records,
+ * so implementations must be thread safe.
+ *
+ * @param <T>
+ *            projection interface of the records
+ * @param <R>
+ *            result type
+ */
+public interface RecordFunction<T, R> {
+
+    /**
+     * @param record
+     *            projection of one record
+     * @return result for this record
+     * @throws Exception
+     */
+    R apply(T record) throws Exception;
+}
@@ -0,0 +1,44 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.types;
+
+import java.io.Closeable;
+
+/**
+ * Writes a document record by record. Each record is written as soon as it is complete, so
+ * memory usage depends on the size of a record, not on the size of the document. Closing the
+ * writer completes the document.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ * @param <T>
+ *            projection interface of the records
+ */
+public interface RecordWriter<T> extends Closeable {
+
+    /**
+     * @return a new, empty record. Use the setters to fill it and pass it to
+     *         {@link #write(Object)}.
+     */
+    T create();
+
+    /**
+     * Append a record to the document. The record should not be changed afterwards.
+     *
+     * @param record
+     *            a record created by {@link #create()} or any other projection of an element.
+     */
+    void write(T record);
+}
@@ -0,0 +1,97 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util;
+
+import java.io.Serializable;
+
+/**
+ * Immutable snapshot of the counters of a cache.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class CacheStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    private final int capacity;
+
+    /**
+     * @param hits
+     * @param misses
+     * @param evictions
+     * @param size
+     * @param capacity
+     */
+    public CacheStatistics(final long hits, final long misses, final long evictions, final int size, final int capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return number of lookups that found an entry.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups that did not find an entry.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return number of entries removed to keep the cache within its capacity.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return number of entries at the time the snapshot was taken.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return maximum number of entries.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return hits divided by all lookups, or 0 if there was no lookup yet.
+     */
+    public double getHitRatio() {
+        final long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics [hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size + ", capacity=" + capacity + "]";
+    }
+}
@@ -17,14 +17,14 @@ package org.xmlbeam.util;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Scanner;
 import java.util.TreeMap;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -35,6 +35,9 @@ import org.xml.sax.SAXException;
 import org.xmlbeam.XBProjector;
 import org.xmlbeam.exceptions.XBDocumentParsingException;
 import org.xmlbeam.exceptions.XBIOException;
+import org.xmlbeam.io.DefaultHttpTransport;
+import org.xmlbeam.io.HttpTransport;
+import org.xmlbeam.util.intern.DOMHelper;
 
 /**
  * A set of tiny helper methods used in the projection framework and free to use for framework
@@ -47,21 +50,23 @@ public final class IOHelper {
 
     private static final String[] RESOURCE_PROTO_NAMES = new String[] { "resource://", "res://" };
 
-   
-    
+    private static final HttpTransport DEFAULT_HTTP_TRANSPORT = new DefaultHttpTransport();
+
     /**
-     * Copies request properties to a connection.
+     * Merges request properties, later ones replace earlier ones with the same key.
      *
      * @param requestProperties
-     *            (if null, connection will not be changed)
-     * @param connection
+     *            (null elements are skipped)
+     * @return new map
      */
-    private static void addRequestProperties(final Map<String, String> requestProperties, final HttpURLConnection connection) {
-        if (requestProperties != null) {
-            for (Entry<String, String> entry : requestProperties.entrySet()) {
-                connection.addRequestProperty(entry.getKey(), entry.getValue());
+    private static Map<String, String> mergeRequestProperties(final List<Map<String, String>> requestProperties) {
+        final Map<String, String> merged = new LinkedHashMap<String, String>();
+        for (Map<String, String> props : requestProperties) {
+            if (props != null) {
+                merged.putAll(props);
             }
         }
+        return merged;
     }
 
     /**
@@ -96,11 +101,22 @@ public final class IOHelper {
      * @throws IOException
      */
     public static InputStream httpGet(final String httpurl, final Map<String, String>... requestProperties) throws IOException {
-        HttpURLConnection connection = (HttpURLConnection) new URL(httpurl).openConnection();
-        for (Map<String, String> props : requestProperties) {
-            addRequestProperties(props, connection);
-        }
-        return connection.getInputStream();
+        return httpGet(DEFAULT_HTTP_TRANSPORT, httpurl, mergeRequestProperties(Arrays.asList(requestProperties))).getBody();
+    }
+
+    /**
+     * Http get via the given transport.
+     *
+     * @param transport
+     * @param httpurl
+     *            get url
+     * @param requestProperties
+     *            http header fields (key-&gt;value), may be null
+     * @return response, to be closed by the caller
+     * @throws IOException
+     */
+    public static HttpTransport.Response httpGet(final HttpTransport transport, final String httpurl, final Map<String, String> requestProperties) throws IOException {
+        return transport.send("GET", httpurl, mergeRequestProperties(Collections.singletonList(requestProperties)), null);
     }
 
     /**
@@ -116,23 +132,30 @@ public final class IOHelper {
      * @return input stream of response
      * @throws IOException
      */
-    @SuppressWarnings("resource")
     public static InputStream httpPost(final String httpurl, final String data, final Map<String, String>... requestProperties) throws IOException {
-        byte[] bytes = data.getBytes("utf-8");
-        java.net.URL url = new java.net.URL(httpurl);
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setDoInput(true);
-        connection.setDoOutput(true);
-        connection.setRequestMethod("POST");
-        connection.setRequestProperty("charset", "utf-8");
-        connection.setRequestProperty("Content-Length", Integer.toString(bytes.length));
-        for (Map<String, String> props : requestProperties) {
-            addRequestProperties(props, connection);
+        return httpPost(DEFAULT_HTTP_TRANSPORT, httpurl, data, mergeRequestProperties(Arrays.asList(requestProperties))).getBody();
+    }
+
+    /**
+     * Http post via the given transport.
+     *
+     * @param transport
+     * @param httpurl
+     *            target url
+     * @param data
+     *            String with content to post
+     * @param requestProperties
+     *            http header fields (key-&gt;value), may be null
+     * @return response, to be closed by the caller
+     * @throws IOException
+     */
+    public static HttpTransport.Response httpPost(final HttpTransport transport, final String httpurl, final String data, final Map<String, String> requestProperties) throws IOException {
+        final Map<String, String> properties = new LinkedHashMap<String, String>();
+        properties.put("charset", "utf-8");
+        if (requestProperties != null) {
+            properties.putAll(requestProperties);
         }
-        OutputStream outputStream = connection.getOutputStream();
-        outputStream.write(bytes);
-        outputStream.flush();
-        return connection.getInputStream();
+        return transport.send("POST", httpurl, properties, data.getBytes("utf-8"));
     }
 
     /**
@@ -142,10 +165,17 @@ public final class IOHelper {
      * @return String with stream content
      */
     public static String inputStreamToString(final InputStream inputStream, final String... optionalCharsetName) {
-        Scanner scanner = (optionalCharsetName == null) || (optionalCharsetName.length == 0) || (optionalCharsetName[0] == null) ? new Scanner(inputStream) : new Scanner(inputStream, optionalCharsetName[0]);
-        // return scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
-        String content = scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
-        return content;
+        try {
+            final Reader reader = (optionalCharsetName == null) || (optionalCharsetName.length == 0) || (optionalCharsetName[0] == null) ? new InputStreamReader(inputStream) : new InputStreamReader(inputStream, optionalCharsetName[0]);
+            final StringBuilder content = new StringBuilder();
+            final char[] buffer = new char[4096];
+            for (int length = reader.read(buffer); length >= 0; length = reader.read(buffer)) {
+                content.append(buffer, 0, length);
+            }
+            return content.toString();
+        } catch (IOException e) {
+            throw new XBIOException("Error during reading stream", e);
+        }
     }
 
     /**
@@ -174,7 +204,7 @@ public final class IOHelper {
      * @return Document
      */
     public static Document loadDocument(final XBProjector projector, final InputStream is) {
-        final DocumentBuilder documentBuilder = projector.config().createDocumentBuilder();
+        final DocumentBuilder documentBuilder = DOMHelper.getDocumentBuilder(projector);
         try {
             return documentBuilder.parse(is, "");
         } catch (SAXException e) {
@@ -193,8 +223,23 @@ public final class IOHelper {
      * @return new document instance
      * @throws IOException
      */
-    @SuppressWarnings({ "unchecked", "resource" })
     public static Document getDocumentFromURL(final DocumentBuilder documentBuilder, final String url, final Map<String, String> requestProperties, final Class<?>... resourceAwareClasses) throws IOException {
+        return getDocumentFromURL(DEFAULT_HTTP_TRANSPORT, documentBuilder, url, requestProperties, resourceAwareClasses);
+    }
+
+    /**
+     * @param transport
+     *            used for http and https URLs
+     * @param documentBuilder
+     * @param url
+     * @param requestProperties
+     * @param resourceAwareClasses
+     *            Try useing this classes to load resource with resource protocol.
+     * @return new document instance
+     * @throws IOException
+     */
+    @SuppressWarnings({ "unchecked", "resource" })
+    public static Document getDocumentFromURL(final HttpTransport transport, final DocumentBuilder documentBuilder, final String url, final Map<String, String> requestProperties, final Class<?>... resourceAwareClasses) throws IOException {
         try {
             for (String resProto : RESOURCE_PROTO_NAMES) {
                 if (url.startsWith(resProto)) {
@@ -227,7 +272,12 @@ public final class IOHelper {
                 }
             }
             if (url.startsWith("http:") || url.startsWith("https:")) {
-                return documentBuilder.parse(IOHelper.httpGet(url, requestProperties), url);
+                final HttpTransport.Response response = httpGet(transport, url, requestProperties);
+                try {
+                    return documentBuilder.parse(response.getBody(), url);
+                } finally {
+                    response.close();
+                }
             }
             Document document = documentBuilder.parse(url);
             if (document == null) {
@@ -0,0 +1,162 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xmlbeam.util.CacheStatistics;
+
+/**
+ * A concurrent cache with a maximum number of entries. Lookups do not lock. When the capacity is
+ * exceeded, entries are evicted in insertion order, but entries used since the last eviction pass
+ * get a second chance (clock algorithm). This approximates LRU without reordering on each hit.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ * @param <K>
+ *            key type
+ * @param <V>
+ *            value type
+ */
+public final class BoundedCache<K, V> {
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile boolean referenced;
+
+        private Entry(final V value) {
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<K, Entry<V>>();
+    private final Queue<K> clock = new ConcurrentLinkedQueue<K>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile int capacity;
+
+    /**
+     * @param capacity
+     *            maximum number of entries. A capacity of 0 disables the cache.
+     */
+    public BoundedCache(final int capacity) {
+        setCapacity(capacity);
+    }
+
+    /**
+     * @param key
+     * @return the cached value or null
+     */
+    public V get(final K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Add a value unless there is already one for this key.
+     *
+     * @param key
+     * @param value
+     * @return the value in the cache, which may be the one added by a concurrent thread.
+     */
+    public V putIfAbsent(final K key, final V value) {
+        if (capacity == 0) {
+            return value;
+        }
+        final Entry<V> previous = entries.putIfAbsent(key, new Entry<V>(value));
+        if (previous != null) {
+            return previous.value;
+        }
+        clock.add(key);
+        size.incrementAndGet();
+        evictIfNecessary();
+        return value;
+    }
+
+    /**
+     * Remove all entries. The counters are kept.
+     */
+    public void clear() {
+        for (K key : entries.keySet()) {
+            if (entries.remove(key) != null) {
+                size.decrementAndGet();
+            }
+        }
+        clock.clear();
+    }
+
+    /**
+     * Change the capacity. Entries exceeding a reduced capacity are evicted.
+     *
+     * @param capacity
+     */
+    public void setCapacity(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative, but is " + capacity);
+        }
+        this.capacity = capacity;
+        if (capacity == 0) {
+            clear();
+            return;
+        }
+        evictIfNecessary();
+    }
+
+    /**
+     * @return a snapshot of the counters
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.get(), misses.get(), evictions.get(), size.get(), capacity);
+    }
+
+    private void evictIfNecessary() {
+        // Each key gets at most one second chance per call, so this terminates.
+        int secondChances = size.get();
+        while (size.get() > capacity) {
+            final K key = clock.poll();
+            if (key == null) {
+                return;
+            }
+            final Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced && (secondChances-- > 0)) {
+                entry.referenced = false;
+                clock.add(key);
+                continue;
+            }
+            if (entries.remove(key, entry)) {
+                size.decrementAndGet();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+}
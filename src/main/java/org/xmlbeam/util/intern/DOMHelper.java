@@ -15,6 +15,8 @@
  */
 package org.xmlbeam.util.intern;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -27,6 +29,8 @@ import java.util.List;
 import java.util.Map;
 
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMSource;
@@ -41,6 +45,8 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
 import org.xmlbeam.XBProjector;
+import org.xmlbeam.config.DefaultXMLFactoriesConfig;
+import org.xmlbeam.config.XMLFactoriesConfig;
 import org.xmlbeam.exceptions.XBException;
 
 /**
@@ -122,7 +128,7 @@ public final class DOMHelper {
      * @param element
      * @throws DOMException
      */
-    private static void fillNSMapWithPrefixesDeclaredInElement(final Map<String, String> nsMap, final Element element) throws DOMException {
+    static void fillNSMapWithPrefixesDeclaredInElement(final Map<String, String> nsMap, final Element element) throws DOMException {
         NamedNodeMap attributes = element.getAttributes();
         for (int i = 0; i < attributes.getLength(); i++) {
             Node attribute = attributes.item(i);
@@ -135,8 +141,8 @@ public final class DOMHelper {
             }
             nsMap.put(attribute.getLocalName(), attribute.getNodeValue());
         }
-        NodeList childNodes = element.getChildNodes();
-        for (Node n : nodeListToIterator(childNodes)) {
+        // Siblings instead of a NodeList, which is not safe for concurrent reads.
+        for (Node n = element.getFirstChild(); n != null; n = n.getNextSibling()) {
             if (n.getNodeType() != Node.ELEMENT_NODE) {
                 continue;
             }
@@ -586,9 +592,13 @@ public final class DOMHelper {
         if (domNode.getNodeType() == Node.ATTRIBUTE_NODE) {
             return domNode.toString();
         }
+        final DOMSerializer serializer = getSerializer(projector, domNode);
+        if (serializer != null) {
+            return serializer.toXMLString(domNode);
+        }
         try {
             final StringWriter writer = new StringWriter();
-            projector.config().createTransformer().transform(new DOMSource(domNode), new StreamResult(writer));
+            getTransformer(projector).transform(new DOMSource(domNode), new StreamResult(writer));
             final String output = writer.getBuffer().toString();
             return output;
         } catch (TransformerConfigurationException e) {
@@ -599,6 +609,59 @@ public final class DOMHelper {
 
     }
 
+    /**
+     * Write the node as XML. A transformer is used only if the configuration has no serializer or
+     * the serializer can not reproduce the output of the transformer.
+     *
+     * @param projector
+     * @param domNode
+     * @param os
+     *            not closed
+     * @throws IOException
+     * @throws TransformerException
+     */
+    public static void writeXML(final XBProjector projector, final Node domNode, final OutputStream os) throws IOException, TransformerException {
+        final DOMSerializer serializer = getSerializer(projector, domNode);
+        if (serializer != null) {
+            serializer.write(domNode, os);
+            return;
+        }
+        getTransformer(projector).transform(new DOMSource(domNode), new StreamResult(os));
+    }
+
+    /**
+     * Document builder for reading a document within the projector. The builder of the default
+     * configuration is reused by the calling thread, so it must neither be kept nor passed to
+     * other threads.
+     *
+     * @param projector
+     * @return document builder to be used immediately by the calling thread
+     */
+    public static DocumentBuilder getDocumentBuilder(final XBProjector projector) {
+        final XMLFactoriesConfig config = projector.config().as(XMLFactoriesConfig.class);
+        if (config instanceof DefaultXMLFactoriesConfig) {
+            return ((DefaultXMLFactoriesConfig) config).getThreadDocumentBuilder();
+        }
+        return config.createDocumentBuilder();
+    }
+
+    private static Transformer getTransformer(final XBProjector projector) {
+        final XMLFactoriesConfig config = projector.config().as(XMLFactoriesConfig.class);
+        if (config instanceof DefaultXMLFactoriesConfig) {
+            return ((DefaultXMLFactoriesConfig) config).getThreadTransformer();
+        }
+        return config.createTransformer();
+    }
+
+    private static DOMSerializer getSerializer(final XBProjector projector, final Node domNode) {
+        final XMLFactoriesConfig config = projector.config().as(XMLFactoriesConfig.class);
+        if (!(config instanceof DefaultXMLFactoriesConfig)) {
+            return null;
+        }
+        final DOMSerializer serializer = ((DefaultXMLFactoriesConfig) config).getSerializer();
+        return (serializer != null) && serializer.canWrite(domNode) ? serializer : null;
+    }
+
     /**
      * @param item
      * @return Text content of this node, without child content.
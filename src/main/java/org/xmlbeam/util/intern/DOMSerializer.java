@@ -0,0 +1,841 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes a DOM tree as UTF-8 without a Transformer. The output is the same as the output of the
+ * transformers created by {@link org.xmlbeam.config.DefaultXMLFactoriesConfig} on Java 9 and
+ * later: The identity transformation if pretty printing is off, the prettyprint.xslt stylesheet
+ * otherwise. Trees this class can not reproduce exactly (e.g. with document types, entity
+ * references or namespace prefixes bound to different URIs) are rejected by
+ * {@link #canWrite(Node)} and must be written by a Transformer.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class DOMSerializer {
+
+    private static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>";
+    private static final String XML_DECLARATION_WITHOUT_STANDALONE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>";
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Characters are collected in a buffer and written to a Writer or encoded as UTF-8 when the
+     * buffer is full.
+     */
+    private static final class Output {
+        private final char[] chars = new char[BUFFER_SIZE];
+        private final Writer writer;
+        private final OutputStream os;
+        private final byte[] bytes;
+        private int length;
+
+        Output(final Writer writer) {
+            this.writer = writer;
+            this.os = null;
+            this.bytes = null;
+        }
+
+        Output(final OutputStream os) {
+            this.writer = null;
+            this.os = os;
+            this.bytes = new byte[(BUFFER_SIZE * 3) + 1];
+        }
+
+        void write(final char c) throws IOException {
+            if (length == chars.length) {
+                drain();
+            }
+            chars[length++] = c;
+        }
+
+        void write(final String s) throws IOException {
+            final int end = s.length();
+            int start = 0;
+            while (start < end) {
+                if (length == chars.length) {
+                    drain();
+                }
+                final int count = Math.min(end - start, chars.length - length);
+                s.getChars(start, start + count, chars, length);
+                length += count;
+                start += count;
+            }
+        }
+
+        void writeCharacterReference(final int codePoint) throws IOException {
+            write("&#");
+            write(Integer.toString(codePoint));
+            write(';');
+        }
+
+        private void drain() throws IOException {
+            if (writer != null) {
+                writer.write(chars, 0, length);
+                length = 0;
+                return;
+            }
+            // A high surrogate at the end is kept until its low surrogate arrives.
+            final int end = Character.isHighSurrogate(chars[length - 1]) ? length - 1 : length;
+            int pos = 0;
+            for (int i = 0; i < end; ++i) {
+                final char c = chars[i];
+                if (c < 0x80) {
+                    bytes[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && Character.isLowSurrogate(chars[i + 1])) {
+                    final int codePoint = Character.toCodePoint(c, chars[++i]);
+                    bytes[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                    bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            os.write(bytes, 0, pos);
+            if (end < length) {
+                chars[0] = chars[end];
+            }
+            length -= end;
+        }
+
+        void flush() throws IOException {
+            if (length > 0) {
+                drain();
+            }
+            if (length > 0) {
+                // Unpaired high surrogate at the very end.
+                os.write('?');
+                length = 0;
+            }
+        }
+    }
+
+    /**
+     * Namespace declarations written so far, as prefix and URI pairs. Each element remembers the
+     * size of the list when it started.
+     */
+    private static final class Scope {
+        private final List<String> declarations = new ArrayList<String>();
+
+        int mark() {
+            return declarations.size();
+        }
+
+        void reset(final int mark) {
+            while (declarations.size() > mark) {
+                declarations.remove(declarations.size() - 1);
+            }
+        }
+
+        String lookUp(final String prefix) {
+            return lookUp(prefix, declarations.size());
+        }
+
+        String lookUp(final String prefix, final int mark) {
+            for (int i = mark - 2; i >= 0; i -= 2) {
+                if (declarations.get(i).equals(prefix)) {
+                    return declarations.get(i + 1);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return true if the declaration changes the scope, false if it is redundant.
+         */
+        boolean declare(final String prefix, final String uri) {
+            final String current = lookUp(prefix);
+            if ((current == null ? "" : current).equals(uri)) {
+                return false;
+            }
+            declarations.add(prefix);
+            declarations.add(uri);
+            return true;
+        }
+    }
+
+    /**
+     * Thrown by the dry run of {@link #canWrite(Node)}.
+     */
+    @SuppressWarnings("serial")
+    private static final class UnsupportedTreeException extends IOException {
+    }
+
+    private static final UnsupportedTreeException UNSUPPORTED = new UnsupportedTreeException();
+
+    private final boolean isIndenting;
+    private final boolean isOmittingXMLDeclaration;
+    private final String lineSeparator = System.getProperty("line.separator", "\n");
+
+    /**
+     * @param isIndenting
+     *            true to write the output of the pretty printing stylesheet
+     * @param isOmittingXMLDeclaration
+     */
+    public DOMSerializer(final boolean isIndenting, final boolean isOmittingXMLDeclaration) {
+        this.isIndenting = isIndenting;
+        this.isOmittingXMLDeclaration = isOmittingXMLDeclaration;
+    }
+
+    /**
+     * Check the whole tree without writing anything.
+     *
+     * @param node
+     * @return true if the output would be the same as the output of the Transformer.
+     */
+    public boolean canWrite(final Node node) {
+        if ((node.getNodeType() == Node.TEXT_NODE) || (node.getNodeType() == Node.CDATA_SECTION_NODE)) {
+            // Text without an element is not escaped like text in elements.
+            return false;
+        }
+        try {
+            writeNode(node, null, new Scope(), 0, false);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param node
+     *            a node accepted by {@link #canWrite(Node)}
+     * @param os
+     *            receives the UTF-8 encoded document, not closed.
+     * @throws IOException
+     */
+    public void write(final Node node, final OutputStream os) throws IOException {
+        final Output output = new Output(os);
+        write(node, output);
+        output.flush();
+    }
+
+    /**
+     * @param node
+     *            a node accepted by {@link #canWrite(Node)}
+     * @param writer
+     *            not closed
+     * @throws IOException
+     */
+    public void write(final Node node, final Writer writer) throws IOException {
+        final Output output = new Output(writer);
+        write(node, output);
+        output.flush();
+    }
+
+    /**
+     * @param node
+     *            a node accepted by {@link #canWrite(Node)}
+     * @return the node as XML
+     */
+    public String toXMLString(final Node node) {
+        final StringWriter writer = new StringWriter();
+        try {
+            write(node, writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    private void write(final Node node, final Output output) throws IOException {
+        if (!isOmittingXMLDeclaration) {
+            // The identity transformation takes the standalone flag from documents only.
+            output.write(isIndenting || (node.getNodeType() == Node.DOCUMENT_NODE) ? XML_DECLARATION : XML_DECLARATION_WITHOUT_STANDALONE);
+            if (isIndenting) {
+                output.write(lineSeparator);
+            }
+        }
+        final boolean endsWithText = writeNode(node, output, new Scope(), 0, false);
+        if (isIndenting && !endsWithText) {
+            output.write(lineSeparator);
+        }
+    }
+
+    /**
+     * Writes or, if output is null, just checks a node.
+     *
+     * @param depth
+     *            number of open elements
+     * @param isIndented
+     *            true if the node is preceded by a line break and indentation
+     * @return true if the node was written as text
+     */
+    private boolean writeNode(final Node node, final Output output, final Scope scope, final int depth, final boolean isIndented) throws IOException {
+        switch (node.getNodeType()) {
+        case Node.DOCUMENT_NODE:
+            final Document document = (Document) node;
+            if (document.getXmlStandalone() || !"1.0".equals(document.getXmlVersion())) {
+                throw UNSUPPORTED;
+            }
+            if ((document.getXmlEncoding() != null) && !"UTF-8".equals(document.getXmlEncoding())) {
+                // The transformer would switch to the encoding of the parsed document.
+                throw UNSUPPORTED;
+            }
+            for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                writeNode(child, output, scope, depth, false);
+            }
+            return false;
+        case Node.ELEMENT_NODE:
+            writeElement((Element) node, output, scope, depth, isIndented);
+            return false;
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+            if (isIndenting) {
+                writeText(node.getNodeValue(), output, false);
+                return true;
+            }
+            if (node.getNodeType() == Node.TEXT_NODE) {
+                writeText(node.getNodeValue(), output, false);
+            } else {
+                writeCDATA(node.getNodeValue(), output);
+            }
+            return true;
+        case Node.COMMENT_NODE:
+            if (output == null) {
+                checkSurrogates(node.getNodeValue());
+            } else {
+                writeComment(node.getNodeValue(), output);
+            }
+            return false;
+        case Node.PROCESSING_INSTRUCTION_NODE:
+            if (output == null) {
+                checkSurrogates(node.getNodeValue());
+                if ((node.getNodeValue() != null) && node.getNodeValue().contains("?>")) {
+                    throw UNSUPPORTED;
+                }
+            } else {
+                output.write("<?");
+                output.write(node.getNodeName());
+                final String data = node.getNodeValue();
+                if ((data != null) && !data.isEmpty()) {
+                    // Like the transformer, no separator if the data starts with a space.
+                    if (!Character.isSpaceChar(data.charAt(0))) {
+                        output.write(' ');
+                    }
+                    output.write(data);
+                }
+                output.write("?>");
+            }
+            return false;
+        default:
+            throw UNSUPPORTED;
+        }
+    }
+
+    private void writeElement(final Element element, final Output output, final Scope scope, final int depth, final boolean isIndented) throws IOException {
+        final int mark = scope.mark();
+        final String name = element.getNodeName();
+        if (output != null) {
+            output.write('<');
+            output.write(name);
+        }
+        if (isIndenting) {
+            writePrettyAttributes(element, output, scope);
+        } else {
+            writeAttributes(element, output, scope, depth == 0);
+        }
+        if (!element.hasChildNodes()) {
+            if (output != null) {
+                output.write("/>");
+            }
+            scope.reset(mark);
+            return;
+        }
+        if (isIndenting) {
+            writePrettyChildren(element, output, scope, depth + 1);
+        } else {
+            boolean hasContent = false;
+            for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (!hasContent && (output != null) && (!isText(child) || !child.getNodeValue().isEmpty())) {
+                    output.write('>');
+                    hasContent = true;
+                }
+                writeNode(child, output, scope, depth + 1, false);
+            }
+            if (output != null) {
+                output.write(hasContent ? "</" : "/>");
+                if (hasContent) {
+                    output.write(name);
+                    output.write('>');
+                }
+            }
+        }
+        scope.reset(mark);
+    }
+
+    /**
+     * Order of the identity transformation: Namespace declarations of the element, the attributes
+     * with declarations of their prefixes if needed, the declaration of the element prefix if
+     * needed. The transformer holds back the start tag of the root element until the first
+     * attribute, and writes the element prefix first if it learned about it by then.
+     */
+    private void writeAttributes(final Element element, final Output output, final Scope scope, final boolean isRoot) throws IOException {
+        final NamedNodeMap attributes = element.getAttributes();
+        final int length = attributes.getLength();
+        final String prefix = element.getPrefix();
+        if (isRoot) {
+            if ((prefix != null) && !prefix.isEmpty() && element.hasAttribute("xmlns:" + prefix)) {
+                declare(element.getAttributeNode("xmlns:" + prefix), output, scope);
+            } else if (isFirstAttributePrefix(attributes, prefix)) {
+                declareElementPrefix(element, output, scope);
+            }
+        }
+        for (int i = 0; i < length; ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (isNamespaceDeclaration(attribute)) {
+                declare(attribute, output, scope);
+            }
+        }
+        for (int i = 0; i < length; ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (!isNamespaceDeclaration(attribute)) {
+                declareAttributePrefix(attribute, output, scope);
+                writeAttribute(attribute.getNodeName(), attribute.getNodeValue(), output);
+            }
+        }
+        declareElementPrefix(element, output, scope);
+    }
+
+    /**
+     * @param prefix
+     *            may be null
+     * @return true if the first attribute which is not a namespace declaration uses the prefix or
+     *         if there is none.
+     */
+    private static boolean isFirstAttributePrefix(final NamedNodeMap attributes, final String prefix) {
+        for (int i = 0; i < attributes.getLength(); ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (!isNamespaceDeclaration(attribute)) {
+                return (prefix != null) && prefix.equals(attribute.getPrefix());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Order of xsl:copy: Declaration of the element prefix if needed, namespace declarations of
+     * the element changing the binding of a prefix, the other namespace declarations of the
+     * element, declarations of attribute prefixes if needed, the attributes.
+     */
+    private void writePrettyAttributes(final Element element, final Output output, final Scope scope) throws IOException {
+        if (element.hasAttributeNS(XMLConstants.XML_NS_URI, "space") || element.hasAttribute("xml:space")) {
+            // Whitespace would not be stripped.
+            throw UNSUPPORTED;
+        }
+        declareElementPrefix(element, output, scope);
+        final NamedNodeMap attributes = element.getAttributes();
+        final int length = attributes.getLength();
+        final int mark = scope.mark();
+        for (int i = 0; i < length; ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (isNamespaceDeclaration(attribute) && isRebinding(attribute, scope, mark)) {
+                declare(attribute, output, scope);
+            }
+        }
+        for (int i = 0; i < length; ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (isNamespaceDeclaration(attribute)) {
+                declare(attribute, output, scope);
+            }
+        }
+        for (int i = 0; i < length; ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (!isNamespaceDeclaration(attribute)) {
+                declareAttributePrefix(attribute, output, scope);
+            }
+        }
+        for (int i = 0; i < length; ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (!isNamespaceDeclaration(attribute)) {
+                writeAttribute(attribute.getNodeName(), attribute.getNodeValue(), output);
+            }
+        }
+    }
+
+    private static boolean isNamespaceDeclaration(final Attr attribute) {
+        final String name = attribute.getNodeName();
+        return XMLConstants.XMLNS_ATTRIBUTE.equals(name) || name.startsWith("xmlns:");
+    }
+
+    /**
+     * @param mark
+     *            the scope of the parent element ends here
+     * @return true if the declaration binds a prefix of the parent scope to a different URI.
+     */
+    private static boolean isRebinding(final Attr declaration, final Scope scope, final int mark) {
+        final String current = scope.lookUp(prefixOf(declaration), mark);
+        return (current != null) && !current.equals(declaration.getNodeValue());
+    }
+
+    private static String prefixOf(final Attr declaration) {
+        final String name = declaration.getNodeName();
+        return name.length() == 5 ? "" : name.substring(6);
+    }
+
+    private void declare(final Attr declaration, final Output output, final Scope scope) throws IOException {
+        final String name = declaration.getNodeName();
+        final String prefix = prefixOf(declaration);
+        final String uri = declaration.getNodeValue();
+        if (!prefix.isEmpty() && uri.isEmpty()) {
+            throw UNSUPPORTED;
+        }
+        if (scope.declare(prefix, uri) && (output != null)) {
+            writeAttribute(name, uri, output);
+        }
+    }
+
+    private void declareElementPrefix(final Element element, final Output output, final Scope scope) throws IOException {
+        final String localName = element.getLocalName();
+        if (localName == null) {
+            // Not namespace aware
+            if (element.getNodeName().indexOf(':') >= 0) {
+                throw UNSUPPORTED;
+            }
+            return;
+        }
+        final String prefix = element.getPrefix() == null ? "" : element.getPrefix();
+        final String uri = element.getNamespaceURI() == null ? "" : element.getNamespaceURI();
+        if (prefix.isEmpty() && uri.isEmpty()) {
+            if ((scope.lookUp("") != null) && !scope.lookUp("").isEmpty()) {
+                // The identity transformation and xsl:copy disagree on undeclaring the default namespace.
+                throw UNSUPPORTED;
+            }
+            return;
+        }
+        if ((uri.isEmpty()) || isDeclaredDifferently(element, prefix, uri)) {
+            throw UNSUPPORTED;
+        }
+        declare(element, prefix, uri, output, scope);
+    }
+
+    private void declareAttributePrefix(final Attr attribute, final Output output, final Scope scope) throws IOException {
+        final String localName = attribute.getLocalName();
+        if (localName == null) {
+            if (attribute.getNodeName().indexOf(':') >= 0) {
+                throw UNSUPPORTED;
+            }
+            return;
+        }
+        final String uri = attribute.getNamespaceURI();
+        if ((uri == null) || uri.isEmpty()) {
+            return;
+        }
+        final String prefix = attribute.getPrefix();
+        if ((prefix == null) || prefix.isEmpty()) {
+            // A prefix would be generated.
+            throw UNSUPPORTED;
+        }
+        if (XMLConstants.XML_NS_URI.equals(uri)) {
+            return;
+        }
+        if (isDeclaredDifferently(attribute.getOwnerElement(), prefix, uri)) {
+            throw UNSUPPORTED;
+        }
+        declare(attribute.getOwnerElement(), prefix, uri, output, scope);
+    }
+
+    private static Attr getDeclaration(final Element element, final String prefix) {
+        return prefix.isEmpty() ? element.getAttributeNode(XMLConstants.XMLNS_ATTRIBUTE) : element.getAttributeNode("xmlns:" + prefix);
+    }
+
+    private static boolean isDeclaredDifferently(final Element element, final String prefix, final String uri) {
+        final Attr declaration = getDeclaration(element, prefix);
+        return (declaration != null) && !uri.equals(declaration.getNodeValue());
+    }
+
+    private void declare(final Element element, final String prefix, final String uri, final Output output, final Scope scope) throws IOException {
+        final Attr declaration = getDeclaration(element, prefix);
+        if (declaration != null) {
+            // Declared by the element itself, so a binding of an ancestor does not matter.
+            declare(declaration, output, scope);
+            return;
+        }
+        final String current = scope.lookUp(prefix);
+        if ((current != null) && !current.equals(uri)) {
+            // Bound differently by an ancestor, the transformer would invent a prefix.
+            throw UNSUPPORTED;
+        }
+        if (scope.declare(prefix, uri) && (output != null)) {
+            writeAttribute(prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : "xmlns:" + prefix, uri, output);
+        }
+    }
+
+    private static boolean isText(final Node node) {
+        return (node.getNodeType() == Node.TEXT_NODE) || (node.getNodeType() == Node.CDATA_SECTION_NODE);
+    }
+
+    /**
+     * Children as seen by the pretty printing stylesheet: Adjacent text is merged, whitespace only
+     * text is stripped. Text is placed on its own line unless it is the only child.
+     */
+    private void writePrettyChildren(final Element element, final Output output, final Scope scope, final int depth) throws IOException {
+        final List<Object> children = new ArrayList<Object>();
+        StringBuilder text = null;
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (isText(child)) {
+                if (text == null) {
+                    text = new StringBuilder();
+                }
+                text.append(child.getNodeValue());
+                continue;
+            }
+            addText(children, text);
+            text = null;
+            children.add(child);
+        }
+        addText(children, text);
+        if (children.isEmpty()) {
+            if (output != null) {
+                output.write("/>");
+            }
+            return;
+        }
+        if (output != null) {
+            output.write('>');
+        }
+        final boolean isOnlyChild = children.size() == 1;
+        boolean endsWithText = false;
+        for (Object child : children) {
+            if (child instanceof String) {
+                if (isOnlyChild) {
+                    writeText((String) child, output, false);
+                } else {
+                    indent(output, depth);
+                    writeText((String) child, output, true);
+                }
+                endsWithText = true;
+                continue;
+            }
+            indent(output, depth);
+            writeNode((Node) child, output, scope, depth, true);
+            endsWithText = false;
+        }
+        if (!isOnlyChild || !endsWithText) {
+            indent(output, depth - 1);
+        }
+        if (output != null) {
+            output.write("</");
+            output.write(element.getNodeName());
+            output.write('>');
+        }
+    }
+
+    private static void addText(final List<Object> children, final StringBuilder text) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); ++i) {
+            final char c = text.charAt(i);
+            if ((c != ' ') && (c != '\t') && (c != '\n') && (c != '\r')) {
+                children.add(text.toString());
+                return;
+            }
+        }
+    }
+
+    private void indent(final Output output, final int depth) throws IOException {
+        if (output == null) {
+            return;
+        }
+        output.write(lineSeparator);
+        for (int i = 0; i < depth; ++i) {
+            output.write("  ");
+        }
+    }
+
+    private void writeText(final String text, final Output output, final boolean skipLeadingLineFeeds) throws IOException {
+        if (output == null) {
+            checkSurrogates(text);
+            return;
+        }
+        final int length = text.length();
+        int i = 0;
+        if (skipLeadingLineFeeds) {
+            while ((i < length) && (text.charAt(i) == '\n')) {
+                ++i;
+            }
+        }
+        for (; i < length; ++i) {
+            final char c = text.charAt(i);
+            switch (c) {
+            case '<':
+                output.write("&lt;");
+                break;
+            case '>':
+                output.write("&gt;");
+                break;
+            case '&':
+                output.write("&amp;");
+                break;
+            case '\n':
+                output.write(lineSeparator);
+                break;
+            case '\t':
+                output.write(c);
+                break;
+            default:
+                if ((c < 0x20) || ((c >= 0x7F) && (c <= 0x9F))) {
+                    output.writeCharacterReference(c);
+                } else if (Character.isHighSurrogate(c) && ((i + 1) < length) && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    output.writeCharacterReference(Character.toCodePoint(c, text.charAt(++i)));
+                } else {
+                    output.write(c);
+                }
+                break;
+            }
+        }
+    }
+
+    private void writeAttribute(final String name, final String value, final Output output) throws IOException {
+        if (output == null) {
+            checkSurrogates(value);
+            return;
+        }
+        output.write(' ');
+        output.write(name);
+        output.write("=\"");
+        final int length = value.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = value.charAt(i);
+            switch (c) {
+            case '<':
+                output.write("&lt;");
+                break;
+            case '>':
+                output.write("&gt;");
+                break;
+            case '&':
+                output.write("&amp;");
+                break;
+            case '"':
+                output.write("&quot;");
+                break;
+            default:
+                if (c < 0x20) {
+                    output.writeCharacterReference(c);
+                } else if (Character.isHighSurrogate(c) && ((i + 1) < length) && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    output.writeCharacterReference(Character.toCodePoint(c, value.charAt(++i)));
+                } else {
+                    output.write(c);
+                }
+                break;
+            }
+        }
+        output.write('"');
+    }
+
+    /**
+     * Follows the serializer of the JDK: the section is opened at the first character that can be
+     * written literally, control characters are written as character references outside of it and
+     * supplementary characters are written as they are, inside or outside.
+     */
+    private void writeCDATA(final String data, final Output output) throws IOException {
+        if (output == null) {
+            checkSurrogates(data);
+            return;
+        }
+        final int length = data.length();
+        boolean isOpen = false;
+        if ((length > 0) && isLiteralInCDATA(data.charAt(0))) {
+            output.write("<![CDATA[");
+            isOpen = true;
+        }
+        for (int i = 0; i < length; ++i) {
+            final char c = data.charAt(i);
+            if (c == '\n') {
+                output.write(lineSeparator);
+            } else if (Character.isHighSurrogate(c)) {
+                output.write(c);
+                output.write(data.charAt(++i));
+            } else if (!isLiteralInCDATA(c)) {
+                if (isOpen) {
+                    output.write("]]>");
+                    isOpen = false;
+                }
+                output.writeCharacterReference(c);
+            } else if ((c == ']') && ((i + 2) < length) && (data.charAt(i + 1) == ']') && (data.charAt(i + 2) == '>')) {
+                output.write("]]]]><![CDATA[>");
+                i += 2;
+            } else {
+                if (!isOpen) {
+                    output.write("<![CDATA[");
+                    isOpen = true;
+                }
+                output.write(c);
+            }
+        }
+        if (isOpen) {
+            output.write("]]>");
+        }
+    }
+
+    /**
+     * The transformer fails on unpaired high surrogates and writes references for unpaired low
+     * surrogates, neither is reproduced.
+     */
+    private static void checkSurrogates(final String s) throws IOException {
+        final int length = s.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = s.charAt(i);
+            if (Character.isHighSurrogate(c) && ((i + 1) < length) && Character.isLowSurrogate(s.charAt(i + 1))) {
+                ++i;
+            } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                throw UNSUPPORTED;
+            }
+        }
+    }
+
+    private static boolean isLiteralInCDATA(final char c) {
+        if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+            return false;
+        }
+        return (c >= 0x20) || (c == '\t') || (c == '\n') || (c == '\r');
+    }
+
+    private static void writeComment(final String comment, final Output output) throws IOException {
+        output.write("<!--");
+        final int length = comment.length();
+        for (int i = 0; i < length; ++i) {
+            final char c = comment.charAt(i);
+            output.write(c);
+            if ((c == '-') && (((i + 1) == length) || (comment.charAt(i + 1) == '-'))) {
+                output.write(' ');
+            }
+        }
+        output.write("-->");
+    }
+}
@@ -0,0 +1,435 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import java.io.Serializable;
+
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.events.Event;
+import org.w3c.dom.events.EventListener;
+import org.w3c.dom.events.EventTarget;
+import org.w3c.dom.events.MutationEvent;
+
+/**
+ * Information about a document that would be expensive to compute on each access. The index is
+ * attached to the document as user data. Mutation event listeners slow down every change of the
+ * document, so they are registered only when a feature needs to see changes made directly via the
+ * DOM API, see {@link #observe()}. Until then, the namespace mapping is computed on each access.
+ * <p>
+ * Currently the index holds the namespace prefix mapping of the document, which was a full tree
+ * scan on each XPath creation and on each write before. It also holds the lock shared by all
+ * projections of the document in the read/write lock mode, counts the modifications made by
+ * projections, see {@link #markModified()}, and logs the elements changed by the last mutations,
+ * see {@link #getChangedElements(long)}. On demand, it holds the elements of
+ * the document by name, see {@link #getElementsByName(String, String)}, and indexes built by
+ * callers, see {@link #getIndex(String, IndexBuilder)}.
+ * </p>
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class DocumentIndex implements EventListener, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Builds an index on demand, see {@link DocumentIndex#getIndex(String, IndexBuilder)}.
+     *
+     * @param <T>
+     *            type of the index
+     */
+    public interface IndexBuilder<T> {
+        /**
+         * @param document
+         * @return the index. It must not be modified afterwards.
+         */
+        T build(Document document);
+    }
+
+    private static final String USER_DATA_KEY = DocumentIndex.class.getName();
+
+    /**
+     * Number of mutations remembered by {@link #getChangedElements(long)}.
+     */
+    private static final int CHANGE_LOG_SIZE = 64;
+
+    private final Document document;
+    private final boolean isObservable;
+    private volatile boolean isObserving;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong modificationCount = new AtomicLong();
+    private transient volatile Map<String, String> namespaceMapping;
+    private transient volatile Map<String, List<Node>> elementsByName;
+    private transient volatile Map<String, Object> indexes;
+    private transient Node[] changeLog;
+    private transient long mutationCount;
+
+    private DocumentIndex(final Document document) {
+        this.document = document;
+        this.isObservable = (document instanceof EventTarget) && document.getImplementation().hasFeature("MutationEvents", "2.0");
+    }
+
+    /**
+     * Follow all changes of the document by DOM mutation events from now on. Called by features
+     * that must see changes made directly via the DOM API.
+     *
+     * @return false if the document does not support mutation events.
+     */
+    public boolean observe() {
+        if (isObserving) {
+            return true;
+        }
+        if (!isObservable) {
+            return false;
+        }
+        synchronized (this) {
+            if (!isObserving) {
+                final EventTarget eventTarget = (EventTarget) document;
+                eventTarget.addEventListener("DOMNodeInserted", this, false);
+                eventTarget.addEventListener("DOMNodeRemoved", this, false);
+                eventTarget.addEventListener("DOMAttrModified", this, false);
+                eventTarget.addEventListener("DOMCharacterDataModified", this, false);
+                // Direct changes made before were not seen.
+                namespaceMapping = null;
+                isObserving = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the index of a document. The index is created on first access.
+     *
+     * @param document
+     * @return index attached to the document
+     */
+    public static DocumentIndex forDocument(final Document document) {
+        synchronized (document) {
+            final Object userData = document.getUserData(USER_DATA_KEY);
+            if (userData instanceof DocumentIndex) {
+                return (DocumentIndex) userData;
+            }
+            final DocumentIndex index = new DocumentIndex(document);
+            // No UserDataHandler, because the index must not follow cloned or imported nodes.
+            document.setUserData(USER_DATA_KEY, index, null);
+            return index;
+        }
+    }
+
+    /**
+     * Shortcut for forDocument(document).getNamespaceMapping().
+     *
+     * @param document
+     * @return see {@link #getNamespaceMapping()}
+     */
+    public static Map<String, String> getNamespaceMapping(final Document document) {
+        return forDocument(document).getNamespaceMapping();
+    }
+
+    /**
+     * Same result as {@link DOMHelper#getNamespaceMapping(Document)}, but the document is scanned
+     * only once if the document is observed. Otherwise the document is scanned on each call,
+     * because declarations added via the DOM API would not be seen.
+     *
+     * @return unmodifiable mapping of prefixes declared in the document to namespace URIs.
+     */
+    public Map<String, String> getNamespaceMapping() {
+        if (!isObserving) {
+            return DOMHelper.getNamespaceMapping(document);
+        }
+        Map<String, String> mapping = namespaceMapping;
+        if (mapping == null) {
+            synchronized (this) {
+                if (namespaceMapping == null) {
+                    namespaceMapping = Collections.unmodifiableMap(DOMHelper.getNamespaceMapping(document));
+                }
+                mapping = namespaceMapping;
+            }
+        }
+        return mapping;
+    }
+
+    /**
+     * Elements of the document with the given name, like getElementsByTagNameNS(), but the
+     * document is scanned only once for all names. The scan is repeated after elements were
+     * inserted or removed. Document.renameNode() renames elements without mutation event, so use
+     * {@link DOMHelper#renameNode(Node, String)} on indexed documents. Starts observing the
+     * document.
+     *
+     * @param namespaceURI
+     *            null or empty for elements without namespace
+     * @param localName
+     * @return unmodifiable list of the elements in document order, or null if the document does
+     *         not support mutation events and so can not be indexed.
+     */
+    public List<Node> getElementsByName(final String namespaceURI, final String localName) {
+        if (!observe()) {
+            return null;
+        }
+        Map<String, List<Node>> index = elementsByName;
+        if (index == null) {
+            synchronized (this) {
+                if (elementsByName == null) {
+                    elementsByName = indexElements(document);
+                }
+                index = elementsByName;
+            }
+        }
+        final List<Node> elements = index.get(toKey(namespaceURI, localName));
+        return elements == null ? Collections.<Node> emptyList() : elements;
+    }
+
+    /**
+     * Get an index built by the caller. The index is built on first access and dropped by any
+     * change of the document, including changed attribute values and text. Starts observing the
+     * document.
+     *
+     * @param id
+     *            identifies the index, equal ids must stand for equal indexes
+     * @param builder
+     *            builds the index if there is none with this id
+     * @return the index, or null if the document does not support mutation events and so can
+     *         not be indexed.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIndex(final String id, final IndexBuilder<T> builder) {
+        if (!observe()) {
+            return null;
+        }
+        final Map<String, Object> current = indexes;
+        final Object index = current == null ? null : current.get(id);
+        if (index != null) {
+            return (T) index;
+        }
+        synchronized (this) {
+            if (indexes == null) {
+                indexes = new ConcurrentHashMap<String, Object>();
+            }
+            final Map<String, Object> map = indexes;
+            T built = (T) map.get(id);
+            if (built == null) {
+                built = builder.build(document);
+                map.put(id, built);
+            }
+            return built;
+        }
+    }
+
+    private static Map<String, List<Node>> indexElements(final Document document) {
+        final Map<String, List<Node>> index = new HashMap<String, List<Node>>();
+        Node node = document.getDocumentElement();
+        while (node != null) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                final String localName = node.getLocalName();
+                final String key = localName == null ? node.getNodeName() : toKey(node.getNamespaceURI(), localName);
+                List<Node> elements = index.get(key);
+                if (elements == null) {
+                    elements = new ArrayList<Node>();
+                    index.put(key, elements);
+                }
+                elements.add(node);
+            }
+            node = nextInDocumentOrder(node, document);
+        }
+        for (Map.Entry<String, List<Node>> entry : index.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return index;
+    }
+
+    private static Node nextInDocumentOrder(final Node node, final Node root) {
+        if (node.getFirstChild() != null) {
+            return node.getFirstChild();
+        }
+        for (Node n = node; (n != null) && (n != root); n = n.getParentNode()) {
+            if (n.getNextSibling() != null) {
+                return n.getNextSibling();
+            }
+        }
+        return null;
+    }
+
+    private static String toKey(final String namespaceURI, final String localName) {
+        return (namespaceURI == null) || namespaceURI.isEmpty() ? localName : "{" + namespaceURI + "}" + localName;
+    }
+
+    /**
+     * Count a modification of the document. Called by projection methods that may have changed
+     * the document, so bound lists, maps and values of this document know they must evaluate
+     * their path again. Changes of other documents do not affect them.
+     */
+    public void markModified() {
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * @return number of calls to {@link #markModified()}
+     */
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
+    /**
+     * @return number of mutations of the document since {@link #observe()}, or -1 if the document
+     *         is not observed.
+     */
+    public synchronized long getMutationCount() {
+        return isObserving ? mutationCount : -1;
+    }
+
+    /**
+     * Elements changed since a given mutation count. A change of an element is a change of its
+     * children, attributes or text. Only the last mutations are remembered.
+     *
+     * @param since
+     *            value of {@link #getMutationCount()} before the changes
+     * @return changed elements, or the document if the root element changed. Null if the changes
+     *         are not known, because the document is not observed or there were too many
+     *         mutations since.
+     */
+    public synchronized List<Node> getChangedElements(final long since) {
+        if (!isObserving || (since < 0) || (since > mutationCount) || ((mutationCount - since) > CHANGE_LOG_SIZE)) {
+            return null;
+        }
+        final List<Node> changed = new ArrayList<Node>((int) (mutationCount - since));
+        for (long i = since; i < mutationCount; ++i) {
+            changed.add(changeLog[(int) (i % CHANGE_LOG_SIZE)]);
+        }
+        return changed;
+    }
+
+    private synchronized void logChange(final Node changed) {
+        if (changeLog == null) {
+            changeLog = new Node[CHANGE_LOG_SIZE];
+        }
+        changeLog[(int) (mutationCount % CHANGE_LOG_SIZE)] = changed;
+        ++mutationCount;
+    }
+
+    private Node getChangedElement(final String type, final Event event) {
+        Node changed;
+        if ("DOMAttrModified".equals(type)) {
+            changed = (Node) event.getTarget();
+        } else if ("DOMCharacterDataModified".equals(type)) {
+            changed = ((Node) event.getTarget()).getParentNode();
+        } else {
+            // Parent of the inserted or removed node
+            changed = ((MutationEvent) event).getRelatedNode();
+        }
+        if ((changed != null) && (changed.getNodeType() == Node.ATTRIBUTE_NODE)) {
+            changed = ((Attr) changed).getOwnerElement();
+        }
+        return changed == null ? document : changed;
+    }
+
+    /**
+     * @return lock guarding the document, see
+     *         {@link org.xmlbeam.XBProjector.Flags#READ_WRITE_LOCK_ON_DOCUMENTS}.
+     */
+    public ReadWriteLock getReadWriteLock() {
+        return lock;
+    }
+
+    /**
+     * Keeps the index up to date.
+     *
+     * @param event
+     *            DOM mutation event
+     */
+    @Override
+    public void handleEvent(final Event event) {
+        final String type = event.getType();
+        final Node target = (Node) event.getTarget();
+        indexes = null;
+        logChange(getChangedElement(type, event));
+        if ((elementsByName != null) && (target.getNodeType() == Node.ELEMENT_NODE) && !"DOMAttrModified".equals(type)) {
+            elementsByName = null;
+        }
+        if (namespaceMapping == null) {
+            // Nothing indexed yet.
+            return;
+        }
+        if ("DOMNodeInserted".equals(type)) {
+            if (target.getNodeType() == Node.ELEMENT_NODE) {
+                addNamespaceDeclarations((Element) target);
+            }
+            return;
+        }
+        if ("DOMNodeRemoved".equals(type)) {
+            if ((target.getNodeType() == Node.ELEMENT_NODE) && (target.getParentNode() == document)) {
+                // Root element replaced. Declarations of the old root must not survive.
+                invalidate();
+            }
+            return;
+        }
+        if ("DOMAttrModified".equals(type) && isNamespaceDeclaration(((MutationEvent) event).getRelatedNode())) {
+            if (((MutationEvent) event).getAttrChange() == MutationEvent.REMOVAL) {
+                invalidate();
+                return;
+            }
+            addNamespaceDeclaration((Attr) ((MutationEvent) event).getRelatedNode());
+        }
+    }
+
+    private synchronized void invalidate() {
+        namespaceMapping = null;
+    }
+
+    private synchronized void addNamespaceDeclarations(final Element element) {
+        if (namespaceMapping == null) {
+            return;
+        }
+        final Map<String, String> declared = new HashMap<String, String>();
+        DOMHelper.fillNSMapWithPrefixesDeclaredInElement(declared, element);
+        if (declared.isEmpty()) {
+            return;
+        }
+        final Map<String, String> mapping = new HashMap<String, String>(namespaceMapping);
+        mapping.putAll(declared);
+        namespaceMapping = Collections.unmodifiableMap(mapping);
+    }
+
+    private synchronized void addNamespaceDeclaration(final Attr attribute) {
+        if (namespaceMapping == null) {
+            return;
+        }
+        final String prefix = XMLConstants.XMLNS_ATTRIBUTE.equals(attribute.getLocalName()) ? "xbdefaultns" : attribute.getLocalName();
+        final Map<String, String> mapping = new HashMap<String, String>(namespaceMapping);
+        mapping.put(prefix, attribute.getNodeValue());
+        namespaceMapping = Collections.unmodifiableMap(mapping);
+    }
+
+    private static boolean isNamespaceDeclaration(final Node node) {
+        if (!(node instanceof Attr)) {
+            return false;
+        }
+        return XMLConstants.XMLNS_ATTRIBUTE.equals(node.getPrefix()) || XMLConstants.XMLNS_ATTRIBUTE.equals(node.getLocalName());
+    }
+}
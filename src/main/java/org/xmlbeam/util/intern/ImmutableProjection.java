@@ -0,0 +1,173 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Implements a projection interface by values read before. Values are looked up by the name of
+ * the (parameterless) method. Lists must be unmodifiable, arrays are copied on each call, lists
+ * are converted to streams for methods returning java.util.stream.Stream. A value created by
+ * {@link #failure(Throwable)} is thrown on each call. Other methods throw an
+ * UnsupportedOperationException, except default methods of the projection interface. Instances
+ * are thread safe, serializable and implement equals() and hashCode() by value.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class ImmutableProjection implements InvocationHandler, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Exception thrown by a method while the values were read. It is thrown again on each
+     * invocation.
+     */
+    private static final class Failure implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final Throwable throwable;
+
+        Failure(final Throwable throwable) {
+            this.throwable = throwable;
+        }
+
+        @Override
+        public int hashCode() {
+            return throwable.getClass().hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return (obj instanceof Failure) && throwable.getClass().equals(((Failure) obj).throwable.getClass());
+        }
+
+        @Override
+        public String toString() {
+            return throwable.toString();
+        }
+    }
+
+    private final Class<?> projectionInterface;
+    private final String[] names;
+    private final Object[] values;
+
+    private ImmutableProjection(final Class<?> projectionInterface, final String[] names, final Object[] values) {
+        this.projectionInterface = projectionInterface;
+        this.names = names;
+        this.values = values;
+    }
+
+    /**
+     * @param projectionInterface
+     * @param valuesByMethodName
+     * @return a new proxy implementing the projection interface
+     */
+    public static Object newInstance(final Class<?> projectionInterface, final Map<String, Object> valuesByMethodName) {
+        final Map<String, Object> sorted = new TreeMap<String, Object>(valuesByMethodName);
+        final String[] names = new String[sorted.size()];
+        final Object[] values = new Object[sorted.size()];
+        int i = 0;
+        for (Entry<String, Object> entry : sorted.entrySet()) {
+            names[i] = entry.getKey();
+            values[i] = entry.getValue();
+            ++i;
+        }
+        return Proxy.newProxyInstance(projectionInterface.getClassLoader(), new Class<?>[] { projectionInterface, Serializable.class }, new ImmutableProjection(projectionInterface, names, values));
+    }
+
+    /**
+     * @param throwable
+     * @return a value that throws the given throwable when the method is called.
+     */
+    public static Object failure(final Throwable throwable) {
+        return new Failure(throwable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        if (ReflectionHelper.hasParameters(method)) {
+            if ("equals".equals(method.getName()) && (method.getParameterTypes().length == 1) && Object.class.equals(method.getParameterTypes()[0])) {
+                return isEqualProjection(args[0]);
+            }
+        } else {
+            if ("hashCode".equals(method.getName())) {
+                return (31 * projectionInterface.hashCode()) + Arrays.deepHashCode(values);
+            }
+            if ("toString".equals(method.getName())) {
+                return render();
+            }
+            final int index = Arrays.binarySearch(names, method.getName());
+            if (index >= 0) {
+                return thaw(method, values[index]);
+            }
+        }
+        if (ReflectionHelper.isDefaultMethod(method)) {
+            return ReflectionHelper.invokeDefaultMethod(method, args, proxy);
+        }
+        throw new UnsupportedOperationException("Method " + method + " is not available. Immutable projections provide reading methods without parameters only.");
+    }
+
+    private static Object thaw(final Method method, final Object value) throws Throwable {
+        if (value instanceof Failure) {
+            throw ((Failure) value).throwable;
+        }
+        if (value instanceof Object[]) {
+            return ((Object[]) value).clone();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (ReflectionHelper.isStreamClass(method.getReturnType())) {
+            return ReflectionHelper.toStream((List<?>) value);
+        }
+        return value;
+    }
+
+    private boolean isEqualProjection(final Object other) {
+        if ((other == null) || (!Proxy.isProxyClass(other.getClass()))) {
+            return false;
+        }
+        final InvocationHandler handler = Proxy.getInvocationHandler(other);
+        if (!(handler instanceof ImmutableProjection)) {
+            return false;
+        }
+        final ImmutableProjection projection = (ImmutableProjection) handler;
+        return projectionInterface.equals(projection.projectionInterface) && Arrays.equals(names, projection.names) && Arrays.deepEquals(values, projection.values);
+    }
+
+    private String render() {
+        final StringBuilder builder = new StringBuilder(projectionInterface.getSimpleName()).append('{');
+        for (int i = 0; i < names.length; ++i) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(names[i]).append('=').append(values[i] instanceof Object[] ? Arrays.deepToString((Object[]) values[i]) : values[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -17,6 +17,7 @@ package org.xmlbeam.util.intern;
 
 import java.lang.reflect.Method;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.xml.namespace.QName;
 import javax.xml.xpath.XPathVariableResolver;
@@ -25,15 +26,20 @@ import org.xmlbeam.types.StringRenderer;
 import org.xmlbeam.util.intern.duplex.DuplexExpression;
 
 /**
- *
+ * Resolves XPath variables to projection method parameters. The parameters bound to the current
+ * thread by {@link #bindArgs(Object[])} take precedence, so one resolver (and the expression
+ * compiled with it) may be used by concurrent invocations with different parameters. Evaluations
+ * outside of an invocation, e.g. by an AutoList, see the parameters of the latest invocation.
  */
 public class MethodParamVariableResolver implements XPathVariableResolver {
 
     private final XPathVariableResolver originalResolver;
-    private Object[] args;
+    private volatile Object[] args;
+    private final ThreadLocal<Object[]> boundArgs = new ThreadLocal<Object[]>();
     private final Method method;
     private final DuplexExpression expression;
     private final StringRenderer stringRenderer;
+    private final Map<String, Integer> methodParameterIndexes;
 
     /**
      * @param method
@@ -48,13 +54,18 @@ public class MethodParamVariableResolver implements XPathVariableResolver {
         this.originalResolver = originalResolver;
         this.expression = expression;
         this.stringRenderer = stringRenderer;
+        this.methodParameterIndexes = ReflectionHelper.getMethodParameterIndexes(method);
     }
 
     @Override
     public Object resolveVariable(final QName variableName) {
         if ((variableName != null) && (variableName.getLocalPart() != null)) {
             final String uppercaseName = variableName.getLocalPart().toUpperCase(Locale.ENGLISH);
-            Integer index = ReflectionHelper.getMethodParameterIndexes(method).get(uppercaseName);
+            Object[] args = boundArgs.get();
+            if (args == null) {
+                args = this.args;
+            }
+            Integer index = methodParameterIndexes.get(uppercaseName);
             if (index != null) {
                 return stringRenderer.render(args[index].getClass(), args[index], expression.getVariableFormatPattern(variableName.getLocalPart()));
             }
@@ -75,4 +86,31 @@ public class MethodParamVariableResolver implements XPathVariableResolver {
     public void updateArgs(final Object[] args) {
         this.args = args;
     }
+
+    /**
+     * Bind parameters of an invocation to the current thread.
+     *
+     * @param args
+     * @return previously bound parameters, to be passed to {@link #restoreArgs(Object[])}
+     */
+    public Object[] bindArgs(final Object[] args) {
+        this.args = args;
+        final Object[] previous = boundArgs.get();
+        boundArgs.set(args);
+        return previous;
+    }
+
+    /**
+     * Undo {@link #bindArgs(Object[])} when the invocation is finished.
+     *
+     * @param previous
+     *            parameters returned by bindArgs
+     */
+    public void restoreArgs(final Object[] previous) {
+        if (previous == null) {
+            boundArgs.remove();
+            return;
+        }
+        boundArgs.set(previous);
+    }
 }
@@ -99,6 +99,77 @@ public class Preprocessor {
         return applied.toString();
     }
 
+    /**
+     * Replace placeholders standing for a whole string literal (like <code>[@id='{0}']</code>) by
+     * XPath variables. The resulting expression does not change with the parameter values, so it
+     * needs to be compiled only once. Only String parameters are bound, because other types might
+     * be rendered differently by the StringRenderer. Placeholders in other positions may change the
+     * structure of the expression and are left for {@link #applyParams(String, Map, Object[])}.
+     *
+     * @param string
+     * @param paramNameIndexMap
+     * @param parameterTypes
+     * @return the string with value placeholders replaced by variables $PARAM0, $PARAM1, ...
+     */
+    public static String bindValueParams(final String string, final Map<String, Integer> paramNameIndexMap, final Class<?>[] parameterTypes) {
+        if ((string == null) || (string.indexOf('{') < 0)) {
+            return string;
+        }
+        final StringBuilder bound = new StringBuilder(string.length());
+        int i = 0;
+        while (i < string.length()) {
+            final char c = string.charAt(i);
+            if ((c == '(') && (i < (string.length() - 1)) && (string.charAt(i + 1) == ':')) {
+                // Comments contain format patterns, keep them as they are.
+                final int end = string.indexOf(":)", i + 2);
+                final int next = end < 0 ? string.length() : end + 2;
+                bound.append(string, i, next);
+                i = next;
+                continue;
+            }
+            if ((c != '\'') && (c != '"')) {
+                bound.append(c);
+                ++i;
+                continue;
+            }
+            final int end = string.indexOf(c, i + 1);
+            if (end < 0) {
+                bound.append(string, i, string.length());
+                break;
+            }
+            final int index = findValueParameter(string.substring(i + 1, end), paramNameIndexMap, parameterTypes);
+            if (index < 0) {
+                bound.append(string, i, end + 1);
+            } else {
+                bound.append("$PARAM").append(index);
+            }
+            i = end + 1;
+        }
+        return bound.toString();
+    }
+
+    private static int findValueParameter(final String literal, final Map<String, Integer> paramNameIndexMap, final Class<?>[] parameterTypes) {
+        if ((literal.length() < 3) || (literal.charAt(0) != '{') || (literal.charAt(literal.length() - 1) != '}')) {
+            return -1;
+        }
+        final String paramName = literal.substring(1, literal.length() - 1);
+        if ((paramName.indexOf('{') >= 0) || (paramName.indexOf('}') >= 0)) {
+            return -1;
+        }
+        int index = -1;
+        if (paramNameIndexMap != null) {
+            final Integer namedIndex = paramNameIndexMap.get(paramName.toUpperCase(Locale.ENGLISH));
+            index = namedIndex == null ? -1 : namedIndex.intValue();
+        }
+        if (index < 0) {
+            index = getParameterIndex(paramName);
+        }
+        if ((index < 0) || (index >= parameterTypes.length) || (!String.class.equals(parameterTypes[index]))) {
+            return -1;
+        }
+        return index;
+    }
+
     private static String resolveParameter(final String paramName, final Map<String, Integer> paramNameIndexMap, final Object[] args) {
         if (paramNameIndexMap != null) {
             Integer index = paramNameIndexMap.get(paramName.toUpperCase(Locale.ENGLISH));
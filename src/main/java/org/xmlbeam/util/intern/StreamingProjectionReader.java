@@ -0,0 +1,448 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBAuto;
+import org.xmlbeam.annotation.XBDocURL;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.config.XMLFactoriesConfig;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.types.TypeConverter;
+import org.xmlbeam.util.intern.duplex.DuplexExpression;
+import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
+import org.xmlbeam.util.intern.duplex.StreamingPath;
+
+/**
+ * Reads all reading methods of a projection interface in one pass over a StAX stream, without
+ * building a DOM. Eligible are methods without parameters whose XPath is a forward only location
+ * path (child steps with optional position predicates and an optional final attribute step) and
+ * whose return type is convertible by the type converter, or a List, Stream, array or Optional of
+ * such a type. The values are returned as {@link ImmutableProjection}. Memory usage depends on the
+ * selected values only, not on the document size.
+ * <p>
+ * The reader reads either a whole document or a single element (a "record"). Paths of records are
+ * relative to the record element.
+ * </p>
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class StreamingProjectionReader {
+
+    private static final int SINGLE = 0;
+    private static final int OPTIONAL = 1;
+    private static final int LIST = 2;
+    private static final int ARRAY = 3;
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    /**
+     * A method to be filled by streaming.
+     */
+    private static final class Target {
+        private final Method method;
+        private final String xpath;
+        private final StreamingPath path;
+        private final Class<?> type;
+        private final int kind;
+        private final String formatPattern;
+
+        Target(final Method method, final String xpath, final StreamingPath path, final Class<?> type, final int kind, final String formatPattern) {
+            this.method = method;
+            this.xpath = xpath;
+            this.path = path;
+            this.type = type;
+            this.kind = kind;
+            this.formatPattern = formatPattern;
+        }
+    }
+
+    /**
+     * Matching state of one target while reading.
+     */
+    private static final class Match {
+        private final Target target;
+        private final int[] counters;
+        private final List<String> values = new ArrayList<String>(1);
+        private int matched;
+        private boolean done;
+        private StringBuilder capture;
+        private int captureDepth;
+
+        Match(final Target target) {
+            this.target = target;
+            this.counters = new int[target.path.getElementStepCount() + 1];
+        }
+
+        void emit(final String value) {
+            values.add(value);
+            done = (target.kind == SINGLE) || (target.kind == OPTIONAL);
+        }
+    }
+
+    private final Class<?> projectionInterface;
+    private final TypeConverter typeConverter;
+    private final boolean absentIsEmpty;
+    private final boolean isRecord;
+    private final Target[] targets;
+    private final Map<Method, String> ineligibleMethods;
+
+    private StreamingProjectionReader(final Class<?> projectionInterface, final TypeConverter typeConverter, final boolean absentIsEmpty, final boolean isRecord, final Target[] targets, final Map<Method, String> ineligibleMethods) {
+        this.projectionInterface = projectionInterface;
+        this.typeConverter = typeConverter;
+        this.absentIsEmpty = absentIsEmpty;
+        this.isRecord = isRecord;
+        this.targets = targets;
+        this.ineligibleMethods = ineligibleMethods;
+    }
+
+    /**
+     * Analyze the reading methods of a projection interface.
+     *
+     * @param projector
+     * @param projectionInterface
+     * @param isRecord
+     *            true if elements are read instead of documents
+     * @return a reader for the interface. Check {@link #getIneligibleMethods()} before reading.
+     */
+    public static StreamingProjectionReader compile(final XBProjector projector, final Class<?> projectionInterface, final boolean isRecord) {
+        final TypeConverter typeConverter = projector.config().getTypeConverter();
+        final Map<String, String> namespaceMapping = projector.config().as(XMLFactoriesConfig.class).getUserDefinedNamespaceMapping();
+        final NamespaceContext namespaceContext = createNamespaceContext(namespaceMapping);
+        final List<Target> targets = new ArrayList<Target>();
+        final Map<Method, String> ineligibleMethods = new LinkedHashMap<Method, String>();
+        for (Method method : projectionInterface.getMethods()) {
+            final XBRead annotation = method.getAnnotation(XBRead.class);
+            if (annotation == null) {
+                continue;
+            }
+            try {
+                targets.add(compileTarget(projector, method, annotation, typeConverter, namespaceMapping, namespaceContext, isRecord));
+            } catch (IllegalArgumentException e) {
+                ineligibleMethods.put(method, e.getMessage());
+            }
+        }
+        return new StreamingProjectionReader(projectionInterface, typeConverter, projector.getFlags().contains(XBProjector.Flags.ABSENT_IS_EMPTY), isRecord, targets.toArray(new Target[targets.size()]), Collections.unmodifiableMap(ineligibleMethods));
+    }
+
+    private static Target compileTarget(final XBProjector projector, final Method method, final XBRead annotation, final TypeConverter typeConverter, final Map<String, String> namespaceMapping, final NamespaceContext namespaceContext, final boolean isRecord) {
+        if (ReflectionHelper.hasParameters(method)) {
+            throw new IllegalArgumentException("it has parameters");
+        }
+        if (method.getAnnotation(XBDocURL.class) != null) {
+            throw new IllegalArgumentException("it reads an external document");
+        }
+        if (method.getAnnotation(XBAuto.class) != null) {
+            throw new IllegalArgumentException("it returns a value bound to the DOM");
+        }
+        if (method.getExceptionTypes().length > 0) {
+            throw new IllegalArgumentException("it declares an exception for absent values");
+        }
+        final Type genericReturnType = method.getGenericReturnType();
+        final Class<?> returnType = method.getReturnType();
+        int kind = SINGLE;
+        Class<?> type = returnType;
+        if (returnType.isArray()) {
+            kind = ARRAY;
+            type = returnType.getComponentType();
+        } else if (List.class.equals(returnType) || ReflectionHelper.isStreamClass(returnType)) {
+            kind = LIST;
+            type = getTypeArgument(genericReturnType);
+        } else if (ReflectionHelper.isOptional(genericReturnType)) {
+            kind = OPTIONAL;
+            type = getTypeArgument(genericReturnType);
+        }
+        if ((type == null) || ((kind == ARRAY) && type.isPrimitive()) || !typeConverter.isConvertable(type)) {
+            throw new IllegalArgumentException("its return type " + genericReturnType + " needs the DOM");
+        }
+        final String xpath = Preprocessor.applyParams(projector.config().getExternalizer().resolveXPath(annotation.value(), method, null), ReflectionHelper.getMethodParameterIndexes(method), null);
+        final DuplexExpression expression;
+        try {
+            expression = new DuplexXPathParser(namespaceMapping).compile(xpath);
+        } catch (XBException e) {
+            throw new IllegalArgumentException("its XPath can not be parsed");
+        }
+        final StreamingPath path = StreamingPath.compile(expression, namespaceContext);
+        if (isRecord && path.isAbsolute()) {
+            throw new IllegalArgumentException("it is an absolute path, but records are read relative to the record element");
+        }
+        if ((!isRecord) && (path.getElementStepCount() == 0) && !path.selectsAttribute()) {
+            throw new IllegalArgumentException("it selects the document node");
+        }
+        return new Target(method, xpath, path, type, kind, expression.getExpressionFormatPattern());
+    }
+
+    private static Class<?> getTypeArgument(final Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return null;
+        }
+        final Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+        return argument instanceof Class ? (Class<?>) argument : null;
+    }
+
+    /**
+     * @return methods annotated with {@link XBRead} that can not be read by streaming, with the
+     *         reason. Such methods would throw an UnsupportedOperationException on the projections
+     *         returned by this reader.
+     */
+    public Map<Method, String> getIneligibleMethods() {
+        return ineligibleMethods;
+    }
+
+    /**
+     * @param is
+     * @param systemID
+     *            may be null
+     * @return a new StAX reader for the stream. External entities are not resolved.
+     * @throws XMLStreamException
+     */
+    public static XMLStreamReader createXMLStreamReader(final InputStream is, final String systemID) throws XMLStreamException {
+        return systemID == null ? INPUT_FACTORY.createXMLStreamReader(is) : INPUT_FACTORY.createXMLStreamReader(systemID, is);
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setXMLResolver(new XMLResolver() {
+            @Override
+            public Object resolveEntity(final String publicID, final String systemID, final String baseURI, final String namespace) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+        });
+        return factory;
+    }
+
+    /**
+     * @param namespaceMapping
+     *            user defined prefix mapping
+     * @return context resolving the prefixes of the mapping
+     */
+    static NamespaceContext createNamespaceContext(final Map<String, String> namespaceMapping) {
+        return new NamespaceContext() {
+            @Override
+            public String getNamespaceURI(final String prefix) {
+                final String uri = namespaceMapping.get(prefix);
+                return uri == null ? XMLConstants.NULL_NS_URI : uri;
+            }
+
+            @Override
+            public String getPrefix(final String namespaceURI) {
+                for (Map.Entry<String, String> entry : namespaceMapping.entrySet()) {
+                    if (entry.getValue().equals(namespaceURI)) {
+                        return entry.getKey();
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public Iterator<String> getPrefixes(final String namespaceURI) {
+                final List<String> prefixes = new ArrayList<String>();
+                for (Map.Entry<String, String> entry : namespaceMapping.entrySet()) {
+                    if (entry.getValue().equals(namespaceURI)) {
+                        prefixes.add(entry.getKey());
+                    }
+                }
+                return prefixes.iterator();
+            }
+        };
+    }
+
+    /**
+     * Read the values of all eligible methods. If the reader is positioned at the start of a
+     * document, the whole document is read. Reading stops as soon as all values are found, so the
+     * rest of the document may be left unread. If the reader is positioned on a start element,
+     * this element is read and the reader is left on its end element.
+     *
+     * @param reader
+     * @return a new immutable projection
+     * @throws XMLStreamException
+     */
+    public Object read(final XMLStreamReader reader) throws XMLStreamException {
+        final Match[] matches = new Match[targets.length];
+        for (int i = 0; i < targets.length; ++i) {
+            matches[i] = new Match(targets[i]);
+        }
+        if (isRecord) {
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                throw new IllegalStateException("Reader is not positioned on a start element.");
+            }
+            startElement(matches, reader, 0);
+        }
+        int depth = 0;
+        int remaining = countRemaining(matches);
+        while ((isRecord || (remaining > 0)) && reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                startElement(matches, reader, ++depth);
+                remaining = countRemaining(matches);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                endElement(matches, depth);
+                remaining = countRemaining(matches);
+                if (isRecord && (depth == 0)) {
+                    return createProjection(matches);
+                }
+                --depth;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                appendText(matches, reader);
+                break;
+            default:
+                break;
+            }
+        }
+        return createProjection(matches);
+    }
+
+    private static int countRemaining(final Match[] matches) {
+        int remaining = 0;
+        for (Match match : matches) {
+            if (!match.done) {
+                ++remaining;
+            }
+        }
+        return remaining;
+    }
+
+    private static void startElement(final Match[] matches, final XMLStreamReader reader, final int depth) {
+        for (Match match : matches) {
+            if (match.done) {
+                continue;
+            }
+            final StreamingPath path = match.target.path;
+            final int steps = path.getElementStepCount();
+            if (depth > 0) {
+                if ((match.matched != (depth - 1)) || (depth > steps)) {
+                    continue;
+                }
+                final int step = depth - 1;
+                if (!path.matchesElement(step, reader.getNamespaceURI(), reader.getLocalName())) {
+                    continue;
+                }
+                final int position = path.getPosition(step);
+                ++match.counters[step];
+                if ((position != 0) && (match.counters[step] != position)) {
+                    continue;
+                }
+                match.matched = depth;
+                match.counters[depth] = 0;
+            }
+            if (depth != steps) {
+                continue;
+            }
+            if (path.selectsAttribute()) {
+                for (int i = 0; (i < reader.getAttributeCount()) && !match.done; ++i) {
+                    if (path.matchesAttribute(reader.getAttributeNamespace(i), reader.getAttributeLocalName(i))) {
+                        match.emit(reader.getAttributeValue(i));
+                    }
+                }
+            } else {
+                match.capture = new StringBuilder();
+                match.captureDepth = depth;
+            }
+        }
+    }
+
+    private static void endElement(final Match[] matches, final int depth) {
+        for (Match match : matches) {
+            if ((match.capture != null) && (match.captureDepth == depth)) {
+                final String value = match.capture.toString();
+                match.capture = null;
+                match.emit(value);
+            }
+            if (match.matched == depth) {
+                match.matched = depth - 1;
+            }
+        }
+    }
+
+    private static void appendText(final Match[] matches, final XMLStreamReader reader) {
+        for (Match match : matches) {
+            if (match.capture != null) {
+                match.capture.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            }
+        }
+    }
+
+    private Object createProjection(final Match[] matches) {
+        final Map<String, Object> values = new HashMap<String, Object>();
+        for (Match match : matches) {
+            final Target target = match.target;
+            try {
+                values.put(target.method.getName(), convert(target, match.values));
+            } catch (RuntimeException e) {
+                values.put(target.method.getName(), ImmutableProjection.failure(e));
+            }
+        }
+        return ImmutableProjection.newInstance(projectionInterface, values);
+    }
+
+    private Object convert(final Target target, final List<String> data) {
+        try {
+            switch (target.kind) {
+            case LIST:
+                final List<Object> list = new ArrayList<Object>(data.size());
+                for (String value : data) {
+                    list.add(typeConverter.convertTo(target.type, value, target.formatPattern));
+                }
+                return Collections.unmodifiableList(list);
+            case ARRAY:
+                final Object array = Array.newInstance(target.type, data.size());
+                for (int i = 0; i < data.size(); ++i) {
+                    Array.set(array, i, typeConverter.convertTo(target.type, data.get(i), target.formatPattern));
+                }
+                return array;
+            default:
+                String value = data.isEmpty() ? null : data.get(0);
+                if ((value == null) && absentIsEmpty) {
+                    value = "";
+                }
+                final Object result = typeConverter.convertTo(target.type, value, target.formatPattern);
+                return target.kind == OPTIONAL ? ReflectionHelper.createOptional(result) : result;
+            }
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(e.getMessage() + " XPath was:" + target.xpath);
+        }
+    }
+}
@@ -0,0 +1,519 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBDelete;
+import org.xmlbeam.annotation.XBDocURL;
+import org.xmlbeam.annotation.XBUpdate;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.config.XMLFactoriesConfig;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.types.StringRenderer;
+import org.xmlbeam.util.intern.duplex.DuplexExpression;
+import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
+import org.xmlbeam.util.intern.duplex.StreamingPath;
+
+/**
+ * Creates write only projections of records, without building a DOM. Setters append their values
+ * to a small element tree that is written to a StAX stream when the record is complete. Eligible
+ * are writing methods with one parameter whose XPath is a relative location path of child steps
+ * without predicates and an optional final attribute step, setting a value rendered by the string
+ * renderer, or a collection or array of such values. Existing elements are reused like the DOM
+ * projection does, so setting a value twice replaces it.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class StreamingProjectionWriter {
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = createOutputFactory();
+
+    /**
+     * A method setting values while streaming.
+     */
+    private static final class Target {
+        private final QName[] elements;
+        private final QName attribute;
+        private final boolean isMultiValue;
+        private final String formatPattern;
+
+        Target(final QName[] elements, final QName attribute, final boolean isMultiValue, final String formatPattern) {
+            this.elements = elements;
+            this.attribute = attribute;
+            this.isMultiValue = isMultiValue;
+            this.formatPattern = formatPattern;
+        }
+    }
+
+    /**
+     * Element of a record, held until the record is written.
+     */
+    private static final class BufferedElement {
+        private final QName name;
+        private final Map<QName, String> attributes = new LinkedHashMap<QName, String>();
+        /**
+         * Child elements and text, in document order.
+         */
+        private final List<Object> children = new ArrayList<Object>();
+
+        BufferedElement(final QName name) {
+            this.name = name;
+        }
+
+        BufferedElement ensureChild(final QName childName) {
+            for (Object child : children) {
+                if ((child instanceof BufferedElement) && childName.equals(((BufferedElement) child).name)) {
+                    return (BufferedElement) child;
+                }
+            }
+            return appendChild(childName);
+        }
+
+        BufferedElement appendChild(final QName childName) {
+            final BufferedElement child = new BufferedElement(childName);
+            children.add(child);
+            return child;
+        }
+
+        void removeChildren(final QName childName) {
+            for (Iterator<Object> i = children.iterator(); i.hasNext();) {
+                final Object child = i.next();
+                if ((child instanceof BufferedElement) && childName.equals(((BufferedElement) child).name)) {
+                    i.remove();
+                }
+            }
+        }
+
+        /**
+         * Replace the text of this element, child elements are kept.
+         */
+        void setText(final String text) {
+            for (Iterator<Object> i = children.iterator(); i.hasNext();) {
+                if (i.next() instanceof String) {
+                    i.remove();
+                }
+            }
+            if ((text != null) && !text.isEmpty()) {
+                children.add(text);
+            }
+        }
+
+        void write(final XMLStreamWriter writer) throws XMLStreamException {
+            writeStartElement(writer, name);
+            for (Map.Entry<QName, String> attribute : attributes.entrySet()) {
+                writeAttribute(writer, attribute.getKey(), attribute.getValue());
+            }
+            for (Object child : children) {
+                if (child instanceof String) {
+                    writer.writeCharacters((String) child);
+                } else {
+                    ((BufferedElement) child).write(writer);
+                }
+            }
+            writer.writeEndElement();
+        }
+    }
+
+    /**
+     * Invocation handler of a streamed record.
+     */
+    private final class Record implements InvocationHandler {
+        private final BufferedElement root;
+
+        Record(final QName recordName) {
+            this.root = new BufferedElement(recordName);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final Target target = targets.get(method);
+            if (target != null) {
+                final int changes = set(target, method.getParameterTypes()[0], args[0]);
+                if (method.getReturnType().equals(method.getDeclaringClass())) {
+                    return proxy;
+                }
+                return void.class.equals(method.getReturnType()) ? null : Integer.valueOf(changes);
+            }
+            if (ReflectionHelper.hasParameters(method)) {
+                if ("equals".equals(method.getName()) && (method.getParameterTypes().length == 1) && Object.class.equals(method.getParameterTypes()[0])) {
+                    return proxy == args[0];
+                }
+            } else {
+                if ("hashCode".equals(method.getName())) {
+                    return System.identityHashCode(proxy);
+                }
+                if ("toString".equals(method.getName())) {
+                    return render();
+                }
+            }
+            if (ReflectionHelper.isDefaultMethod(method)) {
+                return ReflectionHelper.invokeDefaultMethod(method, args, proxy);
+            }
+            throw new UnsupportedOperationException("Method " + method + " is not available. Streamed records provide writing methods only.");
+        }
+
+        private int set(final Target target, final Class<?> valueType, final Object value) {
+            if (target.attribute != null) {
+                final BufferedElement element = ensureElements(target.elements, target.elements.length);
+                if (value == null) {
+                    element.attributes.remove(target.attribute);
+                } else {
+                    element.attributes.put(target.attribute, value.toString());
+                }
+                return 1;
+            }
+            if (!target.isMultiValue) {
+                ensureElements(target.elements, target.elements.length).setText(stringRenderer.render(valueType, value, target.formatPattern));
+                return 1;
+            }
+            final QName name = target.elements[target.elements.length - 1];
+            final BufferedElement parent = ensureElements(target.elements, target.elements.length - 1);
+            parent.removeChildren(name);
+            if (value == null) {
+                return 0;
+            }
+            int changes = 0;
+            for (Object o : value.getClass().isArray() ? ReflectionHelper.array2ObjectList(value) : (Iterable<?>) value) {
+                if (o == null) {
+                    continue;
+                }
+                if ((o instanceof DOMAccess) || (o instanceof Node)) {
+                    throw new IllegalArgumentException("Streamed records can not contain projections or DOM nodes, but " + o + " was given.");
+                }
+                parent.appendChild(name).setText(stringRenderer.render(o.getClass(), o, target.formatPattern));
+                ++changes;
+            }
+            return changes;
+        }
+
+        private BufferedElement ensureElements(final QName[] names, final int count) {
+            BufferedElement element = root;
+            for (int i = 0; i < count; ++i) {
+                element = element.ensureChild(names[i]);
+            }
+            return element;
+        }
+
+        private String render() {
+            final StringWriter writer = new StringWriter();
+            try {
+                final XMLStreamWriter xmlWriter = OUTPUT_FACTORY.createXMLStreamWriter(writer);
+                root.write(xmlWriter);
+                xmlWriter.close();
+            } catch (XMLStreamException e) {
+                return projectionInterface.getName() + "@" + Integer.toHexString(System.identityHashCode(this));
+            }
+            return writer.toString();
+        }
+    }
+
+    private final Class<?> projectionInterface;
+    private final StringRenderer stringRenderer;
+    private final Map<Method, Target> targets;
+    private final Map<Method, String> ineligibleMethods;
+
+    private StreamingProjectionWriter(final Class<?> projectionInterface, final StringRenderer stringRenderer, final Map<Method, Target> targets, final Map<Method, String> ineligibleMethods) {
+        this.projectionInterface = projectionInterface;
+        this.stringRenderer = stringRenderer;
+        this.targets = targets;
+        this.ineligibleMethods = ineligibleMethods;
+    }
+
+    /**
+     * Analyze the writing methods of a projection interface.
+     *
+     * @param projector
+     * @param projectionInterface
+     * @return a writer for the interface. Check {@link #getIneligibleMethods()} before creating
+     *         records.
+     */
+    public static StreamingProjectionWriter compile(final XBProjector projector, final Class<?> projectionInterface) {
+        final Map<String, String> namespaceMapping = projector.config().as(XMLFactoriesConfig.class).getUserDefinedNamespaceMapping();
+        final NamespaceContext namespaceContext = StreamingProjectionReader.createNamespaceContext(namespaceMapping);
+        final Map<Method, Target> targets = new HashMap<Method, Target>();
+        final Map<Method, String> ineligibleMethods = new LinkedHashMap<Method, String>();
+        for (Method method : projectionInterface.getMethods()) {
+            if ((method.getAnnotation(XBUpdate.class) != null) || (method.getAnnotation(XBDelete.class) != null)) {
+                ineligibleMethods.put(method, "it changes existing content");
+                continue;
+            }
+            final XBWrite annotation = method.getAnnotation(XBWrite.class);
+            if (annotation == null) {
+                continue;
+            }
+            try {
+                targets.put(method, compileTarget(projector, method, annotation, namespaceMapping, namespaceContext));
+            } catch (IllegalArgumentException e) {
+                ineligibleMethods.put(method, e.getMessage());
+            }
+        }
+        return new StreamingProjectionWriter(projectionInterface, projector.config().getStringRenderer(), targets, Collections.unmodifiableMap(ineligibleMethods));
+    }
+
+    private static Target compileTarget(final XBProjector projector, final Method method, final XBWrite annotation, final Map<String, String> namespaceMapping, final NamespaceContext namespaceContext) {
+        if (method.getParameterTypes().length != 1) {
+            throw new IllegalArgumentException("it has more than one parameter");
+        }
+        if (method.getAnnotation(XBDocURL.class) != null) {
+            throw new IllegalArgumentException("it writes an external document");
+        }
+        final Class<?> returnType = method.getReturnType();
+        if (!(void.class.equals(returnType) || returnType.equals(method.getDeclaringClass()) || int.class.equals(returnType) || Integer.class.equals(returnType))) {
+            throw new IllegalArgumentException("its return type " + returnType.getName() + " is not supported");
+        }
+        final Class<?> parameterType = method.getParameterTypes()[0];
+        final boolean isMultiValue = parameterType.isArray() || Iterable.class.isAssignableFrom(parameterType);
+        final Class<?> valueType = isMultiValue ? getComponentType(parameterType, method.getGenericParameterTypes()[0]) : parameterType;
+        if ((valueType != null) && (DOMAccess.class.isAssignableFrom(valueType) || Node.class.isAssignableFrom(valueType) || valueType.isInterface())) {
+            throw new IllegalArgumentException("its parameter type " + method.getGenericParameterTypes()[0] + " needs the DOM");
+        }
+        final String xpath = Preprocessor.applyParams(projector.config().getExternalizer().resolveXPath(annotation.value(), method, null), ReflectionHelper.getMethodParameterIndexes(method), null);
+        final DuplexExpression expression;
+        try {
+            expression = new DuplexXPathParser(namespaceMapping).compile(xpath);
+        } catch (XBException e) {
+            throw new IllegalArgumentException("its XPath can not be parsed");
+        }
+        if (expression.isUsingVariables()) {
+            throw new IllegalArgumentException("its XPath depends on parameters");
+        }
+        final StreamingPath path = StreamingPath.compile(expression, namespaceContext);
+        if (path.isAbsolute()) {
+            throw new IllegalArgumentException("it is an absolute path, but records are written relative to the record element");
+        }
+        final QName[] elements = toQNames(path, namespaceContext);
+        QName attribute = null;
+        if (path.selectsAttribute()) {
+            if (isMultiValue) {
+                throw new IllegalArgumentException("it sets multiple values to an attribute");
+            }
+            if (path.getAttributeLocalName() == null) {
+                throw new IllegalArgumentException("it writes to a wildcard");
+            }
+            attribute = toQName(path.getAttributeNamespaceURI(), path.getAttributeLocalName(), namespaceContext);
+        } else if (isMultiValue && (elements.length == 0)) {
+            throw new IllegalArgumentException("it sets multiple values to the record element");
+        }
+        return new Target(elements, attribute, isMultiValue, expression.getExpressionFormatPattern());
+    }
+
+    private static Class<?> getComponentType(final Class<?> type, final Type genericType) {
+        if (type.isArray()) {
+            return type.getComponentType();
+        }
+        if (!(genericType instanceof ParameterizedType)) {
+            return null;
+        }
+        final Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+        return argument instanceof Class ? (Class<?>) argument : null;
+    }
+
+    /**
+     * @param path
+     * @param namespaceContext
+     * @return names of the element steps
+     * @throws IllegalArgumentException
+     *             if a step can not be created
+     */
+    static QName[] toQNames(final StreamingPath path, final NamespaceContext namespaceContext) {
+        final QName[] names = new QName[path.getElementStepCount()];
+        for (int i = 0; i < names.length; ++i) {
+            if (path.getLocalName(i) == null) {
+                throw new IllegalArgumentException("it writes to a wildcard");
+            }
+            if (path.getPosition(i) != 0) {
+                throw new IllegalArgumentException("it has a position predicate");
+            }
+            names[i] = toQName(path.getNamespaceURI(i), path.getLocalName(i), namespaceContext);
+        }
+        return names;
+    }
+
+    private static QName toQName(final String namespaceURI, final String localName, final NamespaceContext namespaceContext) {
+        if (namespaceURI == null) {
+            return new QName(localName);
+        }
+        final String prefix = namespaceContext.getPrefix(namespaceURI);
+        return new QName(namespaceURI, localName, prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix);
+    }
+
+    /**
+     * @param projector
+     * @param recordPath
+     *            absolute location path of child steps without predicates
+     * @return names of the record element and its ancestors, starting with the document element.
+     */
+    public static QName[] compileRecordPath(final XBProjector projector, final String recordPath) {
+        final Map<String, String> namespaceMapping = projector.config().as(XMLFactoriesConfig.class).getUserDefinedNamespaceMapping();
+        final NamespaceContext namespaceContext = StreamingProjectionReader.createNamespaceContext(namespaceMapping);
+        final QName[] names;
+        try {
+            final StreamingPath path = StreamingPath.compile(new DuplexXPathParser(namespaceMapping).compile(recordPath), namespaceContext);
+            if (!path.isAbsolute() || path.selectsAttribute() || (path.getElementStepCount() == 0)) {
+                throw new XBException("Record path '" + recordPath + "' must be an absolute path selecting elements.");
+            }
+            names = toQNames(path, namespaceContext);
+        } catch (IllegalArgumentException e) {
+            throw new XBException("Record path '" + recordPath + "' can not be written, because " + e.getMessage() + ".");
+        }
+        return names;
+    }
+
+    /**
+     * @return writing methods that can not be streamed, with the reason. Such methods would throw
+     *         an UnsupportedOperationException on the records created by this writer.
+     */
+    public Map<Method, String> getIneligibleMethods() {
+        return ineligibleMethods;
+    }
+
+    /**
+     * @param recordName
+     *            name of the record element
+     * @return a new, empty record implementing the projection interface.
+     */
+    public Object createRecord(final QName recordName) {
+        return Proxy.newProxyInstance(projectionInterface.getClassLoader(), new Class<?>[] { projectionInterface }, new Record(recordName));
+    }
+
+    /**
+     * @param record
+     * @return true if the record was created by a streaming writer.
+     */
+    public static boolean isStreamedRecord(final Object record) {
+        return (record != null) && Proxy.isProxyClass(record.getClass()) && (Proxy.getInvocationHandler(record) instanceof Record);
+    }
+
+    /**
+     * Write a record created by {@link #createRecord(QName)}.
+     *
+     * @param record
+     * @param writer
+     * @throws XMLStreamException
+     */
+    public static void writeRecord(final Object record, final XMLStreamWriter writer) throws XMLStreamException {
+        ((Record) Proxy.getInvocationHandler(record)).root.write(writer);
+    }
+
+    /**
+     * Write a DOM element with its content.
+     *
+     * @param element
+     * @param writer
+     * @throws XMLStreamException
+     */
+    public static void writeElement(final Node element, final XMLStreamWriter writer) throws XMLStreamException {
+        writeStartElement(writer, new QName(element.getNamespaceURI() == null ? XMLConstants.NULL_NS_URI : element.getNamespaceURI(), localName(element), element.getPrefix() == null ? XMLConstants.DEFAULT_NS_PREFIX : element.getPrefix()));
+        final NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); ++i) {
+            final Attr attribute = (Attr) attributes.item(i);
+            if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI()) || XMLConstants.XMLNS_ATTRIBUTE.equals(attribute.getName()) || attribute.getName().startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) {
+                continue;
+            }
+            writeAttribute(writer, new QName(attribute.getNamespaceURI() == null ? XMLConstants.NULL_NS_URI : attribute.getNamespaceURI(), localName(attribute), attribute.getPrefix() == null ? XMLConstants.DEFAULT_NS_PREFIX : attribute.getPrefix()), attribute.getValue());
+        }
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                writeElement(child, writer);
+                break;
+            case Node.TEXT_NODE:
+                writer.writeCharacters(child.getNodeValue());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                writer.writeCData(child.getNodeValue());
+                break;
+            case Node.COMMENT_NODE:
+                writer.writeComment(child.getNodeValue());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                writer.writeProcessingInstruction(((ProcessingInstruction) child).getTarget(), ((ProcessingInstruction) child).getData());
+                break;
+            default:
+                break;
+            }
+        }
+        writer.writeEndElement();
+    }
+
+    private static String localName(final Node node) {
+        return node.getLocalName() == null ? node.getNodeName() : node.getLocalName();
+    }
+
+    /**
+     * @param writer
+     * @param name
+     * @throws XMLStreamException
+     */
+    public static void writeStartElement(final XMLStreamWriter writer, final QName name) throws XMLStreamException {
+        if (XMLConstants.NULL_NS_URI.equals(name.getNamespaceURI())) {
+            writer.writeStartElement(name.getLocalPart());
+            return;
+        }
+        writer.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+    }
+
+    private static void writeAttribute(final XMLStreamWriter writer, final QName name, final String value) throws XMLStreamException {
+        if (XMLConstants.NULL_NS_URI.equals(name.getNamespaceURI())) {
+            writer.writeAttribute(name.getLocalPart(), value);
+            return;
+        }
+        writer.writeAttribute(name.getPrefix(), name.getNamespaceURI(), name.getLocalPart(), value);
+    }
+
+    /**
+     * @param os
+     * @return a new StAX writer declaring namespaces as needed.
+     * @throws XMLStreamException
+     */
+    public static XMLStreamWriter createXMLStreamWriter(final OutputStream os) throws XMLStreamException {
+        return OUTPUT_FACTORY.createXMLStreamWriter(os, "UTF-8");
+    }
+
+    private static XMLOutputFactory createOutputFactory() {
+        final XMLOutputFactory factory = XMLOutputFactory.newInstance();
+        factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, Boolean.TRUE);
+        return factory;
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.config.XMLFactoriesConfig;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
+import org.xmlbeam.util.intern.duplex.StreamingPath;
+
+/**
+ * Cuts a StAX stream into records. Each element selected by the record path is copied to a new
+ * document, the rest of the stream is skipped. Namespace declarations of ancestors are copied to
+ * the record element, so prefixes stay resolvable. Only the current record is held in memory.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class StreamingRecordReader {
+
+    private final XMLStreamReader reader;
+    private final StreamingPath recordPath;
+    private final XBProjector projector;
+    private final int[] counters;
+    /**
+     * Namespace declarations (prefix, URI, prefix, URI...) of the open elements.
+     */
+    private final List<String[]> namespaceDeclarations = new ArrayList<String[]>();
+    private int depth;
+    private int matched;
+
+    /**
+     * @param projector
+     * @param reader
+     *            positioned at the start of the document
+     * @param recordPath
+     *            location path with child steps only, position predicates are allowed.
+     */
+    public StreamingRecordReader(final XBProjector projector, final XMLStreamReader reader, final String recordPath) {
+        this.reader = reader;
+        this.recordPath = compileRecordPath(projector, recordPath);
+        this.projector = projector;
+        this.counters = new int[this.recordPath.getElementStepCount() + 1];
+    }
+
+    private static StreamingPath compileRecordPath(final XBProjector projector, final String recordPath) {
+        final StreamingPath path;
+        try {
+            final Map<String, String> namespaceMapping = projector.config().as(XMLFactoriesConfig.class).getUserDefinedNamespaceMapping();
+            path = StreamingPath.compile(new DuplexXPathParser(namespaceMapping).compile(recordPath), StreamingProjectionReader.createNamespaceContext(namespaceMapping));
+        } catch (IllegalArgumentException e) {
+            throw new XBException("Record path '" + recordPath + "' can not be streamed, because " + e.getMessage() + ".");
+        }
+        if (path.selectsAttribute() || (path.getElementStepCount() == 0)) {
+            throw new XBException("Record path '" + recordPath + "' must select elements.");
+        }
+        return path;
+    }
+
+    /**
+     * @return the next record element, owned by a new document. Null if there are no more records.
+     * @throws XMLStreamException
+     */
+    public Element next() throws XMLStreamException {
+        final int steps = recordPath.getElementStepCount();
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                ++depth;
+                if ((matched == (depth - 1)) && (depth <= steps) && recordPath.matchesElement(depth - 1, reader.getNamespaceURI(), reader.getLocalName())) {
+                    ++counters[depth - 1];
+                    final int position = recordPath.getPosition(depth - 1);
+                    if ((position == 0) || (counters[depth - 1] == position)) {
+                        if (depth == steps) {
+                            --depth;
+                            return copyRecord();
+                        }
+                        matched = depth;
+                        counters[depth] = 0;
+                    }
+                }
+                namespaceDeclarations.add(getNamespaceDeclarations());
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                if (matched == depth) {
+                    --matched;
+                }
+                namespaceDeclarations.remove(namespaceDeclarations.size() - 1);
+                --depth;
+                break;
+            default:
+                break;
+            }
+        }
+        return null;
+    }
+
+    private String[] getNamespaceDeclarations() {
+        final int count = reader.getNamespaceCount();
+        final String[] declarations = new String[count * 2];
+        for (int i = 0; i < count; ++i) {
+            declarations[i * 2] = reader.getNamespacePrefix(i);
+            declarations[(i * 2) + 1] = reader.getNamespaceURI(i);
+        }
+        return declarations;
+    }
+
+    private Element copyRecord() throws XMLStreamException {
+        // Records may be read by a different thread than the one creating this reader.
+        final Document document = DOMHelper.getDocumentBuilder(projector).newDocument();
+        final Element record = createElement(document);
+        document.appendChild(record);
+        final Set<String> declaredPrefixes = new HashSet<String>();
+        for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+            declaredPrefixes.add(String.valueOf(reader.getNamespacePrefix(i)));
+        }
+        for (int i = namespaceDeclarations.size() - 1; i >= 0; --i) {
+            final String[] declarations = namespaceDeclarations.get(i);
+            for (int j = 0; j < declarations.length; j += 2) {
+                if (declaredPrefixes.add(String.valueOf(declarations[j]))) {
+                    declareNamespace(record, declarations[j], declarations[j + 1]);
+                }
+            }
+        }
+        Node current = record;
+        while (true) {
+            switch (reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                current = current.appendChild(createElement(document));
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                if (current == record) {
+                    return record;
+                }
+                current = current.getParentNode();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                current.appendChild(document.createTextNode(reader.getText()));
+                break;
+            case XMLStreamConstants.CDATA:
+                current.appendChild(document.createCDATASection(reader.getText()));
+                break;
+            case XMLStreamConstants.COMMENT:
+                current.appendChild(document.createComment(reader.getText()));
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                current.appendChild(document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private Element createElement(final Document document) {
+        final Element element = document.createElementNS(emptyToNull(reader.getNamespaceURI()), qualifiedName(reader.getPrefix(), reader.getLocalName()));
+        for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+            declareNamespace(element, reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            element.setAttributeNS(emptyToNull(reader.getAttributeNamespace(i)), qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    private static void declareNamespace(final Element element, final String prefix, final String namespaceURI) {
+        final String name = (prefix == null) || prefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix;
+        element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, namespaceURI == null ? "" : namespaceURI);
+    }
+
+    private static String qualifiedName(final String prefix, final String localName) {
+        return (prefix == null) || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static String emptyToNull(final String namespaceURI) {
+        return (namespaceURI == null) || namespaceURI.isEmpty() ? null : namespaceURI;
+    }
+
+    /**
+     * Close the StAX reader. The underlying stream is not closed.
+     *
+     * @throws XMLStreamException
+     */
+    public void close() throws XMLStreamException {
+        reader.close();
+    }
+}
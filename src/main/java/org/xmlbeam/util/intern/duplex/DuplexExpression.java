@@ -29,6 +29,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
 import org.xmlbeam.util.intern.duplex.BuildDocumentVisitor.MODE;
 import org.xmlbeam.util.intern.duplex.INodeEvaluationVisitor.VisitorClosure;
 import org.xmlbeam.util.intern.duplex.SimpleNode.StepListFilter;
@@ -74,6 +75,16 @@ public class DuplexExpression {
         return this;
     }
 
+    /**
+     * Parsed expressions may be shared, so use a copy for binding a variable resolver.
+     *
+     * @param resolver
+     * @return a copy of this expression sharing the parse tree, using the given resolver.
+     */
+    public DuplexExpression withXPathVariableResolver(final XPathVariableResolver resolver) {
+        return new DuplexExpression(this).setXPathVariableResolver(resolver);
+    }
+
     @Override
     public String toString() {
         return "DuplexExpression [xpath=" + xpath + "]";
@@ -82,7 +93,7 @@ public class DuplexExpression {
     private final SimpleNode node;
     private final String xpath;
 
-    private final Map<String, String> variableFormatPatterns = new HashMap<String, String>();
+    private final Map<String, String> variableFormatPatterns;
 
     private final String strippedXPath;
 
@@ -97,6 +108,7 @@ public class DuplexExpression {
         this.node = node;
         this.xpath = xpath.toString();
         this.userDefinedMapping = userDefinedMapping;
+        this.variableFormatPatterns = new HashMap<String, String>();
         final Deque<Integer> removeStartPositions = new LinkedList<Integer>();
         final Deque<Integer> removeEndPositions = new LinkedList<Integer>();
         node.getFirstChildWithId(XParserTreeConstants.JJTXPATH).eachChild(new VisitorClosure() {
@@ -145,6 +157,22 @@ public class DuplexExpression {
         strippedXPath = stringBuilder.toString();
     }
 
+    private DuplexExpression(final DuplexExpression other) {
+        this.node = other.node;
+        this.xpath = other.xpath;
+        this.userDefinedMapping = other.userDefinedMapping;
+        this.variableFormatPatterns = other.variableFormatPatterns;
+        this.strippedXPath = other.strippedXPath;
+        this.expressionFormatPattern = other.expressionFormatPattern;
+    }
+
+    /**
+     * @return root of the syntax tree
+     */
+    SimpleNode getRootNode() {
+        return node;
+    }
+
     /**
      * @return true if expression makes use of XPath variables
      */
@@ -185,7 +213,7 @@ public class DuplexExpression {
     public org.w3c.dom.Node ensureExistence(final org.w3c.dom.Node contextNode) {
         final Document document = DOMHelper.getOwnerDocumentFor(contextNode);
         final Map<String, String> namespaceMapping = new HashMap<String, String>(userDefinedMapping);
-        namespaceMapping.putAll(DOMHelper.getNamespaceMapping(document));
+        namespaceMapping.putAll(DocumentIndex.getNamespaceMapping(document));
         //node.dump("");
         return ((List<org.w3c.dom.Node>) node.firstChildAccept(new BuildDocumentVisitor(variableResolver, namespaceMapping), contextNode)).get(0);
     }
@@ -199,7 +227,7 @@ public class DuplexExpression {
     public Element ensureParentExistence(final Node contextNode) {
         final Document document = DOMHelper.getOwnerDocumentFor(contextNode);
         final Map<String, String> namespaceMapping = new HashMap<String, String>(userDefinedMapping);
-        namespaceMapping.putAll(DOMHelper.getNamespaceMapping(document));
+        namespaceMapping.putAll(DocumentIndex.getNamespaceMapping(document));
         //node.dump("");
         return (Element) ((List<org.w3c.dom.Node>) node.firstChildAccept(new BuildDocumentVisitor(variableResolver, namespaceMapping, ALL_BUT_LAST, MODE.CREATE_IF_NOT_EXISTS), contextNode)).get(0);
     }
@@ -209,7 +237,7 @@ public class DuplexExpression {
      */
     public void deleteAllMatchingChildren(final Node parentNode) {
         final Document document = DOMHelper.getOwnerDocumentFor(parentNode);
-        final Map<String, String> namespaceMapping = DOMHelper.getNamespaceMapping(document);
+        final Map<String, String> namespaceMapping = DocumentIndex.getNamespaceMapping(document);
         BuildDocumentVisitor visitor = new BuildDocumentVisitor(variableResolver, namespaceMapping, ONLY_LAST_STEP, MODE.DELETE);
         List<?> result;
         int lastLength = -1;
@@ -231,7 +259,7 @@ public class DuplexExpression {
         final Document document = DOMHelper.getOwnerDocumentFor(parentNode);
         //final Map<String, String> namespaceMapping = DOMHelper.getNamespaceMapping(document);
         final Map<String, String> namespaceMapping = new HashMap<String, String>(userDefinedMapping);
-        namespaceMapping.putAll(DOMHelper.getNamespaceMapping(document));
+        namespaceMapping.putAll(DocumentIndex.getNamespaceMapping(document));
         BuildDocumentVisitor visitor = new BuildDocumentVisitor(variableResolver, namespaceMapping, ONLY_LAST_STEP, MODE.JUST_CREATE);
         List<Node> nodes = (List<Node>) node.firstChildAccept(visitor, parentNode);
         assert nodes.size() == 1;
@@ -0,0 +1,667 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern.duplex;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPathVariableResolver;
+
+import org.w3c.dom.Node;
+
+/**
+ * Compiles the syntax tree of an XPath 1.0 expression into a tree of closures evaluated directly
+ * on the DOM. Supported are the location paths of {@link NativeLocationPath}, literals, variables,
+ * comparisons, "and", "or", unary minus and the functions count, sum, string, number, boolean,
+ * not, true, false, concat, contains, starts-with, substring, substring-before, substring-after,
+ * string-length, normalize-space, translate and local-name. Other expressions are rejected by
+ * {@link #compile(DuplexExpression, NamespaceContext)}, so the caller can fall back to JAXP.
+ * <p>
+ * Results are node lists in document order, String, Double or Boolean, like the XPath 1.0 data
+ * types.
+ * </p>
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class NativeExpression {
+
+    private static final Pattern XPATH_NUMBER = Pattern.compile("\\s*-?([0-9]+(\\.[0-9]*)?|\\.[0-9]+)\\s*");
+
+    /**
+     * Compile option: descendant steps look up elements in the
+     * {@link org.xmlbeam.util.intern.DocumentIndex} instead of walking the tree.
+     */
+    public static final int ELEMENT_INDEX = 1;
+
+    /**
+     * Compile option: an equality predicate comparing a key, like [@id=$PARAM0], looks up the
+     * elements in a key index held by the {@link org.xmlbeam.util.intern.DocumentIndex} instead
+     * of testing each element. See {@link NativeLocationPath}.
+     */
+    public static final int KEY_INDEX = 2;
+
+    private static final int EQ = 0;
+    private static final int NE = 1;
+    private static final int LT = 2;
+    private static final int LE = 3;
+    private static final int GT = 4;
+    private static final int GE = 5;
+
+    /**
+     * Thrown when a value can not be handled natively, e.g. a variable of unknown type or a
+     * function argument that would make JAXP report an error.
+     */
+    @SuppressWarnings("serial")
+    static final class UnsupportedValueException extends RuntimeException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * A compiled part of an expression.
+     */
+    interface Evaluable {
+        /**
+         * @param context
+         * @param resolver
+         *            may be null
+         * @return List of nodes, String, Double or Boolean
+         */
+        Object evaluate(Node context, XPathVariableResolver resolver);
+    }
+
+    private static final class Constant implements Evaluable {
+        private final Object value;
+
+        Constant(final Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object evaluate(final Node context, final XPathVariableResolver resolver) {
+            return value;
+        }
+    }
+
+    private static final class Variable implements Evaluable {
+        private final QName name;
+
+        Variable(final QName name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object evaluate(final Node context, final XPathVariableResolver resolver) {
+            if (resolver == null) {
+                throw new UnsupportedValueException();
+            }
+            final Object value = resolver.resolveVariable(name);
+            if ((value instanceof String) || (value instanceof Boolean)) {
+                return value;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            throw new UnsupportedValueException();
+        }
+    }
+
+    private static final class Path implements Evaluable {
+        private final NativeLocationPath path;
+
+        Path(final NativeLocationPath path) {
+            this.path = path;
+        }
+
+        @Override
+        public Object evaluate(final Node context, final XPathVariableResolver resolver) {
+            return path.select(context, resolver);
+        }
+    }
+
+    private static final class Comparison implements Evaluable {
+        private final int operator;
+        private final Evaluable left;
+        private final Evaluable right;
+
+        Comparison(final int operator, final Evaluable left, final Evaluable right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object evaluate(final Node context, final XPathVariableResolver resolver) {
+            return compare(operator, left.evaluate(context, resolver), right.evaluate(context, resolver));
+        }
+    }
+
+    private static final class Junction implements Evaluable {
+        private final boolean isOr;
+        private final Evaluable[] operands;
+
+        Junction(final boolean isOr, final Evaluable[] operands) {
+            this.isOr = isOr;
+            this.operands = operands;
+        }
+
+        @Override
+        public Object evaluate(final Node context, final XPathVariableResolver resolver) {
+            for (Evaluable operand : operands) {
+                if (toBoolean(operand.evaluate(context, resolver)) == isOr) {
+                    return isOr;
+                }
+            }
+            return !isOr;
+        }
+    }
+
+    private static final class Negation implements Evaluable {
+        private final Evaluable operand;
+
+        Negation(final Evaluable operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public Object evaluate(final Node context, final XPathVariableResolver resolver) {
+            return -toNumber(operand.evaluate(context, resolver));
+        }
+    }
+
+    private static final class Function implements Evaluable {
+        private final String name;
+        private final Evaluable[] args;
+
+        Function(final String name, final Evaluable[] args) {
+            this.name = name;
+            this.args = args;
+        }
+
+        @Override
+        public Object evaluate(final Node context, final XPathVariableResolver resolver) {
+            final Object[] values = new Object[args.length];
+            for (int i = 0; i < args.length; ++i) {
+                values[i] = args[i].evaluate(context, resolver);
+            }
+            return call(name, values, context);
+        }
+    }
+
+    /**
+     * @param evaluable
+     * @return true if the evaluable is a literal or a variable, so its value does not depend on
+     *         the context node.
+     */
+    static boolean isValue(final Evaluable evaluable) {
+        return (evaluable instanceof Constant) || (evaluable instanceof Variable);
+    }
+
+    private final Evaluable root;
+
+    private NativeExpression(final Evaluable root) {
+        this.root = root;
+    }
+
+    /**
+     * @param expression
+     * @param namespaceContext
+     *            used to resolve prefixes of name tests, may be null
+     * @return an evaluator for the expression or null if the expression is not supported.
+     */
+    public static NativeExpression compile(final DuplexExpression expression, final NamespaceContext namespaceContext) {
+        return compile(expression, namespaceContext, 0);
+    }
+
+    /**
+     * @param expression
+     * @param namespaceContext
+     *            used to resolve prefixes of name tests, may be null
+     * @param options
+     *            combination of {@link #ELEMENT_INDEX} and {@link #KEY_INDEX}, 0 for none
+     * @return an evaluator for the expression or null if the expression is not supported.
+     */
+    public static NativeExpression compile(final DuplexExpression expression, final NamespaceContext namespaceContext, final int options) {
+        final SimpleNode xpath = expression.getRootNode().getFirstChildWithId(XParserTreeConstants.JJTXPATH);
+        if ((xpath == null) || (xpath.jjtGetNumChildren() != 1)) {
+            return null;
+        }
+        final Evaluable root = compileEvaluable((SimpleNode) xpath.jjtGetChild(0), namespaceContext, options);
+        return root == null ? null : new NativeExpression(root);
+    }
+
+    /**
+     * @param item
+     *            context node
+     * @param resolver
+     *            resolver for variables, may be null
+     * @return List of nodes, String, Double or Boolean, or null if the expression can not be
+     *         evaluated natively with these variable values.
+     */
+    public Object evaluate(final Node item, final XPathVariableResolver resolver) {
+        try {
+            return root.evaluate(item, resolver);
+        } catch (UnsupportedValueException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param value
+     * @return true if the value is a node list
+     */
+    public static boolean isNodeList(final Object value) {
+        return value instanceof List;
+    }
+
+    /**
+     * @param value
+     *            evaluation result
+     * @return the value of the XPath function string()
+     */
+    public static String toString(final Object value) {
+        if (value instanceof List) {
+            final List<?> nodes = (List<?>) value;
+            return nodes.isEmpty() ? "" : NativeLocationPath.stringValue((Node) nodes.get(0));
+        }
+        if (value instanceof Double) {
+            final double d = ((Double) value).doubleValue();
+            if (Double.isNaN(d)) {
+                return "NaN";
+            }
+            if (Double.isInfinite(d)) {
+                return d > 0 ? "Infinity" : "-Infinity";
+            }
+            if (d == Math.rint(d) && (Math.abs(d) < 1e15)) {
+                return Long.toString((long) d);
+            }
+            return BigDecimal.valueOf(d).stripTrailingZeros().toPlainString();
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * @param value
+     *            evaluation result
+     * @return the value of the XPath function number()
+     */
+    public static double toNumber(final Object value) {
+        if (value instanceof Double) {
+            return ((Double) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue() ? 1 : 0;
+        }
+        final String string = toString(value);
+        if (!XPATH_NUMBER.matcher(string).matches()) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(string.trim());
+    }
+
+    /**
+     * @param value
+     *            evaluation result
+     * @return the value of the XPath function boolean()
+     */
+    public static boolean toBoolean(final Object value) {
+        if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue();
+        }
+        if (value instanceof Double) {
+            final double d = ((Double) value).doubleValue();
+            return (d != 0) && !Double.isNaN(d);
+        }
+        if (value instanceof List) {
+            return !((List<?>) value).isEmpty();
+        }
+        return !((String) value).isEmpty();
+    }
+
+    /**
+     * @param node
+     * @param namespaceContext
+     * @return closure for the syntax tree node or null if not supported.
+     */
+    static Evaluable compileEvaluable(final SimpleNode node, final NamespaceContext namespaceContext, final int options) {
+        switch (node.getID()) {
+        case XParserTreeConstants.JJTEXPR:
+        case XParserTreeConstants.JJTPARENTHESIZEDEXPR:
+            return node.jjtGetNumChildren() == 1 ? compileEvaluable((SimpleNode) node.jjtGetChild(0), namespaceContext, options) : null;
+        case XParserTreeConstants.JJTPATHEXPR:
+        case XParserTreeConstants.JJTSTEPEXPR:
+        case XParserTreeConstants.JJTSLASH:
+            final NativeLocationPath path = NativeLocationPath.compilePath(node, namespaceContext, options);
+            return path == null ? null : new Path(path);
+        case XParserTreeConstants.JJTSTRINGLITERAL:
+            final String literal = node.getValue();
+            final String content = literal.substring(1, literal.length() - 1);
+            // XPath 2 escapes quotes by doubling, XPath 1 has no escaping.
+            return content.indexOf(literal.charAt(0)) >= 0 ? null : new Constant(content);
+        case XParserTreeConstants.JJTINTEGERLITERAL:
+        case XParserTreeConstants.JJTDECIMALLITERAL:
+            return new Constant(Double.valueOf(node.getValue()));
+        case XParserTreeConstants.JJTVARNAME:
+            if ((node.jjtGetNumChildren() != 1) || (((SimpleNode) node.jjtGetChild(0)).getID() != XParserTreeConstants.JJTQNAME)) {
+                return null;
+            }
+            final String variableName = ((SimpleNode) node.jjtGetChild(0)).getValue();
+            return variableName.indexOf(':') >= 0 ? null : new Variable(new QName(variableName));
+        case XParserTreeConstants.JJTCOMPARISONEXPR:
+            final int operator = toOperator(node.getValue());
+            if ((operator < 0) || (node.jjtGetNumChildren() != 2)) {
+                return null;
+            }
+            final Evaluable[] operands = compileChildren(node, 0, namespaceContext, options);
+            return operands == null ? null : new Comparison(operator, operands[0], operands[1]);
+        case XParserTreeConstants.JJTOREXPR:
+        case XParserTreeConstants.JJTANDEXPR:
+            final Evaluable[] junctionOperands = compileChildren(node, 0, namespaceContext, options);
+            return junctionOperands == null ? null : new Junction(node.getID() == XParserTreeConstants.JJTOREXPR, junctionOperands);
+        case XParserTreeConstants.JJTUNARYEXPR:
+            if ((node.jjtGetNumChildren() != 2) || (((SimpleNode) node.jjtGetChild(0)).getID() != XParserTreeConstants.JJTMINUS)) {
+                return null;
+            }
+            final Evaluable operand = compileEvaluable((SimpleNode) node.jjtGetChild(1), namespaceContext, options);
+            return operand == null ? null : new Negation(operand);
+        case XParserTreeConstants.JJTFUNCTIONCALL:
+            return compileFunction(node, namespaceContext, options);
+        default:
+            return null;
+        }
+    }
+
+    private static Evaluable[] compileChildren(final SimpleNode node, final int first, final NamespaceContext namespaceContext, final int options) {
+        final Evaluable[] evaluables = new Evaluable[node.jjtGetNumChildren() - first];
+        for (int i = 0; i < evaluables.length; ++i) {
+            evaluables[i] = compileEvaluable((SimpleNode) node.jjtGetChild(first + i), namespaceContext, options);
+            if (evaluables[i] == null) {
+                return null;
+            }
+        }
+        return evaluables;
+    }
+
+    private static int toOperator(final String value) {
+        if ("=".equals(value)) {
+            return EQ;
+        }
+        if ("!=".equals(value)) {
+            return NE;
+        }
+        if ("<".equals(value)) {
+            return LT;
+        }
+        if ("<=".equals(value)) {
+            return LE;
+        }
+        if (">".equals(value)) {
+            return GT;
+        }
+        if (">=".equals(value)) {
+            return GE;
+        }
+        return -1;
+    }
+
+    private static Evaluable compileFunction(final SimpleNode node, final NamespaceContext namespaceContext, final int options) {
+        if ((node.jjtGetNumChildren() < 1) || (((SimpleNode) node.jjtGetChild(0)).getID() != XParserTreeConstants.JJTFUNCTIONQNAME)) {
+            return null;
+        }
+        final String name = ((SimpleNode) node.jjtGetChild(0)).getValue();
+        final int arity = node.jjtGetNumChildren() - 1;
+        final boolean isSupported;
+        if ("count".equals(name) || "sum".equals(name) || "boolean".equals(name) || "not".equals(name)) {
+            isSupported = arity == 1;
+        } else if ("true".equals(name) || "false".equals(name)) {
+            isSupported = arity == 0;
+        } else if ("string".equals(name) || "number".equals(name) || "string-length".equals(name) || "normalize-space".equals(name) || "local-name".equals(name)) {
+            isSupported = arity <= 1;
+        } else if ("contains".equals(name) || "starts-with".equals(name) || "substring-before".equals(name) || "substring-after".equals(name)) {
+            isSupported = arity == 2;
+        } else if ("substring".equals(name)) {
+            isSupported = (arity == 2) || (arity == 3);
+        } else if ("translate".equals(name)) {
+            isSupported = arity == 3;
+        } else if ("concat".equals(name)) {
+            isSupported = arity >= 2;
+        } else {
+            isSupported = false;
+        }
+        if (!isSupported) {
+            return null;
+        }
+        final Evaluable[] args = compileChildren(node, 1, namespaceContext, options);
+        return args == null ? null : new Function(name, args);
+    }
+
+    private static Object call(final String name, final Object[] args, final Node context) {
+        if ("count".equals(name)) {
+            return (double) nodes(args[0]).size();
+        }
+        if ("sum".equals(name)) {
+            double sum = 0;
+            for (Node node : nodes(args[0])) {
+                sum += toNumber(NativeLocationPath.stringValue(node));
+            }
+            return sum;
+        }
+        if ("boolean".equals(name)) {
+            return toBoolean(args[0]);
+        }
+        if ("not".equals(name)) {
+            return !toBoolean(args[0]);
+        }
+        if ("true".equals(name)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equals(name)) {
+            return Boolean.FALSE;
+        }
+        final Object arg = args.length == 0 ? Collections.singletonList(context) : args[0];
+        if ("string".equals(name)) {
+            return toString(arg);
+        }
+        if ("number".equals(name)) {
+            return toNumber(arg);
+        }
+        if ("string-length".equals(name)) {
+            return (double) toString(arg).length();
+        }
+        if ("normalize-space".equals(name)) {
+            return normalizeSpace(toString(arg));
+        }
+        if ("local-name".equals(name)) {
+            final List<Node> nodes = nodes(arg);
+            if (nodes.isEmpty()) {
+                return "";
+            }
+            final Node node = nodes.get(0);
+            if ((node.getNodeType() != Node.ELEMENT_NODE) && (node.getNodeType() != Node.ATTRIBUTE_NODE)) {
+                return "";
+            }
+            final String localName = node.getLocalName();
+            return localName == null ? node.getNodeName() : localName;
+        }
+        if ("concat".equals(name)) {
+            final StringBuilder builder = new StringBuilder();
+            for (Object value : args) {
+                builder.append(toString(value));
+            }
+            return builder.toString();
+        }
+        final String string = toString(args[0]);
+        if ("translate".equals(name)) {
+            return translate(string, toString(args[1]), toString(args[2]));
+        }
+        if ("substring".equals(name)) {
+            final double start = toNumber(args[1]);
+            final double length = args.length > 2 ? toNumber(args[2]) : Double.POSITIVE_INFINITY;
+            if (Double.isNaN(start) || Double.isInfinite(start) || ((args.length > 2) && (Double.isNaN(length) || Double.isInfinite(length)))) {
+                // JAXP deviates from the specification here, e.g. substring('ab', 0 div 0) is 'ab'.
+                throw new UnsupportedValueException();
+            }
+            return substring(string, start, length);
+        }
+        final String other = toString(args[1]);
+        if ("contains".equals(name)) {
+            return string.contains(other);
+        }
+        if ("starts-with".equals(name)) {
+            return string.startsWith(other);
+        }
+        final int index = string.indexOf(other);
+        if ("substring-before".equals(name)) {
+            return index < 0 ? "" : string.substring(0, index);
+        }
+        if ("substring-after".equals(name)) {
+            return index < 0 ? "" : string.substring(index + other.length());
+        }
+        throw new IllegalStateException("Unknown function " + name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Node> nodes(final Object value) {
+        if (!(value instanceof List)) {
+            throw new UnsupportedValueException();
+        }
+        return (List<Node>) value;
+    }
+
+    private static boolean isXMLWhitespace(final char c) {
+        return (c == ' ') || (c == '\t') || (c == '\r') || (c == '\n');
+    }
+
+    private static String normalizeSpace(final String string) {
+        final StringBuilder builder = new StringBuilder(string.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < string.length(); ++i) {
+            final char c = string.charAt(i);
+            if (isXMLWhitespace(c)) {
+                pendingSpace = builder.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                builder.append(' ');
+                pendingSpace = false;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static String translate(final String string, final String from, final String to) {
+        final StringBuilder builder = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); ++i) {
+            final char c = string.charAt(i);
+            final int index = from.indexOf(c);
+            if (index < 0) {
+                builder.append(c);
+            } else if (index < to.length()) {
+                builder.append(to.charAt(index));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static double round(final double d) {
+        return Math.floor(d + 0.5);
+    }
+
+    private static String substring(final String string, final double start, final double length) {
+        final double first = round(start);
+        final double end = first + round(length);
+        if (Double.isNaN(first) || Double.isNaN(end)) {
+            return "";
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (int position = 1; position <= string.length(); ++position) {
+            if ((position >= first) && (position < end)) {
+                builder.append(string.charAt(position - 1));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean compare(final int operator, final Object left, final Object right) {
+        if ((left instanceof List) && (right instanceof List)) {
+            for (Node l : nodes(left)) {
+                final String leftValue = NativeLocationPath.stringValue(l);
+                for (Node r : nodes(right)) {
+                    if (compareValues(operator, leftValue, NativeLocationPath.stringValue(r))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        if (left instanceof List) {
+            if (right instanceof Boolean) {
+                return compareValues(operator, toBoolean(left), right);
+            }
+            for (Node l : nodes(left)) {
+                if (compareValues(operator, NativeLocationPath.stringValue(l), right)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (right instanceof List) {
+            if (left instanceof Boolean) {
+                return compareValues(operator, left, toBoolean(right));
+            }
+            for (Node r : nodes(right)) {
+                if (compareValues(operator, left, NativeLocationPath.stringValue(r))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return compareValues(operator, left, right);
+    }
+
+    private static boolean compareValues(final int operator, final Object left, final Object right) {
+        if ((operator == EQ) || (operator == NE)) {
+            final boolean isEqual;
+            if ((left instanceof Boolean) || (right instanceof Boolean)) {
+                isEqual = toBoolean(left) == toBoolean(right);
+            } else if ((left instanceof Double) || (right instanceof Double)) {
+                isEqual = toNumber(left) == toNumber(right);
+            } else {
+                isEqual = left.equals(right);
+            }
+            return isEqual == (operator == EQ);
+        }
+        final double l = toNumber(left);
+        final double r = toNumber(right);
+        switch (operator) {
+        case LT:
+            return l < r;
+        case LE:
+            return l <= r;
+        case GT:
+            return l > r;
+        default:
+            return l >= r;
+        }
+    }
+}
@@ -0,0 +1,882 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern.duplex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPathVariableResolver;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
+
+/**
+ * Evaluates simple location paths by walking the DOM directly instead of going through JAXP.
+ * Supported are absolute and relative paths of child and attribute steps with name tests or
+ * wildcards, leading "." and ".." steps, and predicates that are positions or expressions
+ * supported by {@link NativeExpression}. Child steps after "//" are supported if their
+ * predicates do not depend on the position, optionally looking up the elements in the
+ * {@link DocumentIndex} instead of walking the tree. Everything else is rejected by
+ * {@link #compile(DuplexExpression, NamespaceContext)}, so the caller can fall back to JAXP.
+ * <p>
+ * With the option {@link NativeExpression#KEY_INDEX}, an absolute path like
+ * /catalog/item[@id=$PARAM0] or //item[name='a'] looks up the elements in a key index held by the
+ * {@link DocumentIndex}: The first predicate of the step must compare an attribute or a child
+ * element to a literal or variable, the steps before must not have predicates. The index maps
+ * each key value to the elements in document order. It is built on the first lookup and dropped
+ * by any change of the document.
+ * </p>
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class NativeLocationPath {
+
+    private static final int CHILD = 0;
+    private static final int ATTRIBUTE = 1;
+    private static final int PARENT = 2;
+    private static final int SELF = 3;
+    private static final int DESCENDANT = 4;
+
+    private interface Predicate {
+        List<Node> filter(List<Node> nodes, XPathVariableResolver resolver);
+    }
+
+    private static final class Step {
+        private final int axis;
+        private final String namespaceURI;
+        private final String localName;
+        private final Predicate[] predicates;
+        private final boolean useElementIndex;
+
+        Step(final int axis, final String namespaceURI, final String localName, final Predicate[] predicates) {
+            this(axis, namespaceURI, localName, predicates, false);
+        }
+
+        Step(final int axis, final String namespaceURI, final String localName, final Predicate[] predicates, final boolean useElementIndex) {
+            this.axis = axis;
+            this.namespaceURI = namespaceURI;
+            this.localName = localName;
+            this.predicates = predicates;
+            this.useElementIndex = useElementIndex;
+        }
+
+        /**
+         * @return this child step as step of "//", or null if a predicate depends on the position.
+         */
+        Step toDescendantStep(final boolean useIndex) {
+            if (axis != CHILD) {
+                return null;
+            }
+            for (Predicate predicate : predicates) {
+                if (!((predicate instanceof ExpressionPredicate) && ((ExpressionPredicate) predicate).isPositionIndependent)) {
+                    return null;
+                }
+            }
+            return new Step(DESCENDANT, namespaceURI, localName, predicates, useIndex);
+        }
+
+        void select(final Node context, final List<Node> result, final XPathVariableResolver resolver) {
+            List<Node> selected = new ArrayList<Node>();
+            switch (axis) {
+            case SELF:
+                selected.add(context);
+                break;
+            case PARENT:
+                final Node parent = context.getNodeType() == Node.ATTRIBUTE_NODE ? ((Attr) context).getOwnerElement() : context.getParentNode();
+                if (parent != null) {
+                    selected.add(parent);
+                }
+                break;
+            case CHILD:
+                if ((context.getNodeType() != Node.ELEMENT_NODE) && (context.getNodeType() != Node.DOCUMENT_NODE)) {
+                    return;
+                }
+                for (Node child = context.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    if ((child.getNodeType() == Node.ELEMENT_NODE) && matches(child)) {
+                        selected.add(child);
+                    }
+                }
+                break;
+            case DESCENDANT:
+                if ((context.getNodeType() != Node.ELEMENT_NODE) && (context.getNodeType() != Node.DOCUMENT_NODE)) {
+                    return;
+                }
+                // Only elements attached to the document are indexed.
+                final List<Node> indexed = useElementIndex && (localName != null) && ((context.getNodeType() == Node.DOCUMENT_NODE) || isDescendant(context, context.getOwnerDocument())) ? DocumentIndex.forDocument(DOMHelper.getOwnerDocumentFor(context)).getElementsByName(namespaceURI, localName) : null;
+                if (indexed == null) {
+                    for (Node node = context.getFirstChild(); node != null; node = nextInDocumentOrder(node, context)) {
+                        if ((node.getNodeType() == Node.ELEMENT_NODE) && matches(node)) {
+                            selected.add(node);
+                        }
+                    }
+                } else if (context.getNodeType() == Node.DOCUMENT_NODE) {
+                    selected = indexed;
+                } else {
+                    final boolean isRoot = context.getParentNode() == context.getOwnerDocument();
+                    for (Node node : indexed) {
+                        if ((node != context) && (isRoot || isDescendant(node, context))) {
+                            selected.add(node);
+                        }
+                    }
+                }
+                break;
+            case ATTRIBUTE:
+                final NamedNodeMap attributes = context.getAttributes();
+                if ((attributes == null) || (context.getNodeType() != Node.ELEMENT_NODE)) {
+                    return;
+                }
+                for (int i = 0; i < attributes.getLength(); ++i) {
+                    final Node attribute = attributes.item(i);
+                    if ((!isNamespaceDeclaration(attribute)) && matches(attribute)) {
+                        selected.add(attribute);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException();
+            }
+            for (Predicate predicate : predicates) {
+                if (selected.isEmpty()) {
+                    return;
+                }
+                selected = predicate.filter(selected, resolver);
+            }
+            result.addAll(selected);
+        }
+
+        private boolean matches(final Node node) {
+            if (localName == null) {
+                return true;
+            }
+            final String nodeLocalName = node.getLocalName();
+            if (nodeLocalName == null) {
+                // DOM level 1 node without namespace support
+                return (namespaceURI == null) && localName.equals(node.getNodeName());
+            }
+            if (!localName.equals(nodeLocalName)) {
+                return false;
+            }
+            final String nodeNamespaceURI = node.getNamespaceURI();
+            if ((nodeNamespaceURI == null) || nodeNamespaceURI.isEmpty()) {
+                return namespaceURI == null;
+            }
+            return nodeNamespaceURI.equals(namespaceURI);
+        }
+    }
+
+    private static final class PositionPredicate implements Predicate {
+        private final int position;
+
+        PositionPredicate(final int position) {
+            this.position = position;
+        }
+
+        @Override
+        public List<Node> filter(final List<Node> nodes, final XPathVariableResolver resolver) {
+            if ((position < 1) || (position > nodes.size())) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(nodes.get(position - 1));
+        }
+    }
+
+    private static class ExpressionPredicate implements Predicate {
+        private final NativeExpression.Evaluable condition;
+        /**
+         * True if the condition never evaluates to a number, which would be compared to the
+         * position.
+         */
+        private final boolean isPositionIndependent;
+
+        ExpressionPredicate(final NativeExpression.Evaluable condition, final boolean isPositionIndependent) {
+            this.condition = condition;
+            this.isPositionIndependent = isPositionIndependent;
+        }
+
+        @Override
+        public List<Node> filter(final List<Node> nodes, final XPathVariableResolver resolver) {
+            final List<Node> result = new ArrayList<Node>(nodes.size());
+            for (int i = 0; i < nodes.size(); ++i) {
+                final Object value = condition.evaluate(nodes.get(i), resolver);
+                if (value instanceof Double ? ((Double) value).doubleValue() == (i + 1) : NativeExpression.toBoolean(value)) {
+                    result.add(nodes.get(i));
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Equality predicate comparing a key of the element, an attribute or a child element, to a
+     * value not depending on the context. It filters like any other expression predicate, but the
+     * path may use it to look up a key index instead.
+     */
+    private static final class KeyPredicate extends ExpressionPredicate {
+        private final Step key;
+        private final NativeExpression.Evaluable value;
+
+        KeyPredicate(final NativeExpression.Evaluable condition, final Step key, final NativeExpression.Evaluable value) {
+            super(condition, true);
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final boolean isAbsolute;
+    private final Step[] steps;
+    /**
+     * Index of the step with a key predicate to be looked up in the key index, -1 if none.
+     */
+    private final int keyStep;
+    /**
+     * Identifies the key index in the {@link DocumentIndex}, built from the steps up to the key
+     * step and the key.
+     */
+    private final String keyIndexId;
+
+    private NativeLocationPath(final boolean isAbsolute, final Step[] steps) {
+        this.isAbsolute = isAbsolute;
+        this.steps = steps;
+        this.keyStep = findKeyStep(isAbsolute, steps);
+        this.keyIndexId = keyStep < 0 ? null : toKeyIndexId(steps, keyStep);
+    }
+
+    private static int findKeyStep(final boolean isAbsolute, final Step[] steps) {
+        if (!isAbsolute) {
+            return -1;
+        }
+        for (int i = 0; i < steps.length; ++i) {
+            final Step step = steps[i];
+            if ((step.axis != CHILD) && (step.axis != DESCENDANT) && (step.axis != SELF)) {
+                return -1;
+            }
+            if (step.predicates.length == 0) {
+                continue;
+            }
+            if (!(step.predicates[0] instanceof KeyPredicate)) {
+                return -1;
+            }
+            // The index does not group the elements by parent, so positions can not be resolved.
+            for (int j = 1; j < step.predicates.length; ++j) {
+                if (!((step.predicates[j] instanceof ExpressionPredicate) && ((ExpressionPredicate) step.predicates[j]).isPositionIndependent)) {
+                    return -1;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String toKeyIndexId(final Step[] steps, final int keyStep) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i <= keyStep; ++i) {
+            builder.append(steps[i].axis == DESCENDANT ? "//" : "/");
+            appendName(builder, steps[i].axis == SELF ? "." : steps[i].localName, steps[i].namespaceURI);
+        }
+        final Step key = ((KeyPredicate) steps[keyStep].predicates[0]).key;
+        builder.append(key.axis == ATTRIBUTE ? "[@" : "[");
+        appendName(builder, key.localName, key.namespaceURI);
+        return builder.append(']').toString();
+    }
+
+    private static void appendName(final StringBuilder builder, final String localName, final String namespaceURI) {
+        if (namespaceURI != null) {
+            builder.append('{').append(namespaceURI).append('}');
+        }
+        builder.append(localName == null ? "*" : localName);
+    }
+
+    /**
+     * @param expression
+     * @param namespaceContext
+     *            used to resolve prefixes of name tests, may be null
+     * @return an evaluator for the expression or null if the expression is not supported.
+     */
+    public static NativeLocationPath compile(final DuplexExpression expression, final NamespaceContext namespaceContext) {
+        return compile(expression, namespaceContext, 0);
+    }
+
+    /**
+     * @param expression
+     * @param namespaceContext
+     *            used to resolve prefixes of name tests, may be null
+     * @param options
+     *            see {@link NativeExpression#compile(DuplexExpression, NamespaceContext, int)}
+     * @return an evaluator for the expression or null if the expression is not supported.
+     */
+    public static NativeLocationPath compile(final DuplexExpression expression, final NamespaceContext namespaceContext, final int options) {
+        final SimpleNode xpath = expression.getRootNode().getFirstChildWithId(XParserTreeConstants.JJTXPATH);
+        if ((xpath == null) || (xpath.jjtGetNumChildren() != 1)) {
+            return null;
+        }
+        final SimpleNode expr = (SimpleNode) xpath.jjtGetChild(0);
+        if ((expr.getID() != XParserTreeConstants.JJTEXPR) || (expr.jjtGetNumChildren() != 1)) {
+            return null;
+        }
+        return compilePath((SimpleNode) expr.jjtGetChild(0), namespaceContext, options);
+    }
+
+    /**
+     * @param item
+     *            context node
+     * @param resolver
+     *            resolver for variables used in predicates, may be null
+     * @return selected nodes in document order, or null if a variable value is not supported.
+     */
+    public List<Node> evaluate(final Node item, final XPathVariableResolver resolver) {
+        try {
+            return select(item, resolver);
+        } catch (NativeExpression.UnsupportedValueException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Tells if a change of the children, attributes or text of an element may change the nodes
+     * selected by this path. Changes below the selected nodes do not change the selection, unless
+     * a predicate may depend on them. The values of the selected nodes may change anyway.
+     *
+     * @param item
+     *            context node
+     * @param element
+     *            changed element or document
+     * @return false if the change can not affect the selection, true if it may.
+     */
+    public boolean isAffectedBy(final Node item, final Node element) {
+        final Node context = isAbsolute && (item.getNodeType() != Node.DOCUMENT_NODE) ? item.getOwnerDocument() : item;
+        // Ancestors of the changed element up to the context, nearest first
+        final List<Node> ancestors = new ArrayList<Node>();
+        for (Node node = element; node != context; node = node.getParentNode()) {
+            if (node == null) {
+                // Not below the context
+                return false;
+            }
+            ancestors.add(node);
+        }
+        int depth = 0;
+        for (Step step : steps) {
+            if (step.axis == SELF) {
+                continue;
+            }
+            if ((step.axis != CHILD) && (step.axis != ATTRIBUTE)) {
+                return true;
+            }
+            if (depth == ancestors.size()) {
+                // The changed element holds the candidates of this step.
+                return true;
+            }
+            final Node node = ancestors.get(ancestors.size() - 1 - depth);
+            if ((step.axis == ATTRIBUTE) || !step.matches(node)) {
+                return false;
+            }
+            if (step.predicates.length > 0) {
+                return true;
+            }
+            ++depth;
+        }
+        return false;
+    }
+
+    /**
+     * @param node
+     * @return the XPath string value of the node
+     */
+    public static String stringValue(final Node node) {
+        if (node.getNodeType() == Node.DOCUMENT_NODE) {
+            final Node root = ((Document) node).getDocumentElement();
+            return root == null ? "" : root.getTextContent();
+        }
+        final String value = node.getTextContent();
+        return value == null ? "" : value;
+    }
+
+    private static boolean isNamespaceDeclaration(final Node attribute) {
+        if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+            return true;
+        }
+        final String name = attribute.getNodeName();
+        return XMLConstants.XMLNS_ATTRIBUTE.equals(name) || name.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":");
+    }
+
+    List<Node> select(final Node item, final XPathVariableResolver resolver) {
+        final Node start = isAbsolute && (item.getNodeType() != Node.DOCUMENT_NODE) ? item.getOwnerDocument() : item;
+        List<Node> context = keyStep < 0 ? null : lookUpKey(start, resolver);
+        int first = 0;
+        // After "//" the context may contain elements and their descendants. Child steps on such
+        // a context do not select in document order.
+        boolean mayBeNested = false;
+        if (context == null) {
+            context = Collections.singletonList(start);
+        } else {
+            first = keyStep + 1;
+            for (int i = 0; i < first; ++i) {
+                mayBeNested |= steps[i].axis == DESCENDANT;
+            }
+        }
+        boolean isOrdered = true;
+        for (int i = first; i < steps.length; ++i) {
+            final Step step = steps[i];
+            if (context.isEmpty()) {
+                return context;
+            }
+            if ((step.axis == DESCENDANT) && !isOrdered) {
+                context = sortInDocumentOrder(context);
+                isOrdered = true;
+            }
+            final List<Node> result = new ArrayList<Node>();
+            Node outer = null;
+            for (Node node : context) {
+                if (step.axis == DESCENDANT) {
+                    // Descendants of nested nodes were selected with the outer node already.
+                    if ((outer != null) && isDescendant(node, outer)) {
+                        continue;
+                    }
+                    outer = node;
+                }
+                step.select(node, result, resolver);
+            }
+            if ((step.axis == CHILD) && mayBeNested && (context.size() > 1)) {
+                isOrdered = false;
+            }
+            mayBeNested |= step.axis == DESCENDANT;
+            context = result;
+        }
+        return isOrdered ? context : sortInDocumentOrder(context);
+    }
+
+    /**
+     * @param document
+     * @param resolver
+     * @return the elements selected by the steps up to the key step, or null if the key index
+     *         can not be used.
+     */
+    private List<Node> lookUpKey(final Node document, final XPathVariableResolver resolver) {
+        if (document.getNodeType() != Node.DOCUMENT_NODE) {
+            return null;
+        }
+        final Step step = steps[keyStep];
+        final KeyPredicate keyPredicate = (KeyPredicate) step.predicates[0];
+        final Object value = keyPredicate.value.evaluate(document, resolver);
+        final Map<Object, List<Node>> index;
+        final Object key;
+        if (value instanceof String) {
+            index = getKeyIndex((Document) document, false);
+            key = value;
+        } else if (value instanceof Double) {
+            index = getKeyIndex((Document) document, true);
+            key = normalizeNumber((Double) value);
+        } else {
+            // Booleans are compared to the existence of the key.
+            return null;
+        }
+        if (index == null) {
+            return null;
+        }
+        final List<Node> elements = index.get(key);
+        if (elements == null) {
+            return Collections.emptyList();
+        }
+        List<Node> result = new ArrayList<Node>(elements);
+        for (int i = 1; (i < step.predicates.length) && !result.isEmpty(); ++i) {
+            result = step.predicates[i].filter(result, resolver);
+        }
+        return result;
+    }
+
+    /**
+     * @param isNumeric
+     *            true for the index of keys compared to numbers, which are compared by their
+     *            numeric value
+     * @return the key index, or null if the document can not be indexed.
+     */
+    private Map<Object, List<Node>> getKeyIndex(final Document document, final boolean isNumeric) {
+        return DocumentIndex.forDocument(document).getIndex(isNumeric ? keyIndexId + "#number" : keyIndexId, new KeyIndexBuilder(isNumeric));
+    }
+
+    private final class KeyIndexBuilder implements DocumentIndex.IndexBuilder<Map<Object, List<Node>>> {
+        private final boolean isNumeric;
+
+        KeyIndexBuilder(final boolean isNumeric) {
+            this.isNumeric = isNumeric;
+        }
+
+        @Override
+        public Map<Object, List<Node>> build(final Document document) {
+            return isNumeric ? buildNumericKeyIndex(getKeyIndex(document, false)) : buildKeyIndex(document);
+        }
+    }
+
+    private Map<Object, List<Node>> buildKeyIndex(final Document document) {
+        final Step[] keyedSteps = new Step[keyStep + 1];
+        System.arraycopy(steps, 0, keyedSteps, 0, keyStep);
+        final Step step = steps[keyStep];
+        keyedSteps[keyStep] = new Step(step.axis, step.namespaceURI, step.localName, new Predicate[0], step.useElementIndex);
+        final Step key = ((KeyPredicate) step.predicates[0]).key;
+        final Map<Object, List<Node>> index = new HashMap<Object, List<Node>>();
+        for (Node element : new NativeLocationPath(true, keyedSteps).select(document, null)) {
+            final List<Node> keys = new ArrayList<Node>(1);
+            key.select(element, keys, null);
+            for (Node node : keys) {
+                addToIndex(index, stringValue(node), element);
+            }
+        }
+        return index;
+    }
+
+    private static Map<Object, List<Node>> buildNumericKeyIndex(final Map<Object, List<Node>> keyIndex) {
+        final Map<Object, List<Node>> index = new HashMap<Object, List<Node>>();
+        boolean isMerged = false;
+        for (Map.Entry<Object, List<Node>> entry : keyIndex.entrySet()) {
+            final double number = NativeExpression.toNumber(entry.getKey());
+            if (Double.isNaN(number)) {
+                continue;
+            }
+            final Double key = normalizeNumber(number);
+            final List<Node> elements = index.get(key);
+            if (elements == null) {
+                index.put(key, entry.getValue());
+                continue;
+            }
+            // Different strings with the same value, like "1" and "01".
+            final List<Node> merged = new ArrayList<Node>(elements);
+            for (Node element : entry.getValue()) {
+                if (!merged.contains(element)) {
+                    merged.add(element);
+                }
+            }
+            index.put(key, merged);
+            isMerged = true;
+        }
+        if (isMerged) {
+            for (Map.Entry<Object, List<Node>> entry : index.entrySet()) {
+                entry.setValue(sortInDocumentOrder(entry.getValue()));
+            }
+        }
+        return index;
+    }
+
+    private static void addToIndex(final Map<Object, List<Node>> index, final Object key, final Node element) {
+        List<Node> elements = index.get(key);
+        if (elements == null) {
+            elements = new ArrayList<Node>(1);
+            index.put(key, elements);
+        } else if (elements.get(elements.size() - 1) == element) {
+            // Element with more than one key of the same value
+            return;
+        }
+        elements.add(element);
+    }
+
+    private static Double normalizeNumber(final double number) {
+        // 0 and -0 are equal in XPath.
+        return number == 0 ? 0d : number;
+    }
+
+    private static List<Node> sortInDocumentOrder(final List<Node> nodes) {
+        final List<Node> sorted = new ArrayList<Node>(nodes);
+        Collections.sort(sorted, new Comparator<Node>() {
+            @Override
+            public int compare(final Node a, final Node b) {
+                if (a == b) {
+                    return 0;
+                }
+                return (a.compareDocumentPosition(b) & Node.DOCUMENT_POSITION_FOLLOWING) != 0 ? -1 : 1;
+            }
+        });
+        return sorted;
+    }
+
+    private static boolean isDescendant(final Node node, final Node ancestor) {
+        for (Node parent = node.getParentNode(); parent != null; parent = parent.getParentNode()) {
+            if (parent == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Node nextInDocumentOrder(final Node node, final Node root) {
+        if (node.getFirstChild() != null) {
+            return node.getFirstChild();
+        }
+        for (Node n = node; (n != null) && (n != root); n = n.getParentNode()) {
+            if (n.getNextSibling() != null) {
+                return n.getNextSibling();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the path as forward only path matching StAX events
+     * @throws IllegalArgumentException
+     *             with the reason if the path can not be evaluated while streaming.
+     */
+    StreamingPath toStreamingPath() {
+        final List<Step> elementSteps = new ArrayList<Step>(steps.length);
+        Step attributeStep = null;
+        for (Step step : steps) {
+            if (step.axis == SELF) {
+                continue;
+            }
+            if (step.axis == PARENT) {
+                throw new IllegalArgumentException("it steps up to a parent node");
+            }
+            if (step.axis == DESCENDANT) {
+                throw new IllegalArgumentException("it selects descendants");
+            }
+            if (attributeStep != null) {
+                throw new IllegalArgumentException("it selects children of an attribute");
+            }
+            if ((step.predicates.length > 1) || ((step.predicates.length == 1) && !(step.predicates[0] instanceof PositionPredicate))) {
+                throw new IllegalArgumentException("it has a predicate that is not a position");
+            }
+            if (step.axis == ATTRIBUTE) {
+                attributeStep = step;
+            } else {
+                elementSteps.add(step);
+            }
+        }
+        final int size = elementSteps.size();
+        final String[] namespaceURIs = new String[size];
+        final String[] localNames = new String[size];
+        final int[] positions = new int[size];
+        for (int i = 0; i < size; ++i) {
+            final Step step = elementSteps.get(i);
+            namespaceURIs[i] = step.namespaceURI;
+            localNames[i] = step.localName;
+            positions[i] = step.predicates.length == 0 ? 0 : ((PositionPredicate) step.predicates[0]).position;
+        }
+        return new StreamingPath(isAbsolute, namespaceURIs, localNames, positions, attributeStep != null, attributeStep == null ? null : attributeStep.namespaceURI, attributeStep == null ? null : attributeStep.localName);
+    }
+
+    /**
+     * @param node
+     * @param namespaceContext
+     * @return evaluator for the path or null if the node is not a supported location path.
+     */
+    static NativeLocationPath compilePath(final SimpleNode node, final NamespaceContext namespaceContext, final int options) {
+        if (node.getID() == XParserTreeConstants.JJTSTEPEXPR) {
+            final Step step = compileStep(node, namespaceContext, options);
+            return step == null ? null : new NativeLocationPath(false, new Step[] { step });
+        }
+        if (node.getID() == XParserTreeConstants.JJTSLASH) {
+            return new NativeLocationPath(true, new Step[0]);
+        }
+        if (node.getID() != XParserTreeConstants.JJTPATHEXPR) {
+            return null;
+        }
+        final int numChildren = node.jjtGetNumChildren();
+        final int first = ((SimpleNode) node.jjtGetChild(0)).getID();
+        final boolean isAbsolute = (first == XParserTreeConstants.JJTSLASH) || (first == XParserTreeConstants.JJTSLASHSLASH);
+        final List<Step> steps = new ArrayList<Step>(numChildren);
+        boolean mayStepUp = true;
+        boolean isDescendantStep = false;
+        for (int i = first == XParserTreeConstants.JJTSLASH ? 1 : 0; i < numChildren; ++i) {
+            final SimpleNode child = (SimpleNode) node.jjtGetChild(i);
+            if ((child.getID() == XParserTreeConstants.JJTSLASHSLASH) && !isDescendantStep) {
+                isDescendantStep = true;
+                continue;
+            }
+            if (child.getID() != XParserTreeConstants.JJTSTEPEXPR) {
+                return null;
+            }
+            Step step = compileStep(child, namespaceContext, options);
+            if ((step != null) && isDescendantStep) {
+                step = step.toDescendantStep((options & NativeExpression.ELEMENT_INDEX) != 0);
+                isDescendantStep = false;
+            }
+            if (step == null) {
+                return null;
+            }
+            // Parent steps after a step selecting more than one node would need sorting.
+            if ((step.axis == PARENT) && !mayStepUp) {
+                return null;
+            }
+            mayStepUp &= (step.axis == PARENT) || (step.axis == SELF);
+            steps.add(step);
+        }
+        if (isDescendantStep) {
+            return null;
+        }
+        return new NativeLocationPath(isAbsolute, steps.toArray(new Step[steps.size()]));
+    }
+
+    private static Step compileStep(final SimpleNode stepExpr, final NamespaceContext namespaceContext, final int options) {
+        final int numChildren = stepExpr.jjtGetNumChildren();
+        if (numChildren < 1) {
+            return null;
+        }
+        final SimpleNode first = (SimpleNode) stepExpr.jjtGetChild(0);
+        int axis;
+        SimpleNode nodeTest;
+        int next = 1;
+        switch (first.getID()) {
+        case XParserTreeConstants.JJTCONTEXTITEMEXPR:
+            return numChildren == 1 ? new Step(SELF, null, null, new Predicate[0]) : null;
+        case XParserTreeConstants.JJTABBREVREVERSESTEP:
+            return numChildren == 1 ? new Step(PARENT, null, null, new Predicate[0]) : null;
+        case XParserTreeConstants.JJTABBREVFORWARDSTEP:
+            axis = "@".equals(first.getValue()) ? ATTRIBUTE : CHILD;
+            if (first.jjtGetNumChildren() != 1) {
+                return null;
+            }
+            nodeTest = (SimpleNode) first.jjtGetChild(0);
+            break;
+        case XParserTreeConstants.JJTFORWARDAXIS:
+            if ("child".equals(first.getValue())) {
+                axis = CHILD;
+            } else if ("attribute".equals(first.getValue())) {
+                axis = ATTRIBUTE;
+            } else {
+                return null;
+            }
+            if (numChildren < 2) {
+                return null;
+            }
+            nodeTest = (SimpleNode) stepExpr.jjtGetChild(1);
+            next = 2;
+            break;
+        default:
+            return null;
+        }
+        if ((nodeTest.getID() != XParserTreeConstants.JJTNODETEST) || (nodeTest.jjtGetNumChildren() != 1)) {
+            return null;
+        }
+        final SimpleNode nameTest = (SimpleNode) nodeTest.jjtGetChild(0);
+        if ((nameTest.getID() != XParserTreeConstants.JJTNAMETEST) || (nameTest.jjtGetNumChildren() != 1)) {
+            return null;
+        }
+        final SimpleNode name = (SimpleNode) nameTest.jjtGetChild(0);
+        String namespaceURI = null;
+        String localName = null;
+        if (name.getID() == XParserTreeConstants.JJTQNAME) {
+            localName = name.getValue();
+            final int colon = localName.indexOf(':');
+            if (colon >= 0) {
+                if (namespaceContext == null) {
+                    return null;
+                }
+                namespaceURI = namespaceContext.getNamespaceURI(localName.substring(0, colon));
+                if ((namespaceURI == null) || XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
+                    return null;
+                }
+                localName = localName.substring(colon + 1);
+            }
+        } else if (name.getID() != XParserTreeConstants.JJTWILDCARD) {
+            return null;
+        }
+        final List<Predicate> predicates = new ArrayList<Predicate>();
+        if (next < numChildren) {
+            final SimpleNode predicateList = (SimpleNode) stepExpr.jjtGetChild(next);
+            if ((predicateList.getID() != XParserTreeConstants.JJTPREDICATELIST) || ((next + 1) != numChildren)) {
+                return null;
+            }
+            if ((axis == ATTRIBUTE) && (predicateList.jjtGetNumChildren() > 0)) {
+                return null;
+            }
+            for (int i = 0; i < predicateList.jjtGetNumChildren(); ++i) {
+                final Predicate predicate = compilePredicate((SimpleNode) predicateList.jjtGetChild(i), namespaceContext, options);
+                if (predicate == null) {
+                    return null;
+                }
+                predicates.add(predicate);
+            }
+        }
+        return new Step(axis, namespaceURI, localName, predicates.toArray(new Predicate[predicates.size()]));
+    }
+
+    private static Predicate compilePredicate(final SimpleNode predicate, final NamespaceContext namespaceContext, final int options) {
+        if ((predicate.getID() != XParserTreeConstants.JJTPREDICATE) || (predicate.jjtGetNumChildren() != 1)) {
+            return null;
+        }
+        final SimpleNode expr = (SimpleNode) predicate.jjtGetChild(0);
+        if ((expr.getID() != XParserTreeConstants.JJTEXPR) || (expr.jjtGetNumChildren() != 1)) {
+            return null;
+        }
+        final SimpleNode condition = (SimpleNode) expr.jjtGetChild(0);
+        if (condition.getID() == XParserTreeConstants.JJTINTEGERLITERAL) {
+            try {
+                return new PositionPredicate(Integer.parseInt(condition.getValue()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        final NativeExpression.Evaluable evaluable = NativeExpression.compileEvaluable(condition, namespaceContext, options);
+        if (evaluable == null) {
+            return null;
+        }
+        if ((options & NativeExpression.KEY_INDEX) != 0) {
+            final KeyPredicate keyPredicate = compileKeyPredicate(condition, evaluable, namespaceContext);
+            if (keyPredicate != null) {
+                return keyPredicate;
+            }
+        }
+        return new ExpressionPredicate(evaluable, isNeverNumber(condition));
+    }
+
+    /**
+     * @return the predicate if the condition compares an attribute or child element to a literal
+     *         or variable, else null.
+     */
+    private static KeyPredicate compileKeyPredicate(final SimpleNode condition, final NativeExpression.Evaluable evaluable, final NamespaceContext namespaceContext) {
+        if ((condition.getID() != XParserTreeConstants.JJTCOMPARISONEXPR) || !"=".equals(condition.getValue()) || (condition.jjtGetNumChildren() != 2)) {
+            return null;
+        }
+        for (int i = 0; i < 2; ++i) {
+            final NativeLocationPath key = compilePath((SimpleNode) condition.jjtGetChild(i), namespaceContext, 0);
+            if ((key == null) || key.isAbsolute || (key.steps.length != 1)) {
+                continue;
+            }
+            final Step keyStep = key.steps[0];
+            if (((keyStep.axis != CHILD) && (keyStep.axis != ATTRIBUTE)) || (keyStep.localName == null) || (keyStep.predicates.length != 0)) {
+                continue;
+            }
+            final NativeExpression.Evaluable value = NativeExpression.compileEvaluable((SimpleNode) condition.jjtGetChild(1 - i), namespaceContext, 0);
+            if ((value != null) && NativeExpression.isValue(value)) {
+                return new KeyPredicate(evaluable, keyStep, value);
+            }
+        }
+        return null;
+    }
+
+    private static boolean isNeverNumber(final SimpleNode condition) {
+        switch (condition.getID()) {
+        case XParserTreeConstants.JJTCOMPARISONEXPR:
+        case XParserTreeConstants.JJTOREXPR:
+        case XParserTreeConstants.JJTANDEXPR:
+        case XParserTreeConstants.JJTPATHEXPR:
+        case XParserTreeConstants.JJTSTEPEXPR:
+        case XParserTreeConstants.JJTSTRINGLITERAL:
+            return true;
+        case XParserTreeConstants.JJTFUNCTIONCALL:
+            final String name = ((SimpleNode) condition.jjtGetChild(0)).getValue();
+            return "not".equals(name) || "boolean".equals(name) || "contains".equals(name) || "starts-with".equals(name) || "true".equals(name) || "false".equals(name);
+        default:
+            return false;
+        }
+    }
+}
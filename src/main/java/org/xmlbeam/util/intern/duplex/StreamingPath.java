@@ -0,0 +1,183 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern.duplex;
+
+import javax.xml.namespace.NamespaceContext;
+
+/**
+ * A location path that can be matched against a stream of start and end element events. Only
+ * child steps, optionally with a position predicate, and a final attribute step are allowed. The
+ * state of the matching is kept by the caller, this class just provides the steps.
+ *
+ * @author <a href="https://github.com/SvenEwald">Sven Ewald</a>
+ */
+public final class StreamingPath {
+
+    private final boolean isAbsolute;
+    private final String[] namespaceURIs;
+    private final String[] localNames;
+    private final int[] positions;
+    private final boolean selectsAttribute;
+    private final String attributeNamespaceURI;
+    private final String attributeLocalName;
+
+    StreamingPath(final boolean isAbsolute, final String[] namespaceURIs, final String[] localNames, final int[] positions, final boolean selectsAttribute, final String attributeNamespaceURI, final String attributeLocalName) {
+        this.isAbsolute = isAbsolute;
+        this.namespaceURIs = namespaceURIs;
+        this.localNames = localNames;
+        this.positions = positions;
+        this.selectsAttribute = selectsAttribute;
+        this.attributeNamespaceURI = attributeNamespaceURI;
+        this.attributeLocalName = attributeLocalName;
+    }
+
+    /**
+     * @param expression
+     * @param namespaceContext
+     *            used to resolve prefixes of name tests, may be null
+     * @return the path
+     * @throws IllegalArgumentException
+     *             with the reason if the expression can not be evaluated while streaming.
+     */
+    public static StreamingPath compile(final DuplexExpression expression, final NamespaceContext namespaceContext) {
+        final NativeLocationPath path = NativeLocationPath.compile(expression, namespaceContext);
+        if (path == null) {
+            throw new IllegalArgumentException(diagnose(expression.getRootNode()));
+        }
+        return path.toStreamingPath();
+    }
+
+    private static String diagnose(final SimpleNode node) {
+        switch (node.getID()) {
+        case XParserTreeConstants.JJTABBREVREVERSESTEP:
+            return "it steps up to a parent node";
+        case XParserTreeConstants.JJTREVERSEAXIS:
+            return "it uses the reverse axis " + node.getValue();
+        case XParserTreeConstants.JJTSLASHSLASH:
+            return "it selects descendants";
+        case XParserTreeConstants.JJTFUNCTIONCALL:
+            return "it calls a function";
+        case XParserTreeConstants.JJTFORWARDAXIS:
+            if (!("child".equals(node.getValue()) || "attribute".equals(node.getValue()))) {
+                return "it uses the axis " + node.getValue();
+            }
+            break;
+        default:
+            break;
+        }
+        for (int i = 0; i < node.jjtGetNumChildren(); ++i) {
+            final String reason = diagnose((SimpleNode) node.jjtGetChild(i));
+            if (reason != null) {
+                return reason;
+            }
+        }
+        return node.getID() == XParserTreeConstants.JJTSTART ? "it is not a simple location path" : null;
+    }
+
+    /**
+     * @return true if the path starts at the document.
+     */
+    public boolean isAbsolute() {
+        return isAbsolute;
+    }
+
+    /**
+     * @return number of child steps
+     */
+    public int getElementStepCount() {
+        return localNames.length;
+    }
+
+    /**
+     * @param step
+     * @return the position required by the predicate of the child step, 0 if there is none.
+     */
+    public int getPosition(final int step) {
+        return positions[step];
+    }
+
+    /**
+     * @param step
+     * @return namespace URI of the name test of the child step, null if it has no namespace.
+     */
+    public String getNamespaceURI(final int step) {
+        return namespaceURIs[step];
+    }
+
+    /**
+     * @param step
+     * @return local name of the name test of the child step, null for a wildcard.
+     */
+    public String getLocalName(final int step) {
+        return localNames[step];
+    }
+
+    /**
+     * @param step
+     * @param namespaceURI
+     *            null or empty if the element has no namespace
+     * @param localName
+     * @return true if the element matches the name test of the child step.
+     */
+    public boolean matchesElement(final int step, final String namespaceURI, final String localName) {
+        return matches(namespaceURIs[step], localNames[step], namespaceURI, localName);
+    }
+
+    /**
+     * @return true if the last step selects attributes.
+     */
+    public boolean selectsAttribute() {
+        return selectsAttribute;
+    }
+
+    /**
+     * @return namespace URI of the attribute step, null if it has no namespace.
+     */
+    public String getAttributeNamespaceURI() {
+        return attributeNamespaceURI;
+    }
+
+    /**
+     * @return local name of the attribute step, null for a wildcard or if there is no attribute
+     *         step.
+     */
+    public String getAttributeLocalName() {
+        return attributeLocalName;
+    }
+
+    /**
+     * @param namespaceURI
+     *            null or empty if the attribute has no namespace
+     * @param localName
+     * @return true if the attribute matches the name test of the attribute step.
+     */
+    public boolean matchesAttribute(final String namespaceURI, final String localName) {
+        return matches(attributeNamespaceURI, attributeLocalName, namespaceURI, localName);
+    }
+
+    private static boolean matches(final String testNamespaceURI, final String testLocalName, final String namespaceURI, final String localName) {
+        if (testLocalName == null) {
+            return true;
+        }
+        if (!testLocalName.equals(localName)) {
+            return false;
+        }
+        if ((namespaceURI == null) || namespaceURI.isEmpty()) {
+            return testNamespaceURI == null;
+        }
+        return namespaceURI.equals(testNamespaceURI);
+    }
+}
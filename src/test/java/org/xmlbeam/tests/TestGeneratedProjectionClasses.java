@@ -0,0 +1,207 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.XBProjector.Flags;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.dom.DOMAccess;
+
+/**
+ * Projections implemented by generated classes must behave like proxy based projections.
+ */
+@SuppressWarnings("javadoc")
+public class TestGeneratedProjectionClasses {
+
+    private static final String XML = "<root><name>foo</name><count>42</count><big>12345678901</big><ratio>0.5</ratio><flag>true</flag><item>a</item><item>b</item><sub><name>bar</name></sub></root>";
+
+    public interface Sub {
+        @XBRead("./name")
+        String getName();
+    }
+
+    public interface Greeting {
+        String greet();
+    }
+
+    public static class MissingException extends Exception {
+        public MissingException() {
+        }
+    }
+
+    public interface Projection extends Greeting {
+        @XBRead("/root/name")
+        String getName();
+
+        @XBRead("/root/count")
+        int getCount();
+
+        @XBRead("/root/big")
+        long getBig();
+
+        @XBRead("/root/ratio")
+        double getRatio();
+
+        @XBRead("/root/flag")
+        boolean isFlag();
+
+        @XBRead("/root/item")
+        List<String> getItems();
+
+        @XBRead("/root/item")
+        String[] getItemArray();
+
+        @XBRead("/root/sub")
+        Sub getSub();
+
+        @XBRead("/root/{0}")
+        String getChild(String name, int unused, long unused2, double unused3);
+
+        @XBRead("/root/{0}")
+        String getMissing(String name) throws MissingException;
+
+        @XBWrite("/root/name")
+        Projection setName(String name);
+
+        @XBWrite("/root/count")
+        void setCount(int count);
+
+        default String getDecoratedName() {
+            return "*" + getName() + "*";
+        }
+    }
+
+    public interface Simple {
+        @XBRead("/root/name")
+        String getName();
+    }
+
+    interface NonPublicProjection {
+        @XBRead("/root/name")
+        String getName();
+    }
+
+    private Projection createProjection() {
+        final XBProjector projector = new XBProjector(Flags.GENERATE_PROJECTION_CLASSES);
+        projector.mixins().addProjectionMixin(Projection.class, new Greeting() {
+            private Projection me;
+
+            @Override
+            public String greet() {
+                return "Hello " + me.getName();
+            }
+        });
+        return projector.projectXMLString(XML, Projection.class);
+    }
+
+    @Test
+    public void testProjectionIsNoProxy() {
+        final Projection projection = createProjection();
+        assertFalse(Proxy.isProxyClass(projection.getClass()));
+        assertTrue(projection instanceof DOMAccess);
+        assertFalse(Proxy.isProxyClass(projection.getSub().getClass()));
+    }
+
+    @Test
+    public void testReadMethods() {
+        final Projection projection = createProjection();
+        assertEquals("foo", projection.getName());
+        assertEquals(42, projection.getCount());
+        assertEquals(12345678901L, projection.getBig());
+        assertEquals(0.5, projection.getRatio(), 0.0);
+        assertTrue(projection.isFlag());
+        assertEquals(Arrays.asList("a", "b"), projection.getItems());
+        assertArrayEquals(new String[] { "a", "b" }, projection.getItemArray());
+        assertEquals("bar", projection.getSub().getName());
+        assertEquals("42", projection.getChild("count", 1, 2L, 3.0));
+    }
+
+    @Test
+    public void testWriteMethods() {
+        final Projection projection = createProjection();
+        assertSame(projection, projection.setName("changed"));
+        projection.setCount(7);
+        assertEquals("changed", projection.getName());
+        assertEquals(7, projection.getCount());
+    }
+
+    @Test
+    public void testDefaultMethodsAndMixins() {
+        final Projection projection = createProjection();
+        assertEquals("*foo*", projection.getDecoratedName());
+        assertEquals("Hello foo", projection.greet());
+    }
+
+    @Test
+    public void testDeclaredExceptionIsThrown() {
+        try {
+            createProjection().getMissing("missing");
+            fail("Expected exception");
+        } catch (MissingException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testObjectMethodsAndDOMAccess() {
+        final Projection projection = createProjection();
+        final Projection other = createProjection();
+        assertEquals(projection, other);
+        assertEquals(projection.hashCode(), other.hashCode());
+        assertEquals(Projection.class, ((DOMAccess) projection).getProjectionInterface());
+        assertEquals("root", ((DOMAccess) projection).getDOMBaseElement().getNodeName());
+        assertTrue(projection.toString().contains(Projection.class.getName()));
+        assertTrue(((DOMAccess) projection).asString().contains("<name>foo</name>"));
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        final Simple projection = new XBProjector(Flags.GENERATE_PROJECTION_CLASSES).projectXMLString(XML, Simple.class);
+        assertFalse(Proxy.isProxyClass(projection.getClass()));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ObjectOutputStream(outputStream).writeObject(projection);
+        final Simple clone = (Simple) new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray())).readObject();
+        assertNotSame(projection, clone);
+        assertEquals("foo", clone.getName());
+    }
+
+    @Test
+    public void testNonPublicInterfaceFallsBackToProxy() {
+        final NonPublicProjection projection = new XBProjector(Flags.GENERATE_PROJECTION_CLASSES).projectXMLString(XML, NonPublicProjection.class);
+        assertTrue(Proxy.isProxyClass(projection.getClass()));
+        assertEquals("foo", projection.getName());
+    }
+}
@@ -22,6 +22,9 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+
 import org.junit.Test;
 import org.xmlbeam.XBProjector;
 import org.xmlbeam.XBProjector.Flags;
@@ -116,4 +119,30 @@ public class TestObjectInvoker {
         assertEquals(new XBProjector().projectEmptyElement("foo", A.class), new XBProjector().projectEmptyElement("foo", A.class));
         assertEquals(new XBProjector().projectEmptyElement("foo", A.class).hashCode(), new XBProjector().projectEmptyElement("foo", A.class).hashCode());
     }
+
+    @Test
+    public void testRenderingFollowsConfigChanges() {
+        XBProjector projector = new XBProjector();
+        A a = projector.projectXMLString("<foo><bar/></foo>", A.class);
+        String pretty = projector.asString(a);
+        assertTrue(pretty.contains("\n"));
+        projector.config().createTransformer().setOutputProperty(OutputKeys.INDENT, "no");
+        assertEquals(pretty, projector.asString(a));
+
+        projector.config().as(DefaultXMLFactoriesConfig.class).setPrettyPrinting(false);
+        assertEquals("<foo><bar/></foo>", projector.asString(a));
+        projector.config().as(DefaultXMLFactoriesConfig.class).setOmitXMLDeclaration(false);
+        assertTrue(projector.asString(a).startsWith("<?xml"));
+    }
+
+    @Test
+    public void testCreateTransformerReturnsNewInstances() {
+        XBProjector projector = new XBProjector();
+        Transformer t1 = projector.config().createTransformer();
+        t1.setOutputProperty(OutputKeys.INDENT, "no");
+        Transformer t2 = projector.config().createTransformer();
+        assertNotSame(t1, t2);
+        assertEquals("no", t1.getOutputProperty(OutputKeys.INDENT));
+        assertEquals("yes", t2.getOutputProperty(OutputKeys.INDENT));
+    }
 }
@@ -0,0 +1,149 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBWrite;
+
+/**
+ * Projections of the same interface share their method metadata. Make sure they do not share
+ * state.
+ */
+@SuppressWarnings("javadoc")
+public class TestProjectionMetadataSharing {
+
+    public interface Named {
+        String getPrefix();
+    }
+
+    public interface Projection extends Named {
+        @XBRead("/root/name")
+        String getName();
+
+        @XBRead("/root/{0}")
+        String getChild(String name);
+
+        @XBWrite("/root/name")
+        Projection setName(String name);
+    }
+
+    public interface InvalidProjection {
+        @XBRead("/foo")
+        void getFoo();
+    }
+
+    @Test
+    public void testProjectionsOfSameInterfaceAreIndependent() {
+        final XBProjector projector = new XBProjector();
+        projector.mixins().addProjectionMixin(Projection.class, new Named() {
+            @SuppressWarnings("unused")
+            private Projection me;
+
+            @Override
+            public String getPrefix() {
+                return "prefix";
+            }
+        });
+        final Projection first = projector.projectXMLString("<root><name>first</name><a>1</a><b>2</b></root>", Projection.class);
+        final Projection second = projector.projectXMLString("<root><name>second</name><a>3</a><b>4</b></root>", Projection.class);
+        assertEquals("first", first.getName());
+        assertEquals("second", second.getName());
+        assertEquals("1", first.getChild("a"));
+        assertEquals("4", second.getChild("b"));
+        assertEquals("2", first.getChild("b"));
+        assertEquals("3", second.getChild("a"));
+        assertSame(first, first.setName("changed"));
+        assertEquals("changed", first.getName());
+        assertEquals("second", second.getName());
+        assertEquals("prefix", second.getPrefix());
+    }
+
+    @Test
+    public void testInvalidInterfaceIsRejectedEachTime() {
+        final XBProjector projector = new XBProjector();
+        for (int i = 0; i < 2; ++i) {
+            try {
+                projector.projectEmptyDocument(InvalidProjection.class);
+                fail("Invalid projection interface was accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public interface Greeter {
+        String greet();
+    }
+
+    public interface GreetingProjection extends Greeter {
+    }
+
+    @Test
+    public void testMixinChangesAffectNewProjections() {
+        final XBProjector projector = new XBProjector();
+        projector.mixins().addProjectionMixin(GreetingProjection.class, new Greeter() {
+            @SuppressWarnings("unused")
+            private GreetingProjection me;
+
+            @Override
+            public String greet() {
+                return "hello";
+            }
+        });
+        final GreetingProjection first = projector.projectEmptyDocument(GreetingProjection.class);
+        projector.mixins().addProjectionMixin(GreetingProjection.class, new Greeter() {
+            @SuppressWarnings("unused")
+            private GreetingProjection me;
+
+            @Override
+            public String greet() {
+                return "bye";
+            }
+        });
+        final GreetingProjection second = projector.projectEmptyDocument(GreetingProjection.class);
+        assertEquals("hello", first.greet());
+        assertEquals("bye", second.greet());
+    }
+
+    @Test
+    public void testRemovedMixinIsKeptByExistingProjections() {
+        final XBProjector projector = new XBProjector();
+        projector.mixins().addProjectionMixin(GreetingProjection.class, new Greeter() {
+            @SuppressWarnings("unused")
+            private GreetingProjection me;
+
+            @Override
+            public String greet() {
+                return "hello";
+            }
+        });
+        final GreetingProjection first = projector.projectEmptyDocument(GreetingProjection.class);
+        assertEquals("hello", projector.mixins().removeProjectionMixin(GreetingProjection.class, Greeter.class).greet());
+        assertEquals("hello", first.greet());
+        try {
+            projector.projectEmptyDocument(GreetingProjection.class);
+            fail("Projection without mixin was created");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.dom.DOMAccess;
+
+@SuppressWarnings("javadoc")
+public class TestProjectionSnapshot {
+
+    public interface Item {
+        @XBRead("@id")
+        String getId();
+
+        @XBRead("price")
+        int getPrice();
+    }
+
+    public interface Order {
+        @XBRead("/order/@number")
+        String getNumber();
+
+        @XBRead("/order/customer")
+        String getCustomer();
+
+        @XBRead("/order/note")
+        String getNote();
+
+        @XBRead("count(/order/item)")
+        int getItemCount();
+
+        @XBRead("/order/item")
+        List<Item> getItems();
+
+        @XBRead("/order/item/@id")
+        String[] getItemIds();
+
+        @XBRead("/order/item[1]")
+        Item getFirstItem();
+
+        @XBRead("/order/item[@id='{0}']")
+        Item getItem(String id);
+
+        @XBWrite("/order/customer")
+        Order setCustomer(String customer);
+    }
+
+    public interface Node {
+        @XBRead("@name")
+        String getName();
+
+        @XBRead("..")
+        Node getParent();
+
+        @XBRead("./node")
+        List<Node> getChildren();
+    }
+
+    private final static String XML = "<order number=\"42\"><customer>Alice</customer><item id=\"a\"><price>3</price></item><item id=\"b\"><price>4</price></item></order>";
+
+    @Test
+    public void testSnapshotValues() {
+        final XBProjector projector = new XBProjector();
+        final Order order = projector.projectXMLString(XML, Order.class);
+        final Order snapshot = projector.snapshot(order);
+
+        assertFalse(snapshot instanceof DOMAccess);
+        assertEquals("42", snapshot.getNumber());
+        assertEquals("Alice", snapshot.getCustomer());
+        assertNull(snapshot.getNote());
+        assertEquals(2, snapshot.getItemCount());
+        assertEquals(2, snapshot.getItems().size());
+        assertEquals("b", snapshot.getItems().get(1).getId());
+        assertEquals(4, snapshot.getItems().get(1).getPrice());
+        assertFalse(snapshot.getItems().get(0) instanceof DOMAccess);
+        assertArrayEquals(new String[] { "a", "b" }, snapshot.getItemIds());
+        assertEquals(3, snapshot.getFirstItem().getPrice());
+        assertEquals(snapshot.getFirstItem(), snapshot.getItems().get(0));
+        assertTrue(snapshot.toString().startsWith("Order{getCustomer=Alice, "));
+
+        order.setCustomer("Bob");
+        assertEquals("Alice", snapshot.getCustomer());
+        assertEquals("Bob", projector.snapshot(order).getCustomer());
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() {
+        final XBProjector projector = new XBProjector();
+        final Order snapshot = projector.snapshot(projector.projectXMLString(XML, Order.class));
+        try {
+            snapshot.setCustomer("Bob");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            snapshot.getItem("a");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            snapshot.getItems().clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        snapshot.getItemIds()[0] = "x";
+        assertEquals("a", snapshot.getItemIds()[0]);
+    }
+
+    @Test
+    public void testSnapshotEqualityAndSerialization() throws Exception {
+        final XBProjector projector = new XBProjector();
+        final Order a = projector.snapshot(projector.projectXMLString(XML, Order.class));
+        final Order b = projector.snapshot(projector.projectXMLString(XML, Order.class));
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(projector.snapshot(projector.projectXMLString(XML.replace("Alice", "Bob"), Order.class))));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(a);
+        out.close();
+        final Order copy = (Order) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(a, copy);
+        assertEquals(Arrays.asList(a.getItemIds()), Arrays.asList(copy.getItemIds()));
+    }
+
+    @Test
+    public void testSnapshotOfCyclicProjectionIsRejected() {
+        final XBProjector projector = new XBProjector();
+        final Node node = projector.projectXMLString("<node name=\"a\"><node name=\"b\"/></node>", Node.class).getChildren().get(0);
+        try {
+            projector.snapshot(node);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("contains itself"));
+        }
+    }
+}
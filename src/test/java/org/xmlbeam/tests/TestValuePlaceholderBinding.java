@@ -0,0 +1,107 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBValue;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.util.intern.Preprocessor;
+
+/**
+ * Placeholders used as string literals are bound as XPath variables, so the expression is parsed
+ * and compiled once for all parameter values.
+ */
+@SuppressWarnings("javadoc")
+public class TestValuePlaceholderBinding {
+
+    private static final String XML = "<root><item id='a'>A</item><item id='b'>B</item><item id=\"it's\">quoted</item><item id='{x}'>braces</item><a>structural</a></root>";
+
+    public interface Projection {
+        @XBRead("/root/item[@id='{0}']")
+        String getItem(String id);
+
+        @XBRead("/root/item[@id=\"{0}\"]")
+        String getItemDoubleQuoted(String id);
+
+        @XBRead("/root/item[@id='{{x}}']")
+        String getItemWithBraces();
+
+        @XBRead("/root/{0}")
+        String getStructural(String name);
+
+        @XBRead("count(/root/item[@id='{0}'])")
+        int countItems(int id);
+
+        @XBWrite("/root/item[@id='{0}']")
+        Projection setItem(String id, @XBValue String value);
+    }
+
+    @Test
+    public void testExpressionIsParsedOnceForAllValues() {
+        final XBProjector projector = new XBProjector();
+        final Projection projection = projector.projectXMLString(XML, Projection.class);
+        assertEquals("A", projection.getItem("a"));
+        final long misses = projector.config().getXPathCacheStatistics().getMisses();
+        assertEquals("B", projection.getItem("b"));
+        assertEquals("A", projection.getItem("a"));
+        assertEquals(null, projection.getItem("c"));
+        assertEquals(misses, projector.config().getXPathCacheStatistics().getMisses());
+    }
+
+    @Test
+    public void testValuesWithQuotes() {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        assertEquals("quoted", projection.getItem("it's"));
+        assertEquals("quoted", projection.getItemDoubleQuoted("it's"));
+    }
+
+    @Test
+    public void testEscapedBracesAreAppliedOnce() {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        assertEquals("braces", projection.getItemWithBraces());
+    }
+
+    @Test
+    public void testStructuralPlaceholdersAndOtherTypes() {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        assertEquals("structural", projection.getStructural("a"));
+        assertEquals("A", projection.getStructural("item"));
+        assertEquals(0, projection.countItems(1));
+    }
+
+    @Test
+    public void testWriteWithBoundPredicate() {
+        final Projection projection = new XBProjector().projectXMLString("<root/>", Projection.class);
+        projection.setItem("x", "X").setItem("y", "Y").setItem("x", "Z");
+        assertEquals("Z", projection.getItem("x"));
+        assertEquals("Y", projection.getItem("y"));
+    }
+
+    @Test
+    public void testBindValueParams() {
+        final java.util.Map<String, Integer> names = Collections.singletonMap("ID", 1);
+        final Class<?>[] types = new Class<?>[] { int.class, String.class };
+        assertEquals("/a[@x='{0}'][@y=$PARAM1]", Preprocessor.bindValueParams("/a[@x='{0}'][@y='{1}']", names, types));
+        assertEquals("/a[@y=$PARAM1](:using '{id}':)", Preprocessor.bindValueParams("/a[@y='{id}'](:using '{id}':)", names, types));
+        assertEquals("/{1}[.='{1}x']", Preprocessor.bindValueParams("/{1}[.='{1}x']", names, types));
+    }
+}
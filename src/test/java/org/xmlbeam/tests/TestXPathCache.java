@@ -0,0 +1,104 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.config.DefaultXMLFactoriesConfig;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.util.CacheStatistics;
+
+/**
+ * XPath expressions are parsed and compiled once per projector, not once per projection.
+ */
+@SuppressWarnings("javadoc")
+public class TestXPathCache {
+
+    public interface Projection {
+        @XBRead("/root/name")
+        String getName();
+
+        @XBRead("/root/{0}")
+        String getChild(String name);
+
+        @XBWrite("/root/name")
+        Projection setName(String name);
+
+        @XBWrite("/root/p:value")
+        Projection setValue(String value);
+    }
+
+    @Test
+    public void testExpressionsAreSharedBetweenProjections() {
+        final XBProjector projector = new XBProjector();
+        for (int i = 0; i < 10; ++i) {
+            final Projection projection = projector.projectXMLString("<root><name>" + i + "</name><a>a</a></root>", Projection.class);
+            assertEquals(Integer.toString(i), projection.getName());
+            assertEquals("a", projection.getChild("a"));
+            projection.setName("x" + i);
+            assertEquals("x" + i, projection.getName());
+        }
+        final CacheStatistics statistics = projector.config().getXPathCacheStatistics();
+        // One parsed and one compiled expression per path. Reading and writing share the parsed one.
+        assertEquals(4, statistics.getSize());
+        assertEquals(4, statistics.getMisses());
+        assertTrue(statistics.getHits() >= 45);
+        assertEquals(0, statistics.getEvictions());
+    }
+
+    @Test
+    public void testDisabledCache() {
+        final XBProjector projector = new XBProjector();
+        projector.config().setXPathCacheCapacity(0);
+        for (int i = 0; i < 3; ++i) {
+            assertEquals("foo", projector.projectXMLString("<root><name>foo</name></root>", Projection.class).getName());
+        }
+        assertEquals(0, projector.config().getXPathCacheStatistics().getSize());
+        assertEquals(0, projector.config().getXPathCacheStatistics().getHits());
+    }
+
+    @Test
+    public void testEviction() {
+        final XBProjector projector = new XBProjector();
+        projector.config().setXPathCacheCapacity(2);
+        final Projection projection = projector.projectXMLString("<root><a>1</a><b>2</b><c>3</c></root>", Projection.class);
+        assertEquals("1", projection.getChild("a"));
+        assertEquals("2", projection.getChild("b"));
+        assertEquals("3", projection.getChild("c"));
+        assertEquals(2, projector.config().getXPathCacheStatistics().getSize());
+        assertTrue(projector.config().getXPathCacheStatistics().getEvictions() > 0);
+    }
+
+    @Test
+    public void testParsedExpressionsDependOnNamespaceMapping() {
+        final DefaultXMLFactoriesConfig config = new DefaultXMLFactoriesConfig();
+        config.createNameSpaceMapping().add("p", "urn:p");
+        final XBProjector projector = new XBProjector(config);
+        Projection projection = projector.projectEmptyDocument(Projection.class).setValue("1");
+        assertEquals("urn:p", ((DOMAccess) projection).getDOMOwnerDocument().getDocumentElement().getFirstChild().getNamespaceURI());
+        assertEquals(1, projector.config().getXPathCacheStatistics().getMisses());
+        config.createNameSpaceMapping().add("q", "urn:q");
+        projection = projector.projectEmptyDocument(Projection.class).setValue("1");
+        assertEquals("urn:p", ((DOMAccess) projection).getDOMOwnerDocument().getDocumentElement().getFirstChild().getNamespaceURI());
+        // Parsed again with the new mapping
+        assertEquals(2, projector.config().getXPathCacheStatistics().getMisses());
+    }
+}
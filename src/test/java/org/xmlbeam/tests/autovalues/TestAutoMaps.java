@@ -57,4 +57,25 @@ public class TestAutoMaps {
         assertTrue(da.getDOMNode() == da.getDOMOwnerDocument());
         assertNotNull(da.getDOMBaseElement());
     }
+
+    @Test
+    public void testPathsAreCompiledOnce() {
+        XBAutoMap<String> map = projector.onXMLString("<root><value>foo</value></root>").createMapOf(String.class);
+        map.put("/root/a", "1");
+        map.put("/root/b", "2");
+        assertEquals("1", map.get("/root/a"));
+        final int size = projector.config().getXPathCacheStatistics().getSize();
+        final long hits = projector.config().getXPathCacheStatistics().getHits();
+        for (int i = 0; i < 10; ++i) {
+            map.put("/root/a", "a" + i);
+            map.put("/root/b", "b" + i);
+            assertEquals("a" + i, map.get("/root/a"));
+            assertEquals("b" + i, map.get("/root/b"));
+        }
+        assertEquals("b9", map.remove("/root/b"));
+        assertFalse(map.containsKey("/root/b"));
+        assertEquals(size, projector.config().getXPathCacheStatistics().getSize());
+        assertTrue(projector.config().getXPathCacheStatistics().getHits() >= (hits + 40));
+        DOMDiagnoseHelper.assertXMLStringsEquals("<root><value>foo</value><a>a9</a></root>", ((DOMAccess) map).asString());
+    }
 }
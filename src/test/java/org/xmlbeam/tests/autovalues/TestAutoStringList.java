@@ -21,6 +21,7 @@ import static org.junit.Assert.assertTrue;
 import static org.xmlbeam.testutils.DOMDiagnoseHelper.assertXMLStringsEquals;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -35,12 +36,14 @@ import org.w3c.dom.Node;
 import org.xmlbeam.XBProjector;
 import org.xmlbeam.XBProjector.Flags;
 import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBWrite;
 import org.xmlbeam.dom.DOMAccess;
 import org.xmlbeam.testutils.TestIOUtils;
 import org.xmlbeam.types.CloseableList;
 import org.xmlbeam.types.CloseableValue;
 import org.xmlbeam.types.XBAutoList;
 import org.xmlbeam.util.IOHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
 
 /**
  * @author sven
@@ -66,6 +69,15 @@ public class TestAutoStringList {
         @XBRead("/root/list2/e2")
         XBAutoList<String> projectList2();
 
+        @XBWrite("/root/list/e[4]")
+        void setFourth(String value);
+
+        @XBWrite("/root/other")
+        void setOther(String value);
+
+        @XBRead("/root/list")
+        Node getListNode();
+
     }
 
     @Test
@@ -240,4 +252,68 @@ public class TestAutoStringList {
         Date valueA = projector.onXMLString("<root><list><a>19990102</a></list></root>").evalXPath("/root/list/a using yyyymmdd").asDate();
         assertEquals(915235260000L, valueA.getTime());
     }
+
+    @Test
+    public void testListSeesWritesToItsDocumentOnly() {
+        final List<String> list = projection.projectList();
+        assertEquals(3, list.size());
+        final Projection other = projector.projectXMLString(XML, Projection.class);
+        final DocumentIndex index = DocumentIndex.forDocument(((DOMAccess) projection).getDOMOwnerDocument());
+        final long count = index.getModificationCount();
+        other.setFourth("4");
+        assertEquals(count, index.getModificationCount());
+        assertEquals(3, list.size());
+        projection.setFourth("4");
+        assertEquals(count + 1, index.getModificationCount());
+        assertEquals(Arrays.asList("1", "2", "3", "4"), list);
+    }
+
+    @Test
+    public void testBulkOperations() {
+        final XBAutoList<String> list = projection.projectList();
+        list.addAll(Arrays.asList("4", "5"));
+        list.addAll(1, Arrays.asList("a", "b"));
+        assertEquals(Arrays.asList("1", "a", "b", "2", "3", "4", "5"), projection.reference());
+        list.removeAll(Arrays.asList("a", "3"));
+        assertEquals(Arrays.asList("1", "b", "2", "4", "5"), projection.reference());
+        list.retainAll(Arrays.asList("b", "4", "x"));
+        assertEquals(Arrays.asList("b", "4"), projection.reference());
+        assertEquals(Arrays.asList("b", "4"), list);
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertTrue(projection.reference().isEmpty());
+        list.addAll(Arrays.asList("x", "y"));
+        assertEquals(Arrays.asList("x", "y"), projection.reference());
+    }
+
+    @Test
+    public void testSortMovesNodes() {
+        final Projection sortable = projector.projectXMLString("<root><list><e n='1'>c</e><e n='2'>a</e><x/><e n='3'>b</e></list></root>", Projection.class);
+        final XBAutoList<String> list = sortable.projectList();
+        list.sort(null);
+        assertEquals(Arrays.asList("a", "b", "c"), sortable.reference());
+        assertXMLStringsEquals("<root><list><e n=\"2\">a</e><e n=\"3\">b</e><x/><e n=\"1\">c</e></list></root>", sortable.toString());
+        list.sort(Collections.reverseOrder());
+        assertEquals(Arrays.asList("c", "b", "a"), sortable.reference());
+        list.remove("b");
+        list.sort(null);
+        assertXMLStringsEquals("<root><list><e n=\"2\">a</e><x/><e n=\"1\">c</e></list></root>", sortable.toString());
+    }
+
+    @Test
+    public void testListFollowsChangesOfItsNodesOnly() {
+        final XBAutoList<String> list = projection.projectList();
+        assertEquals(3, list.size());
+        projection.setOther("x");
+        list.add("4");
+        assertEquals(Arrays.asList("1", "2", "3", "4"), list);
+        // Changes via the DOM API are seen.
+        final Node listNode = projection.getListNode();
+        listNode.removeChild(listNode.getFirstChild());
+        assertEquals(Arrays.asList("2", "3", "4"), list);
+        listNode.getFirstChild().setTextContent("two");
+        assertEquals(Arrays.asList("two", "3", "4"), list);
+        listNode.getParentNode().removeChild(listNode);
+        assertTrue(list.isEmpty());
+    }
 }
@@ -0,0 +1,83 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.XBProjector.Flags;
+import org.xmlbeam.annotation.XBRead;
+
+/**
+ * Read throughput of one shared projection by thread count, for each document locking mode. Not a
+ * unit test, run main() manually.
+ */
+@SuppressWarnings("javadoc")
+public class DocumentLockBenchmark {
+
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 3000;
+
+    public interface Catalog {
+
+        @XBRead("/catalog/item[@id='{0}']/name")
+        String getName(String id);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final StringBuilder xml = new StringBuilder("<catalog>");
+        for (int i = 0; i < 100; ++i) {
+            xml.append("<item id=\"i").append(i).append("\"><name>Item ").append(i).append("</name></item>");
+        }
+        xml.append("</catalog>");
+
+        for (Flags mode : new Flags[] { Flags.SYNCHRONIZE_ON_DOCUMENTS, Flags.READ_WRITE_LOCK_ON_DOCUMENTS }) {
+            final XBProjector projector = new XBProjector(mode);
+            final Catalog catalog = projector.projectXMLString(xml.toString(), Catalog.class);
+            projector.asString(catalog);
+            measure(catalog, maxThreads, WARMUP_MILLIS);
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                final long reads = measure(catalog, threads, MEASURE_MILLIS);
+                System.out.println(mode + " threads=" + threads + " reads/s=" + ((reads * 1000) / MEASURE_MILLIS));
+            }
+        }
+    }
+
+    private static long measure(final Catalog catalog, final int threads, final long millis) throws InterruptedException {
+        final AtomicLong reads = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(threads);
+        final long end = System.currentTimeMillis() + millis;
+        for (int t = 0; t < threads; ++t) {
+            final int offset = t;
+            new Thread() {
+                @Override
+                public void run() {
+                    long count = 0;
+                    while (System.currentTimeMillis() < end) {
+                        catalog.getName("i" + ((count + offset) % 100));
+                        ++count;
+                    }
+                    reads.addAndGet(count);
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+        return reads.get();
+    }
+}
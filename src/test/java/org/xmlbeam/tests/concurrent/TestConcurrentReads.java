@@ -0,0 +1,96 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.concurrent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+
+/**
+ * Concurrent reads on one projection without {@link XBProjector.Flags#SYNCHRONIZE_ON_DOCUMENTS}.
+ */
+@SuppressWarnings("javadoc")
+public class TestConcurrentReads {
+
+    private final static int THREADS = 8;
+    private final static int ITEMS = 50;
+    private final static int ITERATIONS = 400;
+
+    public interface Catalog {
+
+        @XBRead("/catalog/item[@id='{0}']/name")
+        String getNameById(String id);
+
+        @XBRead("/catalog/item[@id=$PARAM0]/price")
+        int getPriceById(String id);
+
+        @XBRead("/catalog/item[{0}]/name")
+        String getNameByPosition(int position);
+
+        @XBRead("count(/catalog/item)")
+        int getItemCount();
+    }
+
+    @Test
+    public void testConcurrentReadsWithDifferentParameters() throws Exception {
+        final StringBuilder xml = new StringBuilder("<catalog>");
+        for (int i = 1; i <= ITEMS; ++i) {
+            xml.append("<item id=\"i").append(i).append("\"><name>Item ").append(i).append("</name><price>").append(i * 10).append("</price></item>");
+        }
+        xml.append("</catalog>");
+        final XBProjector projector = new XBProjector();
+        final Catalog catalog = projector.projectXMLString(xml.toString(), Catalog.class);
+        // Expand the whole document before sharing it.
+        projector.asString(catalog);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < THREADS; ++t) {
+                final int offset = t;
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        int checked = 0;
+                        for (int n = 0; n < ITERATIONS; ++n) {
+                            final int i = ((n + (offset * 7)) % ITEMS) + 1;
+                            assertEquals("Item " + i, catalog.getNameById("i" + i));
+                            assertEquals(i * 10, catalog.getPriceById("i" + i));
+                            assertEquals("Item " + i, catalog.getNameByPosition(i));
+                            assertEquals(ITEMS, catalog.getItemCount());
+                            ++checked;
+                        }
+                        return checked;
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(ITERATIONS, result.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
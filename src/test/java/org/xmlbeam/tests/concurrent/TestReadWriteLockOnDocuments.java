@@ -0,0 +1,109 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.concurrent;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.XBProjector.Flags;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBValue;
+import org.xmlbeam.annotation.XBWrite;
+
+@SuppressWarnings("javadoc")
+public class TestReadWriteLockOnDocuments {
+
+    private final static int THREADS = 8;
+
+    public interface Projection {
+
+        @XBWrite("/a/x{0}/b")
+        Projection setB(int index, @XBValue String value);
+
+        @XBRead("/a/x{0}/b")
+        String getB(Callable<Integer> index);
+
+        @XBRead("count(//b)")
+        int countB();
+    }
+
+    @Test
+    public void testReadsRunConcurrently() throws Exception {
+        final Projection projection = new XBProjector(Flags.READ_WRITE_LOCK_ON_DOCUMENTS).projectEmptyDocument(Projection.class);
+        projection.setB(1, "value");
+        final CyclicBarrier bothReadersInside = new CyclicBarrier(2);
+        // The parameter is resolved while the lock is held, so both readers hold it at the same time.
+        final Callable<Integer> index = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                bothReadersInside.await(10, TimeUnit.SECONDS);
+                return 1;
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 2; ++i) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return projection.getB(index);
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                assertEquals("value", result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testWritesAreExclusive() throws Exception {
+        final Projection projection = new XBProjector(Flags.READ_WRITE_LOCK_ON_DOCUMENTS).projectEmptyDocument(Projection.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<?>> results = new ArrayList<Future<?>>();
+            for (int i = 0; i < 200; ++i) {
+                final int t = i;
+                results.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        projection.setB(t, "Thread " + t);
+                        projection.countB();
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(200, projection.countB());
+    }
+}
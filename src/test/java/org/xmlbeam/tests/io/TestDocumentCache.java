@@ -0,0 +1,227 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBDocURL;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.io.DefaultDocumentCache;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings({ "javadoc", "restriction" })
+public class TestDocumentCache {
+
+    public interface Setting extends DOMAccess {
+        @XBRead("@name")
+        String getName();
+    }
+
+    public interface Projection {
+        @XBDocURL("resource:///org/xmlbeam/tests/external_document.xml")
+        @XBRead("/settings/setting[1]")
+        Setting getFirstSetting();
+
+        @XBDocURL("{0}")
+        @XBRead("/root/value")
+        String getValue(String url);
+
+        @XBDocURL("{0}")
+        @XBRead("/root/value")
+        String getValue(String url, Map<String, String> requestParams);
+
+        @XBDocURL("{0}")
+        @XBRead("/root")
+        DOMAccess getRoot(String url);
+    }
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile String version = "1";
+    private volatile String cacheControl;
+    private HttpServer server;
+    private String url;
+    private DefaultDocumentCache cache;
+    private XBProjector projector;
+    private Projection projection;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("localhost"), 0), 0);
+        server.createContext("/doc", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                requests.incrementAndGet();
+                final String eTag = "\"" + version + "\"";
+                exchange.getResponseHeaders().set("ETag", eTag);
+                if (cacheControl != null) {
+                    exchange.getResponseHeaders().set("Cache-Control", cacheControl);
+                }
+                if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                final byte[] body = ("<root><value>" + version + "</value></root>").getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                final OutputStream os = exchange.getResponseBody();
+                os.write(body);
+                os.close();
+            }
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort() + "/doc";
+        cache = new DefaultDocumentCache();
+        projector = new XBProjector();
+        projector.config().setDocumentCache(cache);
+        projection = projector.projectEmptyDocument(Projection.class);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testResourceDocumentIsParsedOnce() {
+        final Setting setting = projection.getFirstSetting();
+        assertEquals("A1", setting.getName());
+        ((Element) setting.getDOMNode()).setAttribute("name", "changed");
+        assertEquals("A1", projection.getFirstSetting().getName());
+        assertEquals(1, cache.getStatistics().getMisses());
+        assertEquals(1, cache.getStatistics().getHits());
+    }
+
+    @Test
+    public void testHTTPDocumentIsRevalidated() {
+        assertEquals("1", projection.getValue(url));
+        assertEquals("1", projection.getValue(url));
+        assertEquals("1", projection.getValue(url));
+        assertEquals(3, requests.get());
+        assertEquals(2, notModified.get());
+        assertEquals(url, projection.getRoot(url).getDOMOwnerDocument().getDocumentURI());
+        version = "2";
+        assertEquals("2", projection.getValue(url));
+        assertEquals(3, notModified.get());
+    }
+
+    @Test
+    public void testHTTPDocumentIsFreshForTimeToLive() {
+        cache.setTimeToLive(1, TimeUnit.HOURS);
+        assertEquals("1", projection.getValue(url));
+        version = "2";
+        assertEquals("1", projection.getValue(url));
+        assertEquals(1, requests.get());
+        cache.clear();
+        assertEquals("2", projection.getValue(url));
+    }
+
+    @Test
+    public void testMaxAgeAndNoStore() {
+        cacheControl = "public, max-age=3600";
+        assertEquals("1", projection.getValue(url));
+        assertEquals("1", projection.getValue(url));
+        assertEquals(1, requests.get());
+        cache.clear();
+        cacheControl = "no-store";
+        assertEquals("1", projection.getValue(url));
+        assertEquals("1", projection.getValue(url));
+        assertEquals(3, requests.get());
+        assertEquals(0, notModified.get());
+    }
+
+    @Test
+    public void testRequestPropertiesArePartOfKey() {
+        cache.setTimeToLive(1, TimeUnit.HOURS);
+        assertEquals("1", projection.getValue(url));
+        version = "2";
+        assertEquals("2", projection.getValue(url, Collections.singletonMap("A", "B")));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testFileDocumentIsNotCachedWithoutTimeToLive() throws IOException {
+        final File file = File.createTempFile(getClass().getSimpleName(), ".xml");
+        try {
+            writeFile(file, "<root><value>1</value></root>");
+            final String fileURL = file.toURI().toString();
+            assertEquals("1", projection.getValue(fileURL));
+            // Same length, likely within the same tick of the file system clock.
+            writeFile(file, "<root><value>2</value></root>");
+            assertEquals("2", projection.getValue(fileURL));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testFileDocumentIsRevalidated() throws IOException {
+        final File file = File.createTempFile(getClass().getSimpleName(), ".xml");
+        try {
+            cache.setTimeToLive(1, TimeUnit.NANOSECONDS);
+            writeFile(file, "<root><value>1</value></root>");
+            final String fileURL = file.toURI().toString();
+            assertEquals("1", projection.getValue(fileURL));
+            assertEquals("1", projection.getValue(fileURL));
+            assertEquals(1, cache.getStatistics().getHits());
+            writeFile(file, "<root><value>22</value></root>");
+            assertEquals("22", projection.getValue(fileURL));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCacheCanBeDisabled() {
+        projector.config().setDocumentCache(null);
+        assertNull(projector.config().getDocumentCache());
+        assertEquals("1", projection.getValue(url));
+        assertEquals("1", projection.getValue(url));
+        assertEquals(2, requests.get());
+        assertEquals(0, notModified.get());
+    }
+
+    private static void writeFile(final File file, final String content) throws IOException {
+        final FileOutputStream os = new FileOutputStream(file);
+        try {
+            os.write(content.getBytes("UTF-8"));
+        } finally {
+            os.close();
+        }
+    }
+}
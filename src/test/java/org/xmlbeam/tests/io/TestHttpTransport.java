@@ -0,0 +1,199 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBDocURL;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.io.DefaultHttpTransport;
+import org.xmlbeam.io.HttpTransport;
+import org.xmlbeam.util.IOHelper;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+@SuppressWarnings({ "javadoc", "restriction" })
+public class TestHttpTransport {
+
+    public interface Root {
+        @XBRead("/root/value")
+        String getValue();
+    }
+
+    public interface External {
+        @XBDocURL("{0}")
+        @XBRead("/root/value")
+        String getValue(String url);
+    }
+
+    /**
+     * Counts the requests sent by another transport.
+     */
+    private static class CountingTransport implements HttpTransport {
+        private static final long serialVersionUID = 1L;
+        private final HttpTransport transport = new DefaultHttpTransport();
+        private final AtomicInteger requests = new AtomicInteger();
+
+        @Override
+        public Response send(final String method, final String url, final Map<String, String> requestProperties, final byte[] body) throws IOException {
+            requests.incrementAndGet();
+            return transport.send(method, url, requestProperties, body);
+        }
+    }
+
+    private final Set<InetSocketAddress> clients = new CopyOnWriteArraySet<InetSocketAddress>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private HttpServer server;
+    private String url;
+    private XBProjector projector;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getByName("localhost"), 0), 0);
+        server.createContext("/doc", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                clients.add(exchange.getRemoteAddress());
+                respond(exchange, "application/xml", "<root><value>" + exchange.getRequestMethod() + "</value></root>");
+            }
+        });
+        server.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                respond(exchange, "text/plain; charset=UTF-8", IOHelper.inputStreamToString(exchange.getRequestBody(), "UTF-8") + "ä");
+            }
+        });
+        server.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, "application/xml", "<root/>");
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+        projector = new XBProjector();
+    }
+
+    private static void respond(final HttpExchange exchange, final String contentType, final String content) throws IOException {
+        final byte[] body = content.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        final OutputStream os = exchange.getResponseBody();
+        os.write(body);
+        os.close();
+    }
+
+    @After
+    public void stopServer() {
+        release.countDown();
+        server.stop(0);
+        serverExecutor.shutdown();
+    }
+
+    @Test
+    public void testConnectionIsReused() throws IOException {
+        for (int i = 0; i < 5; ++i) {
+            assertEquals("GET", projector.io().url(url + "/doc").read(Root.class).getValue());
+        }
+        assertEquals(1, clients.size());
+    }
+
+    @Test
+    public void testReadTimeout() throws IOException {
+        projector.config().setHttpTransport(new DefaultHttpTransport().setReadTimeout(100));
+        try {
+            projector.io().url(url + "/slow").read(Root.class);
+            fail("Timeout expected");
+        } catch (SocketTimeoutException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWriteDecodesResponseCharset() throws IOException {
+        final Root root = projector.projectXMLString("<root><value>x</value></root>", Root.class);
+        assertEquals(root.toString() + "ä", projector.io().url(url + "/echo").write(root));
+    }
+
+    @Test
+    public void testAsyncReadAndWrite() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<Root> read = projector.io().url(url + "/doc").readAsync(Root.class, executor);
+            final Root root = projector.projectXMLString("<root/>", Root.class);
+            final Future<String> write = projector.io().url(url + "/echo").writeAsync(root, executor);
+            assertEquals("GET", read.get(10, TimeUnit.SECONDS).getValue());
+            assertEquals(root.toString() + "ä", write.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTransportIsPluggable() throws IOException {
+        final CountingTransport transport = new CountingTransport();
+        projector.config().setHttpTransport(transport).setDocumentCache(null);
+        projector.io().url(url + "/doc").read(Root.class);
+        projector.io().url(url + "/echo").write(projector.projectXMLString("<root/>", Root.class));
+        assertEquals("GET", projector.projectEmptyDocument(External.class).getValue(url + "/doc"));
+        assertEquals(3, transport.requests.get());
+        projector.config().setHttpTransport(null);
+        assertTrue(projector.config().getHttpTransport() instanceof DefaultHttpTransport);
+    }
+
+    @Test
+    public void testResponseProvidesStatusAndHeaders() throws IOException {
+        final HttpTransport.Response response = new DefaultHttpTransport().send("POST", url + "/echo", Collections.singletonMap("X-Test", "1"), "a".getBytes("UTF-8"));
+        try {
+            assertEquals(200, response.getStatusCode());
+            assertEquals("text/plain; charset=UTF-8", response.getHeader("Content-Type"));
+            assertEquals("aä", IOHelper.inputStreamToString(response.getBody(), "UTF-8"));
+        } finally {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.types.CloseableIterator;
+import org.xmlbeam.types.RecordFunction;
+
+@SuppressWarnings("javadoc")
+public class TestParallelRecordStreaming {
+
+    private static final int RECORDS = 2000;
+
+    public interface Record {
+        @XBRead("@id")
+        int getId();
+
+        @XBRead("sum(item/@value)")
+        int getSum();
+    }
+
+    private static final RecordFunction<Record, Integer> SUM = new RecordFunction<Record, Integer>() {
+        @Override
+        public Integer apply(final Record record) {
+            return record.getId() * 1000 + record.getSum();
+        }
+    };
+
+    private File file;
+    private ExecutorService executor;
+
+    @Before
+    public void writeExport() throws IOException {
+        file = File.createTempFile("export", ".xml");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<export>\n");
+            for (int i = 0; i < RECORDS; ++i) {
+                writer.write("  <record id=\"" + i + "\"><item value=\"" + (i % 10) + "\"/><item value=\"1\"/></record>\n");
+            }
+            writer.write("</export>");
+        } finally {
+            writer.close();
+        }
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void cleanUp() {
+        executor.shutdownNow();
+        file.delete();
+    }
+
+    @Test
+    public void testOrderedResults() throws IOException {
+        final CloseableIterator<Integer> results = new XBProjector().io().file(file).stream("/export/record", Record.class, executor, 16, true, SUM);
+        int count = 0;
+        while (results.hasNext()) {
+            assertEquals(Integer.valueOf(count * 1000 + (count % 10) + 1), results.next());
+            ++count;
+        }
+        assertEquals(RECORDS, count);
+        results.close();
+        assertFalse(executor.isShutdown());
+    }
+
+    @Test
+    public void testUnorderedResults() throws IOException {
+        final CloseableIterator<Integer> results = new XBProjector().io().file(file).stream("/export/record", Record.class, executor, 16, false, SUM);
+        final BitSet seen = new BitSet();
+        while (results.hasNext()) {
+            final int result = results.next();
+            assertEquals((result / 1000 % 10) + 1, result % 1000);
+            assertFalse(seen.get(result / 1000));
+            seen.set(result / 1000);
+        }
+        assertEquals(RECORDS, seen.cardinality());
+        results.close();
+    }
+
+    @Test
+    public void testCapacityLimitsReadAhead() throws IOException, InterruptedException {
+        final AtomicInteger started = new AtomicInteger();
+        final CloseableIterator<Integer> results = new XBProjector().io().file(file).stream("/export/record", Record.class, executor, 8, false, new RecordFunction<Record, Integer>() {
+            @Override
+            public Integer apply(final Record record) {
+                started.incrementAndGet();
+                return record.getId();
+            }
+        });
+        Thread.sleep(200);
+        assertEquals(8, started.get());
+        assertTrue(results.hasNext());
+        results.next();
+        Thread.sleep(100);
+        assertEquals(9, started.get());
+        results.close();
+        assertFalse(results.hasNext());
+    }
+
+    @Test
+    public void testFunctionExceptionIsRethrown() throws IOException {
+        final CloseableIterator<Integer> results = new XBProjector().io().file(file).stream("/export/record", Record.class, executor, 4, true, new RecordFunction<Record, Integer>() {
+            @Override
+            public Integer apply(final Record record) {
+                if (record.getId() == 2) {
+                    throw new IllegalStateException("record 2");
+                }
+                return record.getId();
+            }
+        });
+        assertEquals(Integer.valueOf(0), results.next());
+        assertEquals(Integer.valueOf(1), results.next());
+        try {
+            results.next();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("record 2", e.getMessage());
+        }
+        assertEquals(Integer.valueOf(3), results.next());
+        results.close();
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.types.CloseableIterator;
+
+@SuppressWarnings("javadoc")
+public class TestRecordStreaming {
+
+    private static final int RECORDS = 5000;
+
+    public interface Record {
+        @XBRead("@id")
+        int getId();
+
+        @XBRead("name")
+        String getName();
+
+        @XBRead("x:tag")
+        String getTag();
+
+        @XBRead("count(item)")
+        int getItemCount();
+
+        @XBRead("/record/name")
+        String getNameByAbsolutePath();
+
+        @XBWrite("name")
+        Record setName(String name);
+    }
+
+    private File file;
+
+    @Before
+    public void writeExport() throws IOException {
+        file = File.createTempFile("export", ".xml");
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<export xmlns:x=\"urn:x\">\n<header><record id=\"-1\"/></header>\n");
+            for (int i = 0; i < RECORDS; ++i) {
+                writer.write("  <record id=\"" + i + "\"><name>Record " + i + "</name><x:tag>t" + (i % 7) + "</x:tag><!-- c --><item/><item/></record>\n");
+            }
+            writer.write("</export>");
+        } finally {
+            writer.close();
+        }
+    }
+
+    @After
+    public void deleteExport() {
+        file.delete();
+    }
+
+    @Test
+    public void testIterateRecords() throws IOException {
+        final XBProjector projector = new XBProjector();
+        final CloseableIterator<Record> records = projector.io().file(file).stream("/export/record", Record.class);
+        int count = 0;
+        Record previous = null;
+        while (records.hasNext()) {
+            final Record record = records.next();
+            assertEquals(count, record.getId());
+            assertEquals("Record " + count, record.getName());
+            assertEquals("t" + (count % 7), record.getTag());
+            assertEquals(2, record.getItemCount());
+            assertEquals(record.getName(), record.getNameByAbsolutePath());
+            if (previous != null) {
+                assertNotSame(((DOMAccess) previous).getDOMOwnerDocument(), ((DOMAccess) record).getDOMOwnerDocument());
+            }
+            previous = record.setName("changed");
+            ++count;
+        }
+        assertEquals(RECORDS, count);
+        assertFalse(records.hasNext());
+        records.close();
+    }
+
+    @Test
+    public void testPositionPredicateAndEarlyClose() throws IOException {
+        final XBProjector projector = new XBProjector();
+        final CloseableIterator<Record> records = projector.io().file(file).stream("/export/record[3]", Record.class);
+        assertTrue(records.hasNext());
+        assertEquals(2, records.next().getId());
+        records.close();
+        assertFalse(records.hasNext());
+    }
+
+    @Test
+    public void testInvalidRecordPath() throws IOException {
+        try {
+            new XBProjector().io().file(file).stream("/export/record/..", Record.class);
+            fail();
+        } catch (XBException e) {
+            assertEquals("Record path '/export/record/..' can not be streamed, because it steps up to a parent node.", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.dom.DOMAccess;
+
+@SuppressWarnings("javadoc")
+public class TestStreamingRead {
+
+    public interface Invoice {
+        @XBRead("/invoice/@number")
+        String getNumber();
+
+        @XBRead("/invoice/customer/name")
+        String getCustomerName();
+
+        @XBRead("invoice/customer/@vip")
+        boolean isVip();
+
+        @XBRead("/invoice/line/amount")
+        List<Integer> getAmounts();
+
+        @XBRead("/invoice/line/@sku")
+        String[] getSkus();
+
+        @XBRead("/invoice/line[2]/amount")
+        int getSecondAmount();
+
+        @XBRead("/invoice/*[3]/@sku")
+        String getThirdChildSku();
+
+        @XBRead("/invoice/note")
+        String getNote();
+
+        @XBRead("/invoice/customer")
+        String getCustomerText();
+
+        @XBRead("/invoice/missing")
+        int getMissing();
+    }
+
+    public interface WithReverseAxis {
+        @XBRead("/invoice/customer/name")
+        String getCustomerName();
+
+        @XBRead("/invoice/customer/name/../@vip")
+        String getVip();
+
+        @XBRead("/invoice/line[@sku='{0}']/amount")
+        int getAmount(String sku);
+
+        @XBRead("count(/invoice/line)")
+        int getLineCount();
+    }
+
+    private final static String XML = "<?xml version=\"1.0\"?>\n<invoice number=\"R-1\">\n  <customer vip=\"true\"><name>ACME</name> <![CDATA[Ltd]]></customer>\n  <line sku=\"a\"><amount>10</amount></line>\n  <line sku=\"b\"><amount>20</amount></line>\n  <line sku=\"c\"><amount>30</amount></line>\n</invoice>";
+
+    private static ByteArrayInputStream stream(final String xml) {
+        return new ByteArrayInputStream(xml.getBytes());
+    }
+
+    @Test
+    public void testStreamingMatchesDOM() throws IOException {
+        final XBProjector projector = new XBProjector();
+        assertTrue(projector.io().stream(stream(XML)).getNonStreamableMethods(Invoice.class).isEmpty());
+        final Invoice streamed = projector.io().stream(stream(XML)).readStreaming(Invoice.class);
+        final Invoice dom = projector.io().stream(stream(XML)).read(Invoice.class);
+
+        assertFalse(streamed instanceof DOMAccess);
+        assertEquals("R-1", streamed.getNumber());
+        assertEquals("ACME", streamed.getCustomerName());
+        assertTrue(streamed.isVip());
+        assertEquals(Arrays.asList(10, 20, 30), streamed.getAmounts());
+        assertArrayEquals(new String[] { "a", "b", "c" }, streamed.getSkus());
+        assertEquals(20, streamed.getSecondAmount());
+        assertEquals("b", streamed.getThirdChildSku());
+        assertNull(streamed.getNote());
+        assertEquals(0, streamed.getMissing());
+
+        assertEquals(dom.getCustomerText(), streamed.getCustomerText());
+        assertEquals(projector.snapshot(dom), streamed);
+    }
+
+    @Test
+    public void testIneligibleMethodsAreReported() throws IOException {
+        final XBProjector projector = new XBProjector();
+        final Map<Method, String> reasons = projector.io().stream(stream(XML)).getNonStreamableMethods(WithReverseAxis.class);
+        assertEquals(3, reasons.size());
+        for (Map.Entry<Method, String> entry : reasons.entrySet()) {
+            final String name = entry.getKey().getName();
+            if ("getVip".equals(name)) {
+                assertEquals("it steps up to a parent node", entry.getValue());
+            } else if ("getAmount".equals(name)) {
+                assertEquals("it has parameters", entry.getValue());
+            } else {
+                assertEquals("getLineCount", name);
+                assertEquals("it calls a function", entry.getValue());
+            }
+        }
+
+        // Falls back to a snapshot of the DOM projection
+        final WithReverseAxis projection = projector.io().stream(stream(XML)).readStreaming(WithReverseAxis.class);
+        assertEquals("ACME", projection.getCustomerName());
+        assertEquals("true", projection.getVip());
+        assertEquals(3, projection.getLineCount());
+    }
+
+    @Test
+    public void testStopsReadingWhenAllValuesAreFound() throws IOException {
+        final String broken = "<invoice number=\"R-2\"><customer><name>ACME</name></customer><line><unclosed></invoice>";
+        final SingleValues values = new XBProjector().io().stream(stream(broken)).readStreaming(SingleValues.class);
+        assertEquals("R-2", values.getNumber());
+        assertEquals("ACME", values.getCustomerName());
+    }
+
+    public interface SingleValues {
+        @XBRead("/invoice/@number")
+        String getNumber();
+
+        @XBRead("/invoice/customer/name")
+        String getCustomerName();
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBValue;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.config.DefaultXMLFactoriesConfig;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.exceptions.XBException;
+import org.xmlbeam.types.RecordWriter;
+
+@SuppressWarnings("javadoc")
+public class TestStreamingWrite {
+
+    public interface Record {
+        @XBWrite("@id")
+        Record setId(int id);
+
+        @XBWrite("name")
+        Record setName(String name);
+
+        @XBWrite("address/city")
+        void setCity(String city);
+
+        @XBWrite("address/@zip")
+        void setZip(String zip);
+
+        @XBWrite("x:tag")
+        void setTag(String tag);
+
+        @XBWrite("items/item")
+        int setItems(List<String> items);
+    }
+
+    public interface RecordView {
+        @XBRead("@id")
+        int getId();
+
+        @XBRead("name")
+        String getName();
+
+        @XBRead("address/city")
+        String getCity();
+
+        @XBRead("address/@zip")
+        String getZip();
+
+        @XBRead("x:tag")
+        String getTag();
+
+        @XBRead("items/item")
+        List<String> getItems();
+    }
+
+    public interface Export {
+        @XBRead("/export/record")
+        List<RecordView> getRecords();
+    }
+
+    public interface NeedsDOM {
+        @XBWrite("name")
+        void setName(String name);
+
+        @XBWrite("item[@key='{0}']")
+        void setItem(String key, @XBValue String value);
+
+        @XBRead("name")
+        String getName();
+    }
+
+    private static XBProjector projector() {
+        final DefaultXMLFactoriesConfig config = new DefaultXMLFactoriesConfig();
+        config.createNameSpaceMapping().add("x", "urn:x");
+        return new XBProjector(config);
+    }
+
+    @Test
+    public void testStreamedRecordsMatchDOM() throws IOException {
+        final XBProjector projector = projector();
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        assertTrue(projector.io().stream(os).getNonStreamableMethods(Record.class).isEmpty());
+        final RecordWriter<Record> writer = projector.io().stream(os).writeStreaming("/export/record", Record.class);
+        for (int i = 0; i < 3; ++i) {
+            final Record record = writer.create();
+            assertFalse(record instanceof DOMAccess);
+            record.setId(i).setName("Record " + i);
+            record.setZip("1234" + i);
+            record.setCity("City");
+            record.setCity("City " + i);
+            record.setTag("t" + i);
+            assertEquals(2, record.setItems(Arrays.asList("a", null, "b")));
+            writer.write(record);
+        }
+        writer.close();
+
+        final List<RecordView> records = projector.io().stream(new ByteArrayInputStream(os.toByteArray())).read(Export.class).getRecords();
+        assertEquals(3, records.size());
+        for (int i = 0; i < 3; ++i) {
+            final RecordView record = records.get(i);
+            assertEquals(i, record.getId());
+            assertEquals("Record " + i, record.getName());
+            assertEquals("City " + i, record.getCity());
+            assertEquals("1234" + i, record.getZip());
+            assertEquals("t" + i, record.getTag());
+            assertEquals(Arrays.asList("a", "b"), record.getItems());
+        }
+
+        final Record streamed = projector.io().stream(new ByteArrayOutputStream()).writeStreaming("/export/record", Record.class).create();
+        final Record dom = projector.projectEmptyElement("record", Record.class);
+        for (Record record : new Record[] { streamed, dom }) {
+            record.setId(0).setName("Record 0");
+            record.setZip("12340");
+            record.setCity("City 0");
+            record.setTag("t0");
+            record.setItems(Arrays.asList("a", null, "b"));
+        }
+        assertEquals(((DOMAccess) dom).asString().replaceAll(">\\s+<", "><").trim(), streamed.toString());
+    }
+
+    @Test
+    public void testFallbackToDOM() throws IOException {
+        final XBProjector projector = projector();
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        final Map<Method, String> reasons = projector.io().stream(os).getNonStreamableMethods(NeedsDOM.class);
+        assertEquals(1, reasons.size());
+        assertEquals("it has more than one parameter", reasons.values().iterator().next());
+
+        final RecordWriter<NeedsDOM> writer = projector.io().stream(os).writeStreaming("/export/record", NeedsDOM.class);
+        final NeedsDOM record = writer.create();
+        assertTrue(record instanceof DOMAccess);
+        record.setName("ACME");
+        record.setItem("k", "v");
+        assertEquals("ACME", record.getName());
+        writer.write(record);
+        writer.close();
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><export><record><name>ACME</name><item key=\"k\">v</item></record></export>", new String(os.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void testEmptyDocument() throws IOException {
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        projector().io().stream(os).writeStreaming("/export/record", Record.class).close();
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?><export></export>", new String(os.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void testInvalidRecordPath() {
+        try {
+            projector().io().stream(new ByteArrayOutputStream()).writeStreaming("/export/record[2]", Record.class);
+            fail();
+        } catch (XBException e) {
+            assertEquals("Record path '/export/record[2]' can not be written, because it has a position predicate.", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.namespaces;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
+
+/**
+ * The namespace mapping of a document is indexed once and follows later changes of the document.
+ */
+@SuppressWarnings("javadoc")
+public class TestDocumentNamespaceIndex {
+
+    private static final String XML = "<root xmlns:a=\"urn:a\"><a:value>A</a:value></root>";
+
+    public interface Projection {
+        @XBRead("/root/a:value")
+        String getA();
+
+        @XBRead("/root/b:value")
+        String getB();
+
+        @XBWrite("/root/a:other")
+        Projection setOther(String value);
+
+        @XBRead("/root/a:other")
+        String getOther();
+    }
+
+    @Test
+    public void testIndexMatchesFullScan() {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        assertEquals("A", projection.getA());
+        final Document document = ((DOMAccess) projection).getDOMOwnerDocument();
+        assertSame(DocumentIndex.forDocument(document), DocumentIndex.forDocument(document));
+        assertTrue(DocumentIndex.forDocument(document).observe());
+        assertSame(DocumentIndex.getNamespaceMapping(document), DocumentIndex.getNamespaceMapping(document));
+        assertEquals(DOMHelper.getNamespaceMapping(document), DocumentIndex.getNamespaceMapping(document));
+        assertEquals("O", projection.setOther("O").getOther());
+        assertEquals(DOMHelper.getNamespaceMapping(document), DocumentIndex.getNamespaceMapping(document));
+    }
+
+    @Test
+    public void testDeclarationsAddedViaDOM() {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        assertEquals("A", projection.getA());
+        final Document document = ((DOMAccess) projection).getDOMOwnerDocument();
+        assertTrue(DocumentIndex.forDocument(document).observe());
+        final Element b = document.createElementNS("urn:b", "b:value");
+        b.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:b", "urn:b");
+        b.setTextContent("B");
+        document.getDocumentElement().appendChild(b);
+        assertEquals("urn:b", DocumentIndex.getNamespaceMapping(document).get("b"));
+        assertEquals("B", projection.getB());
+
+        document.getDocumentElement().setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:c", "urn:c");
+        assertEquals("urn:c", DocumentIndex.getNamespaceMapping(document).get("c"));
+        document.getDocumentElement().removeAttributeNS("http://www.w3.org/2000/xmlns/", "c");
+        assertFalse(DocumentIndex.getNamespaceMapping(document).containsKey("c"));
+    }
+
+    @Test
+    public void testRootElementReplaced() {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        final Document document = ((DOMAccess) projection).getDOMOwnerDocument();
+        assertTrue(DocumentIndex.forDocument(document).observe());
+        assertTrue(DocumentIndex.getNamespaceMapping(document).containsKey("a"));
+        final Element root = document.createElementNS("urn:b", "b:root");
+        root.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:b", "urn:b");
+        DOMHelper.setDocumentElement(document, root);
+        assertFalse(DocumentIndex.getNamespaceMapping(document).containsKey("a"));
+        assertEquals("urn:b", DocumentIndex.getNamespaceMapping(document).get("b"));
+    }
+
+    @Test
+    public void testSerializedDocumentKeepsIndex() throws Exception {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        final Document document = ((DOMAccess) projection).getDOMOwnerDocument();
+        DocumentIndex.forDocument(document).observe();
+        DocumentIndex.getNamespaceMapping(document);
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ObjectOutputStream(outputStream).writeObject(document);
+        final Document clone = (Document) new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray())).readObject();
+        assertEquals("urn:a", DocumentIndex.getNamespaceMapping(clone).get("a"));
+        clone.getDocumentElement().setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:d", "urn:d");
+        assertEquals("urn:d", DocumentIndex.getNamespaceMapping(clone).get("d"));
+    }
+
+    @Test
+    public void testUnobservedDocumentSeesDeclarationsAddedViaDOM() throws Exception {
+        final Projection projection = new XBProjector().projectXMLString(XML, Projection.class);
+        assertEquals("A", projection.getA());
+        final Document document = ((DOMAccess) projection).getDOMOwnerDocument();
+        assertEquals(-1, DocumentIndex.forDocument(document).getMutationCount());
+        document.getDocumentElement().setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:b", "urn:b");
+        final Document other = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        final Element b = other.createElementNS("urn:b", "b:value");
+        b.setTextContent("B");
+        document.getDocumentElement().appendChild(document.importNode(b, true));
+        assertEquals("B", projection.getB());
+    }
+}
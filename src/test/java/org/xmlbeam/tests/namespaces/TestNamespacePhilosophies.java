@@ -16,6 +16,11 @@
 package org.xmlbeam.tests.namespaces;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -97,4 +102,36 @@ public class TestNamespacePhilosophies {
         assertEquals("", projection.findElementWithNonExistingPrefix());
     }
 
+
+    @Test
+    public void testCreateDocumentBuilderReturnsNewInstances() {
+        final DefaultXMLFactoriesConfig config = new DefaultXMLFactoriesConfig();
+        final DocumentBuilder builder = config.createDocumentBuilder();
+        assertTrue(builder.isNamespaceAware());
+        assertNotSame(builder, config.createDocumentBuilder());
+        assertNotSame(config.getThreadDocumentBuilder(), config.createDocumentBuilder());
+    }
+
+    @Test
+    public void testBuildersAreReusedPerThreadUntilConfigChanges() throws Exception {
+        final DefaultXMLFactoriesConfig config = new DefaultXMLFactoriesConfig();
+        final DocumentBuilder builder = config.getThreadDocumentBuilder();
+        assertTrue(builder.isNamespaceAware());
+        assertSame(builder, config.getThreadDocumentBuilder());
+        final DocumentBuilder[] otherThreadsBuilder = new DocumentBuilder[1];
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                otherThreadsBuilder[0] = config.getThreadDocumentBuilder();
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotNull(otherThreadsBuilder[0]);
+        assertNotSame(builder, otherThreadsBuilder[0]);
+
+        config.setNamespacePhilosophy(NamespacePhilosophy.NIHILISTIC);
+        assertNotSame(builder, config.getThreadDocumentBuilder());
+        assertFalse(config.getThreadDocumentBuilder().isNamespaceAware());
+    }
 }
@@ -0,0 +1,153 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.projectionvalidation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.processor.ProjectionProcessor;
+
+/**
+ * Compile projection interfaces with the {@link ProjectionProcessor} and use the result.
+ */
+@SuppressWarnings("javadoc")
+public class TestProjectionProcessor {
+
+    private static final String VALID_PROJECTION = "package sample;\n" + //
+            "import org.xmlbeam.annotation.*;\n" + //
+            "public interface Person {\n" + //
+            "    @XBRead(\"/person/name\") String getName();\n" + //
+            "    @XBRead(\"/person/age\") int getAge();\n" + //
+            "    @XBRead(\"/person/nick\") java.util.List<String> getNicknames();\n" + //
+            "    @XBRead(\"/person/{0}\") String get(String name) throws java.io.IOException;\n" + //
+            "    @XBWrite(\"/person/name\") Person setName(String name);\n" + //
+            "    @XBDelete(\"/person/nick\") int deleteNicknames();\n" + //
+            "}\n";
+
+    private static final String INVALID_PROJECTION = "package sample;\n" + //
+            "import org.xmlbeam.annotation.*;\n" + //
+            "public interface Invalid {\n" + //
+            "    @XBRead(\"/person/name\") void getName();\n" + //
+            "    @XBWrite(\"/person/age\") void setAge();\n" + //
+            "    @XBRead(\"/person/[\") String getBroken();\n" + //
+            "}\n";
+
+    private static final String UNPARSABLE_XPATH = "package sample;\n" + //
+            "import org.xmlbeam.annotation.*;\n" + //
+            "public interface Unparsable {\n" + //
+            "    @XBRead(\"/person/[\") String getBroken();\n" + //
+            "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JavaCompiler compiler;
+
+    @Before
+    public void findCompiler() {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        assumeNotNull(compiler);
+    }
+
+    private int compile(final OutputStream diagnostics, final String source, final String name, final String... options) throws IOException {
+        final File sourceDir = new File(folder.getRoot(), "src/sample");
+        sourceDir.mkdirs();
+        final File sourceFile = new File(sourceDir, name + ".java");
+        final FileOutputStream out = new FileOutputStream(sourceFile);
+        try {
+            out.write(source.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        final File classes = getClassesDir();
+        classes.mkdirs();
+        final List<String> args = new ArrayList<String>(Arrays.asList("-classpath", System.getProperty("java.class.path"), "-processor", ProjectionProcessor.class.getName(), "-d", classes.getPath(), "-s", classes.getPath()));
+        args.addAll(Arrays.asList(options));
+        args.add(sourceFile.getPath());
+        return compiler.run(null, diagnostics, diagnostics, args.toArray(new String[args.size()]));
+    }
+
+    private File getClassesDir() {
+        return new File(folder.getRoot(), "classes");
+    }
+
+    @Test
+    public void testGeneratedClassIsUsedByProjector() throws Exception {
+        final ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        assertEquals(diagnostics.toString(), 0, compile(diagnostics, VALID_PROJECTION, "Person"));
+        assertTrue(new File(getClassesDir(), ProjectionProcessor.INDEX_RESOURCE).isFile());
+
+        final URLClassLoader classLoader = new URLClassLoader(new URL[] { getClassesDir().toURI().toURL() }, getClass().getClassLoader());
+        final Class<?> projectionInterface = classLoader.loadClass("sample.Person");
+        final Object projection = new XBProjector().projectXMLString("<person><name>Alice</name><age>42</age><nick>Al</nick><nick>Ali</nick></person>", projectionInterface);
+
+        assertFalse(Proxy.isProxyClass(projection.getClass()));
+        assertEquals("sample.Person" + ProjectionProcessor.IMPLEMENTATION_SUFFIX, projection.getClass().getName());
+        assertEquals("Alice", projectionInterface.getMethod("getName").invoke(projection));
+        assertEquals(42, projectionInterface.getMethod("getAge").invoke(projection));
+        assertEquals(Arrays.asList("Al", "Ali"), projectionInterface.getMethod("getNicknames").invoke(projection));
+        assertEquals("42", projectionInterface.getMethod("get", String.class).invoke(projection, "age"));
+        final Method setName = projectionInterface.getMethod("setName", String.class);
+        assertEquals(projection, setName.invoke(projection, "Bob"));
+        assertEquals("Bob", projectionInterface.getMethod("getName").invoke(projection));
+        assertEquals(2, projectionInterface.getMethod("deleteNicknames").invoke(projection));
+        assertEquals(projectionInterface, ((DOMAccess) projection).getProjectionInterface());
+        assertTrue(new XBProjector().asString(projection).contains("<name>Bob</name>"));
+    }
+
+    @Test
+    public void testInvalidProjectionIsRejectedByCompiler() throws IOException {
+        final ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        assertFalse(0 == compile(diagnostics, INVALID_PROJECTION, "Invalid"));
+        final String messages = diagnostics.toString();
+        assertTrue(messages, messages.contains("Invalid.getName() has @XBRead annotation, but has no return type."));
+        assertTrue(messages, messages.contains("Invalid.setAge() has @XBWrite annotaion, but has no paramerter"));
+        assertTrue(messages, messages.contains("unparsable XPath"));
+        assertFalse(new File(getClassesDir(), ProjectionProcessor.INDEX_RESOURCE).exists());
+    }
+
+    @Test
+    public void testXPathErrorsMayBeDowngradedToWarnings() throws IOException {
+        final ByteArrayOutputStream diagnostics = new ByteArrayOutputStream();
+        assertEquals(diagnostics.toString(), 0, compile(diagnostics, UNPARSABLE_XPATH, "Unparsable", "-Axmlbeam.xpath=warn"));
+        assertTrue(diagnostics.toString().contains("unparsable XPath"));
+    }
+}
@@ -15,6 +15,7 @@
  */
 package org.xmlbeam.tests.serialization;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 
 import java.io.ByteArrayInputStream;
@@ -22,10 +23,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.xmlbeam.XBProjector;
+import org.xmlbeam.annotation.XBDocURL;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.io.DefaultDocumentCache;
+import org.xmlbeam.io.DefaultHttpTransport;
 
 /**
  * Tests to ensure that projections can be serialized.
@@ -52,6 +58,37 @@ public class TestProjectionSerialization {
         assertNotSame(projection, squishedProjection);
     }
 
+    public interface ExternalSetting {
+        @XBDocURL("resource:///org/xmlbeam/tests/external_document.xml")
+        @XBRead("/settings/setting[1]/@name")
+        String getFirstSettingName();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testProjectorSerializationKeepsDocumentCache() throws IOException, ClassNotFoundException {
+        final XBProjector projector = new XBProjector();
+        projector.config().setDocumentCache(new DefaultDocumentCache().setTimeToLive(1, TimeUnit.HOURS));
+        assertEquals("A1", projector.projectEmptyDocument(ExternalSetting.class).getFirstSettingName());
+        final XBProjector squishedProjector = cloneBySerialization(projector);
+        final DefaultDocumentCache cache = (DefaultDocumentCache) squishedProjector.config().getDocumentCache();
+        final ExternalSetting projection = squishedProjector.projectEmptyDocument(ExternalSetting.class);
+        assertEquals("A1", projection.getFirstSettingName());
+        assertEquals("A1", projection.getFirstSettingName());
+        assertEquals(1, cache.getStatistics().getMisses());
+        assertEquals(1, cache.getStatistics().getHits());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testProjectorSerializationKeepsHttpTransport() throws IOException, ClassNotFoundException {
+        final XBProjector projector = new XBProjector();
+        projector.config().setHttpTransport(new DefaultHttpTransport().setConnectTimeout(1234).setReadTimeout(5678));
+        final DefaultHttpTransport transport = (DefaultHttpTransport) cloneBySerialization(projector).config().getHttpTransport();
+        assertEquals(1234, transport.getConnectTimeout());
+        assertEquals(5678, transport.getReadTimeout());
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T cloneBySerialization(T object, Class<T>... clazz) throws IOException, ClassNotFoundException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
@@ -0,0 +1,72 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.util.intern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.xmlbeam.util.CacheStatistics;
+import org.xmlbeam.util.intern.BoundedCache;
+
+@SuppressWarnings("javadoc")
+public class TestBoundedCache {
+
+    @Test
+    public void testHitsAndMisses() {
+        final BoundedCache<String, String> cache = new BoundedCache<String, String>(10);
+        assertNull(cache.get("a"));
+        assertEquals("A", cache.putIfAbsent("a", "A"));
+        assertEquals("A", cache.putIfAbsent("a", "other"));
+        assertEquals("A", cache.get("a"));
+        final CacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHits());
+        assertEquals(1, statistics.getMisses());
+        assertEquals(0, statistics.getEvictions());
+        assertEquals(1, statistics.getSize());
+        assertEquals(0.5, statistics.getHitRatio(), 0.0);
+    }
+
+    @Test
+    public void testEvictionKeepsRecentlyUsedEntries() {
+        final BoundedCache<Integer, Integer> cache = new BoundedCache<Integer, Integer>(3);
+        cache.putIfAbsent(1, 1);
+        cache.putIfAbsent(2, 2);
+        cache.putIfAbsent(3, 3);
+        cache.get(1);
+        cache.putIfAbsent(4, 4);
+        assertEquals(Integer.valueOf(1), cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(3, cache.getStatistics().getSize());
+        assertEquals(1, cache.getStatistics().getEvictions());
+    }
+
+    @Test
+    public void testReducedCapacity() {
+        final BoundedCache<Integer, Integer> cache = new BoundedCache<Integer, Integer>(10);
+        for (int i = 0; i < 10; ++i) {
+            cache.putIfAbsent(i, i);
+        }
+        cache.setCapacity(4);
+        assertEquals(4, cache.getStatistics().getSize());
+        assertEquals(6, cache.getStatistics().getEvictions());
+        cache.setCapacity(0);
+        final Integer value = Integer.valueOf(42);
+        assertSame(value, cache.putIfAbsent(42, value));
+        assertEquals(0, cache.getStatistics().getSize());
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.xpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.XBProjector.Flags;
+import org.xmlbeam.annotation.XBDelete;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBValue;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.util.intern.DOMHelper;
+import org.xmlbeam.util.intern.DocumentIndex;
+
+/**
+ * Descendant steps are evaluated natively, with and without the element index.
+ * Flags.VERIFY_NATIVE_XPATH makes each evaluation fail if JAXP would have returned something else.
+ */
+@SuppressWarnings("javadoc")
+public class TestElementIndex {
+
+    private static final String XML = "<shop>" + //
+            "<item sku=\"a\"><name>Apple</name><item sku=\"a1\"><name>Apple Pie</name></item></item>" + //
+            "<item sku=\"b\"><name>Banana</name></item>" + //
+            "<box><item sku=\"c\"><name>Cherry</name></item></box>" + //
+            "</shop>";
+
+    public interface Shop {
+        @XBRead("count(//item)")
+        int getItemCount();
+
+        @XBRead("//item[@sku='{0}']/name")
+        String getName(String sku);
+
+        @XBRead("//item/name")
+        List<String> getItemNames();
+
+        @XBRead("/shop/item//name")
+        List<String> getNamesBelowTopLevelItems();
+
+        @XBRead("//item[name]//item/@sku")
+        List<String> getNestedSkus();
+
+        @XBRead("/shop/box")
+        Box getBox();
+
+        @XBWrite("/shop/box/item[@sku='{0}']/name")
+        void setName(String sku, @XBValue String name);
+
+        @XBDelete("/shop/item[@sku='b']")
+        void deleteBanana();
+    }
+
+    public interface Box {
+        @XBRead(".//name")
+        List<String> getNames();
+    }
+
+    private static void assertShop(final Shop shop) {
+        assertEquals(4, shop.getItemCount());
+        assertEquals("Cherry", shop.getName("c"));
+        assertEquals("Apple Pie", shop.getName("a1"));
+        assertEquals(Arrays.asList("Apple", "Apple Pie", "Banana", "Cherry"), shop.getItemNames());
+        assertEquals(Arrays.asList("Apple", "Apple Pie", "Banana"), shop.getNamesBelowTopLevelItems());
+        assertEquals(Arrays.asList("a1"), shop.getNestedSkus());
+        assertEquals(Arrays.asList("Cherry"), shop.getBox().getNames());
+    }
+
+    @Test
+    public void testDescendantStepsMatchJAXP() {
+        assertShop(new XBProjector(Flags.VERIFY_NATIVE_XPATH).projectXMLString(XML, Shop.class));
+        assertShop(new XBProjector(Flags.VERIFY_NATIVE_XPATH, Flags.INDEX_ELEMENT_NAMES).projectXMLString(XML, Shop.class));
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        final Shop shop = new XBProjector(Flags.VERIFY_NATIVE_XPATH, Flags.INDEX_ELEMENT_NAMES).projectXMLString(XML, Shop.class);
+        assertEquals(4, shop.getItemCount());
+        final Document document = ((DOMAccess) shop).getDOMOwnerDocument();
+        final List<?> items = DocumentIndex.forDocument(document).getElementsByName(null, "item");
+        assertSame(items, DocumentIndex.forDocument(document).getElementsByName(null, "item"));
+
+        shop.setName("d", "Date");
+        assertEquals(5, shop.getItemCount());
+        assertEquals("Date", shop.getName("d"));
+        assertNotSame(items, DocumentIndex.forDocument(document).getElementsByName(null, "item"));
+
+        shop.deleteBanana();
+        assertEquals(4, shop.getItemCount());
+        assertEquals(Arrays.asList("Apple", "Apple Pie", "Cherry", "Date"), shop.getItemNames());
+
+        // Renaming replaces the element, so the index sees it.
+        DOMHelper.renameNode(document.getDocumentElement().getFirstChild(), "product");
+        assertEquals(3, shop.getItemCount());
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.xpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.XBProjector.Flags;
+import org.xmlbeam.annotation.XBAuto;
+import org.xmlbeam.annotation.XBIndexed;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.annotation.XBValue;
+import org.xmlbeam.annotation.XBWrite;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.types.XBAutoList;
+import org.xmlbeam.types.XBAutoMap;
+import org.xmlbeam.util.intern.DocumentIndex;
+
+/**
+ * Key predicates of methods annotated with {@link XBIndexed} are looked up in a key index.
+ * Flags.VERIFY_NATIVE_XPATH makes each evaluation fail if JAXP would have returned something else.
+ */
+@SuppressWarnings("javadoc")
+public class TestKeyIndex {
+
+    private static final String XML = "<catalog>" + //
+            "<item id=\"a\"><name>Apple</name><price>1</price></item>" + //
+            "<item id=\"01\"><name>Banana</name><price>2</price></item>" + //
+            "<item id=\"1\"><name>Cherry</name><price>3</price><name>Kirsche</name></item>" + //
+            "<box><item id=\"a\"><name>Date</name><price>4</price></item></box>" + //
+            "</catalog>";
+
+    public interface Catalog {
+        @XBIndexed
+        @XBRead("/catalog/item[@id=$PARAM0]/price")
+        String getPrice(String id);
+
+        @XBIndexed
+        @XBRead("/catalog/item[@id=1]/name")
+        List<String> getNamesOfItemOne();
+
+        @XBIndexed
+        @XBRead("/catalog/item[@id=$PARAM0]/name")
+        List<String> getNames(int id);
+
+        @XBIndexed
+        @XBRead("//item[name=$PARAM0][price > 2]/@id")
+        String getIdOfExpensive(String name);
+
+        @XBIndexed
+        @XBRead("/catalog/item[@id='{0}']/name")
+        String getName(String id);
+
+        @XBRead("/catalog/item/name")
+        XBAutoList<String> getNameList();
+
+        @XBAuto("/catalog/item")
+        XBAutoList<Item> getItems();
+
+        @XBRead("/catalog")
+        XBAutoMap<String> getEntries();
+
+        @XBWrite("/catalog/item[@id=$PARAM0]/price")
+        void setPrice(String id, @XBValue String price);
+    }
+
+    public interface Item {
+        @XBWrite("@id")
+        Item setId(String id);
+
+        @XBWrite("name")
+        Item setName(String name);
+    }
+
+    @Test
+    public void testLookupsMatchJAXP() {
+        final Catalog catalog = new XBProjector(Flags.VERIFY_NATIVE_XPATH).projectXMLString(XML, Catalog.class);
+        assertEquals("1", catalog.getPrice("a"));
+        assertEquals("2", catalog.getPrice("01"));
+        assertNull(catalog.getPrice("x"));
+        // Numbers are compared by value, so "01" and "1" match.
+        assertEquals(Arrays.asList("Banana", "Cherry", "Kirsche"), catalog.getNamesOfItemOne());
+        // Parameters are rendered as strings.
+        assertEquals(Arrays.asList("Cherry", "Kirsche"), catalog.getNames(1));
+        assertEquals(Arrays.asList(), catalog.getNames(2));
+        assertEquals("a", catalog.getIdOfExpensive("Date"));
+        assertEquals("1", catalog.getIdOfExpensive("Kirsche"));
+        assertNull(catalog.getIdOfExpensive("Apple"));
+        assertEquals("Apple", catalog.getName("a"));
+
+        final Document document = ((DOMAccess) catalog).getDOMOwnerDocument();
+        final Map<?, ?> index = DocumentIndex.forDocument(document).getIndex("/catalog/item[@id]", null);
+        assertNotNull(index);
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testIndexFollowsChanges() {
+        final Catalog catalog = new XBProjector(Flags.VERIFY_NATIVE_XPATH).projectXMLString(XML, Catalog.class);
+        final Document document = ((DOMAccess) catalog).getDOMOwnerDocument();
+        assertEquals("1", catalog.getPrice("a"));
+        final Object index = DocumentIndex.forDocument(document).getIndex("/catalog/item[@id]", null);
+        assertSame(index, DocumentIndex.forDocument(document).getIndex("/catalog/item[@id]", null));
+
+        // Projection write
+        catalog.setPrice("e", "5");
+        assertEquals("5", catalog.getPrice("e"));
+
+        // AutoList
+        catalog.getItems().get(0).setId("f").setName("Fig");
+        assertEquals("Fig", catalog.getName("f"));
+        assertNull(catalog.getName("a"));
+        final XBAutoList<String> names = catalog.getNameList();
+        names.set(0, "Avocado");
+        assertEquals("Avocado", catalog.getName("f"));
+        names.remove(0);
+        assertNull(catalog.getName("f"));
+
+        // AutoMap changes the key of an existing item.
+        catalog.getEntries().put("item[2]/@id", "g");
+        assertEquals("2", catalog.getPrice("g"));
+        assertNull(catalog.getPrice("01"));
+
+        // DOM API
+        final Node item = document.getDocumentElement().getFirstChild();
+        assertEquals("1", catalog.getPrice("f"));
+        item.getParentNode().removeChild(item);
+        assertNull(catalog.getPrice("f"));
+    }
+}
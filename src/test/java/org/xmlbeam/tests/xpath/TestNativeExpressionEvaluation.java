@@ -0,0 +1,199 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.xpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathVariableResolver;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.XBProjector.Flags;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
+import org.xmlbeam.util.intern.duplex.NativeExpression;
+
+/**
+ * Functions, comparisons and boolean operators evaluated without JAXP. Flags.VERIFY_NATIVE_XPATH
+ * makes each evaluation fail if JAXP would have returned something else.
+ */
+@SuppressWarnings("javadoc")
+public class TestNativeExpressionEvaluation {
+
+    private static final String XML = "<shop>" + //
+            "<item price=\"2.5\" stock=\"3\"><name>  Green   Apple </name></item>" + //
+            "<item price=\"10\" stock=\"0\"><name>Banana</name></item>" + //
+            "<item price=\"7\"><name>Cherry</name></item>" + //
+            "</shop>";
+
+    public interface Shop {
+        @XBRead("count(/shop/item)")
+        int getItemCount();
+
+        @XBRead("count(/shop/item[@price > 5])")
+        int getExpensiveItemCount();
+
+        @XBRead("count(/shop/item[@stock != 0 and @price < {0}])")
+        int countAvailableCheaperThan(int price);
+
+        @XBRead("sum(/shop/item/@price)")
+        double getTotalPrice();
+
+        @XBRead("sum(/shop/item/@stock) div 2")
+        double getHalfStock();
+
+        @XBRead("normalize-space(/shop/item[1]/name)")
+        String getFirstName();
+
+        @XBRead("concat(/shop/item[2]/name, ':', /shop/item[2]/@price)")
+        String getSecondLabel();
+
+        @XBRead("string-length(/shop/item[3]/name)")
+        int getThirdNameLength();
+
+        @XBRead("substring(/shop/item[3]/name, 1.5, 2.6)")
+        String getSubstring();
+
+        @XBRead("substring(/shop/item[2]/name, number(/shop/item[1]/name))")
+        String getSubstringFromNaN();
+
+        @XBRead("substring(/shop/item[2]/name, 2, number(/shop/item[1]/name))")
+        String getSubstringOfNaNLength();
+
+        @XBRead("substring-after(/shop/item[2]/name, 'an')")
+        String getSubstringAfter();
+
+        @XBRead("substring-before(/shop/item[2]/name, 'an')")
+        String getSubstringBefore();
+
+        @XBRead("translate(/shop/item[2]/name, 'abn', 'AB')")
+        String getTranslated();
+
+        @XBRead("/shop/item[contains(name, '{0}')]/@price")
+        String findPrice(String namePart);
+
+        @XBRead("/shop/item[starts-with(name, 'Ch')]/@price")
+        String getPriceOfCh();
+
+        @XBRead("not(/shop/item[@price = 11]) or false()")
+        boolean hasNoItemForEleven();
+
+        @XBRead("/shop/item/@price = 7")
+        boolean hasItemForSeven();
+
+        @XBRead("/shop/item[not(@stock)]/name")
+        String getUnstocked();
+
+        @XBRead("-/shop/item[1]/@price > -3")
+        boolean isNegativePriceAboveMinusThree();
+
+        @XBRead("/shop/item[1]/@price * 3")
+        String getTriplePrice();
+
+        @XBRead("/shop/item[@price >= $PARAM0][1]/name")
+        String getFirstAtLeast(double price);
+
+        @XBRead("local-name(/shop/*[2])")
+        String getLocalName();
+
+        @XBRead("/shop/item[2]/@price > /shop/item/@stock")
+        boolean isComparedAcrossNodeSets();
+
+        @XBRead("number(/shop/item[1]/name)")
+        String getNotANumber();
+
+        @XBRead("boolean(/shop/item[4])")
+        boolean hasFourthItem();
+
+        @XBRead("/shop/item[string-length(name) = 6]/name")
+        List<String> getSixCharacterNames();
+    }
+
+    @Test
+    public void testExpressionsMatchJAXP() {
+        final Shop shop = new XBProjector(Flags.VERIFY_NATIVE_XPATH).projectXMLString(XML, Shop.class);
+        assertEquals(3, shop.getItemCount());
+        assertEquals(2, shop.getExpensiveItemCount());
+        assertEquals(1, shop.countAvailableCheaperThan(5));
+        assertEquals(0, shop.countAvailableCheaperThan(2));
+        assertEquals(19.5, shop.getTotalPrice(), 0.0);
+        assertEquals(1.5, shop.getHalfStock(), 0.0);
+        assertEquals("Green Apple", shop.getFirstName());
+        assertEquals("Banana:10", shop.getSecondLabel());
+        assertEquals(6, shop.getThirdNameLength());
+        assertEquals("her", shop.getSubstring());
+        assertEquals("Banana", shop.getSubstringFromNaN());
+        assertEquals("", shop.getSubstringOfNaNLength());
+        assertEquals("ana", shop.getSubstringAfter());
+        assertEquals("B", shop.getSubstringBefore());
+        assertEquals("BAAA", shop.getTranslated());
+        assertEquals("10", shop.findPrice("nan"));
+        assertEquals("7", shop.getPriceOfCh());
+        assertTrue(shop.hasNoItemForEleven());
+        assertTrue(shop.hasItemForSeven());
+        assertEquals("Cherry", shop.getUnstocked());
+        assertTrue(shop.isNegativePriceAboveMinusThree());
+        assertEquals("7.5", shop.getTriplePrice());
+        assertEquals("Banana", shop.getFirstAtLeast(6.5));
+        assertNull(shop.getFirstAtLeast(11.0));
+        assertEquals("item", shop.getLocalName());
+        assertTrue(shop.isComparedAcrossNodeSets());
+        assertEquals("NaN", shop.getNotANumber());
+        assertFalse(shop.hasFourthItem());
+        assertEquals(Arrays.asList("Banana", "Cherry"), shop.getSixCharacterNames());
+    }
+
+    @Test
+    public void testUnsupportedExpressionsFallBackToJAXP() {
+        for (String xpath : Arrays.asList("count(/a/b) > 2 and not(/a/c)", "concat('a', /x, 'b')", "string-length(normalize-space(/a))", "(/a/b)", "1.5 != -1", "/a = 'x' or /b")) {
+            assertNotNull(xpath, compile(xpath));
+        }
+        for (String xpath : Arrays.asList("/a/b[last()]", "/a/b[position() = 2]", "name(/a)", "ends-with(/a, 'x')", "1e3", "/a eq 'x'", "/a/b * 2")) {
+            assertNull(xpath, compile(xpath));
+        }
+    }
+
+    @Test
+    public void testSubstringWithNonFiniteArgumentFallsBackToJAXP() throws Exception {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        for (final double value : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY }) {
+            final XPathVariableResolver resolver = new XPathVariableResolver() {
+                @Override
+                public Object resolveVariable(final QName variableName) {
+                    return value;
+                }
+            };
+            assertNull(compile("substring('ab', $v)").evaluate(document, resolver));
+            assertNull(compile("substring('ab', 1, $v)").evaluate(document, resolver));
+        }
+        assertEquals("b", compile("substring('ab', 2)").evaluate(document, null));
+    }
+
+    private NativeExpression compile(final String xpath) {
+        return NativeExpression.compile(new DuplexXPathParser(Collections.<String, String> emptyMap()).compile(xpath), null);
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.tests.xpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.XBProjector.Flags;
+import org.xmlbeam.annotation.XBRead;
+import org.xmlbeam.dom.DOMAccess;
+import org.xmlbeam.util.intern.duplex.DuplexXPathParser;
+import org.xmlbeam.util.intern.duplex.NativeLocationPath;
+
+/**
+ * Simple location paths are evaluated without JAXP. Flags.VERIFY_NATIVE_XPATH makes each
+ * evaluation fail if JAXP would have returned something else.
+ */
+@SuppressWarnings("javadoc")
+public class TestNativeXPathEvaluation {
+
+    private static final String XML = "<order xmlns:x=\"urn:x\" id=\"o1\">" + //
+            "<customer id=\"c7\" type=\"vip\"><name>Alice</name></customer>" + //
+            "<item sku=\"a\" qty=\"2\"><name>Apple</name><x:note>fresh</x:note></item>" + //
+            "<item sku=\"b\" qty=\"10\"><name>Banana</name></item>" + //
+            "<item sku=\"c\"><name>Cherry</name><gift/></item>" + //
+            "</order>";
+
+    public interface Order {
+        @XBRead("/order/customer/@id")
+        String getCustomerId();
+
+        @XBRead("/order/@id")
+        String getOrderId();
+
+        @XBRead("/order/item[2]/name")
+        String getSecondItemName();
+
+        @XBRead("/order/item[@sku='c']/name")
+        String getNameOfC();
+
+        @XBRead("/order/item[@sku='{0}']/name")
+        String getItemName(String sku);
+
+        @XBRead("/order/item[name='Banana']/@sku")
+        String getSkuOfBanana();
+
+        @XBRead("/order/item[@qty=10]/@sku")
+        String getSkuWithQuantityTen();
+
+        @XBRead("/order/item[gift]/name")
+        String getGiftName();
+
+        @XBRead("/order/item[@qty][2]/name")
+        String getSecondItemWithQuantity();
+
+        @XBRead("/order/item/name")
+        List<String> getItemNames();
+
+        @XBRead("/order/*/@sku")
+        List<String> getSkus();
+
+        @XBRead("/order/item/x:note")
+        String getNote();
+
+        @XBRead("/order/customer/@*")
+        List<String> getCustomerAttributes();
+
+        @XBRead("child::order/child::customer/attribute::type")
+        String getCustomerType();
+
+        @XBRead("/order/item[5]/name")
+        String getMissingItem();
+
+        @XBRead("/order")
+        Customer getCustomer();
+    }
+
+    public interface Customer {
+        @XBRead("./customer/name")
+        String getName();
+
+        @XBRead("../order/@id")
+        String getOrderId();
+    }
+
+    @Test
+    public void testSimplePathsMatchJAXP() {
+        final Order order = new XBProjector(Flags.VERIFY_NATIVE_XPATH).projectXMLString(XML, Order.class);
+        assertEquals("c7", order.getCustomerId());
+        assertEquals("o1", order.getOrderId());
+        assertEquals("Banana", order.getSecondItemName());
+        assertEquals("Cherry", order.getNameOfC());
+        assertEquals("Apple", order.getItemName("a"));
+        assertEquals("Banana", order.getItemName("b"));
+        assertNull(order.getItemName("z"));
+        assertEquals("b", order.getSkuOfBanana());
+        assertEquals("b", order.getSkuWithQuantityTen());
+        assertEquals("Cherry", order.getGiftName());
+        assertEquals("Banana", order.getSecondItemWithQuantity());
+        assertEquals(Arrays.asList("Apple", "Banana", "Cherry"), order.getItemNames());
+        assertEquals(Arrays.asList("a", "b", "c"), order.getSkus());
+        assertEquals("fresh", order.getNote());
+        assertEquals(2, order.getCustomerAttributes().size());
+        assertEquals("vip", order.getCustomerType());
+        assertNull(order.getMissingItem());
+        assertEquals("Alice", order.getCustomer().getName());
+        assertEquals("o1", order.getCustomer().getOrderId());
+    }
+
+    @Test
+    public void testResultsEqualWithoutNativeEvaluation() {
+        final Order nativeOrder = new XBProjector(Flags.NATIVE_XPATH).projectXMLString(XML, Order.class);
+        final Order jaxpOrder = new XBProjector().projectXMLString(XML, Order.class);
+        assertEquals(jaxpOrder.getItemNames(), nativeOrder.getItemNames());
+        assertEquals(jaxpOrder.getItemName("c"), nativeOrder.getItemName("c"));
+        assertEquals(jaxpOrder.getSkuWithQuantityTen(), nativeOrder.getSkuWithQuantityTen());
+    }
+
+    @Test
+    public void testOnlySimplePathsAreCompiled() {
+        for (String xpath : Arrays.asList("/a/b/@c", "/a/b[2]/c", "a/b[@c='d'][1]", "b[c=$PARAM0]", "/a/b[@c!='d']", "/", "../a", "./a/*", "//a", "/a//b[@c]/d", ".//*")) {
+            assertNotNull(xpath, compile(xpath));
+        }
+        for (String xpath : Arrays.asList("//a[1]", "//@a", "count(/a/b)", "/a/b[last()]", "/a/text()", "/a/b/..", "/a | /b", "/a/@b[1]", "/a/p:b")) {
+            assertNull(xpath, compile(xpath));
+        }
+    }
+
+    @Test
+    public void testChangesAffectingSelection() {
+        final Document document = ((DOMAccess) new XBProjector().projectXMLString(XML, Order.class)).getDOMOwnerDocument();
+        final Node order = document.getDocumentElement();
+        final Node customer = order.getFirstChild();
+        final Node item = customer.getNextSibling();
+        final Node name = item.getFirstChild();
+        final NativeLocationPath items = compile("/order/item");
+        assertTrue(items.isAffectedBy(document, document));
+        assertTrue(items.isAffectedBy(document, order));
+        assertFalse(items.isAffectedBy(document, customer));
+        assertFalse(items.isAffectedBy(document, item));
+        assertFalse(items.isAffectedBy(document, name));
+        final NativeLocationPath names = compile("/order/item[@sku]/name");
+        assertTrue(names.isAffectedBy(document, item));
+        assertTrue(names.isAffectedBy(document, name));
+        assertFalse(names.isAffectedBy(document, customer));
+        final NativeLocationPath relative = compile("item/name");
+        assertTrue(relative.isAffectedBy(order, item));
+        assertFalse(relative.isAffectedBy(item, order));
+        assertFalse(relative.isAffectedBy(order, name));
+        assertTrue(compile("//item").isAffectedBy(document, name));
+    }
+
+    private NativeLocationPath compile(final String xpath) {
+        return NativeLocationPath.compile(new DuplexXPathParser(Collections.<String, String> emptyMap()).compile(xpath), null);
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ *  Copyright 2026 Sven Ewald
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.xmlbeam.util.intern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xmlbeam.XBProjector;
+import org.xmlbeam.config.DefaultXMLFactoriesConfig;
+
+@SuppressWarnings("javadoc")
+public class TestDOMSerializer {
+
+    private static final String[] SAMPLES = { //
+            "<root/>", //
+            "<root><a>text</a><b x=\"1\" y=\"2\"/><c/></root>", //
+            "<root>\n  <a>\n\n    indented\n  </a>\n  <b>  </b>\n</root>", //
+            "<root a=\"&lt;&gt;&amp;&quot;'&#9;&#10;&#13;\">&lt;&gt;&amp;\"'\t&#13;\u0085é€😀</root>", //
+            "<root>mixed <b>content</b> with <i>elements</i> inside</root>", //
+            "<root><![CDATA[<cdata> & ]]]]><![CDATA[> stuff]]>text<![CDATA[😀-]]></root>", //
+            "<!--before--><?pi data?><root><!-- a comment --><?target?><?target with data?></root><!--after-->", //
+            "<p:root xmlns:p=\"urn:p\" xmlns=\"urn:d\" p:a=\"1\"><child><p:child xmlns:q=\"urn:q\" q:b=\"2\"/></child></p:root>", //
+            "<root xmlns:a=\"urn:a\" xmlns:b=\"urn:b\"><a:x xmlns:a=\"urn:other\"><b:y/></a:x><x xmlns=\"urn:x\"><y/></x></root>", //
+            "<root xml:lang=\"en\"><a>1</a>2<b>3</b>  <c/>\n</root>" };
+
+    private Document[] samples;
+
+    @Before
+    public void parseSamples() throws Exception {
+        Assume.assumeTrue("The serializer reproduces the transformers of Java 9 and later.", ReflectionHelper.JAVA_VERSION > 8);
+        samples = new Document[SAMPLES.length];
+        for (int i = 0; i < SAMPLES.length; ++i) {
+            samples[i] = parse(SAMPLES[i], true);
+        }
+    }
+
+    private static Document parse(final String xml, final boolean isNamespaceAware) throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(isNamespaceAware);
+        return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+
+    private static void assertSameOutput(final Node node) throws Exception {
+        for (int mode = 0; mode < 4; ++mode) {
+            final DefaultXMLFactoriesConfig config = new DefaultXMLFactoriesConfig().setPrettyPrinting((mode & 1) != 0).setOmitXMLDeclaration((mode & 2) != 0);
+            final DOMSerializer serializer = config.getSerializer();
+            assertNotNull(serializer);
+            assertTrue(serializer.canWrite(node));
+            final Transformer transformer = config.createTransformer();
+            final ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+            transformer.transform(new DOMSource(node), new StreamResult(expectedBytes));
+            final StringWriter expectedString = new StringWriter();
+            transformer.transform(new DOMSource(node), new StreamResult(expectedString));
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            serializer.write(node, bytes);
+            assertEquals(expectedString.toString(), serializer.toXMLString(node));
+            assertArrayEquals(expectedBytes.toByteArray(), bytes.toByteArray());
+        }
+    }
+
+    @Test
+    public void testParsedDocumentsAreWrittenLikeByTransformer() throws Exception {
+        for (Document document : samples) {
+            assertSameOutput(document);
+            assertSameOutput(document.getDocumentElement());
+            final Node firstChild = document.getDocumentElement().getFirstChild();
+            if ((firstChild != null) && (firstChild.getNodeType() == Node.ELEMENT_NODE)) {
+                assertSameOutput(firstChild);
+            }
+        }
+    }
+
+    @Test
+    public void testBuiltDocumentsAreWrittenLikeByTransformer() throws Exception {
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        final Element root = document.createElementNS("urn:p", "p:root");
+        document.appendChild(root);
+        root.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:q", "urn:q");
+        root.setAttribute("plain", "1");
+        root.setAttributeNS("urn:r", "r:attribute", "2");
+        final Element child = document.createElementNS("urn:d", "child");
+        root.appendChild(child);
+        child.appendChild(document.createElementNS("urn:p", "p:grandchild"));
+        child.appendChild(document.createTextNode(""));
+        child.appendChild(document.createCDATASection("\u0001cdata"));
+        root.appendChild(document.createElement("noNamespace"));
+        root.appendChild(document.createComment("a -- comment-"));
+        root.appendChild(document.createTextNode("text"));
+        root.appendChild(document.createTextNode("\nmerged"));
+        root.appendChild(document.createProcessingInstruction("space", "  data"));
+        root.appendChild(document.createProcessingInstruction("nbsp", "\u00a0data"));
+        root.appendChild(document.createProcessingInstruction("tab", "\tdata"));
+        assertSameOutput(document);
+        assertSameOutput(child);
+    }
+
+    @Test
+    public void testUnsupportedTreesAreRejected() throws Exception {
+        final DOMSerializer serializer = new DOMSerializer(true, false);
+        final Document document = samples[1];
+        assertFalse(serializer.canWrite(document.getDocumentElement().getFirstChild().getFirstChild()));
+        assertFalse(serializer.canWrite(parse("<p:root xmlns:p=\"urn:p\"/>", false)));
+        assertFalse(serializer.canWrite(parse("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><root/>", true)));
+        assertFalse(serializer.canWrite(parse("<!DOCTYPE root><root/>", true)));
+        final Document withPI = parse("<root/>", true);
+        withPI.getDocumentElement().appendChild(withPI.createProcessingInstruction("pi", "a?>b"));
+        assertFalse(serializer.canWrite(withPI));
+        document.getDocumentElement().setAttribute("broken", "\ud83d");
+        assertFalse(serializer.canWrite(document));
+    }
+
+    @Test
+    public void testProjectorFallsBackToTransformer() throws Exception {
+        final DefaultXMLFactoriesConfig config = new DefaultXMLFactoriesConfig();
+        final XBProjector projector = new XBProjector(config);
+        final Document document = parse("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><root>é</root>", true);
+        final String expected = DOMHelper.toXMLString(projector, document);
+        config.setNativeSerialization(false);
+        assertNull(config.getSerializer());
+        assertEquals(expected, DOMHelper.toXMLString(projector, document));
+        config.setNativeSerialization(true);
+        assertNotNull(config.getSerializer());
+    }
+
+    @Test
+    public void testNoSerializerForCustomTransformers() {
+        final DefaultXMLFactoriesConfig config = new DefaultXMLFactoriesConfig() {
+            @Override
+            public Transformer createTransformer(final Document... document) {
+                return super.createTransformer(document);
+            }
+        };
+        assertNull(config.getSerializer());
+    }
+}